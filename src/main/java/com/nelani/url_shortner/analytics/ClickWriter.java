@@ -0,0 +1,112 @@
+package com.nelani.url_shortner.analytics;
+
+import com.nelani.url_shortner.clicklog.ClickLog;
+import com.nelani.url_shortner.clicklog.ClickRecord;
+import com.nelani.url_shortner.live.ClickEvent;
+import com.nelani.url_shortner.live.ClickFeedHub;
+import com.nelani.url_shortner.logging.LogSampler;
+import com.nelani.url_shortner.metrics.ShortenerMetrics;
+import com.nelani.url_shortner.metrics.ShortenerMetrics.Stage;
+import com.nelani.url_shortner.model.RequestData;
+import com.nelani.url_shortner.repository.RequestDataRepository;
+import com.nelani.url_shortner.shard.Shards;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Last stage of the click pipeline: stores enriched clicks in the click log or
+ * in {@code request_data}, then publishes them to the live feed. A batch is
+ * saved with one transaction per shard, so its inserts go out as JDBC batches.
+ */
+@Log4j2
+@Component
+public class ClickWriter {
+
+    // Fails on every batch while the database is down
+    private static final LogSampler PERSIST_FAILURES = new LogSampler(Duration.ofSeconds(10));
+
+    private final RequestDataRepository requestDataRepository;
+    private final ClickLog clickLog;
+    private final ClickFeedHub clickFeedHub;
+    private final ShortenerMetrics metrics;
+    private final Shards shards;
+
+    public ClickWriter(RequestDataRepository requestDataRepository, ClickLog clickLog, ClickFeedHub clickFeedHub,
+            ShortenerMetrics metrics, Shards shards) {
+        this.requestDataRepository = requestDataRepository;
+        this.clickLog = clickLog;
+        this.clickFeedHub = clickFeedHub;
+        this.metrics = metrics;
+        this.shards = shards;
+    }
+
+    /**
+     * Stores the clicks, failures are logged but not rethrown.
+     *
+     * @return the id each click was stored under, in order, null for a click
+     *         that was not stored
+     */
+    public List<UUID> write(List<PendingClick> clicks) {
+        final UUID[] stored = new UUID[clicks.size()];
+
+        final long persistStart = System.nanoTime();
+        if (clickLog.isEnabled()) {
+            for (int i = 0; i < clicks.size(); i++) {
+                try {
+                    final ClickRecord record = ClickRecord.of(clicks.get(i).data());
+                    clickLog.append(record);
+                    stored[i] = record.id();
+                } catch (Exception ex) {
+                    logFailure(1, ex);
+                }
+            }
+        } else {
+            saveByShard(clicks, stored);
+        }
+        metrics.record(Stage.CLICK_PERSIST, persistStart);
+
+        // Live feed subscribers see the clicks whether or not they were stored
+        for (PendingClick click : clicks) {
+            final RequestData data = click.data();
+            final long clickedAt = data.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            clickFeedHub.publish(new ClickEvent(click.shortCode(), clickedAt, data.getCountry(), data.getCity()));
+        }
+        return Arrays.asList(stored);
+    }
+
+    // Sharded, each click next to the url it belongs to
+    private void saveByShard(List<PendingClick> clicks, UUID[] stored) {
+        final Map<Integer, List<Integer>> byShard = new LinkedHashMap<>();
+        for (int i = 0; i < clicks.size(); i++) {
+            byShard.computeIfAbsent(shards.shardOf(clicks.get(i).shortCode()), shard -> new ArrayList<>()).add(i);
+        }
+
+        for (List<Integer> indexes : byShard.values()) {
+            final List<RequestData> rows = indexes.stream().map(i -> clicks.get(i).data()).toList();
+            try {
+                shards.onShardOf(clicks.get(indexes.getFirst()).shortCode(), () -> requestDataRepository.saveAll(rows));
+                for (int i : indexes) {
+                    stored[i] = clicks.get(i).data().getId();
+                }
+            } catch (Exception ex) {
+                logFailure(rows.size(), ex);
+            }
+        }
+    }
+
+    private static void logFailure(int clicks, Exception ex) {
+        if (PERSIST_FAILURES.shouldLog()) {
+            log.error("Failed to persist {} clicks : {} ({} similar failures not logged)",
+                    clicks, ex.getMessage(), PERSIST_FAILURES.takeSuppressed());
+        }
+    }
+}
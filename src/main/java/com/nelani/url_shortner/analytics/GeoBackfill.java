@@ -0,0 +1,168 @@
+package com.nelani.url_shortner.analytics;
+
+import com.nelani.url_shortner.dto.GeoInfo;
+import com.nelani.url_shortner.logging.LogSampler;
+import com.nelani.url_shortner.repository.RequestDataRepository;
+import com.nelani.url_shortner.service.GeoLookupService;
+import com.nelani.url_shortner.shard.Shards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fills in the country and city of clicks stored without them because their
+ * geo lookup timed out or failed. The IP of such a click is held in memory
+ * only, never stored, so clicks still waiting at shutdown keep null geo data.
+ *
+ * A click written to the click log is in {@code request_data} only once its
+ * segment is loaded, until then its update finds no row and is retried.
+ */
+@Log4j2
+@Component
+public class GeoBackfill {
+
+    private static final LogSampler FAILURES = new LogSampler(Duration.ofSeconds(10));
+
+    private final GeoLookupService geoLookupService;
+    private final RequestDataRepository requestDataRepository;
+    private final Shards shards;
+    private final int maxPending;
+    private final int batchSize;
+    private final long maxAgeMs;
+
+    private final Queue<Pending> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Counter backfilled;
+    private final Counter abandoned;
+
+    record Pending(UUID id, String shortCode, String ip, long since) {
+    }
+
+    public GeoBackfill(GeoLookupService geoLookupService, RequestDataRepository requestDataRepository,
+            Shards shards, MeterRegistry meterRegistry,
+            @Value("${analytics.geo.backfill.max-pending:100000}") int maxPending,
+            @Value("${analytics.geo.backfill.batch-size:100}") int batchSize,
+            @Value("${analytics.geo.backfill.max-age-ms:3600000}") long maxAgeMs) {
+        this.geoLookupService = geoLookupService;
+        this.requestDataRepository = requestDataRepository;
+        this.shards = shards;
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+        this.maxAgeMs = maxAgeMs;
+
+        this.backfilled = Counter.builder("analytics.geo.backfilled")
+                .description("Clicks whose geo data was filled in after they were stored")
+                .register(meterRegistry);
+        this.abandoned = Counter.builder("analytics.geo.backfill.abandoned")
+                .description("Clicks left without geo data, the backlog was full or they waited too long")
+                .register(meterRegistry);
+        meterRegistry.gauge("analytics.geo.backfill.pending", size);
+    }
+
+    /**
+     * Queues a stored click for a later lookup of its IP.
+     */
+    public void register(UUID id, String shortCode, String ip) {
+        enqueue(new Pending(id, shortCode, ip, System.currentTimeMillis()));
+    }
+
+    public int pending() {
+        return size.get();
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.geo.backfill.interval-ms:30000}")
+    public void backfill() {
+        // Clicks queued while this run is going wait for the next one
+        for (int remaining = size.get(); remaining > 0; remaining -= batchSize) {
+            final List<Pending> batch = new ArrayList<>(batchSize);
+            Pending next;
+            while (batch.size() < batchSize && (next = pending.poll()) != null) {
+                size.decrementAndGet();
+                batch.add(next);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            if (!backfill(batch)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return false when the provider could not be reached, the batch is
+     *         queued again and the run ends
+     */
+    private boolean backfill(List<Pending> batch) {
+        final Set<String> ips = new LinkedHashSet<>();
+        batch.forEach(click -> ips.add(click.ip()));
+
+        final Map<String, GeoInfo> geo;
+        try {
+            geo = geoLookupService.lookupAll(ips);
+        } catch (Exception ex) {
+            if (FAILURES.shouldLog()) {
+                log.warn("Geo backfill lookup failed : {} ({} similar failures not logged)",
+                        ex.getMessage(), FAILURES.takeSuppressed());
+            }
+            batch.forEach(this::retry);
+            return false;
+        }
+
+        for (Pending click : batch) {
+            final GeoInfo info = geo.get(click.ip());
+            if (info == null) {
+                retry(click);
+                continue;
+            }
+            try {
+                final int updated = shards.onShardOf(click.shortCode(),
+                        () -> requestDataRepository.updateGeo(click.id(), info.country(), info.city()));
+                if (updated > 0) {
+                    backfilled.increment();
+                } else {
+                    // Not loaded from the click log yet, or deleted with its url
+                    retry(click);
+                }
+            } catch (Exception ex) {
+                if (FAILURES.shouldLog()) {
+                    log.warn("Geo backfill update failed for click={} : {} ({} similar failures not logged)",
+                            click.id(), ex.getMessage(), FAILURES.takeSuppressed());
+                }
+                retry(click);
+            }
+        }
+        return true;
+    }
+
+    private void retry(Pending click) {
+        if (System.currentTimeMillis() - click.since() >= maxAgeMs) {
+            abandoned.increment();
+            return;
+        }
+        enqueue(click);
+    }
+
+    private void enqueue(Pending click) {
+        if (size.incrementAndGet() > maxPending) {
+            size.decrementAndGet();
+            abandoned.increment();
+            return;
+        }
+        pending.add(click);
+    }
+}
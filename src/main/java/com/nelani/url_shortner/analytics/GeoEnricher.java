@@ -0,0 +1,248 @@
+package com.nelani.url_shortner.analytics;
+
+import com.nelani.url_shortner.dto.GeoInfo;
+import com.nelani.url_shortner.logging.LogSampler;
+import com.nelani.url_shortner.metrics.ShortenerMetrics;
+import com.nelani.url_shortner.metrics.ShortenerMetrics.Stage;
+import com.nelani.url_shortner.service.GeoLookupService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Geo stage of the click pipeline. Clicks are queued and taken in
+ * micro-batches (up to {@code analytics.geo.batch-size} clicks, or what
+ * arrived within {@code analytics.geo.max-wait-ms}); the unique IPs of a
+ * batch are looked up in one call, then the batch goes to the
+ * {@link ClickWriter}. The lookup and the write never overlap, so a slow geo
+ * provider holds no database connection.
+ *
+ * A lookup that takes longer than {@code analytics.geo.timeout-ms} or fails
+ * does not hold the batch back: its clicks are stored without geo data and
+ * handed to {@link GeoBackfill}. With batching disabled every click is looked
+ * up and written on the calling thread.
+ */
+@Log4j2
+@Component
+public class GeoEnricher {
+
+    // Both fail on every batch while the provider is down or the queue is full
+    private static final LogSampler GEO_FAILURES = new LogSampler(Duration.ofSeconds(10));
+    private static final LogSampler DROPPED = new LogSampler(Duration.ofSeconds(10));
+
+    private final GeoLookupService geoLookupService;
+    private final ClickWriter clickWriter;
+    private final GeoBackfill geoBackfill;
+    private final ShortenerMetrics metrics;
+    private final boolean batching;
+    private final int batchSize;
+    private final long maxWaitNanos;
+    private final long timeoutMs;
+
+    private final BlockingQueue<PendingClick> queue;
+    private final ExecutorService lookups;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    private final Counter timeouts;
+    private final Counter dropped;
+    private final DistributionSummary batchSizes;
+
+    public GeoEnricher(GeoLookupService geoLookupService, ClickWriter clickWriter, GeoBackfill geoBackfill,
+            ShortenerMetrics metrics, MeterRegistry meterRegistry,
+            @Value("${analytics.geo.batching.enabled:true}") boolean batching,
+            @Value("${analytics.geo.batch-size:100}") int batchSize,
+            @Value("${analytics.geo.max-wait-ms:200}") long maxWaitMs,
+            @Value("${analytics.geo.timeout-ms:2000}") long timeoutMs,
+            @Value("${analytics.geo.queue-capacity:10000}") int queueCapacity) {
+        this.geoLookupService = geoLookupService;
+        this.clickWriter = clickWriter;
+        this.geoBackfill = geoBackfill;
+        this.metrics = metrics;
+        this.batching = batching;
+        this.batchSize = batchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.timeoutMs = timeoutMs;
+
+        this.timeouts = Counter.builder("analytics.geo.timeouts")
+                .description("Click batches stored without geo data because the lookup timed out or failed")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("analytics.geo.dropped")
+                .description("Clicks dropped because the geo queue was full")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("analytics.geo.batch.size")
+                .description("Clicks per geo lookup batch")
+                .register(meterRegistry);
+
+        if (batching) {
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            meterRegistry.gauge("analytics.geo.queue.depth", queue, BlockingQueue::size);
+            this.lookups = Executors.newVirtualThreadPerTaskExecutor();
+            this.worker = Thread.ofPlatform().name("geo-enricher").daemon().start(this::run);
+        } else {
+            this.queue = null;
+            this.lookups = null;
+            this.worker = null;
+        }
+    }
+
+    /**
+     * Queues a click for enrichment and storage. Analytics is best-effort:
+     * when the queue is full the click is dropped rather than blocking.
+     */
+    public void submit(PendingClick click) {
+        if (!batching) {
+            process(List.of(click));
+            return;
+        }
+        if (!queue.offer(click)) {
+            dropped.increment();
+            if (DROPPED.shouldLog()) {
+                log.warn("Geo queue of {} clicks is full, dropping request data ({} more dropped)",
+                        queue.remainingCapacity() + queue.size(), DROPPED.takeSuppressed());
+            }
+        }
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            // A new list per batch, the writer may hold on to the one it was given
+            final List<PendingClick> batch = new ArrayList<>(batchSize);
+            try {
+                final PendingClick first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Take what is queued, then wait out the rest of the window for more
+                final long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    final long left = deadline - System.nanoTime();
+                    final PendingClick next = left > 0 ? queue.poll(left, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                process(batch);
+            } catch (InterruptedException ex) {
+                // Shutting down, the clicks taken so far are still written
+                process(batch);
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                log.error("Geo enrichment of {} clicks failed : {}", batch.size(), ex.getMessage());
+            }
+        }
+    }
+
+    private void process(List<PendingClick> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        batchSizes.record(batch.size());
+
+        final long geoStart = System.nanoTime();
+        final Map<String, GeoInfo> geo = resolve(batch);
+        metrics.record(Stage.GEO_LOOKUP, geoStart);
+
+        for (PendingClick click : batch) {
+            final GeoInfo info = geo.get(click.ip());
+            if (info != null) {
+                click.data().setCountry(info.country());
+                click.data().setCity(info.city());
+            }
+        }
+
+        final List<UUID> stored = clickWriter.write(batch);
+        for (int i = 0; i < batch.size(); i++) {
+            final PendingClick click = batch.get(i);
+            if (stored.get(i) != null && !geo.containsKey(click.ip())) {
+                geoBackfill.register(stored.get(i), click.shortCode(), click.ip());
+            }
+        }
+    }
+
+    /**
+     * @return the geo data of the batch's IPs, without those that could not be
+     *         resolved in time
+     */
+    private Map<String, GeoInfo> resolve(List<PendingClick> batch) {
+        final Set<String> ips = new LinkedHashSet<>();
+        batch.forEach(click -> ips.add(click.ip()));
+
+        if (!batching) {
+            try {
+                return geoLookupService.lookupAll(ips);
+            } catch (Exception ex) {
+                logFailure(ips.size(), ex.getMessage());
+                return Map.of();
+            }
+        }
+
+        final Future<Map<String, GeoInfo>> lookup = lookups.submit(() -> geoLookupService.lookupAll(ips));
+        try {
+            return lookup.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            lookup.cancel(true);
+            timeouts.increment();
+            logFailure(ips.size(), "timed out after " + timeoutMs + " ms");
+        } catch (ExecutionException ex) {
+            timeouts.increment();
+            logFailure(ips.size(), ex.getCause().getMessage());
+        } catch (InterruptedException ex) {
+            lookup.cancel(true);
+            Thread.currentThread().interrupt();
+        }
+        return Map.of();
+    }
+
+    private static void logFailure(int ips, String reason) {
+        if (GEO_FAILURES.shouldLog()) {
+            log.warn("Geo lookup of {} IPs failed, storing without geo data : {} ({} similar failures not logged)",
+                    ips, reason, GEO_FAILURES.takeSuppressed());
+        }
+    }
+
+    /**
+     * Writes what is still queued, waiting at most {@code analytics.geo.timeout-ms}
+     * per batch for its lookup.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (worker == null) {
+            return;
+        }
+        running = false;
+        final long perBatch = timeoutMs + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos);
+        final int batches = queue.size() / batchSize + 1;
+        worker.join(Math.max(1000L, perBatch * batches));
+        worker.interrupt();
+        lookups.shutdownNow();
+    }
+}
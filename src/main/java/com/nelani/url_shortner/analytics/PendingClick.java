@@ -0,0 +1,10 @@
+package com.nelani.url_shortner.analytics;
+
+import com.nelani.url_shortner.model.RequestData;
+
+/**
+ * A click on its way to storage. The client IP is kept only until the click
+ * has its geo data, it is never stored.
+ */
+public record PendingClick(RequestData data, String shortCode, String ip) {
+}
@@ -0,0 +1,198 @@
+package com.nelani.url_shortner.archive;
+
+import com.nelani.url_shortner.archive.ClickArchiveFile.Column;
+import com.nelani.url_shortner.clicklog.ClickRecord;
+import com.nelani.url_shortner.model.StatsGroupBy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Directory of {@link ClickArchiveFile}s holding click data moved out of
+ * {@code request_data}.
+ *
+ * A file is first written as {@code .pending}, then the archived rows are
+ * deleted from the database, then the file is renamed to {@code .col}. A
+ * pending file left by a crash is kept only if its probe row (the first
+ * archived row) is gone from the database, i.e. the delete committed.
+ *
+ * Next to each file a {@link ClickArchiveSummary} ({@code .sum}) is written
+ * with it, which stats queries read instead of the rows. A file missing its
+ * summary, or holding an unreadable one, is summarized again on first read.
+ */
+@Log4j2
+@Component
+public class ClickArchive {
+
+    static final String FILE_SUFFIX = ".col";
+    static final String PENDING_SUFFIX = ".pending";
+    static final String SUMMARY_SUFFIX = ".sum";
+
+    private final boolean enabled;
+    private final Path directory;
+
+    public ClickArchive(@Value("${analytics.archive.enabled:false}") boolean enabled,
+            @Value("${analytics.archive.path:./data/click-archive}") Path directory) {
+        this.enabled = enabled;
+        this.directory = directory;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean hasFiles() {
+        return enabled && !files().isEmpty();
+    }
+
+    /**
+     * @return published archive files, oldest first
+     */
+    public List<Path> files() {
+        return list(FILE_SUFFIX);
+    }
+
+    /**
+     * Writes {@code clicks} to a new pending file, and its summary.
+     */
+    public Path write(List<ClickRecord> clicks) throws IOException {
+        Files.createDirectories(directory);
+        final ClickRecord first = clicks.getFirst();
+        final Path pending = directory.resolve(
+                String.format("%020d-%s%s", first.timestampMillis(), first.id(), PENDING_SUFFIX));
+        ClickArchiveFile.write(pending, first.id(), clicks);
+        ClickArchiveSummary.write(summaryOf(pending), ClickArchiveFile.open(pending));
+        return pending;
+    }
+
+    public void publish(Path pending) throws IOException {
+        Files.move(pending, published(pending), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public void discard(Path pending) {
+        try {
+            Files.deleteIfExists(pending);
+            Files.deleteIfExists(summaryOf(pending));
+        } catch (IOException ex) {
+            log.warn("Failed to delete pending archive file {}: {}", pending.getFileName(), ex.getMessage());
+        }
+    }
+
+    /**
+     * Settles pending files left by an interrupted archive run.
+     *
+     * @param inDatabase tells whether a request data id still exists
+     */
+    public void recoverPending(Predicate<UUID> inDatabase) throws IOException {
+        for (Path pending : list(PENDING_SUFFIX)) {
+            final UUID probeId = ClickArchiveFile.open(pending).probeId();
+            if (inDatabase.test(probeId)) {
+                log.warn("Discarding archive file {}, its rows were never deleted", pending.getFileName());
+                discard(pending);
+            } else {
+                log.warn("Publishing archive file {}, its rows were already deleted", pending.getFileName());
+                publish(pending);
+            }
+        }
+    }
+
+    /**
+     * @return every short URL id referenced by the archive
+     */
+    public Set<UUID> shortUrlIds() throws IOException {
+        final Set<UUID> ids = new HashSet<>();
+        for (Path file : files()) {
+            final UUID[] dictionary = ClickArchiveFile.open(file).shortUrlIds();
+            for (int i = 1; i < dictionary.length; i++) {
+                ids.add(dictionary[i]);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Adds the summary of every archive file to {@code accumulator}, grouped
+     * like the stats queries. Clicks of short URLs missing from
+     * {@code shortCodes} were deleted since and are left out; URL groups are
+     * keyed by short code.
+     */
+    public void scan(StatsGroupBy groupBy, Map<UUID, String> shortCodes, StatsAccumulator accumulator)
+            throws IOException {
+        for (Path file : files()) {
+            final ClickArchiveFile archive = ClickArchiveFile.open(file);
+            final UUID[] urls = archive.shortUrlIds();
+            final Column column = columnOf(groupBy);
+            final String[] values = column == Column.SHORT_URL ? null : archive.dictionary(column);
+
+            summary(file, archive).forEach(groupBy, (url, value, accessCount, devices) -> {
+                final String shortCode = shortCodes.get(urls[url]);
+                if (shortCode != null) {
+                    accumulator.add(values == null ? shortCode : values[value], accessCount, devices);
+                }
+            });
+        }
+    }
+
+    static Column columnOf(StatsGroupBy groupBy) {
+        return switch (groupBy) {
+            case URL -> Column.SHORT_URL;
+            case COUNTRY -> Column.COUNTRY;
+            case CITY -> Column.CITY;
+            case USER_AGENT -> Column.USER_AGENT;
+        };
+    }
+
+    private ClickArchiveSummary summary(Path file, ClickArchiveFile archive) throws IOException {
+        final Path summary = summaryOf(file);
+        if (Files.exists(summary)) {
+            try {
+                return ClickArchiveSummary.open(summary);
+            } catch (IOException ex) {
+                log.warn("Summarizing archive file {} again, its summary is unreadable: {}",
+                        file.getFileName(), ex.getMessage());
+            }
+        } else {
+            log.info("Summarizing archive file {}", file.getFileName());
+        }
+        ClickArchiveSummary.write(summary, archive);
+        return ClickArchiveSummary.open(summary);
+    }
+
+    private List<Path> list(String suffix) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> file.getFileName().toString().endsWith(suffix))
+                    .sorted()
+                    .toList();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to list click archive at " + directory, ex);
+        }
+    }
+
+    // Named after the file without its suffix, so it outlives publishing
+    private static Path summaryOf(Path file) {
+        final String name = file.getFileName().toString();
+        return file.resolveSibling(name.substring(0, name.lastIndexOf('.')) + SUMMARY_SUFFIX);
+    }
+
+    private static Path published(Path pending) {
+        final String name = pending.getFileName().toString();
+        return pending.resolveSibling(name.substring(0, name.length() - PENDING_SUFFIX.length()) + FILE_SUFFIX);
+    }
+}
@@ -0,0 +1,313 @@
+package com.nelani.url_shortner.archive;
+
+import com.nelani.url_shortner.clicklog.ClickRecord;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.zip.DataFormatException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Read-only columnar file of archived clicks. Every dimension is dictionary
+ * encoded: each file carries one dictionary per column and stores an int
+ * index per row, with index 0 meaning null. Timestamps are stored as int
+ * deltas from the previous row, so a file may only span less than 24 days
+ * (the archiver writes one per day at most).
+ *
+ * <pre>
+ *   0  int    magic
+ *   4  int    version
+ *   8  int    rows
+ *  12  long   probe id (msb, lsb), the first archived row, see {@link ClickArchive}
+ *  28  long   first timestamp, epoch milliseconds
+ *  36  long   last timestamp
+ *  44  int[13] deflated length of each section
+ *  96  sections: six dictionaries, the timestamp deltas, six index columns
+ * </pre>
+ *
+ * Each section is deflated on its own, so a scan only inflates the columns it
+ * reads.
+ */
+public final class ClickArchiveFile {
+
+    public enum Column {
+        SHORT_URL, DEVICE, COUNTRY, CITY, REFERRER, USER_AGENT
+    }
+
+    private static final int MAGIC = 0x434C4B41;
+    private static final int VERSION = 1;
+    private static final int COLUMNS = Column.values().length;
+    private static final int TIMESTAMP_SECTION = COLUMNS;
+    private static final int SECTIONS = COLUMNS * 2 + 1;
+    private static final int HEADER_BYTES = 44 + SECTIONS * 4;
+
+    private final ByteBuffer file;
+    private final int rows;
+    private final UUID probeId;
+    private final long firstTimestamp;
+    private final long lastTimestamp;
+    private final int[] sectionOffsets = new int[SECTIONS + 1];
+
+    private ClickArchiveFile(ByteBuffer file) throws IOException {
+        if (file.capacity() < HEADER_BYTES || file.getInt(0) != MAGIC) {
+            throw new IOException("Not a click archive file");
+        }
+        if (file.getInt(4) != VERSION) {
+            throw new IOException("Unsupported click archive version " + file.getInt(4));
+        }
+        this.file = file;
+        this.rows = file.getInt(8);
+        this.probeId = new UUID(file.getLong(12), file.getLong(20));
+        this.firstTimestamp = file.getLong(28);
+        this.lastTimestamp = file.getLong(36);
+
+        sectionOffsets[0] = HEADER_BYTES;
+        for (int section = 0; section < SECTIONS; section++) {
+            sectionOffsets[section + 1] = sectionOffsets[section] + file.getInt(44 + section * 4);
+        }
+        if (sectionOffsets[SECTIONS] != file.capacity()) {
+            throw new IOException("Click archive file is truncated");
+        }
+    }
+
+    public static ClickArchiveFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new ClickArchiveFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes {@code clicks}, ordered by timestamp, to {@code path} and forces
+     * it to disk.
+     *
+     * @param probeId id of a row that is deleted together with all the others
+     */
+    public static void write(Path path, UUID probeId, List<ClickRecord> clicks) throws IOException {
+        if (clicks.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to archive");
+        }
+
+        final int rows = clicks.size();
+        final List<Dictionary<?>> dictionaries = List.of(
+                new Dictionary<>(ClickRecord::shortUrlId),
+                new Dictionary<>(ClickRecord::deviceHash),
+                new Dictionary<>(ClickRecord::country),
+                new Dictionary<>(ClickRecord::city),
+                new Dictionary<>(ClickRecord::referrer),
+                new Dictionary<>(ClickRecord::userAgent));
+        final int[][] columns = new int[COLUMNS][rows];
+        final int[] deltas = new int[rows];
+
+        long previous = clicks.getFirst().timestampMillis();
+        for (int row = 0; row < rows; row++) {
+            final ClickRecord click = clicks.get(row);
+            final long delta = click.timestampMillis() - previous;
+            if (delta < 0 || delta > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Clicks must be ordered by timestamp and span less than 24 days");
+            }
+            deltas[row] = (int) delta;
+            previous = click.timestampMillis();
+
+            for (int column = 0; column < COLUMNS; column++) {
+                columns[column][row] = dictionaries.get(column).indexOf(click);
+            }
+        }
+
+        final byte[][] sections = new byte[SECTIONS][];
+        for (int column = 0; column < COLUMNS; column++) {
+            sections[column] = deflate(dictionaries.get(column).encode());
+            sections[TIMESTAMP_SECTION + 1 + column] = deflate(encodeInts(columns[column]));
+        }
+        sections[TIMESTAMP_SECTION] = deflate(encodeInts(deltas));
+
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(rows)
+                .putLong(probeId.getMostSignificantBits())
+                .putLong(probeId.getLeastSignificantBits())
+                .putLong(clicks.getFirst().timestampMillis())
+                .putLong(clicks.getLast().timestampMillis());
+        for (byte[] section : sections) {
+            header.putInt(section.length);
+        }
+
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            channel.write(header.flip());
+            for (byte[] section : sections) {
+                channel.write(ByteBuffer.wrap(section));
+            }
+            channel.force(true);
+        }
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public UUID probeId() {
+        return probeId;
+    }
+
+    public long firstTimestamp() {
+        return firstTimestamp;
+    }
+
+    public long lastTimestamp() {
+        return lastTimestamp;
+    }
+
+    /**
+     * @return the dictionary of a text column, index 0 is always null
+     */
+    public String[] dictionary(Column column) throws IOException {
+        if (column == Column.SHORT_URL) {
+            final UUID[] ids = shortUrlIds();
+            final String[] values = new String[ids.length];
+            for (int i = 1; i < ids.length; i++) {
+                values[i] = ids[i].toString();
+            }
+            return values;
+        }
+
+        final ByteBuffer section = inflate(column.ordinal());
+        final String[] values = new String[section.getInt() + 1];
+        for (int i = 1; i < values.length; i++) {
+            final byte[] bytes = new byte[section.getInt()];
+            section.get(bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    /**
+     * @return the short URL dictionary, index 0 is always null
+     */
+    public UUID[] shortUrlIds() throws IOException {
+        final ByteBuffer section = inflate(Column.SHORT_URL.ordinal());
+        final UUID[] ids = new UUID[section.getInt() + 1];
+        for (int i = 1; i < ids.length; i++) {
+            ids[i] = new UUID(section.getLong(), section.getLong());
+        }
+        return ids;
+    }
+
+    /**
+     * @return dictionary index of every row
+     */
+    public int[] column(Column column) throws IOException {
+        return decodeInts(inflate(TIMESTAMP_SECTION + 1 + column.ordinal()));
+    }
+
+    /**
+     * @return epoch milliseconds of every row
+     */
+    public long[] timestamps() throws IOException {
+        final int[] deltas = decodeInts(inflate(TIMESTAMP_SECTION));
+        final long[] timestamps = new long[rows];
+        long timestamp = firstTimestamp;
+        for (int row = 0; row < rows; row++) {
+            timestamp += deltas[row];
+            timestamps[row] = timestamp;
+        }
+        return timestamps;
+    }
+
+    private ByteBuffer inflate(int section) throws IOException {
+        final int offset = sectionOffsets[section];
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(file.slice(offset, sectionOffsets[section + 1] - offset));
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] chunk = new byte[64 * 1024];
+            while (!inflater.finished()) {
+                final int read = inflater.inflate(chunk);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Click archive section " + section + " is truncated");
+                }
+                out.write(chunk, 0, read);
+            }
+            return ByteBuffer.wrap(out.toByteArray());
+        } catch (DataFormatException ex) {
+            throw new IOException("Click archive section " + section + " is corrupt", ex);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] deflate(byte[] raw) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4 + 64);
+        try (OutputStream deflater = new DeflaterOutputStream(out)) {
+            deflater.write(raw);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeInts(int[] values) {
+        final ByteBuffer buffer = ByteBuffer.allocate(values.length * 4);
+        buffer.asIntBuffer().put(values);
+        return buffer.array();
+    }
+
+    private static int[] decodeInts(ByteBuffer buffer) {
+        final IntBuffer ints = buffer.asIntBuffer();
+        final int[] values = new int[ints.remaining()];
+        ints.get(values);
+        return values;
+    }
+
+    // Values in order of first appearance, starting at index 1
+    private static final class Dictionary<T> {
+        private final Function<ClickRecord, T> extractor;
+        private final Map<T, Integer> indexes = new HashMap<>();
+        private final List<T> values = new ArrayList<>();
+
+        private Dictionary(Function<ClickRecord, T> extractor) {
+            this.extractor = extractor;
+        }
+
+        private int indexOf(ClickRecord click) {
+            final T value = extractor.apply(click);
+            if (value == null) {
+                return 0;
+            }
+            return indexes.computeIfAbsent(value, added -> {
+                values.add(added);
+                return values.size();
+            });
+        }
+
+        private byte[] encode() {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final ByteBuffer scratch = ByteBuffer.allocate(16);
+            out.write(scratch.putInt(0, values.size()).array(), 0, 4);
+            for (T value : values) {
+                if (value instanceof UUID id) {
+                    scratch.putLong(0, id.getMostSignificantBits()).putLong(8, id.getLeastSignificantBits());
+                    out.write(scratch.array(), 0, 16);
+                } else {
+                    final byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+                    out.write(scratch.putInt(0, bytes.length).array(), 0, 4);
+                    out.write(bytes, 0, bytes.length);
+                }
+            }
+            return out.toByteArray();
+        }
+    }
+}
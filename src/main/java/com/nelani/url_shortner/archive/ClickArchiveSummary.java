@@ -0,0 +1,187 @@
+package com.nelani.url_shortner.archive;
+
+import com.nelani.url_shortner.archive.ClickArchiveFile.Column;
+import com.nelani.url_shortner.hash.StableHash;
+import com.nelani.url_shortner.model.StatsGroupBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Stats of one {@link ClickArchiveFile}, aggregated once so stats queries read
+ * per-value summaries instead of every archived row. For each way stats are
+ * grouped it holds one entry per (short URL, grouped value) pair: the access
+ * count and a {@link DeviceSketch} of its devices. Entries stay split by short
+ * URL so clicks of URLs deleted since can still be left out. Both indexes
+ * point into the dictionaries of the archive file.
+ *
+ * <pre>
+ *   0  int    magic
+ *   4  int    version
+ *   8  int[4] deflated length of each section, in {@link StatsGroupBy} order
+ *  24  sections: int entries, then per entry int url, int value, long access count, sketch
+ * </pre>
+ */
+public final class ClickArchiveSummary {
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int url, int value, long accessCount, DeviceSketch devices) throws IOException;
+    }
+
+    private static final int MAGIC = 0x434C4B53;
+    private static final int VERSION = 1;
+    private static final int SECTIONS = StatsGroupBy.values().length;
+    private static final int HEADER_BYTES = 8 + SECTIONS * 4;
+
+    private final Path path;
+    private final long[] sectionOffsets = new long[SECTIONS + 1];
+
+    private ClickArchiveSummary(Path path, ByteBuffer header, long size) throws IOException {
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("Not a click archive summary");
+        }
+        if (header.getInt(4) != VERSION) {
+            throw new IOException("Unsupported click archive summary version " + header.getInt(4));
+        }
+        this.path = path;
+        sectionOffsets[0] = HEADER_BYTES;
+        for (int section = 0; section < SECTIONS; section++) {
+            sectionOffsets[section + 1] = sectionOffsets[section] + header.getInt(8 + section * 4);
+        }
+        if (sectionOffsets[SECTIONS] != size) {
+            throw new IOException("Click archive summary is truncated");
+        }
+    }
+
+    public static ClickArchiveSummary open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Read the whole header
+            }
+            if (header.hasRemaining()) {
+                throw new IOException("Not a click archive summary");
+            }
+            return new ClickArchiveSummary(path, header, channel.size());
+        }
+    }
+
+    /**
+     * Aggregates {@code archive} and writes the summary to {@code path}. The
+     * file is moved into place once complete, so readers never see part of it.
+     */
+    public static void write(Path path, ClickArchiveFile archive) throws IOException {
+        final int[] urlColumn = archive.column(Column.SHORT_URL);
+        final int[] deviceColumn = archive.column(Column.DEVICE);
+        final String[] devices = archive.dictionary(Column.DEVICE);
+        final long[] deviceHashes = new long[devices.length];
+        for (int i = 1; i < devices.length; i++) {
+            deviceHashes[i] = StableHash.of(devices[i]);
+        }
+
+        final byte[][] sections = new byte[SECTIONS][];
+        for (StatsGroupBy groupBy : StatsGroupBy.values()) {
+            final Column column = ClickArchive.columnOf(groupBy);
+            final int[] valueColumn = column == Column.SHORT_URL ? urlColumn : archive.column(column);
+            sections[groupBy.ordinal()] = summarize(urlColumn, valueColumn, deviceColumn, deviceHashes);
+        }
+
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION);
+        for (byte[] section : sections) {
+            header.putInt(section.length);
+        }
+
+        final Path temporary = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                channel.write(header.flip());
+                for (byte[] section : sections) {
+                    channel.write(ByteBuffer.wrap(section));
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Hands every entry of {@code groupBy} to {@code consumer}, ordered by
+     * short URL then value. Entries with a null value are not stored.
+     */
+    public void forEach(StatsGroupBy groupBy, EntryConsumer consumer) throws IOException {
+        final int section = groupBy.ordinal();
+        final ByteBuffer bytes = ByteBuffer.allocate((int) (sectionOffsets[section + 1] - sectionOffsets[section]));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes, sectionOffsets[section] + bytes.position()) < 0) {
+                    throw new IOException("Click archive summary is truncated");
+                }
+            }
+        }
+
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(
+                new ByteArrayInputStream(bytes.array())))) {
+            final int entries = in.readInt();
+            for (int i = 0; i < entries; i++) {
+                final int url = in.readInt();
+                final int value = in.readInt();
+                final long accessCount = in.readLong();
+                consumer.accept(url, value, accessCount, DeviceSketch.read(in));
+            }
+        }
+    }
+
+    private static byte[] summarize(int[] urlColumn, int[] valueColumn, int[] deviceColumn, long[] deviceHashes)
+            throws IOException {
+        final Map<Long, Entry> entries = new HashMap<>();
+        for (int row = 0; row < urlColumn.length; row++) {
+            if (valueColumn[row] == 0) {
+                continue;
+            }
+            final long key = ((long) urlColumn[row] << 32) | (valueColumn[row] & 0xFFFFFFFFL);
+            final Entry entry = entries.computeIfAbsent(key, added -> new Entry());
+            entry.accessCount++;
+            if (deviceColumn[row] != 0) {
+                entry.devices.add(deviceHashes[deviceColumn[row]]);
+            }
+        }
+
+        final long[] keys = entries.keySet().stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(keys);
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            out.writeInt(keys.length);
+            for (long key : keys) {
+                out.writeInt((int) (key >>> 32));
+                out.writeInt((int) key);
+                final Entry entry = entries.get(key);
+                out.writeLong(entry.accessCount);
+                entry.devices.write(out);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static final class Entry {
+        private long accessCount;
+        private final DeviceSketch devices = new DeviceSketch();
+    }
+}
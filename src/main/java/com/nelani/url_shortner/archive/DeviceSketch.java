@@ -0,0 +1,145 @@
+package com.nelani.url_shortner.archive;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Distinct device counter of one grouped value, fed with
+ * {@link com.nelani.url_shortner.hash.StableHash} device hashes. Up to
+ * {@link #EXACT_LIMIT} devices it keeps the sorted hashes and counts exactly;
+ * past that it turns into a HyperLogLog of 2^11 one-byte registers (about 2%
+ * standard error), so a value never holds more than 2 KiB however many
+ * devices it sees. Sketches merge without counting a device twice.
+ */
+public final class DeviceSketch {
+
+    static final int EXACT_LIMIT = 256;
+
+    private static final int PRECISION = 11;
+    private static final int REGISTERS = 1 << PRECISION;
+    private static final byte EXACT = 0;
+    private static final byte ESTIMATED = 1;
+
+    private long[] hashes = new long[4];
+    private int size;
+    private byte[] registers;
+
+    public void add(long hash) {
+        if (registers != null) {
+            addToRegisters(hash);
+            return;
+        }
+        final int at = Arrays.binarySearch(hashes, 0, size, hash);
+        if (at >= 0) {
+            return;
+        }
+        if (size == EXACT_LIMIT) {
+            toRegisters();
+            addToRegisters(hash);
+            return;
+        }
+        if (size == hashes.length) {
+            hashes = Arrays.copyOf(hashes, Math.min(size * 2, EXACT_LIMIT));
+        }
+        final int insert = -at - 1;
+        System.arraycopy(hashes, insert, hashes, insert + 1, size - insert);
+        hashes[insert] = hash;
+        size++;
+    }
+
+    public void addAll(DeviceSketch other) {
+        if (other.registers == null) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.hashes[i]);
+            }
+            return;
+        }
+        if (registers == null) {
+            toRegisters();
+        }
+        for (int i = 0; i < REGISTERS; i++) {
+            registers[i] = (byte) Math.max(registers[i], other.registers[i]);
+        }
+    }
+
+    /**
+     * @return the number of distinct devices, an estimate once past
+     *         {@link #EXACT_LIMIT}
+     */
+    public long count() {
+        if (registers == null) {
+            return size;
+        }
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += Math.scalb(1.0, -register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        final double alpha = 0.7213 / (1 + 1.079 / REGISTERS);
+        final double estimate = alpha * REGISTERS * REGISTERS / sum;
+        // Linear counting is more accurate while many registers are still empty
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            return Math.round(REGISTERS * Math.log((double) REGISTERS / zeros));
+        }
+        return Math.round(estimate);
+    }
+
+    public void write(DataOutput out) throws IOException {
+        if (registers == null) {
+            out.writeByte(EXACT);
+            out.writeShort(size);
+            for (int i = 0; i < size; i++) {
+                out.writeLong(hashes[i]);
+            }
+        } else {
+            out.writeByte(ESTIMATED);
+            out.write(registers);
+        }
+    }
+
+    public static DeviceSketch read(DataInput in) throws IOException {
+        final DeviceSketch sketch = new DeviceSketch();
+        final byte mode = in.readByte();
+        if (mode == EXACT) {
+            final int size = in.readUnsignedShort();
+            if (size > EXACT_LIMIT) {
+                throw new IOException("Device sketch holds " + size + " hashes");
+            }
+            sketch.hashes = new long[Math.max(size, 4)];
+            for (int i = 0; i < size; i++) {
+                sketch.hashes[i] = in.readLong();
+            }
+            sketch.size = size;
+        } else if (mode == ESTIMATED) {
+            sketch.hashes = null;
+            sketch.registers = new byte[REGISTERS];
+            in.readFully(sketch.registers);
+        } else {
+            throw new IOException("Unknown device sketch mode " + mode);
+        }
+        return sketch;
+    }
+
+    private void toRegisters() {
+        registers = new byte[REGISTERS];
+        for (int i = 0; i < size; i++) {
+            addToRegisters(hashes[i]);
+        }
+        hashes = null;
+        size = 0;
+    }
+
+    // The top bits pick the register, the rank of the first set bit below them is kept
+    private void addToRegisters(long hash) {
+        final int register = (int) (hash >>> (Long.SIZE - PRECISION));
+        final int rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+        if (rank > registers[register]) {
+            registers[register] = (byte) rank;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.nelani.url_shortner.archive;
+
+import com.nelani.url_shortner.dto.UrlAccessStats;
+import com.nelani.url_shortner.dto.UrlAccessStatsDTO;
+import com.nelani.url_shortner.hash.StableHash;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adds up access counts and distinct devices per grouped value across archive
+ * summaries and live database rows. Devices are kept in one
+ * {@link DeviceSketch} per value, so memory grows with the number of values
+ * rather than devices, and a device seen both in the archive and in live data
+ * is counted once.
+ */
+public final class StatsAccumulator {
+
+    private static final class Group {
+        private long accessCount;
+        private final DeviceSketch devices = new DeviceSketch();
+    }
+
+    private final Map<String, Group> groups = new HashMap<>();
+
+    /**
+     * Adds one grouped row of live data.
+     */
+    public void add(String value, String deviceHash, long accessCount) {
+        if (value == null) {
+            return;
+        }
+        final Group group = groups.computeIfAbsent(value, added -> new Group());
+        group.accessCount += accessCount;
+        if (deviceHash != null) {
+            group.devices.add(StableHash.of(deviceHash));
+        }
+    }
+
+    /**
+     * Adds one entry of an archive summary.
+     */
+    public void add(String value, long accessCount, DeviceSketch devices) {
+        if (value == null) {
+            return;
+        }
+        final Group group = groups.computeIfAbsent(value, added -> new Group());
+        group.accessCount += accessCount;
+        group.devices.addAll(devices);
+    }
+
+    /**
+     * @return one row per grouped value, in no particular order
+     */
+    public List<UrlAccessStats> toStats() {
+        final List<UrlAccessStats> stats = new ArrayList<>(groups.size());
+        groups.forEach((value, group) ->
+                stats.add(new UrlAccessStatsDTO(value, group.accessCount, group.devices.count())));
+        return stats;
+    }
+}
@@ -0,0 +1,34 @@
+package com.nelani.url_shortner.clicklog;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Local append-only log of clicks, loaded into {@code request_data} in the
+ * background so redirects never wait on database writes.
+ */
+public interface ClickLog extends AutoCloseable {
+
+    void append(ClickRecord record);
+
+    boolean isEnabled();
+
+    /**
+     * Seals the segment being written when its first record is older than
+     * {@code maxAgeMillis}, so a quiet instance still gets its clicks loaded.
+     */
+    void rollIfOlderThan(long maxAgeMillis);
+
+    /**
+     * @return sealed segments waiting to be loaded, oldest first
+     */
+    List<Path> sealedSegments();
+
+    /**
+     * @return records appended since startup
+     */
+    long appended();
+
+    @Override
+    void close();
+}
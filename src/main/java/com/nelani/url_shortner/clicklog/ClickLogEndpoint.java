@@ -0,0 +1,46 @@
+package com.nelani.url_shortner.clicklog;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * {@code /actuator/clicklog}: GET shows the click log state, POST loads
+ * pending segments now, or replays the segments of another directory when a
+ * {@code path} is given.
+ */
+@Component
+@Endpoint(id = "clicklog")
+public class ClickLogEndpoint {
+
+    private final ClickLog clickLog;
+    private final ClickLogLoader clickLogLoader;
+
+    public ClickLogEndpoint(ClickLog clickLog, ClickLogLoader clickLogLoader) {
+        this.clickLog = clickLog;
+        this.clickLogLoader = clickLogLoader;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        return Map.of(
+                "enabled", clickLog.isEnabled(),
+                "appended", clickLog.appended(),
+                "pendingSegments", clickLog.sealedSegments().size());
+    }
+
+    @WriteOperation
+    public Map<String, Object> load(@Nullable String path) throws IOException {
+        if (path != null) {
+            return Map.of("replayed", clickLogLoader.replay(Path.of(path)));
+        }
+        clickLogLoader.loadPending();
+        return Map.of("pendingSegments", clickLog.sealedSegments().size());
+    }
+}
@@ -0,0 +1,114 @@
+package com.nelani.url_shortner.clicklog;
+
+import com.nelani.url_shortner.repository.RequestDataRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copies sealed click log segments into {@code request_data} in batches and
+ * deletes each segment once all of it is in. While the database is down,
+ * segments simply pile up on disk and are loaded when it is back.
+ */
+@Log4j2
+@Component
+public class ClickLogLoader {
+
+    private final ClickLog clickLog;
+    private final RequestDataRepository requestDataRepository;
+    private final int batchSize;
+    private final long maxSegmentAgeMs;
+
+    private final Counter loaded;
+    private final Counter corrupt;
+
+    public ClickLogLoader(ClickLog clickLog, RequestDataRepository requestDataRepository,
+            MeterRegistry meterRegistry,
+            @Value("${analytics.click-log.batch-size:1000}") int batchSize,
+            @Value("${analytics.click-log.max-segment-age-ms:5000}") long maxSegmentAgeMs) {
+        this.clickLog = clickLog;
+        this.requestDataRepository = requestDataRepository;
+        this.batchSize = batchSize;
+        this.maxSegmentAgeMs = maxSegmentAgeMs;
+
+        this.loaded = Counter.builder("analytics.clicklog.loaded")
+                .description("Click records inserted into request_data from the click log")
+                .register(meterRegistry);
+        this.corrupt = Counter.builder("analytics.clicklog.corrupt")
+                .description("Click records skipped because their checksum did not match")
+                .register(meterRegistry);
+        meterRegistry.gauge("analytics.clicklog.pending.segments", clickLog,
+                clicks -> clicks.isEnabled() ? clicks.sealedSegments().size() : 0);
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.click-log.load-interval-ms:2000}")
+    public void loadPending() {
+        if (!clickLog.isEnabled()) {
+            return;
+        }
+
+        clickLog.rollIfOlderThan(maxSegmentAgeMs);
+        for (Path segment : clickLog.sealedSegments()) {
+            try {
+                load(segment);
+                Files.delete(segment);
+            } catch (RuntimeException | IOException ex) {
+                // Later segments wait too, so clicks are loaded roughly in order
+                log.warn("Loading click log segment {} failed, retrying later: {}",
+                        segment.getFileName(), ex.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Loads every segment in {@code directory}, sealed or not, without deleting
+     * anything. Meant for segments copied over from a crashed instance.
+     *
+     * @return number of rows inserted
+     */
+    public long replay(Path directory) throws IOException {
+        long inserted = 0;
+        for (Path segment : MappedClickLog.segments(directory)) {
+            inserted += load(segment);
+        }
+        return inserted;
+    }
+
+    private long load(Path segment) {
+        final List<ClickRecord> batch = new ArrayList<>(batchSize);
+        final long[] inserted = { 0 };
+        try {
+            final long skipped = MappedClickLog.read(segment, record -> {
+                batch.add(record);
+                if (batch.size() == batchSize) {
+                    inserted[0] += requestDataRepository.insertClicks(batch);
+                    batch.clear();
+                }
+            });
+            if (!batch.isEmpty()) {
+                inserted[0] += requestDataRepository.insertClicks(batch);
+            }
+
+            if (skipped > 0) {
+                log.warn("Skipped {} corrupt click records in {}", skipped, segment.getFileName());
+                corrupt.increment(skipped);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to read click log segment " + segment, ex);
+        }
+
+        loaded.increment(inserted[0]);
+        return inserted[0];
+    }
+}
@@ -0,0 +1,32 @@
+package com.nelani.url_shortner.clicklog;
+
+import com.nelani.url_shortner.id.UuidV7;
+import com.nelani.url_shortner.model.RequestData;
+
+import java.time.ZoneId;
+import java.util.UUID;
+
+/**
+ * One click as written to the click log. The request data id is assigned up
+ * front, so loading the same record twice inserts it only once.
+ */
+public record ClickRecord(UUID id, UUID shortUrlId, long timestampMillis, String deviceHash, String country,
+        String city, String referrer, String userAgent) {
+
+    public static ClickRecord of(RequestData data) {
+        return new ClickRecord(
+                UuidV7.generate(),
+                data.getShortUrl().getId(),
+                data.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+                data.getDeviceHash(),
+                limit(data.getCountry(), 100),
+                limit(data.getCity(), 100),
+                limit(data.getReferrer(), 2048),
+                limit(data.getUserAgent(), 512));
+    }
+
+    // Column sizes of request_data, a value that does not fit would fail its whole load batch
+    private static String limit(String value, int maxLength) {
+        return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+}
@@ -0,0 +1,163 @@
+package com.nelani.url_shortner.clicklog;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+/**
+ * Fixed-width binary layout of a click record, {@value #RECORD_BYTES} bytes:
+ *
+ * <pre>
+ *    0  int    CRC32C of bytes 4..1023
+ *    4  int    magic, zero for a slot that was never written
+ *    8  long   request data id (msb, lsb)
+ *   24  long   short url id (msb, lsb)
+ *   40  long   timestamp, epoch milliseconds
+ *   48  byte[64] device hash, ASCII, zero padded
+ *  112  short  byte length of country, city, referrer and user agent, -1 for null
+ *  120  UTF-8 text of those four fields, back to back
+ * </pre>
+ *
+ * Country and city are cut at 200 bytes and the user agent at 256, the
+ * referrer gets the rest of the text area.
+ */
+final class ClickRecordFormat {
+
+    static final int RECORD_BYTES = 1024;
+
+    private static final int MAGIC = 0x434C4B31;
+    private static final int OFFSET_CRC = 0;
+    private static final int OFFSET_MAGIC = 4;
+    private static final int OFFSET_ID = 8;
+    private static final int OFFSET_SHORT_URL_ID = 24;
+    private static final int OFFSET_TIMESTAMP = 40;
+    private static final int OFFSET_DEVICE_HASH = 48;
+    private static final int DEVICE_HASH_BYTES = 64;
+    private static final int OFFSET_LENGTHS = 112;
+    private static final int OFFSET_TEXT = 120;
+    private static final int TEXT_BYTES = RECORD_BYTES - OFFSET_TEXT;
+    private static final int MAX_GEO_BYTES = 200;
+    private static final int MAX_USER_AGENT_BYTES = 256;
+    private static final byte[] ZEROS = new byte[RECORD_BYTES];
+
+    enum State {
+        EMPTY, VALID, CORRUPT
+    }
+
+    private ClickRecordFormat() {
+    }
+
+    /**
+     * Writes {@code record} into {@code out}, a buffer of exactly
+     * {@value #RECORD_BYTES} bytes.
+     */
+    static void encode(ClickRecord record, ByteBuffer out) {
+        out.put(0, ZEROS);
+
+        out.putInt(OFFSET_MAGIC, MAGIC);
+        putUuid(out, OFFSET_ID, record.id());
+        putUuid(out, OFFSET_SHORT_URL_ID, record.shortUrlId());
+        out.putLong(OFFSET_TIMESTAMP, record.timestampMillis());
+
+        final byte[] deviceHash = record.deviceHash().getBytes(StandardCharsets.US_ASCII);
+        out.put(OFFSET_DEVICE_HASH, deviceHash, 0, Math.min(deviceHash.length, DEVICE_HASH_BYTES));
+
+        final byte[] country = truncate(record.country(), MAX_GEO_BYTES);
+        final byte[] city = truncate(record.city(), MAX_GEO_BYTES);
+        final byte[] userAgent = truncate(record.userAgent(), MAX_USER_AGENT_BYTES);
+        final byte[] referrer = truncate(record.referrer(),
+                TEXT_BYTES - length(country) - length(city) - length(userAgent));
+
+        int position = OFFSET_TEXT;
+        int lengthAt = OFFSET_LENGTHS;
+        for (byte[] field : new byte[][] { country, city, referrer, userAgent }) {
+            out.putShort(lengthAt, (short) (field == null ? -1 : field.length));
+            lengthAt += 2;
+            if (field != null) {
+                out.put(position, field);
+                position += field.length;
+            }
+        }
+
+        out.putInt(OFFSET_CRC, checksum(out, 0));
+    }
+
+    static State state(ByteBuffer in, int offset) {
+        final int magic = in.getInt(offset + OFFSET_MAGIC);
+        final int crc = in.getInt(offset + OFFSET_CRC);
+        if (magic == 0 && crc == 0) {
+            return State.EMPTY;
+        }
+        return magic == MAGIC && crc == checksum(in, offset) ? State.VALID : State.CORRUPT;
+    }
+
+    /**
+     * Reads a record whose {@link #state} is {@link State#VALID}.
+     */
+    static ClickRecord decode(ByteBuffer in, int offset) {
+        final byte[] deviceHash = new byte[DEVICE_HASH_BYTES];
+        in.get(offset + OFFSET_DEVICE_HASH, deviceHash);
+        int hashLength = 0;
+        while (hashLength < DEVICE_HASH_BYTES && deviceHash[hashLength] != 0) {
+            hashLength++;
+        }
+
+        final String[] text = new String[4];
+        int position = offset + OFFSET_TEXT;
+        for (int i = 0; i < text.length; i++) {
+            final short length = in.getShort(offset + OFFSET_LENGTHS + i * 2);
+            if (length >= 0) {
+                final byte[] bytes = new byte[length];
+                in.get(position, bytes);
+                text[i] = new String(bytes, StandardCharsets.UTF_8);
+                position += length;
+            }
+        }
+
+        return new ClickRecord(
+                getUuid(in, offset + OFFSET_ID),
+                getUuid(in, offset + OFFSET_SHORT_URL_ID),
+                in.getLong(offset + OFFSET_TIMESTAMP),
+                new String(deviceHash, 0, hashLength, StandardCharsets.US_ASCII),
+                text[0], text[1], text[2], text[3]);
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset) {
+        final CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset + OFFSET_MAGIC, RECORD_BYTES - OFFSET_MAGIC));
+        return (int) crc.getValue();
+    }
+
+    private static byte[] truncate(String value, int maxBytes) {
+        if (value == null) {
+            return null;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= maxBytes) {
+            return bytes;
+        }
+
+        // Back off to a character boundary so the cut value still decodes cleanly
+        int end = Math.max(0, maxBytes);
+        while (end > 0 && (bytes[end] & 0xC0) == 0x80) {
+            end--;
+        }
+        final byte[] cut = new byte[end];
+        System.arraycopy(bytes, 0, cut, 0, end);
+        return cut;
+    }
+
+    private static int length(byte[] field) {
+        return field == null ? 0 : field.length;
+    }
+
+    private static void putUuid(ByteBuffer out, int offset, UUID uuid) {
+        out.putLong(offset, uuid.getMostSignificantBits());
+        out.putLong(offset + 8, uuid.getLeastSignificantBits());
+    }
+
+    private static UUID getUuid(ByteBuffer in, int offset) {
+        return new UUID(in.getLong(offset), in.getLong(offset + 8));
+    }
+}
@@ -0,0 +1,224 @@
+package com.nelani.url_shortner.clicklog;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Click log made of memory-mapped segment files in one directory. Records are
+ * fixed-width (see {@link ClickRecordFormat}), so appending is a copy into the
+ * mapping at the next free slot and the page cache keeps the data through a
+ * process crash.
+ *
+ * The segment being written is named {@code <sequence>.log}; once full, or
+ * once old enough, it is flushed, cut to its written length and renamed to
+ * {@code <sequence>.sealed} for the loader. A {@code .log} file found at
+ * startup was left by a crash and is sealed up to its last written record.
+ */
+@Log4j2
+public class MappedClickLog implements ClickLog {
+
+    static final String ACTIVE_SUFFIX = ".log";
+    static final String SEALED_SUFFIX = ".sealed";
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final ByteBuffer scratch = ByteBuffer.allocate(ClickRecordFormat.RECORD_BYTES);
+    private final AtomicLong appended = new AtomicLong();
+
+    private long sequence;
+    private Path activeFile;
+    private FileChannel activeChannel;
+    private MappedByteBuffer active;
+    private int written;
+    private long firstWriteAt;
+
+    public MappedClickLog(Path directory, int segmentRecords) throws IOException {
+        if (segmentRecords <= 0) {
+            throw new IllegalArgumentException("Segment records must be positive");
+        }
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        Files.createDirectories(directory);
+
+        // Segments left open by a crash are sealed as they are, torn records fail their CRC
+        long last = 0;
+        for (Path file : segments(directory)) {
+            last = Math.max(last, sequenceOf(file));
+            if (file.getFileName().toString().endsWith(ACTIVE_SUFFIX)) {
+                recover(file);
+            }
+        }
+        this.sequence = last;
+    }
+
+    @Override
+    public synchronized void append(ClickRecord record) {
+        try {
+            if (active == null) {
+                openSegment();
+            }
+
+            ClickRecordFormat.encode(record, scratch);
+            active.put(written * ClickRecordFormat.RECORD_BYTES, scratch, 0, ClickRecordFormat.RECORD_BYTES);
+            if (written++ == 0) {
+                firstWriteAt = System.currentTimeMillis();
+            }
+            appended.incrementAndGet();
+
+            if (written == segmentRecords) {
+                seal();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to append to click log at " + directory, ex);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public synchronized void rollIfOlderThan(long maxAgeMillis) {
+        if (active == null || written == 0 || System.currentTimeMillis() - firstWriteAt < maxAgeMillis) {
+            return;
+        }
+        try {
+            seal();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to seal click log segment " + activeFile, ex);
+        }
+    }
+
+    @Override
+    public List<Path> sealedSegments() {
+        try {
+            return segments(directory).stream()
+                    .filter(file -> file.getFileName().toString().endsWith(SEALED_SUFFIX))
+                    .toList();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to list click log segments at " + directory, ex);
+        }
+    }
+
+    @Override
+    public long appended() {
+        return appended.get();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (active == null) {
+            return;
+        }
+        try {
+            seal();
+        } catch (IOException ex) {
+            log.error("Failed to seal click log segment {}: {}", activeFile, ex.getMessage());
+        }
+    }
+
+    /**
+     * Reads every valid record of a segment file, sealed or not.
+     *
+     * @return number of records that failed their CRC and were skipped
+     */
+    public static long read(Path file, Consumer<ClickRecord> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long records = channel.size() / ClickRecordFormat.RECORD_BYTES;
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    records * ClickRecordFormat.RECORD_BYTES);
+
+            long corrupt = 0;
+            for (int i = 0; i < records; i++) {
+                final int offset = i * ClickRecordFormat.RECORD_BYTES;
+                switch (ClickRecordFormat.state(buffer, offset)) {
+                    case EMPTY -> {
+                        return corrupt;
+                    }
+                    case VALID -> sink.accept(ClickRecordFormat.decode(buffer, offset));
+                    case CORRUPT -> corrupt++;
+                }
+            }
+            return corrupt;
+        }
+    }
+
+    /**
+     * @return {@code .log} and {@code .sealed} files in {@code directory}, oldest first
+     */
+    public static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.endsWith(ACTIVE_SUFFIX) || name.endsWith(SEALED_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private void openSegment() throws IOException {
+        sequence++;
+        activeFile = directory.resolve(String.format("%020d%s", sequence, ACTIVE_SUFFIX));
+        activeChannel = FileChannel.open(activeFile,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        active = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                (long) segmentRecords * ClickRecordFormat.RECORD_BYTES);
+        written = 0;
+    }
+
+    private void seal() throws IOException {
+        active.force();
+        active = null;
+        activeChannel.truncate((long) written * ClickRecordFormat.RECORD_BYTES);
+        activeChannel.close();
+        activeChannel = null;
+        Files.move(activeFile, sealedName(activeFile), StandardCopyOption.ATOMIC_MOVE);
+        activeFile = null;
+        written = 0;
+    }
+
+    private static void recover(Path file) throws IOException {
+        long records = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            final long capacity = channel.size() / ClickRecordFormat.RECORD_BYTES;
+            while (records < capacity && ClickRecordFormat.state(buffer,
+                    (int) (records * ClickRecordFormat.RECORD_BYTES)) != ClickRecordFormat.State.EMPTY) {
+                records++;
+            }
+            channel.truncate(records * ClickRecordFormat.RECORD_BYTES);
+        }
+        Files.move(file, sealedName(file), StandardCopyOption.ATOMIC_MOVE);
+        log.warn("Recovered {} click records from unsealed segment {}", records, file.getFileName());
+    }
+
+    private static Path sealedName(Path file) {
+        final String name = file.getFileName().toString();
+        return file.resolveSibling(name.substring(0, name.length() - ACTIVE_SUFFIX.length()) + SEALED_SUFFIX);
+    }
+
+    private static long sequenceOf(Path file) {
+        final String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.indexOf('.')));
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.nelani.url_shortner.clicklog;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Default, clicks are written straight to the database.
+ */
+public class NoOpClickLog implements ClickLog {
+
+    @Override
+    public void append(ClickRecord record) {
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public void rollIfOlderThan(long maxAgeMillis) {
+    }
+
+    @Override
+    public List<Path> sealedSegments() {
+        return List.of();
+    }
+
+    @Override
+    public long appended() {
+        return 0;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -1,18 +1,31 @@
 package com.nelani.url_shortner.config;
 
+import com.nelani.url_shortner.logging.LogSampler;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.time.Duration;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
 
+@Log4j2
 @EnableAsync
 @Configuration
 public class AsyncConfig {
 
     @Bean(name = "analyticsExecutor")
-    public Executor analyticsExecutor() {
+    public Executor analyticsExecutor(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${analytics.executor.max-in-flight:1000}") int maxInFlight) {
+        if (virtualThreads) {
+            return virtualThreadExecutor(maxInFlight);
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(2);
         executor.setMaxPoolSize(5);
@@ -22,4 +35,34 @@ public class AsyncConfig {
         return executor;
     }
 
+    /**
+     * One virtual thread per analytics task, so blocking geo lookups and inserts do
+     * not tie up carrier threads. The number of tasks in flight is still bounded:
+     * analytics is best-effort, so excess tasks are dropped instead of blocking
+     * the redirect that submitted them.
+     */
+    private Executor virtualThreadExecutor(int maxInFlight) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("analytics-");
+        executor.setVirtualThreads(true);
+
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        LogSampler dropped = new LogSampler(Duration.ofSeconds(10));
+        return task -> {
+            if (!inFlight.tryAcquire()) {
+                if (dropped.shouldLog()) {
+                    log.warn("Analytics backlog of {} tasks reached, dropping request data ({} more dropped)",
+                            maxInFlight, dropped.takeSuppressed());
+                }
+                return;
+            }
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    inFlight.release();
+                }
+            });
+        };
+    }
+
 }
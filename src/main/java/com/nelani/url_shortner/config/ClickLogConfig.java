@@ -0,0 +1,31 @@
+package com.nelani.url_shortner.config;
+
+import com.nelani.url_shortner.clicklog.ClickLog;
+import com.nelani.url_shortner.clicklog.MappedClickLog;
+import com.nelani.url_shortner.clicklog.NoOpClickLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+public class ClickLogConfig {
+
+    /**
+     * {@code click-log} appends clicks to memory-mapped segment files that are
+     * loaded into the database in the background, anything else inserts each
+     * click directly.
+     */
+    @Bean
+    public ClickLog clickLog(
+            @Value("${analytics.sink:database}") String sink,
+            @Value("${analytics.click-log.path:./data/click-log}") String path,
+            @Value("${analytics.click-log.segment-records:65536}") int segmentRecords) throws IOException {
+        if ("click-log".equalsIgnoreCase(sink)) {
+            return new MappedClickLog(Path.of(path), segmentRecords);
+        }
+        return new NoOpClickLog();
+    }
+}
@@ -0,0 +1,57 @@
+package com.nelani.url_shortner.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * In virtual-thread mode, puts a {@link ConnectionLimitingDataSource} in front of
+ * the connection pool. Platform threads are already bounded by the Tomcat pool,
+ * so the limiter is only installed when virtual threads are enabled.
+ *
+ * A sharded data source is left alone: {@link ShardingConfig} has already put
+ * one limiter in front of each shard's pool, each sized like that pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class DataSourceLimiterConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionLimitingPostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConnectionLimitingDataSource)
+                        && !isSharded(bean)) {
+                    return limit(dataSource, environment);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * @return {@code pool} behind a limiter of {@code datasource.limiter.permits}
+     *         (the pool size by default), or {@code pool} itself without virtual threads
+     */
+    static DataSource limit(DataSource pool, Environment environment) {
+        if (!environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            return pool;
+        }
+        final int permits = environment.getProperty("datasource.limiter.permits", Integer.class,
+                DataSourcePoolConfig.poolSize(environment));
+        final long timeoutMs = environment.getProperty("datasource.limiter.acquire-timeout-ms", Long.class, 30000L);
+        return new ConnectionLimitingDataSource(pool, permits, timeoutMs);
+    }
+
+    private static boolean isSharded(Object bean) {
+        return bean instanceof LazyConnectionDataSourceProxy proxy
+                && proxy.getTargetDataSource() instanceof ShardRoutingDataSource;
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.nelani.url_shortner.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sizes the Hikari pool from the number of CPU cores when
+ * {@code spring.datasource.hikari.maximum-pool-size} is not set, as
+ * {@code cores * 2 + spindles}. More connections than the database can run at
+ * once only add context switching and lock contention on its side; requests
+ * beyond the pool wait in Hikari's queue instead.
+ *
+ * The pool is fixed size: Hikari keeps minimum-idle equal to the maximum
+ * unless it is configured, so no connection is opened under load.
+ */
+@Log4j2
+@Configuration
+public class DataSourcePoolConfig {
+
+    /**
+     * The configured maximum pool size, or the one derived from
+     * {@code datasource.pool.cores} (the CPU count when unset) and
+     * {@code datasource.pool.spindles}.
+     */
+    public static int poolSize(Environment environment) {
+        final Integer configured = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class);
+        if (configured != null) {
+            return configured;
+        }
+        final int cores = environment.getProperty("datasource.pool.cores", Integer.class,
+                Runtime.getRuntime().availableProcessors());
+        final int spindles = environment.getProperty("datasource.pool.spindles", Integer.class, 1);
+        return cores * 2 + spindles;
+    }
+
+    /**
+     * The comma-separated JDBC URLs of {@code property}, empty when it is unset.
+     */
+    static List<String> jdbcUrls(Environment environment, String property) {
+        return Arrays.stream(environment.getProperty(property, "").split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Another pool with the driver settings (statement caching, batching),
+     * connection lifetimes and size of {@code primary}, for read replicas and
+     * shards. It does not fail when its database is down at startup.
+     */
+    static HikariDataSource poolLike(HikariDataSource primary, String url, String poolName,
+            Environment environment, String propertyPrefix) {
+        final HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(poolName);
+        pool.setJdbcUrl(url);
+        pool.setUsername(environment.getProperty(propertyPrefix + ".username",
+                environment.getProperty("spring.datasource.username")));
+        pool.setPassword(environment.getProperty(propertyPrefix + ".password",
+                environment.getProperty("spring.datasource.password")));
+        if (primary.getDriverClassName() != null) {
+            pool.setDriverClassName(primary.getDriverClassName());
+        }
+        pool.setDataSourceProperties(primary.getDataSourceProperties());
+        pool.setMaxLifetime(primary.getMaxLifetime());
+        pool.setKeepaliveTime(primary.getKeepaliveTime());
+        pool.setConnectionTimeout(primary.getConnectionTimeout());
+        pool.setMaximumPoolSize(poolSize(environment));
+        pool.setInitializationFailTimeout(-1);
+        return pool;
+    }
+
+    @Bean
+    public static BeanPostProcessor poolSizingPostProcessor(Environment environment) {
+        final int poolSize = poolSize(environment);
+
+        return new BeanPostProcessor() {
+            // Before initialization: other post-processors may wrap the pool afterwards
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari) {
+                    hikari.setMaximumPoolSize(poolSize);
+                    log.info("Connection pool {} sized to {} connections", beanName, poolSize);
+                }
+                return bean;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.nelani.url_shortner.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class GeoClientConfig {
+
+    /**
+     * Client for the geo IP provider. It keeps its connections open and reuses
+     * them across lookups, and completes responses on virtual threads so no
+     * platform thread waits on the provider. Closed by Spring at shutdown.
+     */
+    @Bean
+    public HttpClient geoHttpClient(@Value("${geo.client.connect-timeout-ms:1000}") long connectTimeoutMs) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.nelani.url_shortner.config;
+
+import com.nelani.url_shortner.ratelimit.ClientRateLimitInterceptor;
+import com.nelani.url_shortner.ratelimit.ClientRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-client rate limits for the redirect and URL management endpoints. Each
+ * client IP gets its own token bucket, and a global ceiling protects the
+ * instance as a whole.
+ */
+@Configuration
+public class RateLimitConfig implements WebMvcConfigurer {
+
+    private final Environment environment;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final int maxClients;
+    private final int stripes;
+    private final List<ClientRateLimiter> limiters = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService evictor;
+
+    public RateLimitConfig(Environment environment, ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${rate-limit.max-clients:100000}") int maxClients,
+            @Value("${rate-limit.stripes:64}") int stripes,
+            @Value("${rate-limit.evict-interval-ms:1000}") long evictIntervalMs) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.maxClients = maxClients;
+        this.stripes = stripes;
+
+        // Dedicated thread: new clients are rejected while a stripe is full until this frees room, so it must
+        // not wait behind long scheduled jobs
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limit-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.evictor.scheduleWithFixedDelay(this::evictIdleClients,
+                evictIntervalMs, evictIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(interceptor("redirectRateLimiter", "rate-limit.redirect", 20, 50, 5000))
+                .addPathPatterns("/r/**");
+        registry.addInterceptor(interceptor("shortenRateLimiter", "rate-limit.shorten", 5, 20, 200))
+                .addPathPatterns("/api/urls", "/api/urls/**");
+    }
+
+    @PreDestroy
+    public void close() {
+        evictor.shutdownNow();
+    }
+
+    private void evictIdleClients() {
+        limiters.forEach(ClientRateLimiter::evictIdle);
+    }
+
+    private ClientRateLimitInterceptor interceptor(String name, String prefix,
+            double defaultPermits, int defaultBurst, double defaultGlobalPermits) {
+        final double permits = environment.getProperty(prefix + ".permits-per-second", Double.class, defaultPermits);
+        final int burst = environment.getProperty(prefix + ".burst", Integer.class, defaultBurst);
+        final double globalPermits = environment.getProperty(
+                prefix + ".global-permits-per-second", Double.class, defaultGlobalPermits);
+        final int globalBurst = environment.getProperty(
+                prefix + ".global-burst", Integer.class, (int) Math.max(1, globalPermits));
+
+        ClientRateLimiter limiter = new ClientRateLimiter(permits, burst, globalPermits, globalBurst, maxClients, stripes);
+        limiters.add(limiter);
+        return new ClientRateLimitInterceptor(name, limiter, meterRegistry.getIfAvailable());
+    }
+}
@@ -0,0 +1,123 @@
+package com.nelani.url_shortner.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Sends read-only transactions to read replicas when
+ * {@code datasource.replicas.urls} lists any. The primary pool is wrapped in a
+ * {@link LazyConnectionDataSourceProxy}: the physical connection is only taken
+ * at the first statement, once the transaction has marked it read-only, and
+ * read-only connections come from a {@link ReplicaRoutingDataSource}.
+ *
+ * Everything else, including work outside a transaction, stays on the
+ * primary. Replicas lag behind it, so reads that must see a write just made
+ * (the redirect of a code created a moment ago) fall back to the primary when
+ * the replica does not have the row yet.
+ *
+ * Routing is exported as {@code datasource.replicas.up} (replicas not skipped
+ * after a failure) and {@code datasource.replicas.primary.fallbacks}
+ * (read-only connections the primary served because no replica could).
+ */
+@Log4j2
+@Configuration
+@ConditionalOnProperty(name = "datasource.replicas.urls")
+public class ReadReplicaConfig {
+
+    @Bean
+    public static ReadReplicaPostProcessor readReplicaPostProcessor(Environment environment) {
+        return new ReadReplicaPostProcessor(environment);
+    }
+
+    // Read when scraped, so routers created after the registry are counted too
+    @Bean
+    public MeterBinder replicaRoutingMetrics(ReadReplicaPostProcessor readReplicaPostProcessor) {
+        final List<ReplicaRoutingDataSource> routers = readReplicaPostProcessor.routers;
+        return registry -> {
+            Gauge.builder("datasource.replicas.up", routers,
+                            all -> all.stream().mapToInt(ReplicaRoutingDataSource::replicasUp).sum())
+                    .description("Read replicas not currently skipped after a failure")
+                    .register(registry);
+            FunctionCounter.builder("datasource.replicas.primary.fallbacks", routers,
+                            all -> all.stream().mapToLong(ReplicaRoutingDataSource::primaryFallbacks).sum())
+                    .description("Read-only connections served by the primary because no replica was available")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Ordered, so the primary pool is wrapped before {@link DataSourceLimiterConfig}
+     * puts its limiter in front of the result.
+     */
+    static class ReadReplicaPostProcessor implements BeanPostProcessor, Ordered, DisposableBean {
+
+        private final Environment environment;
+        private final List<ReplicaRoutingDataSource> routers = new CopyOnWriteArrayList<>();
+
+        ReadReplicaPostProcessor(Environment environment) {
+            this.environment = environment;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof HikariDataSource primary)) {
+                return bean;
+            }
+            final List<String> urls = DataSourcePoolConfig.jdbcUrls(environment, "datasource.replicas.urls");
+            if (urls.isEmpty()) {
+                return bean;
+            }
+
+            final List<HikariDataSource> replicas = new ArrayList<>();
+            for (int i = 0; i < urls.size(); i++) {
+                replicas.add(replicaPool(primary, urls.get(i), "replica-" + (i + 1)));
+            }
+            final Duration retryAfter = Duration.ofMillis(
+                    environment.getProperty("datasource.replicas.retry-after-ms", Long.class, 5000L));
+            final ReplicaRoutingDataSource router = new ReplicaRoutingDataSource(replicas, primary, retryAfter);
+            routers.add(router);
+
+            final LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+            proxy.setReadOnlyDataSource(router);
+            log.info("Read-only transactions of {} go to {} read replica(s)", beanName, replicas.size());
+            return proxy;
+        }
+
+        private HikariDataSource replicaPool(HikariDataSource primary, String url, String poolName) {
+            final HikariDataSource replica = DataSourcePoolConfig.poolLike(primary, url, poolName, environment,
+                    "datasource.replicas");
+            replica.setReadOnly(true);
+            // Fail over to the next replica quickly instead of queueing behind a dead one
+            replica.setConnectionTimeout(environment.getProperty("datasource.replicas.connection-timeout-ms",
+                    Long.class, 1000L));
+            return replica;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void destroy() {
+            routers.forEach(ReplicaRoutingDataSource::close);
+        }
+    }
+
+}
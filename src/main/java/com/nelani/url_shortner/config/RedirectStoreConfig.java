@@ -0,0 +1,30 @@
+package com.nelani.url_shortner.config;
+
+import com.nelani.url_shortner.store.MappedRedirectStore;
+import com.nelani.url_shortner.store.NoOpRedirectStore;
+import com.nelani.url_shortner.store.RedirectStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+public class RedirectStoreConfig {
+
+    /**
+     * {@code mapped} resolves redirects from memory-mapped files on local disk,
+     * anything else leaves every lookup to the database.
+     */
+    @Bean
+    public RedirectStore redirectStore(
+            @Value("${redirect.store.type:none}") String type,
+            @Value("${redirect.store.path:./data/redirect-store}") String path,
+            @Value("${redirect.store.initial-capacity:1048576}") long initialCapacity) throws IOException {
+        if ("mapped".equalsIgnoreCase(type)) {
+            return new MappedRedirectStore(Path.of(path), initialCapacity);
+        }
+        return new NoOpRedirectStore();
+    }
+}
@@ -0,0 +1,118 @@
+package com.nelani.url_shortner.config;
+
+import com.nelani.url_shortner.logging.LogSampler;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands out read replica connections in turn. A replica that fails to give a
+ * connection (down, or its pool timed out) is skipped for {@code retryAfter}
+ * and the next one is tried; when none is available the connection comes from
+ * the primary, so reads slow down rather than fail.
+ *
+ * Only read-only work gets here: it is installed as the read-only data source
+ * of a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ */
+@Log4j2
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final LogSampler FAILURES = new LogSampler(Duration.ofSeconds(10));
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final DataSource primary;
+    private final long retryAfterMs;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder primaryFallbacks = new LongAdder();
+
+    public ReplicaRoutingDataSource(List<? extends DataSource> replicas, DataSource primary,
+            Duration retryAfter) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("At least one read replica is required");
+        }
+        for (DataSource replica : replicas) {
+            this.replicas.add(new Replica(replica));
+        }
+        this.primary = primary;
+        this.retryAfterMs = retryAfter.toMillis();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        final int size = replicas.size();
+        final int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            final Replica replica = replicas.get((start + i) % size);
+            final long now = System.currentTimeMillis();
+            if (replica.downUntil > now) {
+                continue;
+            }
+            try {
+                final Connection connection = replica.dataSource.getConnection();
+                replica.downUntil = 0;
+                return connection;
+            } catch (SQLException ex) {
+                replica.downUntil = now + retryAfterMs;
+                if (FAILURES.shouldLog()) {
+                    log.warn("Read replica {} unavailable for {}ms: {} ({} similar not logged)",
+                            (start + i) % size, retryAfterMs, ex.getMessage(), FAILURES.takeSuppressed());
+                }
+            }
+        }
+        primaryFallbacks.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica connections use the configured credentials");
+    }
+
+    /**
+     * Replicas not currently skipped after a failure.
+     */
+    public int replicasUp() {
+        final long now = System.currentTimeMillis();
+        return (int) replicas.stream().filter(replica -> replica.downUntil <= now).count();
+    }
+
+    /**
+     * Read-only connections served by the primary because no replica was available.
+     */
+    public long primaryFallbacks() {
+        return primaryFallbacks.sum();
+    }
+
+    @Override
+    public void close() {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception ex) {
+                    log.warn("Failed to close read replica pool: {}", ex.getMessage());
+                }
+            }
+        }
+    }
+
+    private static final class Replica {
+        private final DataSource dataSource;
+        // Epoch millis until which the replica is skipped, 0 when healthy
+        private volatile long downUntil;
+
+        private Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+}
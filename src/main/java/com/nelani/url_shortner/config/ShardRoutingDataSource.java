@@ -0,0 +1,74 @@
+package com.nelani.url_shortner.config;
+
+import com.nelani.url_shortner.shard.ShardContext;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Takes each connection from the shard chosen in {@link ShardContext}, or from
+ * shard 0 when none is. Shard 0 is the application's own pool; the pools of
+ * the other shards belong to this data source and are closed with it.
+ *
+ * Each pool can sit behind its own limiter, so the borrowers of one busy
+ * shard wait for that shard's pool without holding up the others.
+ */
+@Log4j2
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private final List<DataSource> pools;
+    private final List<DataSource> shards;
+
+    public ShardRoutingDataSource(List<DataSource> pools) {
+        this(pools, UnaryOperator.identity());
+    }
+
+    /**
+     * @param limiter wraps the pool of each shard, see {@link DataSourceLimiterConfig}
+     */
+    public ShardRoutingDataSource(List<DataSource> pools, UnaryOperator<DataSource> limiter) {
+        this.pools = List.copyOf(pools);
+        this.shards = pools.stream().map(limiter).toList();
+        final Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.getFirst());
+        // An unknown shard is a routing bug, never silently the home shard
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+
+    public int count() {
+        return shards.size();
+    }
+
+    public DataSource shard(int shard) {
+        return shards.get(shard);
+    }
+
+    @Override
+    public void close() {
+        for (DataSource pool : pools.subList(1, pools.size())) {
+            if (pool instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception ex) {
+                    log.warn("Failed to close shard pool: {}", ex.getMessage());
+                }
+            }
+        }
+    }
+}
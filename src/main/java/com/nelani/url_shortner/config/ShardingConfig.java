@@ -0,0 +1,95 @@
+package com.nelani.url_shortner.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spreads {@code short_url} and {@code request_data} over several databases
+ * when {@code sharding.urls} lists any. The application's pool becomes shard
+ * 0 (the home shard, which also keeps every table that is not sharded) and
+ * each listed URL one more shard.
+ *
+ * The pools sit behind a {@link ShardRoutingDataSource} wrapped in a
+ * {@link LazyConnectionDataSourceProxy}, so a transaction takes its connection
+ * at its first statement, from the shard chosen by then. In virtual-thread
+ * mode each pool gets its own {@link ConnectionLimitingDataSource}. See
+ * {@link com.nelani.url_shortner.shard.Shards} for how a shard is chosen.
+ */
+@Log4j2
+@Configuration
+@ConditionalOnProperty(name = "sharding.urls")
+public class ShardingConfig {
+
+    @Bean
+    public static ShardingPostProcessor shardingPostProcessor(Environment environment) {
+        return new ShardingPostProcessor(environment);
+    }
+
+    /**
+     * Ordered, so the application's pool is wrapped before {@link DataSourceLimiterConfig}
+     * sees the result, which it then leaves alone.
+     */
+    static class ShardingPostProcessor implements BeanPostProcessor, Ordered, DisposableBean {
+
+        private final Environment environment;
+        private final List<ShardRoutingDataSource> routers = new ArrayList<>();
+
+        ShardingPostProcessor(Environment environment) {
+            this.environment = environment;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof HikariDataSource home)) {
+                return bean;
+            }
+            final List<String> urls = DataSourcePoolConfig.jdbcUrls(environment, "sharding.urls");
+            if (urls.isEmpty()) {
+                return bean;
+            }
+            if (!DataSourcePoolConfig.jdbcUrls(environment, "datasource.replicas.urls").isEmpty()) {
+                throw new IllegalStateException("sharding.urls cannot be combined with datasource.replicas.urls");
+            }
+            // Loaded clicks are written to the home shard in bulk, away from the URL they belong to
+            if ("click-log".equalsIgnoreCase(environment.getProperty("analytics.sink"))) {
+                throw new IllegalStateException("sharding.urls requires analytics.sink=database");
+            }
+
+            final List<DataSource> shards = new ArrayList<>();
+            shards.add(home);
+            for (int i = 0; i < urls.size(); i++) {
+                shards.add(DataSourcePoolConfig.poolLike(home, urls.get(i), "shard-" + (i + 1), environment,
+                        "sharding"));
+            }
+            final ShardRoutingDataSource router = new ShardRoutingDataSource(shards,
+                    pool -> DataSourceLimiterConfig.limit(pool, environment));
+            routers.add(router);
+
+            log.info("{} spread over {} shards", beanName, shards.size());
+            return new LazyConnectionDataSourceProxy(router);
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void destroy() {
+            routers.forEach(ShardRoutingDataSource::close);
+        }
+    }
+
+}
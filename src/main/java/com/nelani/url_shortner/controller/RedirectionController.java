@@ -1,36 +1,67 @@
 package com.nelani.url_shortner.controller;
 
 import com.nelani.url_shortner.service.RedirectionService;
-import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
+import com.nelani.url_shortner.store.RedirectEntry;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
 @RestController
 @RequestMapping("/r")
 public class RedirectionController {
 
         private final RedirectionService redirectionService;
+        private final long maxAgeSeconds;
 
-        public RedirectionController(RedirectionService redirectionService) {
+        public RedirectionController(RedirectionService redirectionService,
+                        @Value("${redirect.http-cache.max-age-seconds:86400}") long maxAgeSeconds) {
                 this.redirectionService = redirectionService;
+                this.maxAgeSeconds = maxAgeSeconds;
         }
 
-        @Operation(summary = "Redirect short URL to original URL", description = "Takes the short code and performs an HTTP 302 redirect to the corresponding long URL.")
+        @Operation(summary = "Redirect short URL to original URL", description = """
+                        Takes the short code and redirects to the corresponding long URL. Short URLs with the default \
+                        FOUND type get an uncacheable HTTP 302 so every click is counted; MOVED_PERMANENTLY (301) and \
+                        PERMANENT_REDIRECT (308) short URLs may be cached by browsers and CDNs until they expire.""")
         @ApiResponse(responseCode = "302", description = "Redirect to the original URL")
+        @ApiResponse(responseCode = "301", description = "Cacheable permanent redirect to the original URL")
+        @ApiResponse(responseCode = "308", description = "Cacheable permanent redirect to the original URL, keeping the method")
         @GetMapping("/{shortCode}")
-        @RateLimiter(name = "redirectRateLimiter")
         public ResponseEntity<Void> redirect(
                         @Parameter(description = "The short code generated for the long URL", example = "a8f3Ks") @PathVariable String shortCode,
 
                         HttpServletRequest req) {
-                String longUrl = redirectionService.redirect(shortCode, req);
+                RedirectEntry target = redirectionService.redirect(shortCode, req);
+
+                if (!target.redirectType().isCacheable()) {
+                        return ResponseEntity.status(302)
+                                        .header("Location", target.originalUrl())
+                                        .cacheControl(CacheControl.noStore())
+                                        .build();
+                }
+
+                // Cacheable until the URL expires, capped so updates and deletes still get through eventually
+                final long now = System.currentTimeMillis();
+                final long maxAge = target.expires()
+                                ? Math.max(0, Math.min(maxAgeSeconds, (target.expiresAtMillis() - now) / 1000))
+                                : maxAgeSeconds;
 
-                return ResponseEntity.status(302)
-                                .header("Location", longUrl)
+                return ResponseEntity.status(target.redirectType().getStatus())
+                                .header("Location", target.originalUrl())
+                                .cacheControl(CacheControl.maxAge(maxAge, TimeUnit.SECONDS).cachePublic())
+                                .header(HttpHeaders.EXPIRES, DateTimeFormatter.RFC_1123_DATE_TIME
+                                                .format(Instant.ofEpochMilli(now + maxAge * 1000).atOffset(ZoneOffset.UTC)))
                                 .build();
         }
 }
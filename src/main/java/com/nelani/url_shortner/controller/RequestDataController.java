@@ -1,8 +1,11 @@
 package com.nelani.url_shortner.controller;
 
 import com.nelani.url_shortner.dto.UrlAccessStats;
+import com.nelani.url_shortner.model.ExportFormat;
+import com.nelani.url_shortner.model.LiveFeedMode;
 import com.nelani.url_shortner.model.SortDirection;
 import com.nelani.url_shortner.model.StatsGroupBy;
+import com.nelani.url_shortner.response.CursorPage;
 import com.nelani.url_shortner.service.RequestDataService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -10,12 +13,25 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPOutputStream;
 
 @Validated
 @RestController
@@ -28,8 +44,9 @@ public class RequestDataController {
         this.requestDataService = requestDataService;
     }
 
-    @Operation(summary = "Get access statistics", description = "Returns aggregated access stats grouped by URL, country, city, referrer, or user agent.")
+    @Operation(summary = "Get access statistics", description = "Returns aggregated access stats grouped by URL, country, city, referrer, or user agent. Pages are cached for a few seconds and carry an ETag; send it back in If-None-Match to get 304 while the page is unchanged.")
     @ApiResponse(responseCode = "200", description = "Paginated access statistics")
+    @ApiResponse(responseCode = "304", description = "Statistics unchanged since the ETag in If-None-Match")
     @GetMapping("/stats")
     public ResponseEntity<Page<UrlAccessStats>> stats(
             @Parameter(description = "Group statistics by this dimension", example = "COUNTRY") @RequestParam(defaultValue = "COUNTRY") StatsGroupBy groupBy,
@@ -39,6 +56,102 @@ public class RequestDataController {
             @Parameter(description = "Number of records per page", example = "10") @RequestParam(defaultValue = "10") @Max(100) int size,
 
             @Parameter(description = "Sort direction: ASC or DESC", example = "DESC") @RequestParam(defaultValue = "DESC") SortDirection direction) {
-        return ResponseEntity.ok(requestDataService.getTopStats(groupBy, page, size, direction));
+        final Page<UrlAccessStats> stats = requestDataService.getTopStats(groupBy, page, size, direction);
+
+        // Answered with 304 and no body when If-None-Match carries this ETag
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(etagOf(stats))
+                .body(stats);
+    }
+
+    @Operation(summary = "Scroll through access statistics", description = "Returns aggregated access stats using a continuation cursor instead of page numbers, skipping the total count query.")
+    @ApiResponse(responseCode = "200", description = "Access statistics page")
+    @GetMapping("/stats/scroll")
+    public ResponseEntity<CursorPage<UrlAccessStats>> scrollStats(
+            @Parameter(description = "Group statistics by this dimension", example = "COUNTRY") @RequestParam(defaultValue = "COUNTRY") StatsGroupBy groupBy,
+
+            @Parameter(description = "Cursor returned by the previous page, omit for the first page") @RequestParam(required = false) String cursor,
+
+            @Parameter(description = "Number of records per page", example = "10") @RequestParam(defaultValue = "10") @Min(1) @Max(100) int size,
+
+            @Parameter(description = "Sort direction: ASC or DESC", example = "DESC") @RequestParam(defaultValue = "DESC") SortDirection direction) {
+        return ResponseEntity.ok(requestDataService.scrollTopStats(groupBy, cursor, size, direction));
+    }
+
+    @Operation(summary = "Live click feed", description = "Streams clicks as Server-Sent Events, for one short code or for all of them. EVENTS sends a `click` event per click, COUNTS sends a `count` event with the clicks of every second. Subscribers that fall behind are disconnected and should reconnect.")
+    @ApiResponse(responseCode = "200", description = "Event stream")
+    @ApiResponse(responseCode = "404", description = "Short code does not exist")
+    @ApiResponse(responseCode = "503", description = "Too many live feed subscribers")
+    @GetMapping(value = "/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter live(
+            @Parameter(description = "Short code to watch, omit for every short code", example = "abc123") @RequestParam(required = false) String shortCode,
+
+            @Parameter(description = "EVENTS for every click or COUNTS for clicks per second", example = "COUNTS") @RequestParam(defaultValue = "EVENTS") LiveFeedMode mode) {
+        return requestDataService.subscribeToClicks(shortCode, mode);
+    }
+
+    @Operation(summary = "Export raw clicks", description = "Streams every click of a short URL in [from, to) as CSV or NDJSON, oldest first. The response is gzip encoded when the client accepts it.")
+    @ApiResponse(responseCode = "200", description = "Click export")
+    @ApiResponse(responseCode = "400", description = "from is not before to")
+    @ApiResponse(responseCode = "404", description = "Short code does not exist")
+    @ApiResponse(responseCode = "503", description = "Too many exports running")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @Parameter(description = "Short code to export", example = "abc123") @RequestParam String shortCode,
+
+            @Parameter(description = "Earliest click, inclusive (ISO date-time)", example = "2026-01-01T00:00:00") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+
+            @Parameter(description = "Latest click, exclusive (ISO date-time)", example = "2026-02-01T00:00:00") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+
+            @Parameter(description = "CSV or NDJSON", example = "CSV") @RequestParam(defaultValue = "CSV") ExportFormat format,
+
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        final StreamingResponseBody body = requestDataService.exportClicks(shortCode, from, to, format);
+
+        final ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(shortCode + "-clicks." + format.getExtension())
+                        .build()
+                        .toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!acceptsGzip(acceptEncoding)) {
+            return response.body(body);
+        }
+
+        final StreamingResponseBody gzipped = out -> {
+            final GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024);
+            body.writeTo(gzip);
+            gzip.finish();
+        };
+        return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(gzipped);
+    }
+
+    // Derived from the content, so pages recomputed without new clicks keep their ETag
+    private static String etagOf(Page<UrlAccessStats> stats) {
+        final StringBuilder content = new StringBuilder()
+                .append(stats.getNumber()).append('/')
+                .append(stats.getSize()).append('/')
+                .append(stats.getTotalElements()).append('\n');
+        for (UrlAccessStats row : stats.getContent()) {
+            content.append(row.getValue()).append('\0')
+                    .append(row.getAccessCount()).append('\0')
+                    .append(row.getDeviceCount()).append('\n');
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            final String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
     }
 }
@@ -5,15 +5,17 @@ import com.nelani.url_shortner.dto.UpdateUrlDTO;
 import com.nelani.url_shortner.model.ShortUrlSortField;
 import com.nelani.url_shortner.model.SortDirection;
 import com.nelani.url_shortner.response.BulkUrlResult;
+import com.nelani.url_shortner.response.CursorPage;
 import com.nelani.url_shortner.response.UrlResponse;
 import com.nelani.url_shortner.service.UrlService;
-import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -34,11 +36,10 @@ public class UrlController {
         @Operation(summary = "View all shortened URLs", description = "Returns a paginated list of all URLs.")
         @ApiResponse(responseCode = "200", description = "List retrieved successfully")
         @GetMapping("/urls")
-        @RateLimiter(name = "shortenRateLimiter")
         public ResponseEntity<?> viewAllUrls(
-                        @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
+                        @Parameter(description = "Page number") @RequestParam(defaultValue = "0") @Min(0) int page,
 
-                        @Parameter(description = "Number of items per page") @RequestParam(defaultValue = "10") int size,
+                        @Parameter(description = "Number of items per page") @RequestParam(defaultValue = "10") @Min(1) @Max(100) int size,
                         @Parameter(description = "Sort field: CREATED_AT, EXPIRES_AT, ACCESS_LIMIT") @RequestParam(defaultValue = "CREATED_AT") ShortUrlSortField sortBy,
 
                         @Parameter(description = "Sort direction: ASC or DESC") @RequestParam(defaultValue = "DESC") SortDirection direction) {
@@ -46,10 +47,22 @@ public class UrlController {
                 return ResponseEntity.ok(urls);
         }
 
+        @Operation(summary = "Scroll through shortened URLs", description = "Returns URLs using a continuation cursor. Unlike page numbers, deep pages cost the same as the first one.")
+        @ApiResponse(responseCode = "200", description = "Page retrieved successfully")
+        @GetMapping("/urls/scroll")
+        public ResponseEntity<CursorPage<UrlResponse>> scrollUrls(
+                        @Parameter(description = "Cursor returned by the previous page, omit for the first page") @RequestParam(required = false) String cursor,
+
+                        @Parameter(description = "Number of items per page") @RequestParam(defaultValue = "10") @Min(1) @Max(100) int size,
+                        @Parameter(description = "Sort field: CREATED_AT, EXPIRES_AT, ACCESS_LIMIT") @RequestParam(defaultValue = "CREATED_AT") ShortUrlSortField sortBy,
+
+                        @Parameter(description = "Sort direction: ASC or DESC") @RequestParam(defaultValue = "DESC") SortDirection direction) {
+                return ResponseEntity.ok(urlService.scrollUrls(cursor, size, sortBy, direction));
+        }
+
         @Operation(summary = "Create shortened URLs in bulk")
         @ApiResponse(responseCode = "200", description = "Short URLs created", content = @Content(array = @ArraySchema(schema = @Schema(implementation = BulkUrlResult.class))))
         @PostMapping("/urls/add")
-        @RateLimiter(name = "shortenRateLimiter")
         public ResponseEntity<List<BulkUrlResult>> addUrlsBulk(
                         @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "List of URLs to shorten", required = true, content = @Content(array = @ArraySchema(schema = @Schema(implementation = CreateUrlDTO.class)))) @RequestBody List<CreateUrlDTO> urls) {
 
@@ -75,7 +88,6 @@ public class UrlController {
         @Operation(summary = "Update an existing shortened URL", description = "Replaces an existing URL mapping with a new URL.")
         @ApiResponse(responseCode = "200", description = "URL updated", content = @Content(schema = @Schema(implementation = UrlResponse.class)))
         @PutMapping("/urls/update")
-        @RateLimiter(name = "shortenRateLimiter")
         public ResponseEntity<?> updateUrl(
                         @Parameter(description = "New replacement URL") @RequestBody UpdateUrlDTO dto) {
                 UrlResponse response = urlService.updateUrl(dto);
@@ -85,7 +97,6 @@ public class UrlController {
         @Operation(summary = "Delete a shortened URL", description = "Deletes a URL mapping from the system.")
         @ApiResponse(responseCode = "204", description = "URL deleted")
         @DeleteMapping("/urls/delete")
-        @RateLimiter(name = "shortenRateLimiter")
         public ResponseEntity<Void> removeUrl(
                         @Parameter(description = "URL to delete") @RequestBody String url) {
                 urlService.deleteUrl(url);
@@ -0,0 +1,50 @@
+package com.nelani.url_shortner.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token for keyset pagination. It carries the sort order it
+ * was issued for, the sort key of the last returned row and a unique tie-breaker,
+ * so the next page can seek past that row without OFFSET.
+ */
+public record ScrollCursor(String scope, String key, String tieBreaker) {
+
+    private static final String NULL_KEY = "~";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    public String encode() {
+        return part(scope) + "." + (key == null ? NULL_KEY : part(key)) + "." + part(tieBreaker);
+    }
+
+    public static ScrollCursor decode(String token, String expectedScope) {
+        String[] parts = token.split("\\.", -1);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+
+        ScrollCursor cursor;
+        try {
+            cursor = new ScrollCursor(
+                    unpart(parts[0]),
+                    NULL_KEY.equals(parts[1]) ? null : unpart(parts[1]),
+                    unpart(parts[2]));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+
+        if (!cursor.scope().equals(expectedScope)) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort order.");
+        }
+        return cursor;
+    }
+
+    private static String part(String value) {
+        return ENCODER.encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String unpart(String value) {
+        return new String(DECODER.decode(value), StandardCharsets.UTF_8);
+    }
+}
@@ -1,5 +1,6 @@
 package com.nelani.url_shortner.dto;
 
+import com.nelani.url_shortner.model.RedirectType;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.*;
 
@@ -27,7 +28,19 @@ public record UpdateUrlDTO(
                 @Schema(description = """
                                 Maximum number of unique devices allowed to access the short URL.
                                 Leave null for unlimited access.
-                                """, example = "5", nullable = true) @Positive Long accessLimit
+                                """, example = "5", nullable = true) @Positive Long accessLimit,
+
+                @Schema(description = """
+                                FOUND (302, default) sends every click through the service.
+                                MOVED_PERMANENTLY (301) and PERMANENT_REDIRECT (308) let browsers and CDNs cache
+                                the redirect until the URL expires, so cached clicks are not counted.
+                                Not allowed together with an access limit.
+                                """, example = "FOUND", nullable = true) RedirectType redirectType
 
 ) {
+
+        public UpdateUrlDTO(String shortUrl, String newUrl, Integer expiresInDays, String newShortKey,
+                        Long accessLimit) {
+                this(shortUrl, newUrl, expiresInDays, newShortKey, accessLimit, null);
+        }
 }
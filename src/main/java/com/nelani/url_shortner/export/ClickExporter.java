@@ -0,0 +1,153 @@
+package com.nelani.url_shortner.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nelani.url_shortner.mapper.RequestDataMapper;
+import com.nelani.url_shortner.model.ExportFormat;
+import com.nelani.url_shortner.repository.RequestDataRepository;
+import com.nelani.url_shortner.response.RequestDataResponse;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Streams the raw clicks of one short URL as CSV or NDJSON. Rows are read
+ * through a forward-only cursor and written as they arrive, so memory use does
+ * not depend on the size of the export.
+ *
+ * An export holds a database connection until the client has read the last
+ * row, so only {@code max-concurrent} may run at once.
+ */
+@Log4j2
+@Component
+public class ClickExporter {
+
+    static final String CSV_HEADER = "shortUrl,hashedDevice,country,city,referrer,userAgent,timestamp";
+
+    private final RequestDataRepository requestDataRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+    private final Semaphore running;
+
+    public ClickExporter(RequestDataRepository requestDataRepository,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Value("${analytics.export.fetch-size:1000}") int fetchSize,
+            @Value("${analytics.export.max-concurrent:2}") int maxConcurrent) {
+        this.requestDataRepository = requestDataRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+        this.running = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Reserves an export slot right away, so a busy server answers 503 before
+     * the response starts. The slot is freed once the body is written.
+     *
+     * @param shortUrl full short URL written on every row
+     * @throws ResponseStatusException 503 when {@code max-concurrent} exports are running
+     */
+    public StreamingResponseBody export(UUID shortUrlId, String shortUrl, LocalDateTime from, LocalDateTime to,
+            ExportFormat format) {
+        if (!running.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Too many exports running, try again later.");
+        }
+
+        return out -> {
+            try {
+                write(shortUrlId, shortUrl, from, to, format, out);
+            } finally {
+                running.release();
+            }
+        };
+    }
+
+    void write(UUID shortUrlId, String shortUrl, LocalDateTime from, LocalDateTime to, ExportFormat format,
+            OutputStream out) throws IOException {
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        final long[] rows = {0};
+        try {
+            transactionTemplate.executeWithoutResult(status -> requestDataRepository.forEachClick(
+                    shortUrlId, from, to, fetchSize, click -> {
+                        final RequestDataResponse row = RequestDataMapper.toRequestDataDto(shortUrl, click);
+                        try {
+                            if (format == ExportFormat.CSV) {
+                                writeCsv(writer, row);
+                            } else {
+                                writer.write(objectMapper.writeValueAsString(row));
+                                writer.write('\n');
+                            }
+                        } catch (IOException ex) {
+                            // Usually the client went away, this ends the query too
+                            throw new UncheckedIOException(ex);
+                        }
+                        rows[0]++;
+                    }));
+        } catch (UncheckedIOException ex) {
+            log.debug("Export of {} aborted after {} rows: {}", shortUrl, rows[0], ex.getCause().getMessage());
+            throw ex.getCause();
+        }
+
+        writer.flush();
+        log.debug("Exported {} rows of {}", rows[0], shortUrl);
+    }
+
+    private static void writeCsv(Writer writer, RequestDataResponse row) throws IOException {
+        writeCsvField(writer, row.shortUrl());
+        writer.write(',');
+        writeCsvField(writer, row.hashedDevice());
+        writer.write(',');
+        writeCsvField(writer, row.country());
+        writer.write(',');
+        writeCsvField(writer, row.city());
+        writer.write(',');
+        writeCsvField(writer, row.referrer());
+        writer.write(',');
+        writeCsvField(writer, row.userAgent());
+        writer.write(',');
+        writeCsvField(writer, row.timestamp().toString());
+        writer.write('\n');
+    }
+
+    // RFC 4180 quoting; null is written as an empty field
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        // Referrers and user agents come from clients, a leading formula character would run in a spreadsheet
+        if ("=+-@".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
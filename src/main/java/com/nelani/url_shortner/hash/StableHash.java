@@ -0,0 +1,34 @@
+package com.nelani.url_shortner.hash;
+
+/**
+ * 64-bit string hash that is the same on every JVM and every run, unlike
+ * {@link String#hashCode()} it is safe to persist and to share between nodes:
+ * FNV-1a over the chars, finished with the MurmurHash3 finalizer so the low
+ * bits are as well mixed as the high ones.
+ */
+public final class StableHash {
+
+    private StableHash() {
+    }
+
+    public static long of(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    /**
+     * MurmurHash3 {@code fmix64}.
+     */
+    public static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
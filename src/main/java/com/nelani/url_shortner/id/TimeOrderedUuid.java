@@ -0,0 +1,20 @@
+package com.nelani.url_shortner.id;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an entity id that is assigned a {@link UuidV7} on persist, in the
+ * application and without a database round trip. Replaces
+ * {@code @GeneratedValue(strategy = GenerationType.UUID)}, which generates
+ * random (version 4) ids.
+ */
+@IdGeneratorType(TimeOrderedUuidGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.FIELD, ElementType.METHOD })
+public @interface TimeOrderedUuid {
+}
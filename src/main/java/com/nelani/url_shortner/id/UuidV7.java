@@ -0,0 +1,57 @@
+package com.nelani.url_shortner.id;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered UUIDs (version 7, RFC 9562): a 48-bit Unix millisecond
+ * timestamp, then a 12-bit counter, then 62 random bits. Ids created later
+ * sort higher, so inserts append to the right edge of a B-tree index instead
+ * of landing on a random page.
+ *
+ * Ids are strictly increasing within this JVM: the counter orders ids of the
+ * same millisecond, and when it overflows or the clock steps back the
+ * timestamp is carried forward instead. Across nodes ids are ordered to the
+ * millisecond.
+ */
+public final class UuidV7 {
+
+    private static final long VERSION = 0x7000L;
+    private static final long VARIANT = 0x8000000000000000L;
+
+    // Timestamp and counter of the last id, as (millis << 12) | counter
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private UuidV7() {
+    }
+
+    public static UUID generate() {
+        final long now = System.currentTimeMillis() << 12;
+        long last;
+        long next;
+        do {
+            last = LAST.get();
+            next = Math.max(now, last + 1);
+        } while (!LAST.compareAndSet(last, next));
+        return at(next >>> 12, (int) (next & 0xFFF));
+    }
+
+    /**
+     * Id for the given time, with a random counter. Used to order existing
+     * rows by their creation time.
+     */
+    public static UUID at(long epochMillis) {
+        return at(epochMillis, ThreadLocalRandom.current().nextInt(0x1000));
+    }
+
+    public static long epochMillis(UUID uuid) {
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+
+    private static UUID at(long epochMillis, int counter) {
+        final long msb = (epochMillis << 16) | VERSION | counter;
+        final long lsb = (ThreadLocalRandom.current().nextLong() >>> 2) | VARIANT;
+        return new UUID(msb, lsb);
+    }
+}
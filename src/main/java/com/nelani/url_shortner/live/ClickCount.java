@@ -0,0 +1,12 @@
+package com.nelani.url_shortner.live;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Clicks counted over one second, sent as a {@code count} event.
+ */
+public record ClickCount(
+        @Schema(description = "Short code counted, null when counting every short URL", example = "abc123") String shortCode,
+        @Schema(description = "Start of the second, epoch milliseconds", example = "1760000000000") long second,
+        @Schema(description = "Clicks during that second", example = "12") long clicks) {
+}
@@ -0,0 +1,13 @@
+package com.nelani.url_shortner.live;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * One click as pushed to live feed subscribers, sent as a {@code click} event.
+ */
+public record ClickEvent(
+        @Schema(description = "Short code that was clicked", example = "abc123") String shortCode,
+        @Schema(description = "Click time, epoch milliseconds", example = "1760000000000") long timestamp,
+        @Schema(description = "Country of the client, when known", example = "South Africa") String country,
+        @Schema(description = "City of the client, when known", example = "Johannesburg") String city) {
+}
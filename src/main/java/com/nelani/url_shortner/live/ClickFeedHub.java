@@ -0,0 +1,258 @@
+package com.nelani.url_shortner.live;
+
+import com.nelani.url_shortner.model.LiveFeedMode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fans clicks out to Server-Sent Events subscribers, for one short code or for
+ * all of them. Publishing never blocks: every subscriber has its own bounded
+ * buffer, drained by a virtual thread, and a subscriber whose buffer is full is
+ * disconnected instead of slowing the analytics pipeline down. Clients are
+ * expected to reconnect, which {@code EventSource} does on its own.
+ *
+ * Count subscribers get one {@link ClickCount} per second, which doubles as a
+ * keep-alive; event subscribers get a comment line every
+ * {@code heartbeat-seconds} instead.
+ */
+@Log4j2
+@Component
+public class ClickFeedHub {
+
+    // Counter key for subscribers that watch every short code
+    private static final String ALL = "";
+
+    private final int maxSubscribers;
+    private final int bufferSize;
+    private final long timeoutMs;
+    private final int heartbeatSeconds;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final ExecutorService senders;
+    private final ScheduledExecutorService ticker;
+    private final Counter dropped;
+    private long ticks;
+
+    @Autowired
+    public ClickFeedHub(MeterRegistry meterRegistry,
+            @Value("${analytics.live.max-subscribers:200}") int maxSubscribers,
+            @Value("${analytics.live.buffer-size:256}") int bufferSize,
+            @Value("${analytics.live.timeout-ms:1800000}") long timeoutMs,
+            @Value("${analytics.live.heartbeat-seconds:15}") int heartbeatSeconds) {
+        this(meterRegistry, maxSubscribers, bufferSize, timeoutMs, heartbeatSeconds,
+                Executors.newVirtualThreadPerTaskExecutor(),
+                Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "click-feed-ticker");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    /**
+     * @param ticker runs {@link #tick()} every second, null to call it by hand
+     */
+    ClickFeedHub(MeterRegistry meterRegistry, int maxSubscribers, int bufferSize, long timeoutMs,
+            int heartbeatSeconds, ExecutorService senders, ScheduledExecutorService ticker) {
+        this.maxSubscribers = maxSubscribers;
+        this.bufferSize = bufferSize;
+        this.timeoutMs = timeoutMs;
+        this.heartbeatSeconds = Math.max(1, heartbeatSeconds);
+        this.senders = senders;
+        this.ticker = ticker;
+
+        this.dropped = Counter.builder("analytics.live.dropped")
+                .description("Live feed subscribers disconnected because they fell behind")
+                .register(meterRegistry);
+        meterRegistry.gauge("analytics.live.subscribers", subscriberCount);
+
+        if (ticker != null) {
+            final long untilNextSecond = 1000 - System.currentTimeMillis() % 1000;
+            ticker.scheduleAtFixedRate(this::tick, untilNextSecond, 1000, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @param shortCode short code to watch, null for every short code
+     * @throws ResponseStatusException 503 when the subscriber limit is reached
+     */
+    public SseEmitter subscribe(String shortCode, LiveFeedMode mode) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Too many live feed subscribers, try again later.");
+        }
+
+        final SseEmitter emitter = new SseEmitter(timeoutMs);
+        final Subscriber subscriber = new Subscriber(shortCode, mode, emitter, bufferSize);
+        subscribers.add(subscriber);
+        // After joining the list, so a concurrent remove of the last counting subscriber cannot drop the counter
+        if (mode == LiveFeedMode.COUNTS) {
+            counters.computeIfAbsent(keyOf(shortCode), key -> new LongAdder());
+        }
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(ex -> remove(subscriber));
+        return emitter;
+    }
+
+    /**
+     * Hands a click to every matching subscriber. Cheap when nobody listens.
+     */
+    public void publish(ClickEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        final LongAdder all = counters.get(ALL);
+        if (all != null) {
+            all.increment();
+        }
+        final LongAdder one = event.shortCode() == null ? null : counters.get(event.shortCode());
+        if (one != null) {
+            one.increment();
+        }
+
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.mode == LiveFeedMode.EVENTS && subscriber.matches(event.shortCode())) {
+                offer(subscriber, SseEmitter.event().name("click").data(event));
+            }
+        }
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        senders.shutdownNow();
+    }
+
+    void tick() {
+        try {
+            final long second = System.currentTimeMillis() / 1000 * 1000 - 1000;
+            final Map<String, Long> counts = new HashMap<>();
+            counters.forEach((key, counter) -> counts.put(key, counter.sumThenReset()));
+
+            final boolean heartbeat = ++ticks % heartbeatSeconds == 0;
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.mode == LiveFeedMode.COUNTS) {
+                    final long clicks = counts.getOrDefault(keyOf(subscriber.shortCode), 0L);
+                    offer(subscriber, SseEmitter.event().name("count")
+                            .data(new ClickCount(subscriber.shortCode, second, clicks)));
+                } else if (heartbeat) {
+                    offer(subscriber, SseEmitter.event().comment("heartbeat"));
+                }
+            }
+        } catch (RuntimeException ex) {
+            // An exception would cancel the fixed-rate schedule
+            log.warn("Live feed tick failed: {}", ex.getMessage());
+        }
+    }
+
+    private void offer(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!subscriber.buffer.offer(event)) {
+            dropped.increment();
+            log.debug("Dropping live feed subscriber for {}, {} events behind",
+                    subscriber.shortCode == null ? "all short codes" : subscriber.shortCode, bufferSize);
+            remove(subscriber);
+            subscriber.emitter.complete();
+            return;
+        }
+        if (subscriber.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    // Runs on its own virtual thread, so a slow socket only parks this subscriber
+    private void drain(Subscriber subscriber) {
+        do {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while ((event = subscriber.buffer.poll()) != null) {
+                    subscriber.emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException ex) {
+                // Client went away, or the emitter was already completed
+                remove(subscriber);
+                subscriber.buffer.clear();
+                return;
+            } finally {
+                subscriber.draining.set(false);
+            }
+            // An offer that raced with the end of the loop saw draining still set
+        } while (!subscriber.buffer.isEmpty() && subscriber.draining.compareAndSet(false, true));
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        subscriberCount.decrementAndGet();
+
+        if (subscriber.mode == LiveFeedMode.COUNTS) {
+            final String key = keyOf(subscriber.shortCode);
+            final boolean stillCounted = subscribers.stream().anyMatch(other ->
+                    other.mode == LiveFeedMode.COUNTS && Objects.equals(other.shortCode, subscriber.shortCode));
+            if (!stillCounted) {
+                counters.remove(key);
+            }
+        }
+    }
+
+    private static String keyOf(String shortCode) {
+        return shortCode == null ? ALL : shortCode;
+    }
+
+    private static final class Subscriber {
+        private final String shortCode;
+        private final LiveFeedMode mode;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<SseEmitter.SseEventBuilder> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(String shortCode, LiveFeedMode mode, SseEmitter emitter, int bufferSize) {
+            this.shortCode = shortCode;
+            this.mode = mode;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        private boolean matches(String clicked) {
+            return shortCode == null || shortCode.equals(clicked);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.nelani.url_shortner.logging;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lets at most one log statement through per interval and counts the ones it
+ * holds back. Meant for warnings that can repeat on every request, such as a
+ * failing geo lookup, so an outage logs one line with a count every few
+ * seconds instead of one line per click.
+ *
+ * <pre>
+ * if (SAMPLER.shouldLog()) {
+ *     log.warn("Lookup failed: {} ({} similar not logged)", reason, SAMPLER.takeSuppressed());
+ * }
+ * </pre>
+ */
+public final class LogSampler {
+
+    private final long intervalNanos;
+    private final AtomicLong nextAllowed;
+    private final LongAdder suppressed = new LongAdder();
+
+    public LogSampler(Duration interval) {
+        this.intervalNanos = interval.toNanos();
+        this.nextAllowed = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * @return true for the first call of each interval, the others are counted as suppressed
+     */
+    public boolean shouldLog() {
+        final long now = System.nanoTime();
+        final long next = nextAllowed.get();
+        if (now - next >= 0 && nextAllowed.compareAndSet(next, now + intervalNanos)) {
+            return true;
+        }
+        suppressed.increment();
+        return false;
+    }
+
+    /**
+     * @return calls suppressed since the last time this was called
+     */
+    public long takeSuppressed() {
+        return suppressed.sumThenReset();
+    }
+}
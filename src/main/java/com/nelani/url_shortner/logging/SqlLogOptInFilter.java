@@ -0,0 +1,49 @@
+package com.nelani.url_shortner.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Logs the SQL of one request when it is sent with {@code X-Log-Sql: true}.
+ * SQL logging is off otherwise, see {@link SqlLogTurboFilter}.
+ *
+ * Only statements run on the request thread are logged: analytics inserts run
+ * later on the analytics executor. Disabled unless
+ * {@code logging.sql.per-request.enabled} is set, since any client could
+ * otherwise fill the logs.
+ */
+@Component
+public class SqlLogOptInFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Log-Sql";
+
+    private final boolean enabled;
+
+    public SqlLogOptInFilter(@Value("${logging.sql.per-request.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !"true".equalsIgnoreCase(request.getHeader(HEADER));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        MDC.put(SqlLogTurboFilter.MDC_KEY, "true");
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            MDC.remove(SqlLogTurboFilter.MDC_KEY);
+        }
+    }
+}
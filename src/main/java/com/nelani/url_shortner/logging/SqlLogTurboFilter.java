@@ -0,0 +1,49 @@
+package com.nelani.url_shortner.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * Turns on SQL logging for a single request. The SQL loggers stay at their
+ * configured level (off by default) unless the current thread carries the
+ * {@link #MDC_KEY} set by {@link SqlLogOptInFilter}, in which case their debug
+ * and trace statements are accepted.
+ *
+ * Installed from {@code logback-spring.xml}. Logback asks turbo filters about
+ * every log statement, so anything that is not an SQL logger is rejected by a
+ * prefix check before the MDC is read.
+ */
+public class SqlLogTurboFilter extends TurboFilter {
+
+    public static final String MDC_KEY = "sqlLog";
+
+    // Statements and bind values from Hibernate, and the JdbcTemplate queries in the custom repositories
+    private static final String[] SQL_LOGGERS = {
+            "org.hibernate.SQL",
+            "org.hibernate.orm.jdbc.bind",
+            "org.springframework.jdbc.core.JdbcTemplate",
+            "org.springframework.jdbc.core.StatementCreatorUtils"
+    };
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+            Throwable t) {
+        final String name = logger.getName();
+        if (!name.startsWith("org.hibernate.") && !name.startsWith("org.springframework.jdbc.")) {
+            return FilterReply.NEUTRAL;
+        }
+        if (MDC.get(MDC_KEY) == null) {
+            return FilterReply.NEUTRAL;
+        }
+        for (String sqlLogger : SQL_LOGGERS) {
+            if (name.equals(sqlLogger)) {
+                return FilterReply.ACCEPT;
+            }
+        }
+        return FilterReply.NEUTRAL;
+    }
+}
@@ -1,9 +1,14 @@
 package com.nelani.url_shortner.mapper;
 
+import com.nelani.url_shortner.clicklog.ClickRecord;
 import com.nelani.url_shortner.response.RequestDataResponse;
 import com.nelani.url_shortner.model.RequestData;
 import com.nelani.url_shortner.service.impl.UrlShortenerAlgorithm;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
 public class RequestDataMapper {
 
     public static RequestDataResponse toRequestDataDto(RequestData requestData) {
@@ -12,4 +17,10 @@ public class RequestDataMapper {
                 requestData.getUserAgent(), requestData.getTimestamp());
     }
 
+    public static RequestDataResponse toRequestDataDto(String shortUrl, ClickRecord click) {
+        return new RequestDataResponse(shortUrl, click.deviceHash(), click.country(), click.city(), click.referrer(),
+                click.userAgent(),
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(click.timestampMillis()), ZoneId.systemDefault()));
+    }
+
 }
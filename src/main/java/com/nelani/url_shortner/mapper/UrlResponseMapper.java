@@ -15,7 +15,8 @@ public class UrlResponseMapper {
                 shortUrl.getUpdatedAt(),
                 shortUrl.getExpiresAt(),
                 clicks,
-                shortUrl.getAccessLimit());
+                shortUrl.getAccessLimit(),
+                shortUrl.getRedirectType());
     }
 
     // Overloaded method for mapping without clicks
@@ -0,0 +1,113 @@
+package com.nelani.url_shortner.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers and counters for the stages of a redirect and of creating a short
+ * URL. Every meter is registered up front with a fixed set of tag values, so
+ * recording on the hot path is a {@code System.nanoTime()} call and an update
+ * of a meter already held: no registry lookup and no tag allocation.
+ *
+ * Stage timers publish a percentile histogram, so p50/p95/p99 can be computed
+ * across instances with {@code histogram_quantile}.
+ */
+@Component
+public class ShortenerMetrics {
+
+    public enum Stage {
+        LOOKUP, ACCESS_CHECK, ANALYTICS_ENQUEUE, GEO_LOOKUP, CLICK_PERSIST, CODE_GENERATION, URL_PERSIST
+    }
+
+    public enum LookupSource {
+        CACHE, STORE, DATABASE
+    }
+
+    public enum GeoOutcome {
+        SUCCESS, SKIPPED, FAILURE, SHORT_CIRCUITED, REJECTED
+    }
+
+    // Every status the redirect flow answers with
+    private static final int[] REDIRECT_STATUSES = { 301, 302, 307, 308, 403, 404, 410 };
+
+    private final MeterRegistry meterRegistry;
+    private final Timer[] stages = new Timer[Stage.values().length];
+    private final Counter[] lookups = new Counter[LookupSource.values().length];
+    private final Counter[] geoLookups = new Counter[GeoOutcome.values().length];
+    private final Counter[] redirects = new Counter[REDIRECT_STATUSES.length];
+
+    public ShortenerMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+
+        for (Stage stage : Stage.values()) {
+            stages[stage.ordinal()] = Timer.builder("shortener.stage")
+                    .description("Time spent in each stage of redirecting and creating short URLs")
+                    .tag("stage", tagValue(stage))
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(500))
+                    .maximumExpectedValue(Duration.ofSeconds(10))
+                    .register(meterRegistry);
+        }
+        for (LookupSource source : LookupSource.values()) {
+            lookups[source.ordinal()] = Counter.builder("shortener.redirect.lookups")
+                    .description("Redirect targets found, by where they were found")
+                    .tag("source", tagValue(source))
+                    .register(meterRegistry);
+        }
+        for (GeoOutcome outcome : GeoOutcome.values()) {
+            geoLookups[outcome.ordinal()] = Counter.builder("shortener.geo.lookups")
+                    .description("Geo IP lookups by outcome")
+                    .tag("outcome", tagValue(outcome))
+                    .register(meterRegistry);
+        }
+        for (int i = 0; i < REDIRECT_STATUSES.length; i++) {
+            redirects[i] = redirectCounter(REDIRECT_STATUSES[i]);
+        }
+    }
+
+    /**
+     * @param startNanos {@code System.nanoTime()} taken when the stage began
+     */
+    public void record(Stage stage, long startNanos) {
+        stages[stage.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void lookedUp(LookupSource source) {
+        lookups[source.ordinal()].increment();
+    }
+
+    public void geoLookup(GeoOutcome outcome) {
+        geoLookups[outcome.ordinal()].increment();
+    }
+
+    /**
+     * Counts a redirect request by the status it was answered with.
+     */
+    public void redirected(int status) {
+        for (int i = 0; i < REDIRECT_STATUSES.length; i++) {
+            if (REDIRECT_STATUSES[i] == status) {
+                redirects[i].increment();
+                return;
+            }
+        }
+        // Not expected, the registry returns the existing counter after the first time
+        redirectCounter(status).increment();
+    }
+
+    private Counter redirectCounter(int status) {
+        return Counter.builder("shortener.redirects")
+                .description("Redirect requests by response status")
+                .tag("status", Integer.toString(status))
+                .register(meterRegistry);
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
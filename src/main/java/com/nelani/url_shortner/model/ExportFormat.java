@@ -0,0 +1,22 @@
+package com.nelani.url_shortner.model;
+
+import lombok.Getter;
+
+/**
+ * Format of a click export. CSV opens in spreadsheets, NDJSON holds one JSON
+ * object per line and suits log pipelines and {@code jq}.
+ */
+@Getter
+public enum ExportFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String mediaType;
+    private final String extension;
+
+    ExportFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+}
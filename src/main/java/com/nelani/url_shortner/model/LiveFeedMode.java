@@ -0,0 +1,5 @@
+package com.nelani.url_shortner.model;
+
+public enum LiveFeedMode {
+    EVENTS, COUNTS
+}
@@ -0,0 +1,27 @@
+package com.nelani.url_shortner.model;
+
+import lombok.Getter;
+
+/**
+ * How a short URL redirects. {@link #FOUND} is the default: every click comes
+ * back to the service, so analytics and access limits see every hit. The
+ * permanent types let browsers and CDNs cache the redirect, which takes those
+ * clicks off the service but also out of the analytics.
+ */
+@Getter
+public enum RedirectType {
+    FOUND(302),
+    MOVED_PERMANENTLY(301),
+    PERMANENT_REDIRECT(308);
+
+    private final int status;
+
+    RedirectType(int status) {
+        this.status = status;
+    }
+
+    public boolean isCacheable() {
+        return this != FOUND;
+    }
+
+}
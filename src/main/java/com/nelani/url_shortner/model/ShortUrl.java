@@ -1,5 +1,6 @@
 package com.nelani.url_shortner.model;
 
+import com.nelani.url_shortner.id.TimeOrderedUuid;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
@@ -14,15 +15,18 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+// short_code is looked up through the index of its unique constraint. The (sort key, id) indexes
+// serve the keyset pages of the URL listing, (expiresAt, id) also the expiry purge
 @Table(name = "short_url", indexes = {
-        @Index(name = "idx_shortcode", columnList = "shortCode"),
         @Index(name = "idx_originalurl", columnList = "originalUrl"),
-        @Index(name = "idx_expiresat", columnList = "expiresAt")
+        @Index(name = "idx_createdat_id", columnList = "createdAt, id"),
+        @Index(name = "idx_expiresat_id", columnList = "expiresAt, id"),
+        @Index(name = "idx_accesslimit_id", columnList = "access_limit, id")
 })
 public class ShortUrl {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
     private UUID id;
 
     @Column(length = 12, nullable = false, unique = true)
@@ -30,8 +34,8 @@ public class ShortUrl {
     @Size(min = 2, max = 12, message = "Short code must be between 2 and 12 characters")
     private String shortCode;
 
-    @Lob
-    @Column(nullable = false)
+    // Not a LOB: on PostgreSQL a LOB column is a large object reference that can be neither indexed nor compared
+    @Column(length = 2048, nullable = false)
     @URL(message = "Invalid URL format")
     @NotBlank(message = "Original URL cannot be null or blank")
     @Size(max = 2048, message = "Original URL is too long. Maximum allowed length is 2048 characters.")
@@ -49,6 +53,12 @@ public class ShortUrl {
     @Column(name = "access_limit", nullable = true)
     private Long accessLimit;
 
+    // Null on rows created before redirect types existed, read as FOUND
+    @Builder.Default
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private RedirectType redirectType = RedirectType.FOUND;
+
     @PreUpdate
     public void onUpdate() {
         this.updatedAt = LocalDateTime.now();
@@ -0,0 +1,27 @@
+package com.nelani.url_shortner.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.UUID;
+
+/**
+ * A short URL id replaced by migration V2, which rewrote the ids as UUIDv7.
+ * Click archive files written before it still name the old id.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "short_url_id_remap")
+public class ShortUrlIdRemap {
+
+    @Id
+    private UUID oldId;
+
+    @Column(nullable = false)
+    private UUID newId;
+
+}
@@ -4,14 +4,16 @@ import lombok.Getter;
 
 @Getter
 public enum ShortUrlSortField {
-    CREATED_AT("createdAt"),
-    EXPIRES_AT("expiresAt"),
-    ACCESS_LIMIT("accessLimit");
+    CREATED_AT("createdAt", false),
+    EXPIRES_AT("expiresAt", true),
+    ACCESS_LIMIT("accessLimit", true);
 
     private final String field;
+    private final boolean nullable;
 
-    ShortUrlSortField(String field) {
+    ShortUrlSortField(String field, boolean nullable) {
         this.field = field;
+        this.nullable = nullable;
     }
 
 }
@@ -0,0 +1,37 @@
+package com.nelani.url_shortner.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row per short code mutation, written in the same transaction as the
+ * mutation itself. Other nodes poll it by id to invalidate their local caches.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "url_change_log", indexes = {
+        @Index(name = "idx_url_change_changedat", columnList = "changedAt")
+})
+public class UrlChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 12, nullable = false)
+    private String shortCode;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10, nullable = false)
+    private UrlChangeType changeType;
+
+    @Column(nullable = false)
+    private LocalDateTime changedAt;
+
+}
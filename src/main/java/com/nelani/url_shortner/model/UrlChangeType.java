@@ -0,0 +1,7 @@
+package com.nelani.url_shortner.model;
+
+public enum UrlChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
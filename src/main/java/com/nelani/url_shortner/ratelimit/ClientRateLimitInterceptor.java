@@ -0,0 +1,62 @@
+package com.nelani.url_shortner.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+
+/**
+ * Applies a {@link ClientRateLimiter} to every request it is mapped to, keyed by
+ * the remote address. Behind a proxy, {@code server.forward-headers-strategy=native}
+ * makes that the client from {@code X-Forwarded-For}, but only when the request
+ * came through a trusted proxy ({@code server.tomcat.remoteip.internal-proxies}),
+ * so clients cannot pick their own key.
+ */
+public class ClientRateLimitInterceptor implements HandlerInterceptor {
+
+    // The ErrorResponse GlobalExceptionHandler would write, without going through it: rejections are not errors
+    private static final String REJECTED_BODY =
+            "{\"error\":\"429 TOO_MANY_REQUESTS\",\"message\":\"Too many requests, please slow down.\"}";
+
+    private final ClientRateLimiter limiter;
+    private final Counter rejected;
+
+    public ClientRateLimitInterceptor(String name, ClientRateLimiter limiter, MeterRegistry meterRegistry) {
+        this.limiter = limiter;
+
+        if (meterRegistry == null) {
+            this.rejected = null;
+            return;
+        }
+        this.rejected = Counter.builder("ratelimit.rejected")
+                .description("Requests rejected by the per-client rate limiter")
+                .tag("limiter", name)
+                .register(meterRegistry);
+        meterRegistry.gauge("ratelimit.clients", Tags.of("limiter", name), limiter, ClientRateLimiter::trackedClients);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (limiter.tryAcquire(request.getRemoteAddr())) {
+            return true;
+        }
+
+        if (rejected != null) {
+            rejected.increment();
+        }
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write(REJECTED_BODY);
+        return false;
+    }
+}
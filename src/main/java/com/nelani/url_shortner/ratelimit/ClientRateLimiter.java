@@ -0,0 +1,98 @@
+package com.nelani.url_shortner.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-client rate limiter with an optional global ceiling. Clients are spread
+ * over independent stripes, each a bounded map of {@link TokenBucket}s. Idle
+ * buckets (already refilled, so nothing is lost by dropping them) are evicted
+ * by {@link #evictIdle}, called periodically; while a stripe is full, requests
+ * of clients it does not track yet are rejected.
+ */
+public class ClientRateLimiter {
+
+    private final ConcurrentHashMap<String, TokenBucket>[] stripes;
+    private final int stripeMask;
+    private final int maxClientsPerStripe;
+    private final double permitsPerSecond;
+    private final int burst;
+    private final TokenBucket global;
+    private final LongSupplier clock;
+
+    public ClientRateLimiter(double permitsPerSecond, int burst, double globalPermitsPerSecond,
+            int globalBurst, int maxClients, int stripes) {
+        this(permitsPerSecond, burst, globalPermitsPerSecond, globalBurst, maxClients, stripes, System::nanoTime);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ClientRateLimiter(double permitsPerSecond, int burst, double globalPermitsPerSecond,
+            int globalBurst, int maxClients, int stripes, LongSupplier clock) {
+        final int stripeCount = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+
+        this.stripes = new ConcurrentHashMap[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new ConcurrentHashMap<>();
+        }
+        this.stripeMask = stripeCount - 1;
+        this.maxClientsPerStripe = Math.max(1, maxClients / stripeCount);
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.clock = clock;
+        this.global = globalPermitsPerSecond > 0
+                ? new TokenBucket(globalPermitsPerSecond, globalBurst, clock.getAsLong())
+                : null;
+    }
+
+    /**
+     * @param clientKey identifies the client, usually its IP address
+     * @return true if the request is within both the client's and the global rate
+     */
+    public boolean tryAcquire(String clientKey) {
+        final long now = clock.getAsLong();
+        final ConcurrentHashMap<String, TokenBucket> stripe = stripeFor(clientKey);
+
+        TokenBucket bucket = stripe.get(clientKey);
+        if (bucket == null) {
+            // Only the periodic sweep evicts, so a flood of new keys costs O(1) per request
+            if (stripe.size() >= maxClientsPerStripe) {
+                return false;
+            }
+            bucket = stripe.computeIfAbsent(clientKey, key -> new TokenBucket(permitsPerSecond, burst, now));
+        }
+
+        // Client limit first, so an abusive client cannot drain the shared ceiling; a request the ceiling
+        // rejects gives the client its permit back
+        if (!bucket.tryAcquire(now)) {
+            return false;
+        }
+        if (global != null && !global.tryAcquire(now)) {
+            bucket.refund();
+            return false;
+        }
+        return true;
+    }
+
+    public int trackedClients() {
+        int total = 0;
+        for (ConcurrentHashMap<String, TokenBucket> stripe : stripes) {
+            total += stripe.size();
+        }
+        return total;
+    }
+
+    /**
+     * Drops the buckets that have refilled, one pass over every stripe.
+     */
+    public void evictIdle() {
+        final long now = clock.getAsLong();
+        for (ConcurrentHashMap<String, TokenBucket> stripe : stripes) {
+            stripe.values().removeIf(bucket -> bucket.isIdle(now));
+        }
+    }
+
+    private ConcurrentHashMap<String, TokenBucket> stripeFor(String clientKey) {
+        final int hash = clientKey.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & stripeMask];
+    }
+}
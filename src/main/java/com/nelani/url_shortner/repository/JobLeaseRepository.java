@@ -0,0 +1,57 @@
+package com.nelani.url_shortner.repository;
+
+import com.nelani.url_shortner.model.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+  /**
+   * Takes over a lease that has expired or is already held by the same owner.
+   * The conditional update is atomic, so at most one node can win a given lease.
+   */
+  @Modifying
+  @Query("""
+          UPDATE JobLease jl
+          SET jl.owner = :owner, jl.leasedUntil = :leasedUntil, jl.heartbeatAt = :now
+          WHERE jl.name = :name
+            AND (jl.leasedUntil < :now OR jl.owner = :owner)
+      """)
+  int claim(@Param("name") String name, @Param("owner") String owner,
+      @Param("now") LocalDateTime now, @Param("leasedUntil") LocalDateTime leasedUntil);
+
+  @Modifying
+  @Query(value = """
+          INSERT INTO job_lease (name, owner, leased_until, heartbeat_at)
+          VALUES (:name, :owner, :leasedUntil, :now)
+      """, nativeQuery = true)
+  int insert(@Param("name") String name, @Param("owner") String owner,
+      @Param("now") LocalDateTime now, @Param("leasedUntil") LocalDateTime leasedUntil);
+
+  @Modifying
+  @Query("""
+          UPDATE JobLease jl
+          SET jl.leasedUntil = :leasedUntil, jl.heartbeatAt = :now
+          WHERE jl.name = :name
+            AND jl.owner = :owner
+            AND jl.leasedUntil >= :now
+      """)
+  int heartbeat(@Param("name") String name, @Param("owner") String owner,
+      @Param("now") LocalDateTime now, @Param("leasedUntil") LocalDateTime leasedUntil);
+
+  @Modifying
+  @Query("""
+          UPDATE JobLease jl
+          SET jl.leasedUntil = :now
+          WHERE jl.name = :name
+            AND jl.owner = :owner
+      """)
+  int release(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now);
+
+}
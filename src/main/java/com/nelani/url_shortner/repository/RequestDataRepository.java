@@ -11,18 +11,21 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.UUID;
 
-public interface RequestDataRepository extends JpaRepository<RequestData, UUID> {
+public interface RequestDataRepository extends JpaRepository<RequestData, UUID>, RequestDataRepositoryCustom {
 
        long countByShortUrl(ShortUrl shortUrl);
 
        @Query("SELECT COUNT(DISTINCT rd.deviceHash) FROM RequestData rd WHERE rd.shortUrl.id = :shortUrlId")
        long countDistinctDeviceHashes(@Param("shortUrlId") UUID shortUrlId);
 
+       // device_hash is never null, so COUNT(rd.deviceHash) counts every click while
+       // staying within the (value, device_hash) indexes: no table access is needed
        @Query("""
                          SELECT rd.shortUrl.shortCode AS value,
-                                COUNT(rd.id) AS accessCount,
+                                COUNT(rd.deviceHash) AS accessCount,
                                 COUNT(DISTINCT rd.deviceHash) AS deviceCount
                          FROM RequestData rd
                          GROUP BY rd.shortUrl.shortCode
@@ -31,7 +34,7 @@ public interface RequestDataRepository extends JpaRepository<RequestData, UUID>
 
        @Query("""
                          SELECT rd.country AS value,
-                                COUNT(rd.id) AS accessCount,
+                                COUNT(rd.deviceHash) AS accessCount,
                                 COUNT(DISTINCT rd.deviceHash) AS deviceCount
                          FROM RequestData rd
                          WHERE rd.country IS NOT NULL
@@ -41,7 +44,7 @@ public interface RequestDataRepository extends JpaRepository<RequestData, UUID>
 
        @Query("""
                          SELECT rd.city AS value,
-                                COUNT(rd.id) AS accessCount,
+                                COUNT(rd.deviceHash) AS accessCount,
                                 COUNT(DISTINCT rd.deviceHash) AS deviceCount
                          FROM RequestData rd
                          WHERE rd.city IS NOT NULL
@@ -51,7 +54,7 @@ public interface RequestDataRepository extends JpaRepository<RequestData, UUID>
 
        @Query("""
                          SELECT rd.userAgent AS value,
-                                COUNT(rd.id) AS accessCount,
+                                COUNT(rd.deviceHash) AS accessCount,
                                 COUNT(DISTINCT rd.deviceHash) AS deviceCount
                          FROM RequestData rd
                          WHERE rd.userAgent IS NOT NULL
@@ -63,4 +66,14 @@ public interface RequestDataRepository extends JpaRepository<RequestData, UUID>
        @Transactional
        @Query("DELETE FROM RequestData rd WHERE rd.shortUrl = :shortUrl")
        int deleteByShortUrl(@Param("shortUrl") ShortUrl shortUrl);
+
+       @Modifying
+       @Query("DELETE FROM RequestData rd WHERE rd.shortUrl.id IN :shortUrlIds")
+       int deleteByShortUrlIds(@Param("shortUrlIds") Collection<UUID> shortUrlIds);
+
+       // Geo data of a click stored before its lookup finished
+       @Modifying
+       @Transactional
+       @Query("UPDATE RequestData rd SET rd.country = :country, rd.city = :city WHERE rd.id = :id")
+       int updateGeo(@Param("id") UUID id, @Param("country") String country, @Param("city") String city);
 }
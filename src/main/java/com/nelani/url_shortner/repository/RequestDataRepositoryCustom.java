@@ -0,0 +1,78 @@
+package com.nelani.url_shortner.repository;
+
+import com.nelani.url_shortner.clicklog.ClickRecord;
+import com.nelani.url_shortner.dto.UrlAccessStats;
+import com.nelani.url_shortner.model.SortDirection;
+import com.nelani.url_shortner.model.StatsGroupBy;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+public interface RequestDataRepositoryCustom {
+
+       /**
+        * Keyset page of aggregated stats ordered by access count and then by the
+        * grouped value. Pass a null {@code afterValue} for the first page.
+        */
+       List<UrlAccessStats> findStatsPageAfter(StatsGroupBy groupBy, SortDirection direction,
+                     Long afterCount, String afterValue, int limit);
+
+       /**
+        * The {@code limit} most accessed short codes, like
+        * {@link RequestDataRepository#mostAccessedUrls} sorted by access count.
+        * The statement is cancelled by the database once it runs longer than
+        * {@code timeout}, rounded to whole seconds and at least one.
+        */
+       List<UrlAccessStats> findMostAccessedUrls(int limit, Duration timeout);
+
+       /**
+        * Bulk inserts clicks from the click log. Clicks whose id is already
+        * present, or whose short URL no longer exists, are skipped.
+        *
+        * @return number of rows inserted
+        */
+       int insertClicks(List<ClickRecord> clicks);
+
+       /**
+        * @return timestamp of the oldest click that may be archived before
+        *         {@code before}, or null when there is none. Clicks of URLs with
+        *         an access limit are never archived, the limit is checked against
+        *         them.
+        */
+       LocalDateTime findOldestArchivableBefore(LocalDateTime before);
+
+       /**
+        * @return up to {@code limit} archivable clicks in {@code [from, to)},
+        *         ordered by timestamp
+        */
+       List<ClickRecord> findArchivable(LocalDateTime from, LocalDateTime to, int limit);
+
+       /**
+        * Streams the clicks of one short URL in {@code [from, to)}, ordered by
+        * timestamp, without loading them all. Either bound may be null. Run it
+        * in a transaction: some drivers only honour the fetch size with auto
+        * commit off.
+        */
+       void forEachClick(UUID shortUrlId, LocalDateTime from, LocalDateTime to, int fetchSize,
+                     Consumer<ClickRecord> consumer);
+
+       /**
+        * @return number of rows deleted
+        */
+       int deleteAllByIds(List<UUID> ids);
+
+       /**
+        * Streams access counts grouped by the stats dimension and device hash,
+        * for merging with archived clicks.
+        */
+       void forEachDeviceCount(StatsGroupBy groupBy, DeviceCountConsumer consumer);
+
+       @FunctionalInterface
+       interface DeviceCountConsumer {
+              void accept(String value, String deviceHash, long accessCount);
+       }
+
+}
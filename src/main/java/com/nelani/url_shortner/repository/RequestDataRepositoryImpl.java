@@ -0,0 +1,244 @@
+package com.nelani.url_shortner.repository;
+
+import com.nelani.url_shortner.clicklog.ClickRecord;
+import com.nelani.url_shortner.dto.UrlAccessStats;
+import com.nelani.url_shortner.dto.UrlAccessStatsDTO;
+import com.nelani.url_shortner.model.RequestData;
+import com.nelani.url_shortner.model.SortDirection;
+import com.nelani.url_shortner.model.StatsGroupBy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+public class RequestDataRepositoryImpl implements RequestDataRepositoryCustom {
+
+       // Skips clicks already loaded and clicks of URLs deleted since, so a segment can be loaded again safely
+       private static final String INSERT_CLICK = """
+                     INSERT INTO request_data (id, short_url_id, device_hash, country, city, referrer, user_agent, timestamp)
+                     SELECT CAST(? AS UUID), CAST(? AS UUID), CAST(? AS VARCHAR), CAST(? AS VARCHAR),
+                            CAST(? AS VARCHAR), CAST(? AS VARCHAR), CAST(? AS VARCHAR), CAST(? AS TIMESTAMP)
+                     WHERE EXISTS (SELECT 1 FROM short_url WHERE id = CAST(? AS UUID))
+                       AND NOT EXISTS (SELECT 1 FROM request_data WHERE id = CAST(? AS UUID))
+                     """;
+
+       // Column order expected by toClickRecord
+       private static final String CLICK_COLUMNS = """
+                     SELECT rd.id, rd.short_url_id, rd.timestamp, rd.device_hash,
+                            rd.country, rd.city, rd.referrer, rd.user_agent
+                     """;
+
+       private static final String ARCHIVABLE = """
+                     FROM request_data rd
+                     JOIN short_url su ON su.id = rd.short_url_id
+                     WHERE su.access_limit IS NULL
+                     """;
+
+       @PersistenceContext
+       private EntityManager entityManager;
+
+       private final JdbcTemplate jdbcTemplate;
+
+       public RequestDataRepositoryImpl(JdbcTemplate jdbcTemplate) {
+              this.jdbcTemplate = jdbcTemplate;
+       }
+
+       @Override
+       public List<UrlAccessStats> findStatsPageAfter(StatsGroupBy groupBy, SortDirection direction,
+                     Long afterCount, String afterValue, int limit) {
+              CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+              CriteriaQuery<Tuple> query = cb.createTupleQuery();
+              Root<RequestData> root = query.from(RequestData.class);
+
+              Expression<String> value = switch (groupBy) {
+                     case URL -> root.get("shortUrl").<String>get("shortCode");
+                     case COUNTRY -> root.<String>get("country");
+                     case CITY -> root.<String>get("city");
+                     case USER_AGENT -> root.<String>get("userAgent");
+              };
+              // device_hash is never null, counting it keeps the query within the (value, device_hash) indexes
+              Expression<Long> accessCount = cb.count(root.get("deviceHash"));
+              Expression<Long> deviceCount = cb.countDistinct(root.get("deviceHash"));
+              boolean asc = direction == SortDirection.ASC;
+
+              query.multiselect(value, accessCount, deviceCount);
+              if (groupBy != StatsGroupBy.URL) {
+                     query.where(cb.isNotNull(value));
+              }
+              query.groupBy(value);
+
+              if (afterValue != null) {
+                     query.having(cb.or(
+                                   asc ? cb.greaterThan(accessCount, afterCount) : cb.lessThan(accessCount, afterCount),
+                                   cb.and(cb.equal(accessCount, afterCount), cb.greaterThan(value, afterValue))));
+              }
+
+              // The grouped value is unique per row, so it breaks ties between equal counts
+              query.orderBy(asc ? cb.asc(accessCount) : cb.desc(accessCount), cb.asc(value));
+
+              return entityManager.createQuery(query)
+                            .setMaxResults(limit)
+                            .getResultList()
+                            .stream()
+                            .map(tuple -> (UrlAccessStats) new UrlAccessStatsDTO(
+                                          tuple.get(0, String.class),
+                                          tuple.get(1, Long.class),
+                                          tuple.get(2, Long.class)))
+                            .toList();
+       }
+
+       @Override
+       public List<UrlAccessStats> findMostAccessedUrls(int limit, Duration timeout) {
+              // JDBC query timeouts are whole seconds, and zero would mean no timeout at all
+              int timeoutMillis = (int) Math.min(Integer.MAX_VALUE, Math.max(1_000, timeout.toMillis()));
+              return entityManager.createQuery("""
+                                   SELECT rd.shortUrl.shortCode, COUNT(rd.deviceHash), COUNT(DISTINCT rd.deviceHash)
+                                   FROM RequestData rd
+                                   GROUP BY rd.shortUrl.shortCode
+                                   ORDER BY COUNT(rd.deviceHash) DESC
+                                   """, Tuple.class)
+                            .setHint("jakarta.persistence.query.timeout", timeoutMillis)
+                            .setMaxResults(limit)
+                            .getResultList()
+                            .stream()
+                            .map(tuple -> (UrlAccessStats) new UrlAccessStatsDTO(
+                                          tuple.get(0, String.class),
+                                          tuple.get(1, Long.class),
+                                          tuple.get(2, Long.class)))
+                            .toList();
+       }
+
+       @Override
+       public int insertClicks(List<ClickRecord> clicks) {
+              int[][] results = jdbcTemplate.batchUpdate(INSERT_CLICK, clicks, clicks.size(), (statement, click) -> {
+                     statement.setObject(1, click.id());
+                     statement.setObject(2, click.shortUrlId());
+                     statement.setString(3, click.deviceHash());
+                     statement.setString(4, click.country());
+                     statement.setString(5, click.city());
+                     statement.setString(6, click.referrer());
+                     statement.setString(7, click.userAgent());
+                     statement.setTimestamp(8, Timestamp.valueOf(LocalDateTime.ofInstant(
+                                   Instant.ofEpochMilli(click.timestampMillis()), ZoneId.systemDefault())));
+                     statement.setObject(9, click.shortUrlId());
+                     statement.setObject(10, click.id());
+              });
+
+              return countRows(results);
+       }
+
+       @Override
+       public LocalDateTime findOldestArchivableBefore(LocalDateTime before) {
+              Timestamp oldest = jdbcTemplate.queryForObject(
+                            "SELECT MIN(rd.timestamp) " + ARCHIVABLE + " AND rd.timestamp < ?",
+                            Timestamp.class, Timestamp.valueOf(before));
+              return oldest == null ? null : oldest.toLocalDateTime();
+       }
+
+       @Override
+       public List<ClickRecord> findArchivable(LocalDateTime from, LocalDateTime to, int limit) {
+              return jdbcTemplate.query(CLICK_COLUMNS + ARCHIVABLE + """
+                              AND rd.timestamp >= ? AND rd.timestamp < ?
+                            ORDER BY rd.timestamp
+                            LIMIT ?
+                            """,
+                            (rs, rowNum) -> toClickRecord(rs),
+                            Timestamp.valueOf(from), Timestamp.valueOf(to), limit);
+       }
+
+       @Override
+       public void forEachClick(UUID shortUrlId, LocalDateTime from, LocalDateTime to, int fetchSize,
+                     Consumer<ClickRecord> consumer) {
+              StringBuilder sql = new StringBuilder(CLICK_COLUMNS).append("FROM request_data rd WHERE rd.short_url_id = ?");
+              List<Object> args = new ArrayList<>(List.of(shortUrlId));
+              if (from != null) {
+                     sql.append(" AND rd.timestamp >= ?");
+                     args.add(Timestamp.valueOf(from));
+              }
+              if (to != null) {
+                     sql.append(" AND rd.timestamp < ?");
+                     args.add(Timestamp.valueOf(to));
+              }
+              sql.append(" ORDER BY rd.timestamp");
+
+              // Forward-only with a fetch size, so the driver holds one batch of rows instead of the whole result
+              jdbcTemplate.query(connection -> {
+                     PreparedStatement statement = connection.prepareStatement(sql.toString(),
+                                   ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                     statement.setFetchSize(fetchSize);
+                     for (int i = 0; i < args.size(); i++) {
+                            statement.setObject(i + 1, args.get(i));
+                     }
+                     return statement;
+              }, (RowCallbackHandler) rs -> consumer.accept(toClickRecord(rs)));
+       }
+
+       @Override
+       public int deleteAllByIds(List<UUID> ids) {
+              int[][] results = jdbcTemplate.batchUpdate("DELETE FROM request_data WHERE id = ?", ids, 1000,
+                            (statement, id) -> statement.setObject(1, id));
+              return countRows(results);
+       }
+
+       @Override
+       public void forEachDeviceCount(StatsGroupBy groupBy, DeviceCountConsumer consumer) {
+              String sql = switch (groupBy) {
+                     case URL -> """
+                                   SELECT su.short_code, rd.device_hash, COUNT(*)
+                                   FROM request_data rd
+                                   JOIN short_url su ON su.id = rd.short_url_id
+                                   GROUP BY su.short_code, rd.device_hash
+                                   """;
+                     case COUNTRY -> groupedByDevice("country");
+                     case CITY -> groupedByDevice("city");
+                     case USER_AGENT -> groupedByDevice("user_agent");
+              };
+              jdbcTemplate.query(sql, (RowCallbackHandler) rs ->
+                            consumer.accept(rs.getString(1), rs.getString(2), rs.getLong(3)));
+       }
+
+       private static String groupedByDevice(String column) {
+              return "SELECT rd." + column + ", rd.device_hash, COUNT(*) FROM request_data rd"
+                            + " WHERE rd." + column + " IS NOT NULL GROUP BY rd." + column + ", rd.device_hash";
+       }
+
+       private static ClickRecord toClickRecord(ResultSet rs) throws SQLException {
+              return new ClickRecord(
+                            rs.getObject(1, UUID.class),
+                            rs.getObject(2, UUID.class),
+                            rs.getTimestamp(3).toLocalDateTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+                            rs.getString(4),
+                            rs.getString(5),
+                            rs.getString(6),
+                            rs.getString(7),
+                            rs.getString(8));
+       }
+
+       private static int countRows(int[][] results) {
+              int rows = 0;
+              for (int[] batch : results) {
+                     for (int count : batch) {
+                            // Drivers that cannot tell report SUCCESS_NO_INFO, counted as one row
+                            rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count);
+                     }
+              }
+              return rows;
+       }
+
+}
@@ -0,0 +1,11 @@
+package com.nelani.url_shortner.repository;
+
+import com.nelani.url_shortner.model.ShortUrlIdRemap;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface ShortUrlIdRemapRepository extends JpaRepository<ShortUrlIdRemap, UUID> {
+}
@@ -1,6 +1,7 @@
 package com.nelani.url_shortner.repository;
 
 import com.nelani.url_shortner.model.ShortUrl;
+import com.nelani.url_shortner.store.RedirectEntry;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,12 +10,13 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface ShortUrlRepository extends JpaRepository<ShortUrl, UUID> {
+public interface ShortUrlRepository extends JpaRepository<ShortUrl, UUID>, ShortUrlRepositoryCustom {
   @Override
   Page<ShortUrl> findAll(Pageable pageable);
 
@@ -34,4 +36,65 @@ public interface ShortUrlRepository extends JpaRepository<ShortUrl, UUID> {
       """)
   List<ShortUrl> findUrlsExpiredBefore(@Param("expiryDate") LocalDateTime expiryDate);
 
+  /**
+   * Keyset scan over expired URL ids. Only ids are loaded and the scan resumes
+   * strictly after {@code afterId}, so no OFFSET is needed between chunks.
+   */
+  @Query("""
+          SELECT su.id
+          FROM ShortUrl su
+          WHERE su.expiresAt IS NOT NULL
+            AND su.expiresAt <= :expiryDate
+            AND su.id > :afterId
+          ORDER BY su.id
+      """)
+  List<UUID> findExpiredIdsAfter(@Param("expiryDate") LocalDateTime expiryDate,
+      @Param("afterId") UUID afterId, Pageable pageable);
+
+  /**
+   * {@link #findExpiredIdsAfter} limited to the URLs whose short code starts
+   * with one of {@code prefixes}, so each purge partition only reads its own ids.
+   */
+  @Query("""
+          SELECT su.id
+          FROM ShortUrl su
+          WHERE su.expiresAt IS NOT NULL
+            AND su.expiresAt <= :expiryDate
+            AND su.id > :afterId
+            AND SUBSTRING(su.shortCode, 1, 1) IN (:prefixes)
+          ORDER BY su.id
+      """)
+  List<UUID> findExpiredIdsWithPrefixAfter(@Param("expiryDate") LocalDateTime expiryDate,
+      @Param("afterId") UUID afterId, @Param("prefixes") Collection<String> prefixes, Pageable pageable);
+
+  /**
+   * Keyset scan over everything a redirect needs, projected straight into
+   * {@link RedirectEntry} so rebuilding the redirect store does not fill the
+   * persistence context.
+   */
+  @Query("""
+          SELECT new com.nelani.url_shortner.store.RedirectEntry(
+                 su.id, su.shortCode, su.originalUrl, su.expiresAt, su.accessLimit, su.redirectType)
+          FROM ShortUrl su
+          WHERE su.id > :afterId
+          ORDER BY su.id
+      """)
+  List<RedirectEntry> findRedirectEntriesAfter(@Param("afterId") UUID afterId, Pageable pageable);
+
+  @Query("""
+          SELECT new com.nelani.url_shortner.store.RedirectEntry(
+                 su.id, su.shortCode, su.originalUrl, su.expiresAt, su.accessLimit, su.redirectType)
+          FROM ShortUrl su
+          WHERE su.shortCode IN :shortCodes
+      """)
+  List<RedirectEntry> findRedirectEntriesByShortCodes(@Param("shortCodes") Collection<String> shortCodes);
+
+  @Query("""
+          SELECT new com.nelani.url_shortner.store.RedirectEntry(
+                 su.id, su.shortCode, su.originalUrl, su.expiresAt, su.accessLimit, su.redirectType)
+          FROM ShortUrl su
+          WHERE su.id IN :ids
+      """)
+  List<RedirectEntry> findRedirectEntriesByIds(@Param("ids") Collection<UUID> ids);
+
 }
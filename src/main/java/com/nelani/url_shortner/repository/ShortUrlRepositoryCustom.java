@@ -0,0 +1,29 @@
+package com.nelani.url_shortner.repository;
+
+import com.nelani.url_shortner.model.ShortUrl;
+import com.nelani.url_shortner.model.ShortUrlSortField;
+import com.nelani.url_shortner.model.SortDirection;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ShortUrlRepositoryCustom {
+
+  /**
+   * Keyset page of URLs ordered by the sort field and then by id, with null sort
+   * keys always last. Pass a null {@code afterId} for the first page. Every page
+   * is a range scan of the (sort key, id) index, however deep.
+   */
+  List<ShortUrl> findPageAfter(ShortUrlSortField sortField, SortDirection direction,
+      Comparable<?> afterKey, UUID afterId, int limit);
+
+  /**
+   * The redirect lookup. Runs read-only, so it is served by a read replica when
+   * they are configured; a code the replica does not have yet (created a moment
+   * ago) is looked up again on the primary. Sharded, callers run it on the
+   * shard of the code ({@code Shards.onShardOf}).
+   */
+  Optional<ShortUrl> findForRedirect(String shortCode);
+
+}
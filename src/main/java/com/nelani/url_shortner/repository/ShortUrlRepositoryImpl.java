@@ -0,0 +1,99 @@
+package com.nelani.url_shortner.repository;
+
+import com.nelani.url_shortner.model.ShortUrl;
+import com.nelani.url_shortner.model.ShortUrlSortField;
+import com.nelani.url_shortner.model.SortDirection;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public class ShortUrlRepositoryImpl implements ShortUrlRepositoryCustom {
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  private final TransactionTemplate replicaRead;
+  private final TransactionTemplate primaryRead;
+  private final boolean replicas;
+
+  public ShortUrlRepositoryImpl(PlatformTransactionManager transactionManager,
+      @Value("${datasource.replicas.urls:}") String replicaUrls) {
+    this.replicaRead = new TransactionTemplate(transactionManager);
+    this.replicaRead.setReadOnly(true);
+    // Read-write, so the connection comes from the primary
+    this.primaryRead = new TransactionTemplate(transactionManager);
+    this.replicas = !replicaUrls.isBlank();
+  }
+
+  @Override
+  public Optional<ShortUrl> findForRedirect(String shortCode) {
+    final Optional<ShortUrl> found = replicaRead.execute(status -> findByShortCode(shortCode));
+    if (found.isPresent() || !replicas) {
+      return found;
+    }
+    return primaryRead.execute(status -> findByShortCode(shortCode));
+  }
+
+  private Optional<ShortUrl> findByShortCode(String shortCode) {
+    return entityManager.createQuery("SELECT su FROM ShortUrl su WHERE su.shortCode = :shortCode", ShortUrl.class)
+        .setParameter("shortCode", shortCode)
+        .getResultStream()
+        .findFirst();
+  }
+
+  /**
+   * Two seeks, each a range scan of the (sort key, id) index: the rows with a key
+   * past the cursor, then the rows without a key, which always come last. A
+   * cursor already in the null block skips the first one.
+   */
+  @Override
+  public List<ShortUrl> findPageAfter(ShortUrlSortField sortField, SortDirection direction,
+      Comparable<?> afterKey, UUID afterId, int limit) {
+    final String key = "su." + sortField.getField();
+    final String order = direction == SortDirection.ASC ? "ASC" : "DESC";
+    final String after = direction == SortDirection.ASC ? ">" : "<";
+    final boolean inNullBlock = afterId != null && afterKey == null;
+
+    final List<ShortUrl> page = new ArrayList<>();
+    if (!inNullBlock) {
+      // Row value comparison, so the database seeks straight to the cursor in the index
+      final List<String> where = new ArrayList<>();
+      if (sortField.isNullable()) {
+        where.add(key + " IS NOT NULL");
+      }
+      if (afterId != null) {
+        where.add("(" + key + ", su.id) " + after + " (:afterKey, :afterId)");
+      }
+      final TypedQuery<ShortUrl> withKey = entityManager.createQuery(
+          "SELECT su FROM ShortUrl su" + (where.isEmpty() ? "" : " WHERE " + String.join(" AND ", where))
+              + " ORDER BY " + key + " " + order + ", su.id " + order,
+          ShortUrl.class);
+      if (afterId != null) {
+        withKey.setParameter("afterKey", afterKey).setParameter("afterId", afterId);
+      }
+      page.addAll(withKey.setMaxResults(limit).getResultList());
+    }
+
+    if (page.size() < limit && sortField.isNullable()) {
+      final TypedQuery<ShortUrl> withoutKey = entityManager.createQuery(
+          "SELECT su FROM ShortUrl su WHERE " + key + " IS NULL"
+              + (inNullBlock ? " AND su.id " + after + " :afterId" : "")
+              + " ORDER BY su.id " + order,
+          ShortUrl.class);
+      if (inNullBlock) {
+        withoutKey.setParameter("afterId", afterId);
+      }
+      page.addAll(withoutKey.setMaxResults(limit - page.size()).getResultList());
+    }
+    return page;
+  }
+
+}
@@ -0,0 +1,47 @@
+package com.nelani.url_shortner.repository;
+
+import com.nelani.url_shortner.model.UrlChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface UrlChangeRepository extends JpaRepository<UrlChange, Long> {
+
+  @Query("SELECT uc FROM UrlChange uc WHERE uc.id > :afterId ORDER BY uc.id")
+  List<UrlChange> findChangesAfter(@Param("afterId") long afterId, Pageable pageable);
+
+  @Query("SELECT COALESCE(MAX(uc.id), 0L) FROM UrlChange uc")
+  long findMaxId();
+
+  @Query("SELECT COALESCE(MIN(uc.id), 0L) FROM UrlChange uc")
+  long findMinId();
+
+  /**
+   * Logs the deletion of the given URLs with a single statement, used by the
+   * expired URL purge right before the rows are removed.
+   */
+  @Modifying
+  @Query(value = """
+          INSERT INTO url_change_log (short_code, change_type, changed_at)
+          SELECT su.short_code, 'DELETED', :now
+          FROM short_url su
+          WHERE su.id IN (:ids)
+      """, nativeQuery = true)
+  int recordDeletions(@Param("ids") Collection<UUID> ids, @Param("now") LocalDateTime now);
+
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM UrlChange uc WHERE uc.changedAt < :cutoff")
+  int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+
+}
@@ -0,0 +1,14 @@
+package com.nelani.url_shortner.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "A page of results addressed by a continuation cursor instead of a page number.")
+public record CursorPage<T>(
+                @Schema(description = "Items on this page") List<T> content,
+
+                @Schema(description = "Opaque cursor for the next page, absent on the last page", example = "Q1JFQVRFRF9BVDpERVND.MjAyNS0xMi0wNlQxNDoyMzowMA.ZjQ3YWM") String nextCursor,
+
+                @Schema(description = "Whether another page is available", example = "true") boolean hasNext) {
+}
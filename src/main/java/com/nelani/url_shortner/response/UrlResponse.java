@@ -1,6 +1,7 @@
 package com.nelani.url_shortner.response;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.nelani.url_shortner.model.RedirectType;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 import java.time.LocalDateTime;
@@ -21,5 +22,12 @@ public record UrlResponse(
 
                 @Schema(description = "Number of times the short URL has been accessed", example = "42") Long clicks,
 
-                @Schema(description = "Maximum number of unique devices allowed to access the short URL.", example = "5") Long accessLimit) {
+                @Schema(description = "Maximum number of unique devices allowed to access the short URL.", example = "5") Long accessLimit,
+
+                @Schema(description = "How the short URL redirects, permanent types can be cached by browsers and CDNs", example = "FOUND") RedirectType redirectType) {
+
+        public UrlResponse(String originalUrl, String shortUrl, LocalDateTime createdAt, LocalDateTime updatedAt,
+                        LocalDateTime expiresAt, Long clicks, Long accessLimit) {
+                this(originalUrl, shortUrl, createdAt, updatedAt, expiresAt, clicks, accessLimit, null);
+        }
 }
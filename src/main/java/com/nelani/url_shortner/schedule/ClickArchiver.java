@@ -0,0 +1,161 @@
+package com.nelani.url_shortner.schedule;
+
+import com.nelani.url_shortner.archive.ClickArchive;
+import com.nelani.url_shortner.clicklog.ClickRecord;
+import com.nelani.url_shortner.repository.RequestDataRepository;
+import com.nelani.url_shortner.shard.Shards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Moves clicks older than {@code analytics.archive.after-days} out of
+ * {@code request_data} into the {@link ClickArchive}. Every file holds at
+ * most one calendar day and {@code rows-per-file} clicks, and its rows are
+ * deleted in one short transaction once the file is on disk. Each file
+ * holds the clicks of one shard.
+ */
+@Log4j2
+@Component
+public class ClickArchiver {
+
+    private static final String JOB_NAME = "archive-clicks";
+
+    private final ClickArchive clickArchive;
+    private final RequestDataRepository requestDataRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ClusterJobRunner clusterJobRunner;
+    private final Shards shards;
+
+    private final int afterDays;
+    private final int rowsPerFile;
+
+    private final Counter archived;
+
+    public ClickArchiver(ClickArchive clickArchive,
+            RequestDataRepository requestDataRepository,
+            PlatformTransactionManager transactionManager,
+            ClusterJobRunner clusterJobRunner,
+            Shards shards,
+            MeterRegistry meterRegistry,
+            @Value("${analytics.archive.after-days:90}") int afterDays,
+            @Value("${analytics.archive.rows-per-file:100000}") int rowsPerFile) {
+        this.clickArchive = clickArchive;
+        this.requestDataRepository = requestDataRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clusterJobRunner = clusterJobRunner;
+        this.shards = shards;
+        this.afterDays = afterDays;
+        this.rowsPerFile = rowsPerFile;
+
+        this.archived = Counter.builder("analytics.archive.archived")
+                .description("Clicks moved from request_data into the archive")
+                .register(meterRegistry);
+    }
+
+    // Runs every day at 4:00 AM, after the expired URL purge
+    @Scheduled(cron = "${analytics.archive.cron:0 0 4 * * ?}")
+    public void archiveOldClicks() {
+        if (!clickArchive.isEnabled()) {
+            return;
+        }
+
+        final LocalDateTime cutoff = LocalDate.now().minusDays(afterDays).atStartOfDay();
+        clusterJobRunner.runExclusive(JOB_NAME, stillLeased -> {
+            log.info("Archiving clicks before {}", cutoff);
+            long moved = archiveBefore(cutoff, stillLeased);
+            log.info("Click archiving finished. Archived {} clicks.", moved);
+        });
+    }
+
+    /**
+     * Archives clicks older than {@code cutoff}, one file at a time, shard by
+     * shard.
+     *
+     * @param keepRunning checked before every file, false stops the run
+     * @return number of clicks archived
+     */
+    public long archiveBefore(LocalDateTime cutoff, BooleanSupplier keepRunning) {
+        try {
+            clickArchive.recoverPending(id -> shards.anyShard(() -> requestDataRepository.existsById(id)));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to recover pending archive files", ex);
+        }
+
+        long total = 0;
+        for (int shard = 0; shard < shards.count() && keepRunning.getAsBoolean(); shard++) {
+            total += shards.onShard(shard, () -> archiveShard(cutoff, keepRunning));
+        }
+        return total;
+    }
+
+    private long archiveShard(LocalDateTime cutoff, BooleanSupplier keepRunning) {
+        long total = 0;
+        while (keepRunning.getAsBoolean() && !Thread.currentThread().isInterrupted()) {
+            final LocalDateTime from = requestDataRepository.findOldestArchivableBefore(cutoff);
+            if (from == null) {
+                break;
+            }
+
+            // One day per file keeps the timestamp deltas small
+            final LocalDateTime nextDay = from.toLocalDate().plusDays(1).atStartOfDay();
+            final LocalDateTime to = nextDay.isBefore(cutoff) ? nextDay : cutoff;
+            final List<ClickRecord> clicks = requestDataRepository.findArchivable(from, to, rowsPerFile);
+            if (clicks.isEmpty()) {
+                break;
+            }
+
+            total += archiveFile(clicks);
+        }
+        return total;
+    }
+
+    private int archiveFile(List<ClickRecord> clicks) {
+        final Path pending;
+        try {
+            pending = clickArchive.write(clicks);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to write click archive file", ex);
+        }
+
+        try {
+            final List<UUID> ids = clicks.stream().map(ClickRecord::id).toList();
+            transactionTemplate.executeWithoutResult(status -> {
+                // Rows deleted since they were read (their URL was removed) must not live on in the file
+                int deleted = requestDataRepository.deleteAllByIds(ids);
+                if (deleted != ids.size()) {
+                    throw new IllegalStateException("Expected to delete " + ids.size()
+                            + " archived clicks but deleted " + deleted);
+                }
+            });
+        } catch (RuntimeException ex) {
+            clickArchive.discard(pending);
+            throw ex;
+        }
+
+        try {
+            clickArchive.publish(pending);
+        } catch (IOException ex) {
+            // Settled by recoverPending on the next run, the probe row is gone
+            throw new UncheckedIOException("Failed to publish click archive file " + pending, ex);
+        }
+
+        archived.increment(clicks.size());
+        log.debug("Archived {} clicks to {}", clicks.size(), pending.getFileName());
+        return clicks.size();
+    }
+}
@@ -0,0 +1,124 @@
+package com.nelani.url_shortner.schedule;
+
+import com.nelani.url_shortner.service.JobLockService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Runs scheduled jobs on a single node of the cluster by guarding them with a
+ * database lease. The lease is renewed by a heartbeat while the job runs, and
+ * the job is told to stop as soon as the lease can no longer be guaranteed.
+ */
+@Log4j2
+@Component
+public class ClusterJobRunner {
+
+    private final JobLockService jobLockService;
+    private final Duration leaseTime;
+    private final ScheduledExecutorService heartbeats;
+
+    public ClusterJobRunner(JobLockService jobLockService,
+            @Value("${scheduling.lock.lease-time-ms:600000}") long leaseTimeMs) {
+        this.jobLockService = jobLockService;
+        this.leaseTime = Duration.ofMillis(leaseTimeMs);
+
+        // Dedicated thread, the scheduling pool is busy running the job itself
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "job-lease-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs the job only if this node acquires the lease.
+     *
+     * @param jobName name of the lease guarding the job
+     * @param job     receives a supplier that turns false once the lease is lost
+     * @return true if the job ran on this node
+     */
+    public boolean runExclusive(String jobName, Consumer<BooleanSupplier> job) {
+        if (!jobLockService.tryAcquire(jobName, leaseTime)) {
+            log.info("Skipping job {}, lease is held by another node", jobName);
+            return false;
+        }
+
+        log.info("Acquired lease for job {} as {}", jobName, jobLockService.getOwner());
+        final AtomicBoolean held = new AtomicBoolean(true);
+        final AtomicLong lastRenewed = new AtomicLong(System.currentTimeMillis());
+        final long period = Math.max(1000L, leaseTime.toMillis() / 3);
+
+        ScheduledFuture<?> heartbeat = heartbeats.scheduleAtFixedRate(
+                () -> heartbeat(jobName, held, lastRenewed), period, period, TimeUnit.MILLISECONDS);
+
+        try {
+            job.accept(held::get);
+        } finally {
+            heartbeat.cancel(false);
+            if (held.get()) {
+                jobLockService.release(jobName);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Splits a job into partitions that are leased independently, so several
+     * nodes firing at the same time share the work instead of skipping it.
+     *
+     * @return number of partitions this node processed
+     */
+    public int runPartitioned(String jobName, int partitions, PartitionedJob job) {
+        if (partitions <= 1) {
+            return runExclusive(jobName, stillLeased -> job.run(0, 1, stillLeased)) ? 1 : 0;
+        }
+
+        int processed = 0;
+        for (int partition = 0; partition < partitions; partition++) {
+            final int current = partition;
+            if (runExclusive(jobName + "#" + partition, stillLeased -> job.run(current, partitions, stillLeased))) {
+                processed++;
+            }
+        }
+        return processed;
+    }
+
+    private void heartbeat(String jobName, AtomicBoolean held, AtomicLong lastRenewed) {
+        try {
+            if (jobLockService.renew(jobName, leaseTime)) {
+                lastRenewed.set(System.currentTimeMillis());
+            } else {
+                log.warn("Lost lease for job {}, stopping after the current chunk", jobName);
+                held.set(false);
+            }
+        } catch (Exception ex) {
+            log.warn("Lease heartbeat for job {} failed: {}", jobName, ex.getMessage());
+            // Without a successful renewal the lease may already belong to someone else
+            if (System.currentTimeMillis() - lastRenewed.get() >= leaseTime.toMillis()) {
+                held.set(false);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+    }
+
+    @FunctionalInterface
+    public interface PartitionedJob {
+        void run(int partition, int partitions, BooleanSupplier stillLeased);
+    }
+}
@@ -0,0 +1,281 @@
+package com.nelani.url_shortner.schedule;
+
+import com.nelani.url_shortner.logging.LogSampler;
+import com.nelani.url_shortner.model.UrlChange;
+import com.nelani.url_shortner.repository.ShortUrlRepository;
+import com.nelani.url_shortner.repository.UrlChangeRepository;
+import com.nelani.url_shortner.store.RedirectCache;
+import com.nelani.url_shortner.store.RedirectEntry;
+import com.nelani.url_shortner.store.RedirectStore;
+import com.nelani.url_shortner.store.RedirectStoreLoader;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the local redirect cache and store in line with mutations made on any
+ * node, by polling {@code url_change_log} past the last id seen.
+ *
+ * Identity values are handed out before commit, so a change can become visible
+ * after a higher id already was. Ids skipped over are remembered as gaps and
+ * re-checked on every poll until they show up or time out (rolled back
+ * inserts leave gaps that never fill).
+ *
+ * Polling runs on its own threads, so long scheduled jobs cannot hold it up.
+ * A separate check clears the cache whenever the last successful poll is
+ * older than {@code redirect.changes.max-staleness-ms}, whether polling fails
+ * or is stuck.
+ */
+@Log4j2
+@Component
+public class UrlChangePoller {
+
+    // Larger jumps come from sequence caching, not from in-flight transactions
+    private static final int MAX_TRACKED_GAP = 1000;
+
+    // While polling is down the cache is cleared on every check
+    private static final LogSampler STALE = new LogSampler(Duration.ofSeconds(10));
+
+    private final UrlChangeRepository urlChangeRepository;
+    private final ShortUrlRepository shortUrlRepository;
+    private final RedirectCache redirectCache;
+    private final RedirectStore redirectStore;
+    private final RedirectStoreLoader redirectStoreLoader;
+
+    private final int batchSize;
+    private final long gapTimeoutNanos;
+    private final long maxStalenessNanos;
+    private final int retentionHours;
+    private final long pollIntervalMs;
+    private final ScheduledExecutorService scheduler;
+
+    private final Timer lag;
+    private final TreeMap<Long, Long> gaps = new TreeMap<>();
+    private long cursor = -1;
+    private volatile long lastSuccessfulPoll = System.nanoTime();
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    @Autowired
+    public UrlChangePoller(UrlChangeRepository urlChangeRepository,
+            ShortUrlRepository shortUrlRepository,
+            RedirectCache redirectCache,
+            RedirectStore redirectStore,
+            RedirectStoreLoader redirectStoreLoader,
+            MeterRegistry meterRegistry,
+            @Value("${redirect.changes.batch-size:500}") int batchSize,
+            @Value("${redirect.changes.gap-timeout-ms:60000}") long gapTimeoutMs,
+            @Value("${redirect.changes.max-staleness-ms:30000}") long maxStalenessMs,
+            @Value("${redirect.changes.retention-hours:24}") int retentionHours,
+            @Value("${redirect.changes.poll-interval-ms:1000}") long pollIntervalMs) {
+        // One thread polls, the other checks staleness while a poll hangs
+        this(urlChangeRepository, shortUrlRepository, redirectCache, redirectStore, redirectStoreLoader,
+                meterRegistry, batchSize, gapTimeoutMs, maxStalenessMs, retentionHours, pollIntervalMs,
+                Executors.newScheduledThreadPool(2, runnable -> {
+                    Thread thread = new Thread(runnable, "url-change-poller");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    /**
+     * @param scheduler runs {@link #poll()} and {@link #checkStaleness()} once
+     *                  the context is refreshed, null to call them by hand
+     */
+    UrlChangePoller(UrlChangeRepository urlChangeRepository,
+            ShortUrlRepository shortUrlRepository,
+            RedirectCache redirectCache,
+            RedirectStore redirectStore,
+            RedirectStoreLoader redirectStoreLoader,
+            MeterRegistry meterRegistry,
+            int batchSize,
+            long gapTimeoutMs,
+            long maxStalenessMs,
+            int retentionHours,
+            long pollIntervalMs,
+            ScheduledExecutorService scheduler) {
+        this.urlChangeRepository = urlChangeRepository;
+        this.shortUrlRepository = shortUrlRepository;
+        this.redirectCache = redirectCache;
+        this.redirectStore = redirectStore;
+        this.redirectStoreLoader = redirectStoreLoader;
+        this.batchSize = batchSize;
+        this.gapTimeoutNanos = Duration.ofMillis(gapTimeoutMs).toNanos();
+        this.maxStalenessNanos = Duration.ofMillis(maxStalenessMs).toNanos();
+        this.retentionHours = retentionHours;
+        this.pollIntervalMs = pollIntervalMs;
+        this.scheduler = scheduler;
+
+        this.lag = Timer.builder("redirect.changes.lag")
+                .description("Time from a URL change being logged to this node applying it")
+                .register(meterRegistry);
+        meterRegistry.gauge("redirect.changes.pending.gaps", gaps, Map::size);
+    }
+
+    // Same point as @Scheduled methods start, before the cache warm-up so no change made meanwhile is missed
+    @EventListener(ContextRefreshedEvent.class)
+    public void start() {
+        // A child context (management port) refreshes too
+        if (scheduler == null || !started.compareAndSet(false, true)) {
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(this::poll, 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::checkStaleness, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public synchronized void poll() {
+        try {
+            if (cursor < 0) {
+                cursor = startingCursor();
+            }
+
+            int applied;
+            do {
+                applied = pollOnce();
+            } while (applied == batchSize);
+
+            lastSuccessfulPoll = System.nanoTime();
+        } catch (RuntimeException ex) {
+            log.warn("Polling URL changes failed: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Clears the cache while the last successful poll is older than the
+     * staleness bound: serving from the database beats serving stale. Does not
+     * wait for a poll in progress.
+     */
+    public void checkStaleness() {
+        final long sincePoll = System.nanoTime() - lastSuccessfulPoll;
+        if (sincePoll > maxStalenessNanos && redirectCache.size() > 0) {
+            if (STALE.shouldLog()) {
+                log.warn("No successful URL change poll for {} ms, clearing the redirect cache ({} similar not logged)",
+                        Duration.ofNanos(sincePoll).toMillis(), STALE.takeSuppressed());
+            }
+            redirectCache.clear();
+        }
+    }
+
+    /**
+     * @return number of new changes read past the cursor
+     */
+    synchronized int pollOnce() {
+        final long now = System.nanoTime();
+        List<UrlChange> changes = new ArrayList<>(
+                urlChangeRepository.findChangesAfter(cursor, PageRequest.of(0, batchSize)));
+        final int newChanges = changes.size();
+
+        // Late commits filling earlier gaps
+        if (!gaps.isEmpty()) {
+            List<UrlChange> filled = urlChangeRepository.findAllById(gaps.keySet());
+            filled.forEach(change -> gaps.remove(change.getId()));
+            changes.addAll(filled);
+        }
+
+        for (int i = 0; i < newChanges; i++) {
+            final long id = changes.get(i).getId();
+            if (id - cursor > 1 && id - cursor <= MAX_TRACKED_GAP) {
+                for (long missing = cursor + 1; missing < id; missing++) {
+                    gaps.put(missing, now + gapTimeoutNanos);
+                }
+            }
+            cursor = Math.max(cursor, id);
+        }
+        gaps.values().removeIf(deadline -> now - deadline > 0);
+
+        apply(changes);
+
+        // The store may only claim changes up to the first one still missing
+        redirectStore.markChangesApplied(gaps.isEmpty() ? cursor : gaps.firstKey() - 1);
+        return newChanges;
+    }
+
+    @Scheduled(cron = "${redirect.changes.purge-cron:0 15 * * * ?}")
+    public void purgeOldChanges() {
+        int deleted = urlChangeRepository.deleteOlderThan(LocalDateTime.now().minusHours(retentionHours));
+        if (deleted > 0) {
+            log.info("Removed {} URL change log entries older than {} hours", deleted, retentionHours);
+        }
+    }
+
+    private void apply(List<UrlChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        Set<String> shortCodes = changes.stream()
+                .map(UrlChange::getShortCode)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(HashSet::new));
+        shortCodes.forEach(redirectCache::evict);
+
+        // The store is meant to hold every code, so refresh it rather than just evict
+        if (redirectStore.isEnabled()) {
+            Map<String, RedirectEntry> current = shortUrlRepository.findRedirectEntriesByShortCodes(shortCodes)
+                    .stream()
+                    .collect(Collectors.toMap(RedirectEntry::shortCode, Function.identity()));
+            for (String shortCode : shortCodes) {
+                RedirectEntry entry = current.get(shortCode);
+                if (entry == null) {
+                    redirectStore.evict(shortCode);
+                } else {
+                    redirectStore.put(entry);
+                }
+            }
+        }
+
+        final LocalDateTime appliedAt = LocalDateTime.now();
+        for (UrlChange change : changes) {
+            Duration delay = Duration.between(change.getChangedAt(), appliedAt);
+            lag.record(delay.isNegative() ? Duration.ZERO : delay);
+        }
+    }
+
+    private long startingCursor() {
+        final long latest = urlChangeRepository.findMaxId();
+        if (!redirectStore.isEnabled() || redirectStore.needsRebuild()) {
+            // The cache starts empty, older changes are already reflected in the database
+            return latest;
+        }
+
+        // A reused store replays what happened while this node was down
+        final long applied = redirectStore.appliedChangeId();
+        final long oldest = urlChangeRepository.findMinId();
+        if (applied < latest && (applied == 0 || applied < oldest - 1)) {
+            log.warn("Redirect store missed changes that are no longer in the change log, rebuilding it");
+            redirectStoreLoader.rebuildInBackground();
+            return latest;
+        }
+        return applied;
+    }
+}
@@ -1,45 +1,248 @@
 package com.nelani.url_shortner.schedule;
 
+import com.nelani.url_shortner.model.UrlChange;
+import com.nelani.url_shortner.model.UrlChangeType;
+import com.nelani.url_shortner.repository.RequestDataRepository;
 import com.nelani.url_shortner.repository.ShortUrlRepository;
+import com.nelani.url_shortner.repository.UrlChangeRepository;
+import com.nelani.url_shortner.shard.Shards;
+import com.nelani.url_shortner.store.RedirectEntry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 
 @Log4j2
 @Component
 public class UrlExpirationScheduler {
 
+    // Smallest possible UUID, used as the starting point of the keyset scan
+    private static final UUID KEYSET_START = new UUID(0L, 0L);
+
+    private static final String JOB_NAME = "purge-expired-urls";
+
+    // Every character a short code can start with, generated (base62) or chosen as a custom key
+    private static final String FIRST_CHARACTERS =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz-_";
+
     private final ShortUrlRepository shortUrlRepository;
+    private final RequestDataRepository requestDataRepository;
+    private final UrlChangeRepository urlChangeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ClusterJobRunner clusterJobRunner;
+    private final Shards shards;
+
+    private final int retentionDays;
+    private final int chunkSize;
+    private final long chunkPauseMs;
+    private final int partitions;
+
+    private final Counter urlsDeleted;
+    private final Counter requestDataDeleted;
+    private final Counter chunksProcessed;
+    private final Timer chunkTimer;
+    private final AtomicLong lastRunDeleted = new AtomicLong();
 
-    public UrlExpirationScheduler(ShortUrlRepository shortUrlRepository) {
+    public UrlExpirationScheduler(ShortUrlRepository shortUrlRepository,
+            RequestDataRepository requestDataRepository,
+            UrlChangeRepository urlChangeRepository,
+            PlatformTransactionManager transactionManager,
+            ClusterJobRunner clusterJobRunner,
+            Shards shards,
+            MeterRegistry meterRegistry,
+            @Value("${purge.expired-urls.retention-days:30}") int retentionDays,
+            @Value("${purge.expired-urls.chunk-size:500}") int chunkSize,
+            @Value("${purge.expired-urls.pause-ms:200}") long chunkPauseMs,
+            @Value("${purge.expired-urls.partitions:1}") int partitions) {
         this.shortUrlRepository = shortUrlRepository;
+        this.requestDataRepository = requestDataRepository;
+        this.urlChangeRepository = urlChangeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clusterJobRunner = clusterJobRunner;
+        this.shards = shards;
+        this.retentionDays = retentionDays;
+        this.chunkSize = chunkSize;
+        this.chunkPauseMs = chunkPauseMs;
+        this.partitions = partitions;
+
+        this.urlsDeleted = Counter.builder("url.purge.deleted")
+                .description("Rows removed by the expired URL purge")
+                .tag("table", "short_url")
+                .register(meterRegistry);
+        this.requestDataDeleted = Counter.builder("url.purge.deleted")
+                .description("Rows removed by the expired URL purge")
+                .tag("table", "request_data")
+                .register(meterRegistry);
+        this.chunksProcessed = Counter.builder("url.purge.chunks")
+                .description("Chunks committed by the expired URL purge")
+                .register(meterRegistry);
+        this.chunkTimer = Timer.builder("url.purge.chunk.duration")
+                .description("Time spent deleting a single purge chunk")
+                .register(meterRegistry);
+        meterRegistry.gauge("url.purge.last.run.deleted", lastRunDeleted);
     }
 
-    // Runs every day at 3:00 AM
-    @Scheduled(cron = "0 0 3 * * ?")
-    @Transactional
+    // Runs every day at 3:00 AM, only on the node(s) holding the purge lease
+    @Scheduled(cron = "${purge.expired-urls.cron:0 0 3 * * ?}")
     public void deleteExpiredUrls() {
-        final LocalDateTime cutoffDate = LocalDateTime.now().minusDays(30);
-        log.info("Starting expired URL cleanup. Expired before: {}", cutoffDate);
+        final LocalDateTime cutoffDate = LocalDateTime.now().minusDays(retentionDays);
+        final AtomicLong deleted = new AtomicLong();
 
-        var expiredUrls = shortUrlRepository.findUrlsExpiredBefore(cutoffDate);
-        final int count = expiredUrls.size();
+        clusterJobRunner.runPartitioned(JOB_NAME, partitions, (partition, partitionCount, stillLeased) -> {
+            log.info("Starting expired URL cleanup for partition {}/{}. Expired before: {}",
+                    partition + 1, partitionCount, cutoffDate);
+            deleted.addAndGet(purgeExpiredBefore(cutoffDate, partition, partitionCount, stillLeased));
+        });
 
-        if (count == 0) {
-            log.info("No expired URLs found for cleanup.");
+        lastRunDeleted.set(deleted.get());
+        if (deleted.get() == 0) {
+            log.info("No expired URLs deleted by this node.");
             return;
         }
 
-        shortUrlRepository.deleteAll(expiredUrls); // batch delete for efficiency
+        log.info("Expired URL cleanup finished. Deleted {} URLs.", deleted.get());
+    }
+
+    public long purgeExpiredBefore(LocalDateTime cutoffDate) {
+        return purgeExpiredBefore(cutoffDate, 0, 1, () -> true);
+    }
+
+    /**
+     * Deletes URLs expired before the cutoff in keyset-ordered chunks, shard by
+     * shard. Every chunk runs in its own short transaction and removes the
+     * request data rows first, so a crashed or interrupted run simply leaves
+     * the remaining rows for the next invocation.
+     *
+     * @param cutoffDate  URLs whose expiry is at or before this date are removed
+     * @param partition   partition handled by this call, the URLs whose short code starts with its characters
+     * @param partitions  total number of partitions, the first characters are dealt out among them
+     * @param keepRunning checked before every chunk, false stops the purge
+     * @return number of short URLs deleted
+     */
+    public long purgeExpiredBefore(LocalDateTime cutoffDate, int partition, int partitions,
+            BooleanSupplier keepRunning) {
+        long totalDeleted = 0;
+        for (int shard = 0; shard < shards.count() && keepRunning.getAsBoolean(); shard++) {
+            totalDeleted += shards.onShard(shard,
+                    () -> purgeShard(cutoffDate, partition, partitions, keepRunning));
+        }
+        return totalDeleted;
+    }
+
+    private long purgeShard(LocalDateTime cutoffDate, int partition, int partitions,
+            BooleanSupplier keepRunning) {
+        // Each partition only reads and deletes its own codes, so concurrent nodes never contend
+        final List<String> prefixes = partitions <= 1 ? null : prefixesOf(partition, partitions);
+        if (prefixes != null && prefixes.isEmpty()) {
+            return 0;
+        }
+        UUID afterId = KEYSET_START;
+        long totalDeleted = 0;
 
-        log.info("Expired URL cleanup finished. Deleted {} URLs.", count);
+        while (keepRunning.getAsBoolean() && !Thread.currentThread().isInterrupted()) {
+            List<UUID> ids = prefixes == null
+                    ? shortUrlRepository.findExpiredIdsAfter(cutoffDate, afterId, PageRequest.of(0, chunkSize))
+                    : shortUrlRepository.findExpiredIdsWithPrefixAfter(
+                            cutoffDate, afterId, prefixes, PageRequest.of(0, chunkSize));
 
-        // Optional: log a few sample URLs for traceability without spamming
-        expiredUrls.stream()
-                .limit(5)
-                .forEach(url -> log.debug("Deleted expired URL: {}", url));
+            if (ids.isEmpty()) {
+                break;
+            }
+            afterId = ids.getLast();
+
+            Timer.Sample sample = Timer.start();
+            totalDeleted += deleteChunk(ids);
+            sample.stop(chunkTimer);
+            chunksProcessed.increment();
+
+            log.debug("Purged chunk of {} expired URLs, {} so far", ids.size(), totalDeleted);
+
+            if (ids.size() < chunkSize) {
+                break;
+            }
+            pauseBetweenChunks();
+        }
+
+        return totalDeleted;
+    }
+
+    private static List<String> prefixesOf(int partition, int partitions) {
+        final List<String> prefixes = new ArrayList<>();
+        for (int i = partition; i < FIRST_CHARACTERS.length(); i += partitions) {
+            prefixes.add(String.valueOf(FIRST_CHARACTERS.charAt(i)));
+        }
+        return prefixes;
+    }
+
+    private int deleteChunk(List<UUID> ids) {
+        if (shards.enabled()) {
+            return deleteShardedChunk(ids);
+        }
+
+        Integer requestRows = transactionTemplate.execute(status -> {
+            // Child rows first, the FK from request_data would reject the parent delete
+            int rows = requestDataRepository.deleteByShortUrlIds(ids);
+            // Logged while the short codes can still be read, for other nodes' caches
+            urlChangeRepository.recordDeletions(ids, LocalDateTime.now());
+            shortUrlRepository.deleteAllByIdInBatch(ids);
+            return rows;
+        });
+
+        requestDataDeleted.increment(requestRows == null ? 0 : requestRows);
+        urlsDeleted.increment(ids.size());
+        return ids.size();
+    }
+
+    /**
+     * The change log is on the home shard, so the deletions are logged there
+     * once the chunk has committed on its own shard. A crash in between leaves
+     * other nodes' caches stale until {@code redirect.cache.ttl-seconds}.
+     */
+    private int deleteShardedChunk(List<UUID> ids) {
+        final List<UrlChange> changes = new ArrayList<>(ids.size());
+        Integer requestRows = transactionTemplate.execute(status -> {
+            final LocalDateTime now = LocalDateTime.now();
+            for (RedirectEntry entry : shortUrlRepository.findRedirectEntriesByIds(ids)) {
+                changes.add(UrlChange.builder()
+                        .shortCode(entry.shortCode())
+                        .changeType(UrlChangeType.DELETED)
+                        .changedAt(now)
+                        .build());
+            }
+            int rows = requestDataRepository.deleteByShortUrlIds(ids);
+            shortUrlRepository.deleteAllByIdInBatch(ids);
+            return rows;
+        });
+        shards.inHomeShardTransaction(() -> urlChangeRepository.saveAll(changes));
+
+        requestDataDeleted.increment(requestRows == null ? 0 : requestRows);
+        urlsDeleted.increment(ids.size());
+        return ids.size();
+    }
+
+    // Throttle so the purge does not compete with redirect traffic for connections
+    private void pauseBetweenChunks() {
+        if (chunkPauseMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(chunkPauseMs);
+        } catch (InterruptedException e) {
+            log.warn("Expired URL cleanup interrupted, remaining rows are left for the next run.");
+            Thread.currentThread().interrupt();
+        }
     }
 }
@@ -2,6 +2,23 @@ package com.nelani.url_shortner.service;
 
 import com.nelani.url_shortner.dto.GeoInfo;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 public interface GeoLookupService {
     GeoInfo lookup(String ipAddress);
+
+    /**
+     * Looks up several IPs at once, providers with a batch API answer in one
+     * call. IPs missing from the result could not be resolved right now and
+     * may be asked for again later.
+     */
+    default Map<String, GeoInfo> lookupAll(Collection<String> ipAddresses) {
+        final Map<String, GeoInfo> result = new HashMap<>();
+        for (String ipAddress : ipAddresses) {
+            result.put(ipAddress, lookup(ipAddress));
+        }
+        return result;
+    }
 }
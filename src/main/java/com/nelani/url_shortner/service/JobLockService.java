@@ -0,0 +1,14 @@
+package com.nelani.url_shortner.service;
+
+import java.time.Duration;
+
+public interface JobLockService {
+
+    boolean tryAcquire(String lockName, Duration leaseTime);
+
+    boolean renew(String lockName, Duration leaseTime);
+
+    void release(String lockName);
+
+    String getOwner();
+}
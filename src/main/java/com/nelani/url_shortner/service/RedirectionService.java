@@ -1,7 +1,8 @@
 package com.nelani.url_shortner.service;
 
+import com.nelani.url_shortner.store.RedirectEntry;
 import jakarta.servlet.http.HttpServletRequest;
 
 public interface RedirectionService {
-    String redirect(String shortCode, HttpServletRequest req);
+    RedirectEntry redirect(String shortCode, HttpServletRequest req);
 }
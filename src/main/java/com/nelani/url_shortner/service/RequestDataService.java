@@ -1,13 +1,28 @@
 package com.nelani.url_shortner.service;
 
 import com.nelani.url_shortner.dto.UrlAccessStats;
+import com.nelani.url_shortner.model.ExportFormat;
+import com.nelani.url_shortner.model.LiveFeedMode;
 import com.nelani.url_shortner.model.SortDirection;
 import com.nelani.url_shortner.model.StatsGroupBy;
+import com.nelani.url_shortner.response.CursorPage;
 import org.springframework.data.domain.Page;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
 
 public interface RequestDataService {
 
     Page<UrlAccessStats> getTopStats(
             StatsGroupBy groupBy,
             int page, int size, SortDirection direction);
+
+    CursorPage<UrlAccessStats> scrollTopStats(
+            StatsGroupBy groupBy,
+            String cursor, int size, SortDirection direction);
+
+    SseEmitter subscribeToClicks(String shortCode, LiveFeedMode mode);
+
+    StreamingResponseBody exportClicks(String shortCode, LocalDateTime from, LocalDateTime to, ExportFormat format);
 }
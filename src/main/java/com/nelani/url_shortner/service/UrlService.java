@@ -4,6 +4,7 @@ import com.nelani.url_shortner.dto.CreateUrlDTO;
 import com.nelani.url_shortner.dto.UpdateUrlDTO;
 import com.nelani.url_shortner.model.ShortUrlSortField;
 import com.nelani.url_shortner.model.SortDirection;
+import com.nelani.url_shortner.response.CursorPage;
 import com.nelani.url_shortner.response.UrlResponse;
 import org.springframework.data.domain.Page;
 
@@ -12,6 +13,9 @@ public interface UrlService {
     Page<UrlResponse> viewAllUrls(int page, int size, ShortUrlSortField sortField,
             SortDirection direction);
 
+    CursorPage<UrlResponse> scrollUrls(String cursor, int size, ShortUrlSortField sortField,
+            SortDirection direction);
+
     UrlResponse createShortUrl(CreateUrlDTO dto);
 
     UrlResponse updateUrl(UpdateUrlDTO dto);
@@ -1,16 +1,13 @@
 package com.nelani.url_shortner.service.impl;
 
-import com.nelani.url_shortner.dto.GeoInfo;
+import com.nelani.url_shortner.analytics.GeoEnricher;
+import com.nelani.url_shortner.analytics.PendingClick;
 import com.nelani.url_shortner.model.RequestData;
 import com.nelani.url_shortner.model.ShortUrl;
-import com.nelani.url_shortner.repository.RequestDataRepository;
-import com.nelani.url_shortner.service.GeoLookupService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
@@ -21,23 +18,24 @@ import java.util.UUID;
 @Service
 public class AnalyticsService {
 
-    private final GeoLookupService geoLookupService;
-    private final RequestDataRepository requestDataRepository;
+    private final GeoEnricher geoEnricher;
 
-    public AnalyticsService(GeoLookupService geoLookupService,
-            RequestDataRepository requestDataRepository) {
-        this.geoLookupService = geoLookupService;
-        this.requestDataRepository = requestDataRepository;
+    public AnalyticsService(GeoEnricher geoEnricher) {
+        this.geoEnricher = geoEnricher;
     }
 
     /**
      * Asynchronously logs request metadata so redirect performance
      * is not affected. Analytics is best-effort and should never
      * block the user request flow.
+     *
+     * The click is handed to the geo stage, which looks up its IP together
+     * with those of other clicks and then stores it, see {@link GeoEnricher}.
+     * The short code is passed separately because {@code shortUrl} may be an
+     * uninitialized reference.
      */
     @Async("analyticsExecutor")
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void logRequestAsync(ShortUrl shortUrl, HttpServletRequest req) {
+    public void logRequestAsync(ShortUrl shortUrl, String shortCode, HttpServletRequest req) {
         final String ip = getClientIp(req);
         final String deviceHash = generateDeviceHash(ip, req.getHeader("User-Agent"), shortUrl.getId());
 
@@ -48,27 +46,13 @@ public class AnalyticsService {
                 .userAgent(req.getHeader("User-Agent"))
                 .build();
 
-        // Geo lookup, failure should not affect the redirect.
-        try {
-            GeoInfo geo = geoLookupService.lookup(ip);
-            if (geo != null) {
-                data.setCountry(geo.country());
-                data.setCity(geo.city());
-            }
-        } catch (Exception ex) {
-            log.warn("Geo lookup failed for IP={} : {}", ip, ex.getMessage());
-        }
-
-        // Save analytics data, failure is logged but not rethrown.
-        try {
-            requestDataRepository.save(data);
-        } catch (Exception ex) {
-            log.error("Failed to persist request analytics for shortUrl={} : {}",
-                    shortUrl.getId(), ex.getMessage());
-        }
+        geoEnricher.submit(new PendingClick(data, shortCode, ip));
     }
 
-    private String getClientIp(HttpServletRequest request) {
+    /**
+     * Client IP as seen through the proxy.
+     */
+    public static String getClientIp(HttpServletRequest request) {
         String forwarded = request.getHeader("X-Forwarded-For");
         if (forwarded != null && !forwarded.isBlank()) {
             return forwarded.split(",")[0].trim();
@@ -91,7 +75,7 @@ public class AnalyticsService {
 
         } catch (NoSuchAlgorithmException e) {
             // Fallback: log the error and generate a random UUID
-            log.error("Warning: Could not generate device hash, using fallback UUID. " + e.getMessage());
+            log.error("Warning: Could not generate device hash, using fallback UUID. {}", e.getMessage());
             return UUID.randomUUID().toString().replace("-", "");
         }
     }
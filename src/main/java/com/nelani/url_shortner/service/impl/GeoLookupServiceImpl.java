@@ -1,21 +1,67 @@
 package com.nelani.url_shortner.service.impl;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nelani.url_shortner.dto.GeoInfo;
+import com.nelani.url_shortner.logging.LogSampler;
+import com.nelani.url_shortner.metrics.ShortenerMetrics;
+import com.nelani.url_shortner.metrics.ShortenerMetrics.GeoOutcome;
 import com.nelani.url_shortner.service.GeoLookupService;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 @Log4j2
 @Service
 public class GeoLookupServiceImpl implements GeoLookupService {
 
-    private final RestTemplate restTemplate;
+    // While ip-api.com is down every click fails
+    private static final LogSampler FAILURES = new LogSampler(Duration.ofSeconds(10));
 
-    public GeoLookupServiceImpl(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    private static final GeoInfo UNKNOWN = new GeoInfo("Unknown", "Unknown");
+
+    // ip-api.com answers up to 100 IPs per batch request
+    private static final int BATCH_LIMIT = 100;
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final CircuitBreaker circuitBreaker;
+    private final ShortenerMetrics metrics;
+    private final String baseUrl;
+    private final Duration requestTimeout;
+    private final Semaphore inFlight;
+
+    public GeoLookupServiceImpl(HttpClient geoHttpClient, ObjectMapper objectMapper,
+            CircuitBreakerRegistry circuitBreakerRegistry, ShortenerMetrics metrics,
+            @Value("${geo.provider.base-url:http://ip-api.com}") String baseUrl,
+            @Value("${geo.client.request-timeout-ms:1500}") long requestTimeoutMs,
+            @Value("${geo.client.max-concurrent:32}") int maxConcurrent) {
+        this.httpClient = geoHttpClient;
+        this.objectMapper = objectMapper;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("geoLookup");
+        this.metrics = metrics;
+        this.baseUrl = baseUrl;
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.inFlight = new Semaphore(maxConcurrent);
     }
 
     /**
@@ -23,35 +69,190 @@ public class GeoLookupServiceImpl implements GeoLookupService {
      * Returns country and city. If the lookup fails, returns "Unknown".
      *
      * This method is safe for production: failures do not throw exceptions
-     * to the caller and do not block critical flows.
+     * to the caller, and the wait is bounded by
+     * {@code geo.client.request-timeout-ms}.
      *
      * @param ipAddress IP address to lookup
      * @return GeoInfo containing country and city
      */
     @Override
     public GeoInfo lookup(String ipAddress) {
+        return lookupAsync(ipAddress).join();
+    }
+
+    /**
+     * Non-blocking {@link #lookup}: completes with "Unknown" instead of
+     * failing. While the provider is failing (the {@code geoLookup} circuit
+     * breaker is open) or {@code geo.client.max-concurrent} lookups are in
+     * flight, it completes at once without calling the provider.
+     */
+    public CompletableFuture<GeoInfo> lookupAsync(String ipAddress) {
+        // Skip if IP address is equal to these values
+        if (isLocal(ipAddress)) {
+            log.debug("Geo lookup skipped for local IP={}", ipAddress);
+            metrics.geoLookup(GeoOutcome.SKIPPED);
+            return CompletableFuture.completedFuture(UNKNOWN);
+        }
+
+        final HttpRequest request = HttpRequest.newBuilder(
+                URI.create(baseUrl + "/json/" + ipAddress + "?fields=status,country,city"))
+                .timeout(requestTimeout)
+                .GET()
+                .build();
+        return call(request).handle((json, ex) -> {
+            if (ex != null) {
+                failed(ex, "IP=" + ipAddress, 1);
+                return UNKNOWN;
+            }
+            metrics.geoLookup(GeoOutcome.SUCCESS);
+            return toGeoInfo(json);
+        });
+    }
+
+    @Override
+    public Map<String, GeoInfo> lookupAll(Collection<String> ipAddresses) {
+        return lookupAllAsync(ipAddresses).join();
+    }
+
+    /**
+     * Looks up the IPs with ip-api.com's batch endpoint, 100 per request sent
+     * side by side. IPs of a request that fails or is not sent (see
+     * {@link #lookupAsync}) are left out of the result.
+     */
+    public CompletableFuture<Map<String, GeoInfo>> lookupAllAsync(Collection<String> ipAddresses) {
+        final Map<String, GeoInfo> result = new HashMap<>();
+        final List<String> remote = new ArrayList<>();
+        for (String ipAddress : ipAddresses) {
+            if (isLocal(ipAddress)) {
+                metrics.geoLookup(GeoOutcome.SKIPPED);
+                result.put(ipAddress, UNKNOWN);
+            } else {
+                remote.add(ipAddress);
+            }
+        }
+
+        final List<CompletableFuture<Map<String, GeoInfo>>> batches = new ArrayList<>();
+        for (int from = 0; from < remote.size(); from += BATCH_LIMIT) {
+            batches.add(lookupBatch(remote.subList(from, Math.min(remote.size(), from + BATCH_LIMIT))));
+        }
+        return CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).thenApply(done -> {
+            batches.forEach(batch -> result.putAll(batch.join()));
+            return result;
+        });
+    }
+
+    private CompletableFuture<Map<String, GeoInfo>> lookupBatch(List<String> batch) {
+        final HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(baseUrl + "/batch?fields=status,country,city,query"))
+                    .timeout(requestTimeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(batch)))
+                    .build();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        return call(request).handle((json, ex) -> {
+            final Map<String, GeoInfo> resolved = new HashMap<>();
+            if (ex != null) {
+                failed(ex, batch.size() + " IPs", batch.size());
+                return resolved;
+            }
+            for (JsonNode entry : json) {
+                resolved.put(entry.path("query").asText(), toGeoInfo(entry));
+                metrics.geoLookup(GeoOutcome.SUCCESS);
+            }
+            return resolved;
+        });
+    }
+
+    /**
+     * Sends the request through the circuit breaker and the concurrency limit.
+     * Timeouts, connection errors and non-200 answers count as failures.
+     */
+    private CompletableFuture<JsonNode> call(HttpRequest request) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return CompletableFuture.failedFuture(new NotSent(GeoOutcome.SHORT_CIRCUITED));
+        }
+        if (!inFlight.tryAcquire()) {
+            circuitBreaker.releasePermission();
+            return CompletableFuture.failedFuture(new NotSent(GeoOutcome.REJECTED));
+        }
+
+        final long start = System.nanoTime();
+        final CompletableFuture<HttpResponse<byte[]>> response;
         try {
-            final String url = "http://ip-api.com/json/" + ipAddress + "?fields=status,country,city";
+            response = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (RuntimeException ex) {
+            inFlight.release();
+            circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, ex);
+            return CompletableFuture.failedFuture(ex);
+        }
 
-            Map<String, Object> response = restTemplate.getForObject(url, Map.class);
+        return response.thenApply(this::parse).whenComplete((json, ex) -> {
+            inFlight.release();
+            final long elapsed = System.nanoTime() - start;
+            if (ex == null) {
+                circuitBreaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+            } else {
+                circuitBreaker.onError(elapsed, TimeUnit.NANOSECONDS, unwrap(ex));
+            }
+        });
+    }
 
-            // Skip if IP address is equal to these values
-            if (ipAddress == null ||
-                    ipAddress.equals("127.0.0.1") ||
-                    ipAddress.equals("::1") ||
-                    ipAddress.startsWith("0:0:0:0")) {
-                log.warn("Geo lookup failed for IP={} : API returned unsuccessful status", ipAddress);
-                return new GeoInfo("Unknown", "Unknown");
+    private JsonNode parse(HttpResponse<byte[]> response) {
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Geo provider answered HTTP " + response.statusCode());
+        }
+        try {
+            return objectMapper.readTree(response.body());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void failed(Throwable ex, String subject, int lookups) {
+        final Throwable cause = unwrap(ex);
+        if (cause instanceof NotSent notSent) {
+            for (int i = 0; i < lookups; i++) {
+                metrics.geoLookup(notSent.outcome);
             }
+            return;
+        }
+
+        if (FAILURES.shouldLog()) {
+            log.warn("Geo lookup exception for {} : {} ({} similar failures not logged)",
+                    subject, cause.toString(), FAILURES.takeSuppressed());
+        }
+        for (int i = 0; i < lookups; i++) {
+            metrics.geoLookup(GeoOutcome.FAILURE);
+        }
+    }
+
+    private static GeoInfo toGeoInfo(JsonNode json) {
+        return new GeoInfo(json.path("country").asText("Unknown"), json.path("city").asText("Unknown"));
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+    private static boolean isLocal(String ipAddress) {
+        return ipAddress == null ||
+                ipAddress.equals("127.0.0.1") ||
+                ipAddress.equals("::1") ||
+                ipAddress.startsWith("0:0:0:0");
+    }
 
-            final String country = (String) response.getOrDefault("country", "Unknown");
-            final String city = (String) response.getOrDefault("city", "Unknown");
+    // A lookup the circuit breaker or the concurrency limit kept from being sent
+    private static final class NotSent extends RuntimeException {
 
-            return new GeoInfo(country, city);
+        private final GeoOutcome outcome;
 
-        } catch (Exception ex) {
-            log.warn("Geo lookup exception for IP={} : {}", ipAddress, ex.getMessage());
-            return new GeoInfo("Unknown", "Unknown");
+        NotSent(GeoOutcome outcome) {
+            super(outcome.name(), null, false, false);
+            this.outcome = outcome;
         }
     }
 }
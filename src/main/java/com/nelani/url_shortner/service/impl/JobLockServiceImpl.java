@@ -0,0 +1,93 @@
+package com.nelani.url_shortner.service.impl;
+
+import com.nelani.url_shortner.repository.JobLeaseRepository;
+import com.nelani.url_shortner.service.JobLockService;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Log4j2
+@Service
+public class JobLockServiceImpl implements JobLockService {
+
+    private final JobLeaseRepository jobLeaseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String owner;
+
+    public JobLockServiceImpl(JobLeaseRepository jobLeaseRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${scheduling.lock.owner:}") String owner) {
+        this.jobLeaseRepository = jobLeaseRepository;
+
+        // Lease changes must commit on their own, independent of any caller transaction
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        this.owner = owner == null || owner.isBlank() ? defaultOwner() : owner;
+    }
+
+    /**
+     * Acquires the named lease for this node. An expired lease is taken over by
+     * a conditional update, a lease that has never existed is inserted, and a
+     * concurrent insert from another node loses on the primary key.
+     *
+     * @param lockName  unique name of the job or job partition
+     * @param leaseTime how long the lease is valid without a heartbeat
+     * @return true if this node now holds the lease
+     */
+    @Override
+    public boolean tryAcquire(String lockName, Duration leaseTime) {
+        final LocalDateTime now = LocalDateTime.now();
+        final LocalDateTime leasedUntil = now.plus(leaseTime);
+
+        try {
+            Boolean acquired = transactionTemplate.execute(status -> {
+                if (jobLeaseRepository.claim(lockName, owner, now, leasedUntil) > 0) {
+                    return true;
+                }
+                if (jobLeaseRepository.existsById(lockName)) {
+                    return false;
+                }
+                return jobLeaseRepository.insert(lockName, owner, now, leasedUntil) > 0;
+            });
+            return Boolean.TRUE.equals(acquired);
+        } catch (DataIntegrityViolationException ex) {
+            log.debug("Lease {} was created concurrently by another node", lockName);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean renew(String lockName, Duration leaseTime) {
+        final LocalDateTime now = LocalDateTime.now();
+        Integer updated = transactionTemplate.execute(
+                status -> jobLeaseRepository.heartbeat(lockName, owner, now, now.plus(leaseTime)));
+        return updated != null && updated > 0;
+    }
+
+    @Override
+    public void release(String lockName) {
+        transactionTemplate.executeWithoutResult(
+                status -> jobLeaseRepository.release(lockName, owner, LocalDateTime.now()));
+    }
+
+    @Override
+    public String getOwner() {
+        return owner;
+    }
+
+    private static String defaultOwner() {
+        // pid@host plus a random suffix so two JVMs on one host never collide
+        return ManagementFactory.getRuntimeMXBean().getName() + "-"
+                + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -1,16 +1,23 @@
 package com.nelani.url_shortner.service.impl;
 
+import com.nelani.url_shortner.metrics.ShortenerMetrics;
+import com.nelani.url_shortner.metrics.ShortenerMetrics.LookupSource;
+import com.nelani.url_shortner.metrics.ShortenerMetrics.Stage;
 import com.nelani.url_shortner.model.ShortUrl;
 import com.nelani.url_shortner.repository.RequestDataRepository;
 import com.nelani.url_shortner.repository.ShortUrlRepository;
 import com.nelani.url_shortner.service.RedirectionService;
+import com.nelani.url_shortner.shard.Shards;
+import com.nelani.url_shortner.store.RedirectCache;
+import com.nelani.url_shortner.store.RedirectEntry;
+import com.nelani.url_shortner.store.RedirectStore;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
 
 @Service
 public class RedirectionServiceImpl implements RedirectionService {
@@ -18,31 +25,79 @@ public class RedirectionServiceImpl implements RedirectionService {
     private final ShortUrlRepository urlRepository;
     private final AnalyticsService analyticsService;
     private final RequestDataRepository requestDataRepository;
+    private final RedirectStore redirectStore;
+    private final RedirectCache redirectCache;
+    private final ShortenerMetrics metrics;
+    private final Shards shards;
 
     public RedirectionServiceImpl(ShortUrlRepository urlRepository, AnalyticsService analyticsService,
-            RequestDataRepository requestDataRepository) {
+            RequestDataRepository requestDataRepository, RedirectStore redirectStore,
+            RedirectCache redirectCache, ShortenerMetrics metrics, Shards shards) {
         this.urlRepository = urlRepository;
         this.analyticsService = analyticsService;
         this.requestDataRepository = requestDataRepository;
+        this.redirectStore = redirectStore;
+        this.redirectCache = redirectCache;
+        this.metrics = metrics;
+        this.shards = shards;
     }
 
+    // Not transactional: a redirect served from the store must not hold a connection
     @Override
-    @Transactional
-    public String redirect(String shortCode, HttpServletRequest req) {
-        // Get the url
-        ShortUrl shortUrl = urlRepository.findByShortCode(shortCode)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Url does not exist."));
-
-        // Check if the url is expired
-        if (shortUrl.getExpiresAt().isBefore(LocalDateTime.now())) {
-            throw new ResponseStatusException(HttpStatus.GONE, "Short URL has expired.");
+    public RedirectEntry redirect(String shortCode, HttpServletRequest req) {
+        try {
+            final RedirectEntry entry = resolve(shortCode, req);
+            metrics.redirected(entry.redirectType().getStatus());
+            return entry;
+        } catch (ResponseStatusException ex) {
+            metrics.redirected(ex.getStatusCode().value());
+            throw ex;
+        }
+    }
+
+    private RedirectEntry resolve(String shortCode, HttpServletRequest req) {
+        // Get the url, from the cache or the local redirect store when they have it
+        final long lookupStart = System.nanoTime();
+        ShortUrl shortUrl = null;
+        RedirectEntry entry = redirectCache.get(shortCode).orElse(null);
+        if (entry == null) {
+            if (redirectCache.isExpired(shortCode)) {
+                throw new ResponseStatusException(HttpStatus.GONE, "Short URL has expired.");
+            }
+
+            Optional<RedirectEntry> stored = redirectStore.find(shortCode);
+            if (stored.isPresent()) {
+                entry = stored.get();
+                metrics.lookedUp(LookupSource.STORE);
+            } else {
+                shortUrl = shards.onShardOf(shortCode, () -> urlRepository.findForRedirect(shortCode))
+                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Url does not exist."));
+                entry = RedirectEntry.of(shortUrl);
+                metrics.lookedUp(LookupSource.DATABASE);
+            }
+            redirectCache.put(entry);
+
+            // Check if the url is expired, cached entries are expired by the cache itself
+            if (entry.isExpiredAt(System.currentTimeMillis())) {
+                throw new ResponseStatusException(HttpStatus.GONE, "Short URL has expired.");
+            }
+        } else {
+            metrics.lookedUp(LookupSource.CACHE);
+        }
+        metrics.record(Stage.LOOKUP, lookupStart);
+        if (shortUrl == null) {
+            shortUrl = urlRepository.getReferenceById(entry.id());
         }
 
         // Check if the limit is not exceeded
-        if (shortUrl.getAccessLimit() != null) {
-            long accessedDevices = requestDataRepository.countDistinctDeviceHashes(shortUrl.getId());
+        if (entry.accessLimit() != null) {
+            final long checkStart = System.nanoTime();
+            final UUID shortUrlId = entry.id();
+            long accessedDevices = shards.onShardOf(entry.shortCode(),
+                    () -> requestDataRepository.countDistinctDeviceHashes(shortUrlId));
+            metrics.record(Stage.ACCESS_CHECK, checkStart);
 
-            if (accessedDevices >= shortUrl.getAccessLimit()) {
+            if (accessedDevices >= entry.accessLimit()) {
                 throw new ResponseStatusException(
                         HttpStatus.FORBIDDEN,
                         "This short URL has reached its maximum number of allowed accesses.");
@@ -50,9 +105,11 @@ public class RedirectionServiceImpl implements RedirectionService {
         }
 
         // Log analytics asynchronously, any failure here does NOT block redirect
-        analyticsService.logRequestAsync(shortUrl, req);
+        final long enqueueStart = System.nanoTime();
+        analyticsService.logRequestAsync(shortUrl, entry.shortCode(), req);
+        metrics.record(Stage.ANALYTICS_ENQUEUE, enqueueStart);
 
-        // Return the original URL for redirection
-        return shortUrl.getOriginalUrl();
+        // Return the entry, the controller decides how the redirect may be cached
+        return entry;
     }
 }
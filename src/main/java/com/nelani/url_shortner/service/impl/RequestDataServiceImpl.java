@@ -1,32 +1,90 @@
 package com.nelani.url_shortner.service.impl;
 
+import com.nelani.url_shortner.archive.ClickArchive;
+import com.nelani.url_shortner.archive.StatsAccumulator;
+import com.nelani.url_shortner.dto.ScrollCursor;
 import com.nelani.url_shortner.dto.UrlAccessStats;
 import com.nelani.url_shortner.dto.UrlAccessStatsDTO;
+import com.nelani.url_shortner.export.ClickExporter;
+import com.nelani.url_shortner.live.ClickFeedHub;
+import com.nelani.url_shortner.model.ExportFormat;
+import com.nelani.url_shortner.model.LiveFeedMode;
+import com.nelani.url_shortner.model.ShortUrl;
 import com.nelani.url_shortner.model.SortDirection;
 import com.nelani.url_shortner.model.StatsGroupBy;
 import com.nelani.url_shortner.repository.RequestDataRepository;
+import com.nelani.url_shortner.repository.ShortUrlIdRemapRepository;
+import com.nelani.url_shortner.repository.ShortUrlRepository;
+import com.nelani.url_shortner.response.CursorPage;
 import com.nelani.url_shortner.service.RequestDataService;
+import com.nelani.url_shortner.shard.Shards;
+import com.nelani.url_shortner.stats.StatsCache;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 @Service
 public class RequestDataServiceImpl implements RequestDataService {
 
+    // Short URL ids resolved per query, keeps the IN list within common database limits
+    private static final int SHORT_CODE_BATCH = 1000;
+
     private final RequestDataRepository requestDataRepository;
+    private final ShortUrlRepository shortUrlRepository;
+    private final ShortUrlIdRemapRepository shortUrlIdRemapRepository;
+    private final ClickArchive clickArchive;
+    private final ClickFeedHub clickFeedHub;
+    private final ClickExporter clickExporter;
+    private final StatsCache statsCache;
+    private final Shards shards;
 
-    public RequestDataServiceImpl(RequestDataRepository requestDataRepository) {
+    public RequestDataServiceImpl(RequestDataRepository requestDataRepository,
+            ShortUrlRepository shortUrlRepository, ShortUrlIdRemapRepository shortUrlIdRemapRepository,
+            ClickArchive clickArchive, ClickFeedHub clickFeedHub, ClickExporter clickExporter, StatsCache statsCache,
+            Shards shards) {
         this.requestDataRepository = requestDataRepository;
+        this.shortUrlRepository = shortUrlRepository;
+        this.shortUrlIdRemapRepository = shortUrlIdRemapRepository;
+        this.clickArchive = clickArchive;
+        this.clickFeedHub = clickFeedHub;
+        this.clickExporter = clickExporter;
+        this.statsCache = statsCache;
+        this.shards = shards;
     }
 
+    /**
+     * Served from the {@link StatsCache}, which runs the aggregation in a
+     * read-only transaction when the page is missing or stale.
+     */
     @Override
-    @Transactional(readOnly = true)
     public Page<UrlAccessStats> getTopStats(
             StatsGroupBy groupBy,
             int page, int size, SortDirection direction) {
+        return statsCache.get(new StatsCache.Key(groupBy, page, size, direction),
+                () -> computeTopStats(groupBy, page, size, direction));
+    }
+
+    private Page<UrlAccessStats> computeTopStats(
+            StatsGroupBy groupBy,
+            int page, int size, SortDirection direction) {
 
         // Build dynamic sorting based on access count alias exposed by projections
         Sort sort = Sort.by(
@@ -37,12 +95,14 @@ public class RequestDataServiceImpl implements RequestDataService {
         Pageable pageable = PageRequest.of(page, size, sort);
 
         // Delegate aggregation logic to repository layer based on grouping dimension
-        Page<UrlAccessStats> data = switch (groupBy) {
-            case URL -> requestDataRepository.mostAccessedUrls(pageable);
-            case COUNTRY -> requestDataRepository.mostAccessedCountries(pageable);
-            case CITY -> requestDataRepository.mostAccessedCities(pageable);
-            case USER_AGENT -> requestDataRepository.mostAccessedUserAgents(pageable);
-        };
+        Page<UrlAccessStats> data = mergesInMemory()
+                ? mergedTopStats(groupBy, pageable, direction)
+                : switch (groupBy) {
+                    case URL -> requestDataRepository.mostAccessedUrls(pageable);
+                    case COUNTRY -> requestDataRepository.mostAccessedCountries(pageable);
+                    case CITY -> requestDataRepository.mostAccessedCities(pageable);
+                    case USER_AGENT -> requestDataRepository.mostAccessedUserAgents(pageable);
+                };
 
         // Only manipulate value to generate the url
         if (groupBy == StatsGroupBy.URL) {
@@ -55,4 +115,199 @@ public class RequestDataServiceImpl implements RequestDataService {
         return data;
     }
 
+    /**
+     * Seeks past the cursor in the database. While the archive holds clicks, or
+     * clicks are spread over shards, the page is cut from the same cached
+     * in-memory aggregation {@link #getTopStats} pages through, with the same
+     * order and cursor.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<UrlAccessStats> scrollTopStats(
+            StatsGroupBy groupBy,
+            String cursor, int size, SortDirection direction) {
+        final String scope = "stats:" + groupBy + ":" + direction;
+
+        // Resume after the last group of the previous page, if any
+        Long afterCount = null;
+        String afterValue = null;
+        if (cursor != null && !cursor.isBlank()) {
+            ScrollCursor decoded = ScrollCursor.decode(cursor, scope);
+            try {
+                afterCount = Long.valueOf(decoded.key());
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid cursor.");
+            }
+            afterValue = decoded.tieBreaker();
+        }
+
+        // Fetch one extra row to learn whether another page exists, without a COUNT query
+        List<UrlAccessStats> stats = mergesInMemory()
+                ? mergedStatsAfter(groupBy, direction, afterCount, afterValue, size + 1)
+                : requestDataRepository.findStatsPageAfter(groupBy, direction, afterCount, afterValue, size + 1);
+        boolean hasNext = stats.size() > size;
+        if (hasNext) {
+            stats = stats.subList(0, size);
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            UrlAccessStats last = stats.getLast();
+            nextCursor = new ScrollCursor(scope, String.valueOf(last.getAccessCount()), last.getValue()).encode();
+        }
+
+        // Only manipulate value to generate the url, after the cursor captured the raw short code
+        if (groupBy == StatsGroupBy.URL) {
+            stats = stats.stream()
+                    .map(s -> (UrlAccessStats) new UrlAccessStatsDTO(
+                            UrlShortenerAlgorithm.buildUrl(s.getValue()), s.getAccessCount(), s.getDeviceCount()))
+                    .toList();
+        }
+
+        return new CursorPage<>(stats, nextCursor, hasNext);
+    }
+
+    @Override
+    public SseEmitter subscribeToClicks(String shortCode, LiveFeedMode mode) {
+        if (shortCode != null && !shards.onShardOf(shortCode, () -> shortUrlRepository.existsByShortCode(shortCode))) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Url does not exist.");
+        }
+        return clickFeedHub.subscribe(shortCode, mode);
+    }
+
+    @Override
+    public StreamingResponseBody exportClicks(String shortCode, LocalDateTime from, LocalDateTime to,
+            ExportFormat format) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to.");
+        }
+        final ShortUrl shortUrl = shards.onShardOf(shortCode, () -> shortUrlRepository.findByShortCode(shortCode))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Url does not exist."));
+
+        final StreamingResponseBody body = clickExporter.export(shortUrl.getId(),
+                UrlShortenerAlgorithm.buildUrl(shortUrl.getShortCode()), from, to, format);
+        if (!shards.enabled()) {
+            return body;
+        }
+        // The rows are read once the response is written, on another thread
+        return out -> {
+            try {
+                shards.onShardOf(shortCode, () -> {
+                    try {
+                        body.writeTo(out);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                    return null;
+                });
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+        };
+    }
+
+    // Unsharded and without archive files the database aggregates and pages the stats itself
+    private boolean mergesInMemory() {
+        return clickArchive.hasFiles() || shards.enabled();
+    }
+
+    private Page<UrlAccessStats> mergedTopStats(StatsGroupBy groupBy, Pageable pageable, SortDirection direction) {
+        final List<UrlAccessStats> stats = mergedStats(groupBy, direction);
+        final int from = (int) Math.min(pageable.getOffset(), stats.size());
+        final int to = Math.min(from + pageable.getPageSize(), stats.size());
+        return new PageImpl<>(stats.subList(from, to), pageable, stats.size());
+    }
+
+    // Same order and cursor semantics as RequestDataRepository.findStatsPageAfter
+    private List<UrlAccessStats> mergedStatsAfter(StatsGroupBy groupBy, SortDirection direction,
+            Long afterCount, String afterValue, int limit) {
+        final List<UrlAccessStats> stats = mergedStats(groupBy, direction);
+        int from = 0;
+        if (afterValue != null) {
+            // Binary search for the first group ordered after the cursor
+            final UrlAccessStats cursor = new UrlAccessStatsDTO(afterValue, afterCount, 0L);
+            final Comparator<UrlAccessStats> order = order(direction);
+            int to = stats.size();
+            while (from < to) {
+                final int middle = (from + to) >>> 1;
+                if (order.compare(stats.get(middle), cursor) <= 0) {
+                    from = middle + 1;
+                } else {
+                    to = middle;
+                }
+            }
+        }
+        return stats.subList(from, Math.min(from + limit, stats.size()));
+    }
+
+    /**
+     * Every group, by access count then value, merged once per grouping and
+     * direction and cached like the stats pages.
+     */
+    private List<UrlAccessStats> mergedStats(StatsGroupBy groupBy, SortDirection direction) {
+        return statsCache.getAll(groupBy, direction, () -> aggregate(groupBy, direction));
+    }
+
+    /**
+     * Aggregates archived and live clicks of every shard together. The archive
+     * is read from the per-file summaries and live rows are folded into the
+     * same per-value device sketches, so distinct devices are counted once
+     * across all sides.
+     */
+    private List<UrlAccessStats> aggregate(StatsGroupBy groupBy, SortDirection direction) {
+        final StatsAccumulator accumulator = new StatsAccumulator();
+        try {
+            clickArchive.scan(groupBy, resolveShortCodes(clickArchive.shortUrlIds()), accumulator);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to read the click archive", ex);
+        }
+        shards.readShardByShard(() -> requestDataRepository.forEachDeviceCount(groupBy, accumulator::add));
+
+        return accumulator.toStats().stream()
+                .sorted(order(direction))
+                .toList();
+    }
+
+    private static Comparator<UrlAccessStats> order(SortDirection direction) {
+        Comparator<UrlAccessStats> order = Comparator.comparingLong(UrlAccessStats::getAccessCount);
+        if (direction != SortDirection.ASC) {
+            order = order.reversed();
+        }
+        return order.thenComparing(UrlAccessStats::getValue);
+    }
+
+    // Archived clicks of URLs deleted since are dropped, like their rows in request_data
+    private Map<UUID, String> resolveShortCodes(Collection<UUID> shortUrlIds) {
+        final Map<UUID, String> shortCodes = findShortCodes(shortUrlIds);
+
+        // Files archived before migration V2 name the ids it replaced
+        final List<UUID> missing = shortUrlIds.stream().filter(id -> !shortCodes.containsKey(id)).toList();
+        final Map<UUID, UUID> remapped = new HashMap<>();
+        for (int from = 0; from < missing.size(); from += SHORT_CODE_BATCH) {
+            final List<UUID> batch = missing.subList(from, Math.min(from + SHORT_CODE_BATCH, missing.size()));
+            shards.readEveryShard(() -> shortUrlIdRemapRepository.findAllById(batch))
+                    .forEach(remaps -> remaps.forEach(remap -> remapped.put(remap.getOldId(), remap.getNewId())));
+        }
+        if (!remapped.isEmpty()) {
+            final Map<UUID, String> current = findShortCodes(remapped.values());
+            remapped.forEach((oldId, newId) -> {
+                if (current.containsKey(newId)) {
+                    shortCodes.put(oldId, current.get(newId));
+                }
+            });
+        }
+        return shortCodes;
+    }
+
+    private Map<UUID, String> findShortCodes(Collection<UUID> shortUrlIds) {
+        final Map<UUID, String> shortCodes = new HashMap<>();
+        final List<UUID> ids = List.copyOf(shortUrlIds);
+        for (int from = 0; from < ids.size(); from += SHORT_CODE_BATCH) {
+            final List<UUID> batch = ids.subList(from, Math.min(from + SHORT_CODE_BATCH, ids.size()));
+            shards.readEveryShard(() -> shortUrlRepository.findRedirectEntriesByIds(batch))
+                    .forEach(entries -> entries.forEach(entry -> shortCodes.put(entry.id(), entry.shortCode())));
+        }
+        return shortCodes;
+    }
+
 }
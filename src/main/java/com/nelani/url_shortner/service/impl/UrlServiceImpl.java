@@ -1,35 +1,72 @@
 package com.nelani.url_shortner.service.impl;
 
 import com.nelani.url_shortner.dto.CreateUrlDTO;
+import com.nelani.url_shortner.dto.ScrollCursor;
 import com.nelani.url_shortner.dto.UpdateUrlDTO;
 import com.nelani.url_shortner.mapper.UrlResponseMapper;
+import com.nelani.url_shortner.metrics.ShortenerMetrics;
+import com.nelani.url_shortner.metrics.ShortenerMetrics.Stage;
+import com.nelani.url_shortner.model.RedirectType;
 import com.nelani.url_shortner.model.ShortUrl;
+import com.nelani.url_shortner.model.UrlChange;
+import com.nelani.url_shortner.model.UrlChangeType;
 import com.nelani.url_shortner.model.ShortUrlSortField;
 import com.nelani.url_shortner.model.SortDirection;
 import com.nelani.url_shortner.repository.RequestDataRepository;
 import com.nelani.url_shortner.repository.ShortUrlRepository;
+import com.nelani.url_shortner.repository.UrlChangeRepository;
+import com.nelani.url_shortner.response.CursorPage;
 import com.nelani.url_shortner.response.UrlResponse;
 import com.nelani.url_shortner.service.UrlService;
+import com.nelani.url_shortner.shard.ShardContext;
+import com.nelani.url_shortner.shard.Shards;
+import com.nelani.url_shortner.store.RedirectCache;
+import com.nelani.url_shortner.store.RedirectEntry;
+import com.nelani.url_shortner.store.RedirectStore;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 
 @Service
 public class UrlServiceImpl implements UrlService {
 
+    // Offset pages read (page + 1) * size rows from every shard, deeper pages go through scrollUrls
+    private static final int MAX_SHARDED_OFFSET_ROWS = 10_000;
+
     private final ShortUrlRepository urlRepository;
     private final RequestDataRepository requestDataRepository;
-
-    public UrlServiceImpl(ShortUrlRepository urlRepository, RequestDataRepository requestDataRepository) {
+    private final UrlChangeRepository urlChangeRepository;
+    private final RedirectStore redirectStore;
+    private final RedirectCache redirectCache;
+    private final ShortenerMetrics metrics;
+    private final Shards shards;
+
+    public UrlServiceImpl(ShortUrlRepository urlRepository, RequestDataRepository requestDataRepository,
+            UrlChangeRepository urlChangeRepository, RedirectStore redirectStore, RedirectCache redirectCache,
+            ShortenerMetrics metrics, Shards shards) {
         this.urlRepository = urlRepository;
         this.requestDataRepository = requestDataRepository;
+        this.urlChangeRepository = urlChangeRepository;
+        this.redirectStore = redirectStore;
+        this.redirectCache = redirectCache;
+        this.metrics = metrics;
+        this.shards = shards;
     }
 
     @Override
@@ -45,38 +82,100 @@ public class UrlServiceImpl implements UrlService {
 
         // Generate and get the urls
         Pageable pageable = PageRequest.of(page, size, sort);
+        if (shards.enabled()) {
+            // Every shard's first (page + 1) * size urls, merged, hold the page
+            if (((long) page + 1) * size > MAX_SHARDED_OFFSET_ROWS) {
+                throw new IllegalArgumentException("Pages past the first " + MAX_SHARDED_OFFSET_ROWS
+                        + " urls are not served, use /api/urls/scroll.");
+            }
+            List<ShortUrl> urls = firstOfEveryShard(sortField, direction, null, null, (page + 1) * size);
+            List<ShortUrl> pageUrls = urls.subList(Math.min(urls.size(), page * size), urls.size());
+            long total = shards.readEveryShard(urlRepository::count).stream().mapToLong(Long::longValue).sum();
+            return new PageImpl<>(toResponsesOnShards(pageUrls), pageable, total);
+        }
         var urls = urlRepository.findAll(pageable);
 
         // Return the page with urls mapped to the dto
         return urls.map(shortUrl -> UrlResponseMapper.toDto(shortUrl, requestDataRepository));
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<UrlResponse> scrollUrls(String cursor, int size, ShortUrlSortField sortField,
+            SortDirection direction) {
+        final String scope = "urls:" + sortField + ":" + direction;
+
+        // Resume after the last row of the previous page, if any
+        Comparable<?> afterKey = null;
+        UUID afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            ScrollCursor decoded = ScrollCursor.decode(cursor, scope);
+            afterKey = decoded.key() == null ? null : parseSortKey(sortField, decoded.key());
+            afterId = UUID.fromString(decoded.tieBreaker());
+        }
+
+        // Fetch one extra row to learn whether another page exists, without a COUNT query
+        List<ShortUrl> urls = shards.enabled()
+                ? firstOfEveryShard(sortField, direction, afterKey, afterId, size + 1)
+                : urlRepository.findPageAfter(sortField, direction, afterKey, afterId, size + 1);
+        boolean hasNext = urls.size() > size;
+        if (hasNext) {
+            urls = urls.subList(0, size);
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            ShortUrl last = urls.getLast();
+            Object lastKey = sortKeyOf(sortField, last);
+            nextCursor = new ScrollCursor(scope, lastKey == null ? null : lastKey.toString(),
+                    last.getId().toString()).encode();
+        }
+
+        List<UrlResponse> content = shards.enabled()
+                ? toResponsesOnShards(urls)
+                : urls.stream()
+                        .map(shortUrl -> UrlResponseMapper.toDto(shortUrl, requestDataRepository))
+                        .toList();
+        return new CursorPage<>(content, nextCursor, hasNext);
+    }
+
     @Override
     @Transactional
     public UrlResponse createShortUrl(CreateUrlDTO dto) {
-        // Check if the url exists
-        boolean exists = urlRepository.existsByOriginalUrl(dto.url());
+        // Check if the url exists, on every shard when sharded
+        boolean exists = shards.anyShard(() -> urlRepository.existsByOriginalUrl(dto.url()));
         if (exists) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Url already exists.");
         }
 
-        // Generate a shortCode for the new url
-        String shortCode;
-        do {
-            shortCode = UrlShortenerAlgorithm.encode(dto.url());
-        } while (urlRepository.existsByShortCode(shortCode));
+        // Generate a shortCode for the new url, its first two characters pick the shard it is stored on
+        final long generationStart = System.nanoTime();
+        String shortCode = UrlShortenerAlgorithm.encode(dto.url());
+        shards.route(shortCode);
+        while (urlRepository.existsByShortCode(shortCode)) {
+            // Same shard as the first attempt, this transaction is bound to it
+            shortCode = shortCode.substring(0, 2) + UrlShortenerAlgorithm.encode(dto.url()).substring(2);
+        }
+        metrics.record(Stage.CODE_GENERATION, generationStart);
 
         // Create and save the new url
         ShortUrl shortUrl = ShortUrl.builder()
                 .shortCode(shortCode)
                 .originalUrl(dto.url())
                 .accessLimit(dto.accessLimit())
+                .redirectType(resolveRedirectType(dto.redirectType(), dto.accessLimit()))
                 .build();
 
         // Set the expiration date
         shortUrl.setExpiresAt(resolveExpiry(dto.expiresInDays()));
 
+        final long persistStart = System.nanoTime();
         urlRepository.save(shortUrl);
+        recordChange(shortCode, UrlChangeType.CREATED);
+        metrics.record(Stage.URL_PERSIST, persistStart);
+
+        final RedirectEntry entry = RedirectEntry.of(shortUrl);
+        afterCommit(() -> redirectStore.put(entry));
 
         Long clicks = requestDataRepository.countByShortUrl(shortUrl);
 
@@ -93,15 +192,22 @@ public class UrlServiceImpl implements UrlService {
 
         // Gets the shortCode from the url
         String shortCode = UrlShortenerAlgorithm.decode(existingUrl);
+        shards.route(shortCode);
 
         // Checks if the urls exists
         ShortUrl shortUrl = urlRepository.findByShortCode(shortCode)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Short url does not exist."));
+        final String previousShortCode = shortUrl.getShortCode();
 
-        // Checks if the new url exists
-        boolean exists = urlRepository.existsByOriginalUrl(newUrl);
+        // Checks if the new url exists, on every shard when sharded
+        boolean exists = shards.anyShard(() -> urlRepository.existsByOriginalUrl(newUrl));
         if (exists) {
-            ShortUrl existingShortUrl = urlRepository.findByOriginalUrl(newUrl)
+            Optional<ShortUrl> onThisShard = urlRepository.findByOriginalUrl(newUrl);
+            if (onThisShard.isEmpty() && shards.enabled()) {
+                // Only on another shard, so it belongs to another short url
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Url already exists.");
+            }
+            ShortUrl existingShortUrl = onThisShard
                     .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Existing url not found."));
 
             if (existingShortUrl.getId() != shortUrl.getId()) {
@@ -109,6 +215,11 @@ public class UrlServiceImpl implements UrlService {
             }
         }
 
+        // A url and its clicks are stored on the shard of its code, a new code must not move them
+        if (dto.newShortKey() != null && shards.shardOf(dto.newShortKey()) != shards.shardOf(shortCode)) {
+            throw new IllegalArgumentException("The new short key maps to another shard than the current one.");
+        }
+
         // Check if the new short code exists
         if (dto.newShortKey() != null && urlRepository.existsByShortCode(dto.newShortKey())) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Short Key is already in use.");
@@ -120,11 +231,24 @@ public class UrlServiceImpl implements UrlService {
         // Set the expiration date
         shortUrl.setExpiresAt(resolveExpiry(dto.expiresInDays()));
         shortUrl.setAccessLimit(dto.accessLimit());
+        shortUrl.setRedirectType(resolveRedirectType(dto.redirectType(), dto.accessLimit()));
 
         // update the url entity with the new url while maintaining the old shortCode
         shortUrl.setOriginalUrl(newUrl);
         urlRepository.save(shortUrl);
 
+        recordChange(previousShortCode, UrlChangeType.UPDATED);
+        if (shortUrl.getShortCode() != null && !shortUrl.getShortCode().equals(previousShortCode)) {
+            recordChange(shortUrl.getShortCode(), UrlChangeType.CREATED);
+        }
+
+        final RedirectEntry entry = RedirectEntry.of(shortUrl);
+        afterCommit(() -> {
+            redirectCache.evict(previousShortCode);
+            redirectStore.evict(previousShortCode);
+            redirectStore.put(entry);
+        });
+
         Long clicks = requestDataRepository.countByShortUrl(shortUrl);
 
         // Return the url mapped to the dto
@@ -139,6 +263,7 @@ public class UrlServiceImpl implements UrlService {
 
         // Gets the shortCode from the url
         String shortCode = UrlShortenerAlgorithm.decode(existingUrl);
+        shards.route(shortCode);
 
         // Checks if the urls exists
         ShortUrl shortUrl = urlRepository.findByShortCode(shortCode)
@@ -147,6 +272,123 @@ public class UrlServiceImpl implements UrlService {
         // Deletes the url from the database
         requestDataRepository.deleteByShortUrl(shortUrl);
         urlRepository.delete(shortUrl);
+        recordChange(shortCode, UrlChangeType.DELETED);
+
+        afterCommit(() -> {
+            redirectCache.evict(shortCode);
+            redirectStore.evict(shortCode);
+        });
+    }
+
+    // Same transaction as the mutation, so other nodes see the change exactly when it commits
+    private void recordChange(String shortCode, UrlChangeType changeType) {
+        final UrlChange change = UrlChange.builder()
+                .shortCode(shortCode)
+                .changeType(changeType)
+                .changedAt(LocalDateTime.now())
+                .build();
+        if (shards.enabled()) {
+            // The change log is on the home shard: written once the change has committed on its own shard,
+            // a crash in between leaves other nodes' caches stale until redirect.cache.ttl-seconds
+            afterCommit(() -> shards.inHomeShardTransaction(() -> urlChangeRepository.save(change)));
+            return;
+        }
+        urlChangeRepository.save(change);
+    }
+
+    /**
+     * The first {@code limit} urls after the cursor across all shards, in the
+     * order of {@link ShortUrlRepository#findPageAfter}.
+     */
+    private List<ShortUrl> firstOfEveryShard(ShortUrlSortField sortField, SortDirection direction,
+            Comparable<?> afterKey, UUID afterId, int limit) {
+        return shards.readEveryShard(() -> urlRepository.findPageAfter(sortField, direction, afterKey, afterId, limit))
+                .stream()
+                .flatMap(List::stream)
+                .sorted(pageOrder(sortField, direction))
+                .limit(limit)
+                .toList();
+    }
+
+    // Clicks are counted on the shard each url is stored on
+    private List<UrlResponse> toResponsesOnShards(List<ShortUrl> urls) {
+        final Map<UUID, UrlResponse> responses = new HashMap<>();
+        shards.readEveryShard(() -> {
+            final Map<UUID, UrlResponse> onShard = new HashMap<>();
+            for (ShortUrl shortUrl : urls) {
+                if (shards.shardOf(shortUrl.getShortCode()) == ShardContext.current()) {
+                    onShard.put(shortUrl.getId(), UrlResponseMapper.toDto(shortUrl, requestDataRepository));
+                }
+            }
+            return onShard;
+        }).forEach(responses::putAll);
+        return urls.stream().map(shortUrl -> responses.get(shortUrl.getId())).toList();
+    }
+
+    // Nulls last, then the sort key, then the id: the order of findPageAfter
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Comparator<ShortUrl> pageOrder(ShortUrlSortField sortField, SortDirection direction) {
+        final Comparator<ShortUrl> byKey = (a, b) -> {
+            final Comparable keyA = (Comparable) sortKeyOf(sortField, a);
+            final Comparable keyB = (Comparable) sortKeyOf(sortField, b);
+            if (keyA == null || keyB == null) {
+                return keyA == null ? (keyB == null ? 0 : 1) : -1;
+            }
+            return direction == SortDirection.ASC ? keyA.compareTo(keyB) : keyB.compareTo(keyA);
+        };
+        final Comparator<ShortUrl> byId = direction == SortDirection.ASC
+                ? Comparator.comparing(ShortUrl::getId)
+                : Comparator.comparing(ShortUrl::getId).reversed();
+        return byKey.thenComparing(byId);
+    }
+
+    /**
+     * Runs the action once the surrounding transaction has committed, so the
+     * redirect store never shows a change that was rolled back.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static Object sortKeyOf(ShortUrlSortField sortField, ShortUrl shortUrl) {
+        return switch (sortField) {
+            case CREATED_AT -> shortUrl.getCreatedAt();
+            case EXPIRES_AT -> shortUrl.getExpiresAt();
+            case ACCESS_LIMIT -> shortUrl.getAccessLimit();
+        };
+    }
+
+    private static Comparable<?> parseSortKey(ShortUrlSortField sortField, String key) {
+        try {
+            return switch (sortField) {
+                case CREATED_AT, EXPIRES_AT -> LocalDateTime.parse(key);
+                case ACCESS_LIMIT -> Long.valueOf(key);
+            };
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+
+    private RedirectType resolveRedirectType(RedirectType redirectType, Long accessLimit) {
+        if (redirectType == null) {
+            return RedirectType.FOUND;
+        }
+
+        // A cached redirect never reaches us, so the limit could not be enforced
+        if (redirectType.isCacheable() && accessLimit != null) {
+            throw new IllegalArgumentException(
+                    "Permanent redirects cannot be combined with an access limit.");
+        }
+        return redirectType;
     }
 
     private LocalDateTime resolveExpiry(Integer days) {
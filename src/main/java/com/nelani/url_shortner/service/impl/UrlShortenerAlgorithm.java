@@ -13,11 +13,10 @@ public class UrlShortenerAlgorithm {
 
     private static final String BASE62 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
     private static final String HOSTURL = "https://url-shortener-4yxt.onrender.com";
+    private static final String SHORT_URL_PREFIX = HOSTURL + "/r/";
     private static final SecureRandom RANDOM = new SecureRandom();
 
     public static String encode(String url) {
-        log.info("Encoding URL for shortening");
-
         url = validateUrl(url);
         URI uri;
         try {
@@ -51,20 +50,17 @@ public class UrlShortenerAlgorithm {
         }
 
         final String shortCode = sb.toString();
-        log.info("Short code generated: {}", shortCode);
+        log.debug("Short code generated: {}", shortCode);
         return shortCode;
     }
 
+    // Called for every row of a stats page and every UrlResponse, so it does not log
     public static String buildUrl(String shortCode) {
-        final String fullUrl = HOSTURL + "/r/" + shortCode;
-        log.info("Short URL built successfully");
-        return fullUrl;
+        return SHORT_URL_PREFIX + shortCode;
     }
 
     public static String decode(String url) {
-        final String shortCode = url.replace(HOSTURL + "/r/", "");
-        log.info("Short code decoded from URL");
-        return shortCode;
+        return url.replace(SHORT_URL_PREFIX, "");
     }
 
     public static String validateUrl(String url) {
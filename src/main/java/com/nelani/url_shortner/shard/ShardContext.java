@@ -0,0 +1,51 @@
+package com.nelani.url_shortner.shard;
+
+import java.util.function.Supplier;
+
+/**
+ * The shard the current thread's next connection is taken from. Unset means
+ * the home shard (shard 0, {@code spring.datasource.url}), which also holds
+ * every table that is not sharded.
+ *
+ * Connections are taken lazily, at the first statement of a transaction, so
+ * the shard must be chosen before that statement runs.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * @return the chosen shard, or null for the home shard
+     */
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs the action with {@code shard} chosen, then restores the previous choice.
+     */
+    public static <T> T call(int shard, Supplier<T> action) {
+        final Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    static void set(int shard) {
+        CURRENT.set(shard);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+}
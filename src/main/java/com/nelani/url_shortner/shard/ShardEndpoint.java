@@ -0,0 +1,73 @@
+package com.nelani.url_shortner.shard;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code /actuator/shards}: GET shows the buckets and URLs of each shard, POST
+ * copies URLs to their shard in a ring of {@code targetShards} (from the
+ * active ring, or from {@code fromShards} when given), DELETE purges the URLs
+ * the active ring places on another shard. See {@link ShardMigrator} for the
+ * order to run them in.
+ */
+@Component
+@ConditionalOnProperty(name = "sharding.urls")
+@Endpoint(id = "shards")
+public class ShardEndpoint {
+
+    private final Shards shards;
+    private final ShardMigrator shardMigrator;
+
+    public ShardEndpoint(Shards shards, ShardMigrator shardMigrator) {
+        this.shards = shards;
+        this.shardMigrator = shardMigrator;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        if (!shards.enabled()) {
+            return Map.of("enabled", false);
+        }
+
+        final List<Map<String, Object>> perShard = new ArrayList<>();
+        for (int shard = 0; shard < shards.configured(); shard++) {
+            perShard.add(Map.of(
+                    "shard", shard,
+                    "buckets", shard < shards.count() ? shards.ring().bucketsOf(shard) : 0,
+                    "urls", shardMigrator.countUrls(shard)));
+        }
+        return Map.of(
+                "enabled", true,
+                "activeShards", shards.count(),
+                "configuredShards", shards.configured(),
+                "shards", perShard);
+    }
+
+    @WriteOperation
+    public Map<String, Object> reshard(int targetShards, @Nullable Integer fromShards) {
+        final ShortCodeShards from = fromShards == null ? shards.ring() : new ShortCodeShards(fromShards);
+        final ShardMigrator.Result copied = shardMigrator.copy(from, new ShortCodeShards(targetShards));
+        return Map.of(
+                "from", from.shards(),
+                "to", targetShards,
+                "copiedUrls", copied.urls(),
+                "copiedClicks", copied.clicks());
+    }
+
+    @DeleteOperation
+    public Map<String, Object> purge() {
+        final ShardMigrator.Result purged = shardMigrator.purge(shards.ring());
+        return Map.of(
+                "purgedUrls", purged.urls(),
+                "purgedClicks", purged.clicks());
+    }
+}
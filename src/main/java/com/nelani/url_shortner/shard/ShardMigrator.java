@@ -0,0 +1,331 @@
+package com.nelani.url_shortner.shard;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Moves short URLs and their clicks between shards when the number of active
+ * shards changes. Resharding from N to M shards:
+ *
+ * <ol>
+ * <li>{@link #copy} from the N-shard ring to the M-shard ring, while the
+ * application still serves from N shards;</li>
+ * <li>restart with {@code sharding.active-shards=M};</li>
+ * <li>{@link #copy} again, which brings over the clicks recorded in between
+ * (rows already on the new shard are skipped);</li>
+ * <li>{@link #purge} the rows the M-shard ring no longer places on a shard.</li>
+ * </ol>
+ *
+ * Edits to a moved URL made between the first copy and the restart stay on
+ * its old shard, so the switch is best done while URLs are not being edited.
+ * Works on the shard pools directly with plain JDBC, a batch of URLs per
+ * transaction.
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "sharding.urls")
+public class ShardMigrator {
+
+    private final Shards shards;
+    private final int batchSize;
+
+    public ShardMigrator(Shards shards, @Value("${sharding.migration.batch-size:500}") int batchSize) {
+        this.shards = shards;
+        this.batchSize = batchSize;
+    }
+
+    public record Result(long urls, long clicks) {
+
+        Result plus(Result other) {
+            return new Result(urls + other.urls, clicks + other.clicks);
+        }
+    }
+
+    /**
+     * Copies every URL whose shard differs between {@code from} and
+     * {@code to}, with its clicks, to its shard in {@code to}.
+     */
+    public Result copy(ShortCodeShards from, ShortCodeShards to) {
+        checkShards(from);
+        checkShards(to);
+
+        Result copied = new Result(0, 0);
+        for (int source = 0; source < from.shards(); source++) {
+            final int shard = source;
+            final Result fromShard = scan(source, batch -> {
+                final Map<Integer, List<Object>> byTarget = new HashMap<>();
+                batch.forEach((id, code) -> {
+                    if (from.shardOf(code) == shard && to.shardOf(code) != shard) {
+                        byTarget.computeIfAbsent(to.shardOf(code), t -> new ArrayList<>()).add(id);
+                    }
+                });
+
+                Result moved = new Result(0, 0);
+                for (Map.Entry<Integer, List<Object>> target : byTarget.entrySet()) {
+                    moved = moved.plus(copyUrls(shard, target.getKey(), target.getValue()));
+                }
+                return moved;
+            });
+            log.info("Shard {}: copied {} URLs and {} clicks", source, fromShard.urls(), fromShard.clicks());
+            copied = copied.plus(fromShard);
+        }
+        return copied;
+    }
+
+    /**
+     * Deletes URLs and their clicks from every shard that does not own them in
+     * {@code ring}, once they are on the shard that does.
+     */
+    public Result purge(ShortCodeShards ring) {
+        checkShards(ring);
+
+        Result purged = new Result(0, 0);
+        for (int shard = 0; shard < shards.configured(); shard++) {
+            final int current = shard;
+            final Result fromShard = scan(shard, batch -> {
+                final Map<Integer, List<Object>> byOwner = new HashMap<>();
+                batch.forEach((id, code) -> {
+                    if (ring.shardOf(code) != current) {
+                        byOwner.computeIfAbsent(ring.shardOf(code), o -> new ArrayList<>()).add(id);
+                    }
+                });
+
+                Result deleted = new Result(0, 0);
+                for (Map.Entry<Integer, List<Object>> owner : byOwner.entrySet()) {
+                    deleted = deleted.plus(deleteCopied(current, owner.getKey(), owner.getValue()));
+                }
+                return deleted;
+            });
+            log.info("Shard {}: purged {} URLs and {} clicks", shard, fromShard.urls(), fromShard.clicks());
+            purged = purged.plus(fromShard);
+        }
+        return purged;
+    }
+
+    public long countUrls(int shard) {
+        try (Connection connection = shards.dataSource(shard).getConnection();
+                PreparedStatement statement = connection.prepareStatement("SELECT COUNT(*) FROM short_url");
+                ResultSet rs = statement.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Failed to count the URLs of shard " + shard, ex);
+        }
+    }
+
+    private void checkShards(ShortCodeShards ring) {
+        if (!shards.enabled()) {
+            throw new IllegalStateException("Sharding is not enabled");
+        }
+        if (ring.shards() > shards.configured()) {
+            throw new IllegalArgumentException(
+                    ring.shards() + " shards requested but only " + shards.configured() + " are configured");
+        }
+    }
+
+    private interface BatchAction {
+        Result apply(Map<Object, String> codesById) throws SQLException;
+    }
+
+    // Walks short_url of a shard by id, a batch of (id, short_code) at a time
+    private Result scan(int shard, BatchAction action) {
+        Result total = new Result(0, 0);
+        Object after = null;
+        try {
+            while (true) {
+                final Map<Object, String> batch = new LinkedHashMap<>();
+                try (Connection connection = shards.dataSource(shard).getConnection();
+                        PreparedStatement statement = connection.prepareStatement(after == null
+                                ? "SELECT id, short_code FROM short_url ORDER BY id LIMIT ?"
+                                : "SELECT id, short_code FROM short_url WHERE id > ? ORDER BY id LIMIT ?")) {
+                    int index = 1;
+                    if (after != null) {
+                        statement.setObject(index++, after);
+                    }
+                    statement.setInt(index, batchSize);
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            batch.put(rs.getObject(1), rs.getString(2));
+                        }
+                    }
+                }
+                if (batch.isEmpty()) {
+                    return total;
+                }
+
+                total = total.plus(action.apply(batch));
+                after = batch.keySet().toArray()[batch.size() - 1];
+            }
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Failed to walk the URLs of shard " + shard, ex);
+        }
+    }
+
+    private Result copyUrls(int source, int target, List<Object> ids) throws SQLException {
+        try (Connection from = shards.dataSource(source).getConnection();
+                Connection to = shards.dataSource(target).getConnection()) {
+            to.setAutoCommit(false);
+            try {
+                final long urls = copyRows(from, to, "short_url", "id", ids);
+                final long clicks = copyRows(from, to, "request_data", "short_url_id", ids);
+                to.commit();
+                return new Result(urls, clicks);
+            } catch (SQLException | RuntimeException ex) {
+                to.rollback();
+                throw ex;
+            } finally {
+                to.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Copies the rows of {@code table} whose {@code keyColumn} is one of
+     * {@code keys}, skipping those whose id is already on the target.
+     */
+    private long copyRows(Connection from, Connection to, String table, String keyColumn, List<Object> keys)
+            throws SQLException {
+        long copied = 0;
+        try (PreparedStatement select = from.prepareStatement(
+                "SELECT * FROM " + table + " WHERE " + keyColumn + " IN (" + placeholders(keys.size()) + ")")) {
+            bind(select, keys);
+            select.setFetchSize(batchSize);
+            try (ResultSet rs = select.executeQuery()) {
+                final ResultSetMetaData meta = rs.getMetaData();
+                final int columns = meta.getColumnCount();
+                final StringJoiner names = new StringJoiner(", ");
+                int idColumn = 0;
+                for (int c = 1; c <= columns; c++) {
+                    names.add(meta.getColumnName(c));
+                    if ("id".equalsIgnoreCase(meta.getColumnName(c))) {
+                        idColumn = c;
+                    }
+                }
+
+                final List<Object[]> rows = new ArrayList<>(batchSize);
+                try (PreparedStatement insert = to.prepareStatement(
+                        "INSERT INTO " + table + " (" + names + ") VALUES (" + placeholders(columns) + ")")) {
+                    while (rs.next()) {
+                        final Object[] row = new Object[columns];
+                        for (int c = 1; c <= columns; c++) {
+                            row[c - 1] = rs.getObject(c);
+                        }
+                        rows.add(row);
+                        if (rows.size() == batchSize) {
+                            copied += insertMissing(to, table, insert, rows, idColumn);
+                            rows.clear();
+                        }
+                    }
+                    copied += insertMissing(to, table, insert, rows, idColumn);
+                }
+            }
+        }
+        return copied;
+    }
+
+    private long insertMissing(Connection to, String table, PreparedStatement insert, List<Object[]> rows,
+            int idColumn) throws SQLException {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        final List<Object> ids = rows.stream().map(row -> row[idColumn - 1]).toList();
+        final Set<Object> present = existingIds(to, table, "id", ids);
+
+        long inserted = 0;
+        for (Object[] row : rows) {
+            if (present.contains(row[idColumn - 1])) {
+                continue;
+            }
+            for (int c = 0; c < row.length; c++) {
+                insert.setObject(c + 1, row[c]);
+            }
+            insert.addBatch();
+            inserted++;
+        }
+        insert.executeBatch();
+        return inserted;
+    }
+
+    private Result deleteCopied(int shard, int owner, List<Object> ids) throws SQLException {
+        final Set<Object> copied;
+        try (Connection connection = shards.dataSource(owner).getConnection()) {
+            copied = existingIds(connection, "short_url", "id", ids);
+        }
+        if (copied.isEmpty()) {
+            return new Result(0, 0);
+        }
+        if (copied.size() < ids.size()) {
+            log.warn("Shard {}: {} URLs owned by shard {} are not copied yet, kept", shard,
+                    ids.size() - copied.size(), owner);
+        }
+
+        final List<Object> keys = List.copyOf(copied);
+        try (Connection connection = shards.dataSource(shard).getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                final long clicks = delete(connection, "request_data", "short_url_id", keys);
+                final long urls = delete(connection, "short_url", "id", keys);
+                connection.commit();
+                return new Result(urls, clicks);
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static long delete(Connection connection, String table, String keyColumn, List<Object> keys)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "DELETE FROM " + table + " WHERE " + keyColumn + " IN (" + placeholders(keys.size()) + ")")) {
+            bind(statement, keys);
+            return statement.executeUpdate();
+        }
+    }
+
+    private static Set<Object> existingIds(Connection connection, String table, String column,
+            Collection<Object> ids) throws SQLException {
+        final Set<Object> present = new HashSet<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT " + column + " FROM " + table + " WHERE " + column + " IN (" + placeholders(ids.size()) + ")")) {
+            bind(statement, ids);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    present.add(rs.getObject(1));
+                }
+            }
+        }
+        return present;
+    }
+
+    private static void bind(PreparedStatement statement, Collection<Object> values) throws SQLException {
+        int index = 1;
+        for (Object value : values) {
+            statement.setObject(index++, value);
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
@@ -0,0 +1,79 @@
+package com.nelani.url_shortner.shard;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.log4j.Log4j2;
+import org.flywaydb.core.Flyway;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Brings the schema of shards 1 and up to that of the home shard, which Flyway
+ * or Hibernate set up as usual: Flyway migrates every shard with the same
+ * migrations, without Flyway a shard that has no tables yet gets Hibernate's
+ * schema when {@code ddl-auto} creates or updates it.
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "sharding.urls")
+public class ShardSchemaInitializer implements SmartInitializingSingleton {
+
+    private static final Set<String> CREATING_DDL_AUTO = Set.of("create", "create-drop", "update");
+
+    private final Shards shards;
+    private final ObjectProvider<Flyway> flyway;
+    private final EntityManagerFactory entityManagerFactory;
+    private final String ddlAuto;
+
+    public ShardSchemaInitializer(Shards shards, ObjectProvider<Flyway> flyway,
+            EntityManagerFactory entityManagerFactory,
+            @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto) {
+        this.shards = shards;
+        this.flyway = flyway;
+        this.entityManagerFactory = entityManagerFactory;
+        this.ddlAuto = ddlAuto;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!shards.enabled()) {
+            return;
+        }
+
+        final Flyway homeFlyway = flyway.getIfAvailable();
+        for (int shard = 1; shard < shards.configured(); shard++) {
+            if (homeFlyway != null) {
+                Flyway.configure()
+                        .configuration(homeFlyway.getConfiguration())
+                        .dataSource(shards.dataSource(shard))
+                        .load()
+                        .migrate();
+                log.info("Migrated the schema of shard {}", shard);
+            } else if (CREATING_DDL_AUTO.contains(ddlAuto.toLowerCase()) && !hasSchema(shard)) {
+                ShardContext.call(shard, () -> {
+                    entityManagerFactory.unwrap(SessionFactory.class).getSchemaManager().exportMappedObjects(true);
+                    return null;
+                });
+                log.info("Created the schema of shard {}", shard);
+            }
+        }
+    }
+
+    private boolean hasSchema(int shard) {
+        try (Connection connection = shards.dataSource(shard).getConnection();
+                Statement statement = connection.createStatement()) {
+            statement.executeQuery("SELECT 1 FROM short_url WHERE 1 = 0").close();
+            return true;
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+}
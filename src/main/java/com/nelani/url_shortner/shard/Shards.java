@@ -0,0 +1,227 @@
+package com.nelani.url_shortner.shard;
+
+import com.nelani.url_shortner.config.ShardRoutingDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Chooses the shard for work on short URLs and their clicks. A URL and all of
+ * its clicks live on the shard of its short code ({@link ShortCodeShards}),
+ * so everything about one URL runs in a single-shard transaction; listings
+ * run on every shard and are merged by the caller.
+ *
+ * Without {@code sharding.urls} there is one shard and every method runs the
+ * work as it is, on the current thread and transaction.
+ */
+@Component
+public class Shards {
+
+    private final ShortCodeShards ring;
+    private final ShardRoutingDataSource router;
+    private final TransactionTemplate readOnly;
+    private final TransactionTemplate readWrite;
+
+    @Autowired
+    public Shards(DataSource dataSource, PlatformTransactionManager transactionManager,
+            @Value("${sharding.urls:}") String shardUrls,
+            @Value("${sharding.active-shards:0}") int activeShards) {
+        if (shardUrls.isBlank()) {
+            this.ring = null;
+            this.router = null;
+            this.readOnly = null;
+            this.readWrite = null;
+            return;
+        }
+
+        try {
+            this.router = dataSource.unwrap(ShardRoutingDataSource.class);
+        } catch (SQLException ex) {
+            throw new IllegalStateException("sharding.urls is set but the data source is not sharded", ex);
+        }
+        // Shards past active-shards are configured but own no codes yet, see ShardMigrator
+        final int active = activeShards > 0 ? activeShards : router.count();
+        if (active > router.count()) {
+            throw new IllegalArgumentException(
+                    "sharding.active-shards is " + active + " but only " + router.count() + " shards are configured");
+        }
+        this.ring = new ShortCodeShards(active);
+
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnly.setReadOnly(true);
+        this.readWrite = new TransactionTemplate(transactionManager);
+        this.readWrite.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    private Shards() {
+        this.ring = null;
+        this.router = null;
+        this.readOnly = null;
+        this.readWrite = null;
+    }
+
+    /**
+     * A single, unsharded database.
+     */
+    public static Shards single() {
+        return new Shards();
+    }
+
+    public boolean enabled() {
+        return ring != null;
+    }
+
+    /**
+     * Shards that own codes.
+     */
+    public int count() {
+        return ring == null ? 1 : ring.shards();
+    }
+
+    /**
+     * Shards with a pool, including those not yet given any codes.
+     */
+    public int configured() {
+        return router == null ? 1 : router.count();
+    }
+
+    public ShortCodeShards ring() {
+        return ring == null ? new ShortCodeShards(1) : ring;
+    }
+
+    public DataSource dataSource(int shard) {
+        return router.shard(shard);
+    }
+
+    public int shardOf(String shortCode) {
+        return ring == null ? 0 : ring.shardOf(shortCode);
+    }
+
+    /**
+     * Sends the rest of the current transaction to the shard of
+     * {@code shortCode}. Must be called before the transaction's first
+     * statement: its connection is bound to a shard from then on.
+     */
+    public void route(String shortCode) {
+        if (ring == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Routing to a shard needs an active transaction");
+        }
+        ShardContext.set(ring.shardOf(shortCode));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                ShardContext.clear();
+            }
+        });
+    }
+
+    /**
+     * Runs work that opens its own transactions (repository calls made outside
+     * of one) on the shard of {@code shortCode}.
+     */
+    public <T> T onShardOf(String shortCode, Supplier<T> work) {
+        if (ring == null) {
+            return work.get();
+        }
+        return ShardContext.call(ring.shardOf(shortCode), work);
+    }
+
+    /**
+     * Runs work that opens its own transactions on {@code shard}, one of the
+     * {@link #count()} shards that own codes.
+     */
+    public <T> T onShard(int shard, Supplier<T> work) {
+        if (ring == null) {
+            return work.get();
+        }
+        return ShardContext.call(shard, work);
+    }
+
+    /**
+     * Runs {@code work} in a new transaction on the home shard, which holds the
+     * tables that are not sharded.
+     */
+    public <T> T inHomeShardTransaction(Supplier<T> work) {
+        if (ring == null) {
+            return work.get();
+        }
+        return ShardContext.call(0, () -> readWrite.execute(status -> work.get()));
+    }
+
+    /**
+     * Runs {@code work} in a read-only transaction on every shard at once.
+     *
+     * @return the results in shard order
+     */
+    public <T> List<T> readEveryShard(Supplier<T> work) {
+        if (ring == null) {
+            return List.of(work.get());
+        }
+
+        final List<Future<T>> futures = new ArrayList<>(ring.shards());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int shard = 0; shard < ring.shards(); shard++) {
+                final int target = shard;
+                futures.add(executor.submit(() -> ShardContext.call(target,
+                        () -> readOnly.execute(status -> work.get()))));
+            }
+
+            final List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading the shards", ex);
+        }
+    }
+
+    /**
+     * Runs {@code work} in a read-only transaction on each shard in turn, on
+     * the calling thread, for work that feeds something not thread-safe.
+     */
+    public void readShardByShard(Runnable work) {
+        if (ring == null) {
+            work.run();
+            return;
+        }
+        for (int shard = 0; shard < ring.shards(); shard++) {
+            ShardContext.call(shard, () -> readOnly.execute(status -> {
+                work.run();
+                return null;
+            }));
+        }
+    }
+
+    /**
+     * True when {@code check} is true on any shard.
+     */
+    public boolean anyShard(Supplier<Boolean> check) {
+        return readEveryShard(check).contains(Boolean.TRUE);
+    }
+}
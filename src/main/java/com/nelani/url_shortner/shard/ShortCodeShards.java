@@ -0,0 +1,100 @@
+package com.nelani.url_shortner.shard;
+
+import com.nelani.url_shortner.hash.StableHash;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maps short codes to shards with no lookup table. The first two characters
+ * of a code are its logical shard, one of 62 * 62 buckets; generated codes
+ * are random, so buckets fill evenly. Buckets are placed on a consistent hash
+ * ring of the shards, each shard holding {@link #VIRTUAL_NODES} points, so
+ * adding a shard only moves about {@code 1 / shards} of the buckets, all of
+ * them to the new shard.
+ *
+ * Instances are immutable; resharding compares the ring of the current shard
+ * count with the ring of the target count, see {@link #movesTo}.
+ */
+public final class ShortCodeShards {
+
+    public static final int BUCKETS = 62 * 62;
+    static final int VIRTUAL_NODES = 128;
+
+    private static final String BASE62 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+    private final int shards;
+    private final int[] shardOfBucket = new int[BUCKETS];
+
+    public ShortCodeShards(int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = shards;
+
+        // Shard names are stable, so a shard keeps its points when others are added
+        final TreeMap<Long, Integer> ring = new TreeMap<>();
+        for (int shard = 0; shard < shards; shard++) {
+            for (int v = 0; v < VIRTUAL_NODES; v++) {
+                ring.put(StableHash.of("shard-" + shard + "#" + v), shard);
+            }
+        }
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            final Map.Entry<Long, Integer> owner = ring.ceilingEntry(StableHash.of("bucket-" + bucket));
+            shardOfBucket[bucket] = (owner != null ? owner : ring.firstEntry()).getValue();
+        }
+    }
+
+    public int shards() {
+        return shards;
+    }
+
+    public int shardOf(String shortCode) {
+        return shardOfBucket[bucketOf(shortCode)];
+    }
+
+    public int shardOfBucket(int bucket) {
+        return shardOfBucket[bucket];
+    }
+
+    /**
+     * The logical shard of a code: its first two characters read as base62.
+     * Codes chosen by hand may hold other characters, those are hashed.
+     */
+    public static int bucketOf(String shortCode) {
+        final int high = BASE62.indexOf(shortCode.charAt(0));
+        final int low = shortCode.length() > 1 ? BASE62.indexOf(shortCode.charAt(1)) : 0;
+        if (high < 0 || low < 0) {
+            return (int) Long.remainderUnsigned(StableHash.of(shortCode), BUCKETS);
+        }
+        return high * 62 + low;
+    }
+
+    public int bucketsOf(int shard) {
+        int count = 0;
+        for (int owner : shardOfBucket) {
+            if (owner == shard) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Buckets whose owner differs in {@code target}.
+     */
+    public List<Move> movesTo(ShortCodeShards target) {
+        final List<Move> moves = new ArrayList<>();
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            if (shardOfBucket[bucket] != target.shardOfBucket[bucket]) {
+                moves.add(new Move(bucket, shardOfBucket[bucket], target.shardOfBucket[bucket]));
+            }
+        }
+        return moves;
+    }
+
+    public record Move(int bucket, int from, int to) {
+    }
+}
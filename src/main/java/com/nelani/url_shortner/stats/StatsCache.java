@@ -0,0 +1,249 @@
+package com.nelani.url_shortner.stats;
+
+import com.nelani.url_shortner.dto.UrlAccessStats;
+import com.nelani.url_shortner.logging.LogSampler;
+import com.nelani.url_shortner.model.SortDirection;
+import com.nelani.url_shortner.model.StatsGroupBy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Caches stats pages by their query parameters. Time is cut into buckets of
+ * {@code stats.cache.fresh-ms}; a page is fresh while the bucket it was
+ * computed in lasts, so the pages a dashboard polls together go stale
+ * together.
+ *
+ * A stale page is still answered, up to {@code stats.cache.max-stale-ms} after
+ * it was computed, while one background thread recomputes it; a key is never
+ * recomputed twice at once. A miss, or a page too old to serve, is computed on
+ * the calling thread, and concurrent callers of the same key wait for that one
+ * computation. When {@code stats.cache.max-entries} is reached an arbitrary
+ * slice of pages is dropped.
+ */
+@Log4j2
+@Component
+public class StatsCache {
+
+    // Fails on every refresh while the database is unreachable
+    private static final LogSampler REFRESH_FAILURES = new LogSampler(Duration.ofSeconds(10));
+
+    public record Key(StatsGroupBy groupBy, int page, int size, SortDirection direction) {
+    }
+
+    // Page size of the key holding every group, never a real page size
+    private static final int ALL = 0;
+
+    private static final class Cached {
+        private final Page<UrlAccessStats> page;
+        private final long computedAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Cached(Page<UrlAccessStats> page, long computedAt) {
+            this.page = page;
+            this.computedAt = computedAt;
+        }
+    }
+
+    private final ConcurrentHashMap<Key, Cached> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Key, CompletableFuture<Cached>> loading = new ConcurrentHashMap<>();
+    private final TransactionOperations readOnly;
+    private final long freshMillis;
+    private final long maxStaleMillis;
+    private final int maxEntries;
+    private final LongSupplier clock;
+    private final ExecutorService refresher;
+
+    private final Counter hits;
+    private final Counter staleHits;
+    private final Counter misses;
+
+    @Autowired
+    public StatsCache(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+            @Value("${stats.cache.fresh-ms:5000}") long freshMs,
+            @Value("${stats.cache.max-stale-ms:60000}") long maxStaleMs,
+            @Value("${stats.cache.max-entries:1000}") int maxEntries) {
+        this(readOnly(transactionManager), meterRegistry, freshMs, maxStaleMs, maxEntries,
+                System::currentTimeMillis);
+    }
+
+    StatsCache(TransactionOperations readOnly, MeterRegistry meterRegistry, long freshMs, long maxStaleMs,
+            int maxEntries, LongSupplier clock) {
+        this.readOnly = readOnly;
+        this.freshMillis = Math.max(1, freshMs);
+        this.maxStaleMillis = maxStaleMs;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+        this.refresher = maxEntries > 0
+                ? Executors.newSingleThreadExecutor(Thread.ofPlatform().name("stats-cache-refresh").daemon().factory())
+                : null;
+
+        this.hits = requests(meterRegistry, "hit");
+        this.staleHits = requests(meterRegistry, "stale");
+        this.misses = requests(meterRegistry, "miss");
+        meterRegistry.gauge("stats.cache.size", entries, ConcurrentHashMap::size);
+    }
+
+    /**
+     * Computes every page on the calling thread, for tests and benchmarks.
+     */
+    public static StatsCache disabled() {
+        return new StatsCache(TransactionOperations.withoutTransaction(), new SimpleMeterRegistry(), 0, 0, 0,
+                System::currentTimeMillis);
+    }
+
+    /**
+     * @param loader computes the page, run in a read-only transaction
+     * @return the cached page of the key, computed by the loader if needed
+     */
+    public Page<UrlAccessStats> get(Key key, Supplier<Page<UrlAccessStats>> loader) {
+        if (maxEntries <= 0) {
+            return readOnly.execute(status -> loader.get());
+        }
+
+        final long now = clock.getAsLong();
+        final Cached cached = entries.get(key);
+        if (cached != null && cached.computedAt / freshMillis == now / freshMillis) {
+            hits.increment();
+            return cached.page;
+        }
+        if (cached != null && now - cached.computedAt < maxStaleMillis) {
+            staleHits.increment();
+            refresh(key, cached, loader);
+            return cached.page;
+        }
+
+        misses.increment();
+        return load(key, loader).page;
+    }
+
+    /**
+     * Like {@link #get} for the whole aggregation, cached once per grouping and
+     * direction, for callers that cut their pages from it.
+     *
+     * @param loader computes every group in order, run in a read-only transaction
+     */
+    public List<UrlAccessStats> getAll(StatsGroupBy groupBy, SortDirection direction,
+            Supplier<List<UrlAccessStats>> loader) {
+        return get(new Key(groupBy, 0, ALL, direction), () -> new PageImpl<>(loader.get())).getContent();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    private Cached load(Key key, Supplier<Page<UrlAccessStats>> loader) {
+        final CompletableFuture<Cached> mine = new CompletableFuture<>();
+        final CompletableFuture<Cached> running = loading.putIfAbsent(key, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException ex) {
+                throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+            }
+        }
+
+        try {
+            final Cached computed = compute(key, loader);
+            mine.complete(computed);
+            return computed;
+        } catch (RuntimeException ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            loading.remove(key, mine);
+        }
+    }
+
+    private void refresh(Key key, Cached cached, Supplier<Page<UrlAccessStats>> loader) {
+        if (!cached.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                try {
+                    compute(key, loader);
+                } catch (RuntimeException ex) {
+                    if (REFRESH_FAILURES.shouldLog()) {
+                        log.warn("Refreshing cached stats {} failed, serving the stale page : {} "
+                                + "({} similar failures not logged)", key, ex.getMessage(),
+                                REFRESH_FAILURES.takeSuppressed());
+                    }
+                } finally {
+                    cached.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // Shutting down
+            cached.refreshing.set(false);
+        }
+    }
+
+    private Cached compute(Key key, Supplier<Page<UrlAccessStats>> loader) {
+        // Stamped with the start, the page shows the clicks as they were then
+        final long start = clock.getAsLong();
+        final Cached computed = new Cached(readOnly.execute(status -> loader.get()), start);
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            trim();
+        }
+        entries.put(key, computed);
+        return computed;
+    }
+
+    private void trim() {
+        // Drop about 1% in one go so a full cache does not trim on every put
+        int toRemove = Math.max(1, maxEntries / 100);
+        Iterator<Key> keys = entries.keySet().iterator();
+        while (toRemove-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("stats.cache.requests")
+                .description("Stats page requests by how the cache answered them")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static TransactionTemplate readOnly(PlatformTransactionManager transactionManager) {
+        final TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+}
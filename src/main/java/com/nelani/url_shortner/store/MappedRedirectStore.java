@@ -0,0 +1,635 @@
+package com.nelani.url_shortner.store;
+
+import com.nelani.url_shortner.hash.StableHash;
+import com.nelani.url_shortner.model.RedirectType;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * Redirect store kept in two memory-mapped files on local disk, so lookups do
+ * not touch the Java heap beyond the returned entry and a restart reuses the
+ * files as they are.
+ *
+ * <ul>
+ * <li>{@code index.dat} is an open-addressing hash table with linear probing.
+ * Each 32-byte slot holds the key hash, the offset of the record in the heap
+ * file, the expiry (epoch milliseconds) and the access limit. URLs without a
+ * limit store {@code -1 - ordinal} of their redirect type there instead.</li>
+ * <li>{@code heap.dat} starts with a 64-byte header followed by append-only
+ * records: the URL id, the short code and the UTF-8 original URL. Updates
+ * append a new record, so old records are garbage until the next rebuild.</li>
+ * </ul>
+ *
+ * Writers are serialised by a {@link StampedLock}; readers use optimistic reads
+ * and only fall back to the read lock if a write happened meanwhile. A store
+ * that was not closed cleanly is treated as empty and reports
+ * {@link #needsRebuild()}.
+ */
+@Log4j2
+public class MappedRedirectStore implements RedirectStore {
+
+    static final String INDEX_FILE = "index.dat";
+    static final String HEAP_FILE = "heap.dat";
+
+    private static final int MAGIC = 0x52445354;
+    // 3: keys are hashed with StableHash, whose finalizer constant differed before
+    private static final int VERSION = 3;
+    private static final int CLEAN = 1;
+    private static final int DIRTY = 0;
+
+    // Heap header layout
+    private static final int HEADER_BYTES = 64;
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_CAPACITY = 8;
+    private static final int HEADER_SIZE = 16;
+    private static final int HEADER_TOMBSTONES = 24;
+    private static final int HEADER_HEAP_END = 32;
+    private static final int HEADER_STATE = 40;
+    private static final int HEADER_CHANGE_ID = 48;
+
+    // Index slot layout
+    private static final int SLOT_BYTES = 32;
+    private static final int SLOT_HASH = 0;
+    private static final int SLOT_OFFSET = 8;
+    private static final int SLOT_EXPIRES = 16;
+    private static final int SLOT_LIMIT = 24;
+    private static final int SEGMENT_SHIFT = 25;
+    private static final long SLOTS_PER_SEGMENT = 1L << SEGMENT_SHIFT;
+    private static final long SEGMENT_MASK = SLOTS_PER_SEGMENT - 1;
+    private static final long EMPTY = 0L;
+    private static final long TOMBSTONE = -1L;
+    private static final RedirectType[] REDIRECT_TYPES = RedirectType.values();
+    private static final double MAX_LOAD = 0.75;
+    private static final long MIN_CAPACITY = 1024;
+
+    // Heap record layout, records never straddle two chunks
+    private static final long HEAP_CHUNK_BYTES = 1L << 26;
+    private static final int RECORD_ID_MSB = 0;
+    private static final int RECORD_ID_LSB = 8;
+    private static final int RECORD_KEY_LENGTH = 16;
+    private static final int RECORD_KEY = 18;
+
+    private final Path directory;
+    private final long initialCapacity;
+    private final StampedLock lock = new StampedLock();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private FileChannel heapChannel;
+    private volatile Index index;
+    private volatile MappedByteBuffer[] heapChunks;
+    private volatile long size;
+    private long tombstones;
+    private long heapEnd;
+    private volatile boolean needsRebuild;
+    private volatile long appliedChangeId;
+    private Set<String> mutatedDuringRebuild;
+
+    private record Index(MappedByteBuffer[] segments, long capacity) {
+    }
+
+    public MappedRedirectStore(Path directory, long initialCapacity) throws IOException {
+        this.directory = directory;
+        this.initialCapacity = tableSizeFor(initialCapacity);
+        open();
+    }
+
+    @Override
+    public Optional<RedirectEntry> find(String shortCode) {
+        if (shortCode == null) {
+            return Optional.empty();
+        }
+        final long hash = StableHash.of(shortCode);
+
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                RedirectEntry entry = lookup(shortCode, hash);
+                if (lock.validate(stamp)) {
+                    return Optional.ofNullable(entry);
+                }
+            } catch (RuntimeException ex) {
+                // Raced with a writer and read a half-written slot, retry under the lock
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return Optional.ofNullable(lookup(shortCode, hash));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void put(RedirectEntry entry) {
+        if (entry.shortCode() == null || entry.originalUrl() == null) {
+            return;
+        }
+        final long hash = StableHash.of(entry.shortCode());
+        final byte[] url = entry.originalUrl().getBytes(StandardCharsets.UTF_8);
+
+        final long stamp = lock.writeLock();
+        try {
+            noteMutation(entry.shortCode());
+            ensureCapacity();
+
+            final long offset;
+            try {
+                offset = appendRecord(entry, url);
+            } catch (IllegalArgumentException ex) {
+                // Too large for the store, leave it to the database
+                log.debug("Not storing redirect {}: {}", entry.shortCode(), ex.getMessage());
+                evictLocked(entry.shortCode(), hash);
+                return;
+            }
+
+            final long located = locate(entry.shortCode(), hash);
+            final long slot = located >= 0 ? located : -located - 1;
+            final MappedByteBuffer segment = segmentOf(index, slot);
+            final int position = slotPosition(slot);
+
+            if (located < 0) {
+                if (segment.getLong(position + SLOT_OFFSET) == TOMBSTONE) {
+                    tombstones--;
+                }
+                size++;
+            }
+            segment.putLong(position + SLOT_HASH, hash);
+            segment.putLong(position + SLOT_EXPIRES, entry.expiresAtMillis());
+            segment.putLong(position + SLOT_LIMIT, encodeLimit(entry));
+            segment.putLong(position + SLOT_OFFSET, offset);
+            writeCounters();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to write redirect store at " + directory, ex);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void evict(String shortCode) {
+        if (shortCode == null) {
+            return;
+        }
+        final long hash = StableHash.of(shortCode);
+
+        final long stamp = lock.writeLock();
+        try {
+            noteMutation(shortCode);
+            evictLocked(shortCode, hash);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Loads a fresh copy of the store next to the current one and swaps the files
+     * in when done. Lookups keep being served from the current files meanwhile.
+     * Codes changed while the copy was loading are left out of it, so they are
+     * served from the database until the next rebuild instead of going stale.
+     */
+    @Override
+    public long rebuild(Consumer<Consumer<RedirectEntry>> source) {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new IllegalStateException("A rebuild of the redirect store is already running.");
+        }
+
+        final Path staging = directory.resolveSibling(directory.getFileName() + ".rebuild");
+        try {
+            deleteFiles(staging);
+
+            long stamp = lock.writeLock();
+            try {
+                mutatedDuringRebuild = ConcurrentHashMap.newKeySet();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+
+            MappedRedirectStore fresh = new MappedRedirectStore(staging,
+                    Math.max(initialCapacity, (long) (size / MAX_LOAD) + 1));
+            try {
+                source.accept(fresh::put);
+            } catch (RuntimeException ex) {
+                fresh.close();
+                throw ex;
+            }
+
+            stamp = lock.writeLock();
+            try {
+                for (String shortCode : mutatedDuringRebuild) {
+                    fresh.evict(shortCode);
+                }
+                final long loaded = fresh.size();
+                fresh.close();
+
+                closeFiles();
+                Files.move(staging.resolve(HEAP_FILE), directory.resolve(HEAP_FILE),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Files.move(staging.resolve(INDEX_FILE), directory.resolve(INDEX_FILE),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                open();
+
+                log.info("Rebuilt redirect store at {} with {} entries", directory, loaded);
+                return loaded;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to rebuild redirect store at " + directory, ex);
+        } finally {
+            mutatedDuringRebuild = null;
+            rebuilding.set(false);
+        }
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean needsRebuild() {
+        return needsRebuild;
+    }
+
+    @Override
+    public long appliedChangeId() {
+        return appliedChangeId;
+    }
+
+    @Override
+    public void markChangesApplied(long changeId) {
+        final long stamp = lock.writeLock();
+        try {
+            if (changeId > appliedChangeId) {
+                appliedChangeId = changeId;
+                writeCounters();
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return bytes used on disk by the index and the heap
+     */
+    public long diskBytes() {
+        return index.capacity() * SLOT_BYTES + heapEnd;
+    }
+
+    @Override
+    public void close() {
+        final long stamp = lock.writeLock();
+        try {
+            closeFiles();
+        } catch (IOException ex) {
+            log.warn("Failed to close redirect store at {}: {}", directory, ex.getMessage());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private RedirectEntry lookup(String shortCode, long hash) {
+        final Index current = index;
+        final MappedByteBuffer[] heap = heapChunks;
+        final long mask = current.capacity() - 1;
+
+        long slot = hash & mask;
+        for (long probes = 0; probes < current.capacity(); probes++, slot = (slot + 1) & mask) {
+            final MappedByteBuffer segment = segmentOf(current, slot);
+            final int position = slotPosition(slot);
+            final long offset = segment.getLong(position + SLOT_OFFSET);
+
+            if (offset == EMPTY) {
+                return null;
+            }
+            if (offset != TOMBSTONE && segment.getLong(position + SLOT_HASH) == hash
+                    && keyEquals(heap, offset, shortCode)) {
+                return readEntry(heap, offset, shortCode,
+                        segment.getLong(position + SLOT_EXPIRES), segment.getLong(position + SLOT_LIMIT));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the slot holding the key, or {@code -(slot + 1)} of the slot it
+     *         should be inserted into
+     */
+    private long locate(String shortCode, long hash) {
+        final MappedByteBuffer[] heap = heapChunks;
+        final long mask = index.capacity() - 1;
+        long firstTombstone = -1;
+
+        long slot = hash & mask;
+        for (long probes = 0; probes < index.capacity(); probes++, slot = (slot + 1) & mask) {
+            final MappedByteBuffer segment = segmentOf(index, slot);
+            final int position = slotPosition(slot);
+            final long offset = segment.getLong(position + SLOT_OFFSET);
+
+            if (offset == EMPTY) {
+                return -(firstTombstone >= 0 ? firstTombstone : slot) - 1;
+            }
+            if (offset == TOMBSTONE) {
+                if (firstTombstone < 0) {
+                    firstTombstone = slot;
+                }
+            } else if (segment.getLong(position + SLOT_HASH) == hash && keyEquals(heap, offset, shortCode)) {
+                return slot;
+            }
+        }
+        // ensureCapacity keeps empty slots around, so only a full tombstone table gets here
+        return -firstTombstone - 1;
+    }
+
+    private void evictLocked(String shortCode, long hash) {
+        final long slot = locate(shortCode, hash);
+        if (slot < 0) {
+            return;
+        }
+        segmentOf(index, slot).putLong(slotPosition(slot) + SLOT_OFFSET, TOMBSTONE);
+        size--;
+        tombstones++;
+        writeCounters();
+    }
+
+    private static boolean keyEquals(MappedByteBuffer[] heap, long offset, String shortCode) {
+        final MappedByteBuffer chunk = heap[(int) (offset / HEAP_CHUNK_BYTES)];
+        final int position = (int) (offset % HEAP_CHUNK_BYTES);
+
+        if (chunk.getShort(position + RECORD_KEY_LENGTH) != shortCode.length()) {
+            return false;
+        }
+        for (int i = 0; i < shortCode.length(); i++) {
+            if (chunk.getChar(position + RECORD_KEY + i * 2) != shortCode.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static RedirectEntry readEntry(MappedByteBuffer[] heap, long offset, String shortCode,
+            long expires, long accessLimit) {
+        final MappedByteBuffer chunk = heap[(int) (offset / HEAP_CHUNK_BYTES)];
+        final int position = (int) (offset % HEAP_CHUNK_BYTES);
+        final int urlPosition = position + RECORD_KEY + shortCode.length() * 2;
+        final int urlLength = chunk.getInt(urlPosition);
+
+        // Guards optimistic reads against allocating from a half-written record
+        if (urlLength < 0 || (long) urlPosition + 4 + urlLength > chunk.capacity()) {
+            throw new IllegalStateException("Corrupt redirect record at offset " + offset);
+        }
+        final byte[] url = new byte[urlLength];
+        chunk.get(urlPosition + 4, url);
+
+        return new RedirectEntry(
+                new UUID(chunk.getLong(position + RECORD_ID_MSB), chunk.getLong(position + RECORD_ID_LSB)),
+                shortCode,
+                new String(url, StandardCharsets.UTF_8),
+                expires,
+                accessLimit < 0 ? null : accessLimit,
+                accessLimit < 0 ? REDIRECT_TYPES[(int) (-1 - accessLimit)] : RedirectType.FOUND);
+    }
+
+    // Only URLs without an access limit may be cached, so the limit slot doubles as the redirect type
+    private static long encodeLimit(RedirectEntry entry) {
+        return entry.accessLimit() != null ? entry.accessLimit() : -1L - entry.redirectType().ordinal();
+    }
+
+    private long appendRecord(RedirectEntry entry, byte[] url) throws IOException {
+        final String shortCode = entry.shortCode();
+        if (shortCode.length() > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("short code is too long");
+        }
+        final long length = RECORD_KEY + shortCode.length() * 2L + 4 + url.length;
+        if (length > HEAP_CHUNK_BYTES) {
+            throw new IllegalArgumentException("original URL is too long");
+        }
+
+        long offset = heapEnd;
+        final long remaining = HEAP_CHUNK_BYTES - offset % HEAP_CHUNK_BYTES;
+        if (length > remaining) {
+            offset += remaining;
+        }
+        final int chunkIndex = (int) (offset / HEAP_CHUNK_BYTES);
+        if (chunkIndex >= heapChunks.length) {
+            MappedByteBuffer[] grown = Arrays.copyOf(heapChunks, chunkIndex + 1);
+            for (int i = heapChunks.length; i <= chunkIndex; i++) {
+                grown[i] = mapHeapChunk(i);
+            }
+            heapChunks = grown;
+        }
+
+        final MappedByteBuffer chunk = heapChunks[chunkIndex];
+        final int position = (int) (offset % HEAP_CHUNK_BYTES);
+        final UUID id = entry.id() == null ? new UUID(0L, 0L) : entry.id();
+
+        chunk.putLong(position + RECORD_ID_MSB, id.getMostSignificantBits());
+        chunk.putLong(position + RECORD_ID_LSB, id.getLeastSignificantBits());
+        chunk.putShort(position + RECORD_KEY_LENGTH, (short) shortCode.length());
+        for (int i = 0; i < shortCode.length(); i++) {
+            chunk.putChar(position + RECORD_KEY + i * 2, shortCode.charAt(i));
+        }
+        final int urlPosition = position + RECORD_KEY + shortCode.length() * 2;
+        chunk.putInt(urlPosition, url.length);
+        chunk.put(urlPosition + 4, url);
+
+        heapEnd = offset + length;
+        return offset;
+    }
+
+    private void ensureCapacity() throws IOException {
+        final long capacity = index.capacity();
+        if (size + tombstones + 1 <= capacity * MAX_LOAD) {
+            return;
+        }
+        // Mostly tombstones: rehash at the same size instead of growing
+        resize(size + 1 > capacity * MAX_LOAD / 2 ? capacity * 2 : capacity);
+    }
+
+    private void resize(long newCapacity) throws IOException {
+        final Path indexFile = directory.resolve(INDEX_FILE);
+        final Path resized = directory.resolve(INDEX_FILE + ".resize");
+        Files.deleteIfExists(resized);
+
+        final Index target = mapIndex(resized, newCapacity);
+        final long mask = newCapacity - 1;
+
+        for (long slot = 0; slot < index.capacity(); slot++) {
+            final MappedByteBuffer source = segmentOf(index, slot);
+            final int position = slotPosition(slot);
+            final long offset = source.getLong(position + SLOT_OFFSET);
+            if (offset == EMPTY || offset == TOMBSTONE) {
+                continue;
+            }
+
+            final long hash = source.getLong(position + SLOT_HASH);
+            long targetSlot = hash & mask;
+            while (segmentOf(target, targetSlot).getLong(slotPosition(targetSlot) + SLOT_OFFSET) != EMPTY) {
+                targetSlot = (targetSlot + 1) & mask;
+            }
+
+            final MappedByteBuffer destination = segmentOf(target, targetSlot);
+            final int targetPosition = slotPosition(targetSlot);
+            destination.putLong(targetPosition + SLOT_HASH, hash);
+            destination.putLong(targetPosition + SLOT_OFFSET, offset);
+            destination.putLong(targetPosition + SLOT_EXPIRES, source.getLong(position + SLOT_EXPIRES));
+            destination.putLong(targetPosition + SLOT_LIMIT, source.getLong(position + SLOT_LIMIT));
+        }
+
+        Files.move(resized, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        index = target;
+        tombstones = 0;
+        writeCounters();
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+        final Path indexFile = directory.resolve(INDEX_FILE);
+        final Path heapFile = directory.resolve(HEAP_FILE);
+
+        heapChannel = FileChannel.open(heapFile,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        heapChannel.read(header, 0);
+        final boolean reusable = Files.exists(indexFile)
+                && header.getInt(HEADER_MAGIC) == MAGIC
+                && header.getInt(HEADER_VERSION) == VERSION
+                && header.getInt(HEADER_STATE) == CLEAN;
+
+        if (reusable) {
+            final long capacity = header.getLong(HEADER_CAPACITY);
+            size = header.getLong(HEADER_SIZE);
+            tombstones = header.getLong(HEADER_TOMBSTONES);
+            heapEnd = header.getLong(HEADER_HEAP_END);
+            appliedChangeId = header.getLong(HEADER_CHANGE_ID);
+            index = mapIndex(indexFile, capacity);
+            needsRebuild = false;
+        } else {
+            if (header.getInt(HEADER_MAGIC) == MAGIC && header.getInt(HEADER_VERSION) != VERSION) {
+                log.warn("Redirect store at {} has format version {} and will be rebuilt",
+                        directory, header.getInt(HEADER_VERSION));
+            } else if (header.getInt(HEADER_MAGIC) == MAGIC) {
+                log.warn("Redirect store at {} was not closed cleanly and will be rebuilt", directory);
+            }
+            heapChannel.truncate(0);
+            Files.deleteIfExists(indexFile);
+            size = 0;
+            tombstones = 0;
+            heapEnd = HEADER_BYTES;
+            appliedChangeId = 0;
+            index = mapIndex(indexFile, initialCapacity);
+            needsRebuild = true;
+        }
+
+        final int chunks = (int) (heapEnd / HEAP_CHUNK_BYTES) + 1;
+        final MappedByteBuffer[] mapped = new MappedByteBuffer[chunks];
+        for (int i = 0; i < chunks; i++) {
+            mapped[i] = mapHeapChunk(i);
+        }
+        heapChunks = mapped;
+
+        // Marked dirty until closed, a crash in between forces a rebuild
+        final MappedByteBuffer first = heapChunks[0];
+        first.putInt(HEADER_MAGIC, MAGIC);
+        first.putInt(HEADER_VERSION, VERSION);
+        writeCounters();
+        first.putInt(HEADER_STATE, DIRTY);
+        first.force(0, HEADER_BYTES);
+    }
+
+    private void closeFiles() throws IOException {
+        if (heapChannel == null || !heapChannel.isOpen()) {
+            return;
+        }
+        for (MappedByteBuffer segment : index.segments()) {
+            segment.force();
+        }
+        for (MappedByteBuffer chunk : heapChunks) {
+            chunk.force();
+        }
+        writeCounters();
+        heapChunks[0].putInt(HEADER_STATE, CLEAN);
+        heapChunks[0].force(0, HEADER_BYTES);
+        heapChannel.close();
+    }
+
+    private void writeCounters() {
+        final MappedByteBuffer first = heapChunks[0];
+        first.putLong(HEADER_CAPACITY, index.capacity());
+        first.putLong(HEADER_SIZE, size);
+        first.putLong(HEADER_TOMBSTONES, tombstones);
+        first.putLong(HEADER_HEAP_END, heapEnd);
+        first.putLong(HEADER_CHANGE_ID, appliedChangeId);
+    }
+
+    private void noteMutation(String shortCode) {
+        final Set<String> mutated = mutatedDuringRebuild;
+        if (mutated != null) {
+            mutated.add(shortCode);
+        }
+    }
+
+    private MappedByteBuffer mapHeapChunk(int chunk) throws IOException {
+        return heapChannel.map(FileChannel.MapMode.READ_WRITE, chunk * HEAP_CHUNK_BYTES, HEAP_CHUNK_BYTES);
+    }
+
+    private static Index mapIndex(Path file, long capacity) throws IOException {
+        final long slotsPerSegment = Math.min(capacity, SLOTS_PER_SEGMENT);
+        final MappedByteBuffer[] segments = new MappedByteBuffer[(int) (capacity / slotsPerSegment)];
+
+        // A mapping stays valid after its channel is closed
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                        i * slotsPerSegment * SLOT_BYTES, slotsPerSegment * SLOT_BYTES);
+            }
+        }
+        return new Index(segments, capacity);
+    }
+
+    private static MappedByteBuffer segmentOf(Index index, long slot) {
+        return index.segments()[(int) (slot >>> SEGMENT_SHIFT)];
+    }
+
+    private static int slotPosition(long slot) {
+        return (int) ((slot & SEGMENT_MASK) * SLOT_BYTES);
+    }
+
+    private static void deleteFiles(Path directory) throws IOException {
+        Files.deleteIfExists(directory.resolve(INDEX_FILE));
+        Files.deleteIfExists(directory.resolve(HEAP_FILE));
+        Files.deleteIfExists(directory.resolve(INDEX_FILE + ".resize"));
+    }
+
+    private static long tableSizeFor(long capacity) {
+        final long atLeast = Math.max(MIN_CAPACITY, capacity);
+        return Long.highestOneBit(atLeast - 1) << 1;
+    }
+}
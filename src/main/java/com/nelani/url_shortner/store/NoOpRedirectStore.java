@@ -0,0 +1,47 @@
+package com.nelani.url_shortner.store;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Default store, every lookup goes to the database.
+ */
+public class NoOpRedirectStore implements RedirectStore {
+
+    @Override
+    public Optional<RedirectEntry> find(String shortCode) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void put(RedirectEntry entry) {
+    }
+
+    @Override
+    public void evict(String shortCode) {
+    }
+
+    @Override
+    public long rebuild(Consumer<Consumer<RedirectEntry>> source) {
+        return 0;
+    }
+
+    @Override
+    public long size() {
+        return 0;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean needsRebuild() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+    }
+}
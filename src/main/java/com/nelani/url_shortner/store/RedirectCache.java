@@ -0,0 +1,187 @@
+package com.nelani.url_shortner.store;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Small on-heap cache of hot redirects in front of the redirect store and the
+ * database. Entries expire after a fixed time, which bounds how long a change
+ * made on another node can go unnoticed. When full, an arbitrary slice of
+ * entries is dropped; hot codes come straight back on their next hit.
+ *
+ * Both the time to live and the URL's own expiry are driven by a timing
+ * wheel, so lookups never read the clock. An entry whose URL expires while
+ * cached is turned into a "gone" marker, which answers until its time to live
+ * ends without going back to the database.
+ */
+@Component
+public class RedirectCache {
+
+    private final ConcurrentHashMap<String, Cached> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final long ttlMillis;
+    private final TimingWheel wheel;
+    private final LongSupplier clock;
+
+    // Compared by identity, so a timer never removes an entry that was put again since
+    private static final class Cached {
+        private final RedirectEntry entry;
+        private final boolean gone;
+        private TimingWheel.Timeout timeout;
+        private boolean dropped;
+
+        private Cached(RedirectEntry entry, boolean gone) {
+            this.entry = entry;
+            this.gone = gone;
+        }
+
+        // The timer may be handed over after the entry was already replaced or evicted
+        private synchronized void expireWith(TimingWheel.Timeout timeout) {
+            if (dropped) {
+                timeout.cancel();
+            } else {
+                this.timeout = timeout;
+            }
+        }
+
+        // Cancels the timer of an entry leaving the map, so it does not hold the entry until its deadline
+        private synchronized void drop() {
+            dropped = true;
+            if (timeout != null) {
+                timeout.cancel();
+                timeout = null;
+            }
+        }
+    }
+
+    @Autowired
+    public RedirectCache(@Value("${redirect.cache.max-size:100000}") int maxSize,
+            @Value("${redirect.cache.ttl-seconds:300}") long ttlSeconds,
+            @Value("${redirect.cache.expiry-tick-ms:10}") long tickMillis) {
+        this(maxSize, ttlSeconds, new TimingWheel(tickMillis, "redirect-cache-expiry"), System::currentTimeMillis);
+    }
+
+    RedirectCache(int maxSize, long ttlSeconds, TimingWheel wheel, LongSupplier clock) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlSeconds * 1000L;
+        this.wheel = wheel;
+        this.clock = clock;
+    }
+
+    /**
+     * @return the cached entry, empty when missing or when its URL has expired
+     */
+    public Optional<RedirectEntry> get(String shortCode) {
+        if (maxSize <= 0 || shortCode == null) {
+            return Optional.empty();
+        }
+
+        Cached cached = entries.get(shortCode);
+        if (cached == null || cached.gone) {
+            return Optional.empty();
+        }
+        return Optional.of(cached.entry);
+    }
+
+    /**
+     * @return true when the URL is known to have expired while it was cached
+     */
+    public boolean isExpired(String shortCode) {
+        if (maxSize <= 0 || shortCode == null) {
+            return false;
+        }
+
+        Cached cached = entries.get(shortCode);
+        return cached != null && cached.gone;
+    }
+
+    public void put(RedirectEntry entry) {
+        if (maxSize <= 0 || entry.shortCode() == null) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            trim();
+        }
+
+        // Puts only happen on misses, so reading the clock here keeps it off the hit path
+        final String shortCode = entry.shortCode();
+        final long now = clock.getAsLong();
+        final long evictAt = now + ttlMillis;
+        final Cached cached = new Cached(entry, entry.isExpiredAt(now));
+        final Cached previous = entries.put(shortCode, cached);
+        if (previous != null) {
+            previous.drop();
+        }
+
+        if (!cached.gone && entry.expiresAtMillis() < evictAt) {
+            cached.expireWith(wheel.schedule(entry.expiresAtMillis(), () -> expire(shortCode, cached, evictAt)));
+        } else {
+            cached.expireWith(wheel.schedule(evictAt, () -> entries.remove(shortCode, cached)));
+        }
+    }
+
+    public void evict(String shortCode) {
+        if (shortCode == null) {
+            return;
+        }
+        final Cached removed = entries.remove(shortCode);
+        if (removed != null) {
+            removed.drop();
+        }
+    }
+
+    public void clear() {
+        final Iterator<Cached> values = entries.values().iterator();
+        while (values.hasNext()) {
+            values.next().drop();
+            values.remove();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * @return the cached short codes, used to snapshot the hot set at shutdown
+     */
+    public Collection<String> shortCodes() {
+        return List.copyOf(entries.keySet());
+    }
+
+    @PreDestroy
+    public void close() {
+        wheel.close();
+    }
+
+    private void expire(String shortCode, Cached cached, long evictAt) {
+        // The timer of a replaced or evicted entry was cancelled, this only guards against the race with it
+        final Cached gone = new Cached(cached.entry, true);
+        if (entries.replace(shortCode, cached, gone)) {
+            gone.expireWith(wheel.schedule(evictAt, () -> entries.remove(shortCode, gone)));
+        }
+    }
+
+    private void trim() {
+        // Drop about 1% in one go so a full cache does not trim on every put
+        int toRemove = Math.max(1, maxSize / 100);
+        Iterator<Cached> values = entries.values().iterator();
+        while (toRemove-- > 0 && values.hasNext()) {
+            values.next().drop();
+            values.remove();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.nelani.url_shortner.store;
+
+import com.nelani.url_shortner.dto.UrlAccessStats;
+import com.nelani.url_shortner.repository.RequestDataRepository;
+import com.nelani.url_shortner.repository.ShortUrlRepository;
+import com.nelani.url_shortner.shard.Shards;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Preloads the redirect cache before the instance takes traffic. Application
+ * runners finish before Spring Boot marks the application ready, so the
+ * readiness probe stays down for the duration of the warm-up, which is capped
+ * by a time budget.
+ *
+ * The hot set comes from a snapshot of the cache written at the previous
+ * shutdown, or from the most accessed short codes of all shards when there
+ * is none.
+ */
+@Log4j2
+@Component
+public class RedirectCacheWarmer implements ApplicationRunner, HealthIndicator {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final RedirectCache redirectCache;
+    private final ShortUrlRepository shortUrlRepository;
+    private final RequestDataRepository requestDataRepository;
+    private final Shards shards;
+    private final boolean enabled;
+    private final int topN;
+    private final Duration timeBudget;
+    private final Path snapshotPath;
+
+    private volatile boolean finished;
+    private volatile int loaded;
+    private volatile String source = "none";
+    private volatile long elapsedMs;
+
+    public RedirectCacheWarmer(RedirectCache redirectCache, ShortUrlRepository shortUrlRepository,
+            RequestDataRepository requestDataRepository, Shards shards,
+            @Value("${redirect.cache.warmup.enabled:true}") boolean enabled,
+            @Value("${redirect.cache.warmup.top-n:10000}") int topN,
+            @Value("${redirect.cache.warmup.time-budget-ms:10000}") long timeBudgetMs,
+            @Value("${redirect.cache.snapshot-path:}") String snapshotPath) {
+        this.redirectCache = redirectCache;
+        this.shortUrlRepository = shortUrlRepository;
+        this.requestDataRepository = requestDataRepository;
+        this.shards = shards;
+        this.enabled = enabled;
+        this.topN = topN;
+        this.timeBudget = Duration.ofMillis(timeBudgetMs);
+        this.snapshotPath = snapshotPath == null || snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        warmUp();
+    }
+
+    /**
+     * @return number of redirects loaded into the cache
+     */
+    public int warmUp() {
+        if (!enabled || !redirectCache.isEnabled()) {
+            finished = true;
+            return 0;
+        }
+
+        final long start = System.nanoTime();
+        final long deadline = start + timeBudget.toNanos();
+        try {
+            List<String> shortCodes = readSnapshot();
+            source = "snapshot";
+            if (shortCodes.isEmpty()) {
+                shortCodes = mostAccessedShortCodes(deadline);
+                source = "most-accessed";
+            }
+
+            for (int from = 0; from < shortCodes.size(); from += BATCH_SIZE) {
+                if (System.nanoTime() - deadline >= 0) {
+                    log.warn("Redirect cache warm-up hit its {} ms budget after {} of {} codes",
+                            timeBudget.toMillis(), loaded, shortCodes.size());
+                    break;
+                }
+                final List<String> codes = shortCodes.subList(from, Math.min(from + BATCH_SIZE, shortCodes.size()));
+                List<RedirectEntry> batch = shards.readEveryShard(
+                        () -> shortUrlRepository.findRedirectEntriesByShortCodes(codes)).stream()
+                        .flatMap(Collection::stream)
+                        .toList();
+                batch.forEach(redirectCache::put);
+                loaded += batch.size();
+            }
+        } catch (RuntimeException ex) {
+            // A cold cache is slower, not broken, so never keep the instance out of service
+            log.warn("Redirect cache warm-up failed: {}", ex.getMessage());
+        } finally {
+            elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+            finished = true;
+        }
+
+        log.info("Redirect cache warmed with {} entries from {} in {} ms", loaded, source, elapsedMs);
+        return loaded;
+    }
+
+    @Override
+    public Health health() {
+        if (!finished) {
+            return Health.outOfService().withDetail("warmup", "in progress").build();
+        }
+        return Health.up()
+                .withDetail("warmup", "done")
+                .withDetail("source", source)
+                .withDetail("loaded", loaded)
+                .withDetail("elapsedMs", elapsedMs)
+                .withDetail("cacheSize", redirectCache.size())
+                .build();
+    }
+
+    /**
+     * Writes the cached short codes so the next start can warm the same hot set.
+     */
+    @PreDestroy
+    public void writeSnapshot() {
+        if (snapshotPath == null || !redirectCache.isEnabled()) {
+            return;
+        }
+
+        try {
+            Path parent = snapshotPath.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, "redirect-cache", ".tmp");
+            Files.write(temp, redirectCache.shortCodes());
+            Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Wrote redirect cache snapshot with {} codes to {}", redirectCache.size(), snapshotPath);
+        } catch (IOException ex) {
+            log.warn("Failed to write redirect cache snapshot to {}: {}", snapshotPath, ex.getMessage());
+        }
+    }
+
+    private List<String> readSnapshot() {
+        if (snapshotPath == null || !Files.isRegularFile(snapshotPath)) {
+            return List.of();
+        }
+
+        try (var lines = Files.lines(snapshotPath)) {
+            return lines.filter(line -> !line.isBlank()).limit(topN).toList();
+        } catch (IOException ex) {
+            log.warn("Ignoring unreadable redirect cache snapshot {}: {}", snapshotPath, ex.getMessage());
+            return List.of();
+        }
+    }
+
+    // The top codes of every shard, a code's clicks are all on its own shard. The aggregation scans every click,
+    // so the database cancels it once the budget runs out
+    private List<String> mostAccessedShortCodes(long deadline) {
+        final Duration remaining = Duration.ofNanos(deadline - System.nanoTime());
+        if (remaining.isNegative() || remaining.isZero()) {
+            return List.of();
+        }
+        return shards.readEveryShard(() -> requestDataRepository.findMostAccessedUrls(topN, remaining)).stream()
+                .flatMap(Collection::stream)
+                .sorted(Comparator.comparingLong(UrlAccessStats::getAccessCount).reversed())
+                .limit(topN)
+                .map(UrlAccessStats::getValue)
+                .toList();
+    }
+}
@@ -0,0 +1,58 @@
+package com.nelani.url_shortner.store;
+
+import com.nelani.url_shortner.model.RedirectType;
+import com.nelani.url_shortner.model.ShortUrl;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
+
+/**
+ * What a redirect needs to know about a short URL, without loading the entity.
+ * Expiry is kept as epoch milliseconds, {@link #NEVER_EXPIRES} for URLs
+ * without an expiry date.
+ */
+public record RedirectEntry(UUID id, String shortCode, String originalUrl, long expiresAtMillis,
+        Long accessLimit, RedirectType redirectType) {
+
+    public static final long NEVER_EXPIRES = Long.MAX_VALUE;
+
+    public RedirectEntry {
+        if (redirectType == null) {
+            redirectType = RedirectType.FOUND;
+        }
+    }
+
+    /**
+     * Takes the expiry as stored on {@link ShortUrl}, in the server's time zone.
+     * Also used by the JPQL projections in the short URL repository.
+     */
+    public RedirectEntry(UUID id, String shortCode, String originalUrl, LocalDateTime expiresAt,
+            Long accessLimit, RedirectType redirectType) {
+        this(id, shortCode, originalUrl, toEpochMillis(expiresAt), accessLimit, redirectType);
+    }
+
+    public RedirectEntry(UUID id, String shortCode, String originalUrl, LocalDateTime expiresAt,
+            Long accessLimit) {
+        this(id, shortCode, originalUrl, expiresAt, accessLimit, RedirectType.FOUND);
+    }
+
+    public static RedirectEntry of(ShortUrl shortUrl) {
+        return new RedirectEntry(shortUrl.getId(), shortUrl.getShortCode(), shortUrl.getOriginalUrl(),
+                shortUrl.getExpiresAt(), shortUrl.getAccessLimit(), shortUrl.getRedirectType());
+    }
+
+    public boolean expires() {
+        return expiresAtMillis != NEVER_EXPIRES;
+    }
+
+    public boolean isExpiredAt(long nowMillis) {
+        return expiresAtMillis <= nowMillis;
+    }
+
+    private static long toEpochMillis(LocalDateTime expiresAt) {
+        return expiresAt == null
+                ? NEVER_EXPIRES
+                : expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,46 @@
+package com.nelani.url_shortner.store;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Local lookup table for redirects, kept next to the database rather than in
+ * place of it. A miss only means the caller has to ask the database.
+ */
+public interface RedirectStore extends AutoCloseable {
+
+    Optional<RedirectEntry> find(String shortCode);
+
+    void put(RedirectEntry entry);
+
+    void evict(String shortCode);
+
+    /**
+     * Replaces the whole content with the entries the source emits.
+     *
+     * @return number of entries loaded
+     */
+    long rebuild(Consumer<Consumer<RedirectEntry>> source);
+
+    long size();
+
+    boolean isEnabled();
+
+    /**
+     * @return true if the store has no trustworthy content, e.g. after a crash
+     */
+    boolean needsRebuild();
+
+    /**
+     * @return id of the last change-log entry reflected in the store, 0 if unknown
+     */
+    default long appliedChangeId() {
+        return 0;
+    }
+
+    default void markChangesApplied(long changeId) {
+    }
+
+    @Override
+    void close();
+}
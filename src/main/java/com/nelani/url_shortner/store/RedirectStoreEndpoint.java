@@ -0,0 +1,41 @@
+package com.nelani.url_shortner.store;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code /actuator/redirectstore}: GET shows the store state, POST rebuilds it
+ * from the database.
+ */
+@Component
+@Endpoint(id = "redirectstore")
+public class RedirectStoreEndpoint {
+
+    private final RedirectStore redirectStore;
+    private final RedirectStoreLoader redirectStoreLoader;
+
+    public RedirectStoreEndpoint(RedirectStore redirectStore, RedirectStoreLoader redirectStoreLoader) {
+        this.redirectStore = redirectStore;
+        this.redirectStoreLoader = redirectStoreLoader;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        return Map.of(
+                "enabled", redirectStore.isEnabled(),
+                "size", redirectStore.size(),
+                "needsRebuild", redirectStore.needsRebuild());
+    }
+
+    @WriteOperation
+    public Map<String, Object> rebuild() {
+        if (!redirectStore.isEnabled()) {
+            return Map.of("enabled", false, "loaded", 0L);
+        }
+        return Map.of("enabled", true, "loaded", redirectStoreLoader.rebuild());
+    }
+}
@@ -0,0 +1,92 @@
+package com.nelani.url_shortner.store;
+
+import com.nelani.url_shortner.repository.ShortUrlRepository;
+import com.nelani.url_shortner.repository.UrlChangeRepository;
+import com.nelani.url_shortner.shard.Shards;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Fills the redirect store from {@code short_url} of every shard, on demand
+ * and on startup when the store has no usable content.
+ */
+@Log4j2
+@Component
+public class RedirectStoreLoader {
+
+    // Smallest possible UUID, used as the starting point of the keyset scan
+    private static final UUID KEYSET_START = new UUID(0L, 0L);
+
+    private final RedirectStore redirectStore;
+    private final ShortUrlRepository shortUrlRepository;
+    private final UrlChangeRepository urlChangeRepository;
+    private final Shards shards;
+    private final int batchSize;
+
+    public RedirectStoreLoader(RedirectStore redirectStore, ShortUrlRepository shortUrlRepository,
+            UrlChangeRepository urlChangeRepository, Shards shards,
+            @Value("${redirect.store.rebuild-batch-size:1000}") int batchSize) {
+        this.redirectStore = redirectStore;
+        this.shortUrlRepository = shortUrlRepository;
+        this.urlChangeRepository = urlChangeRepository;
+        this.shards = shards;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return number of entries loaded into the store
+     */
+    public long rebuild() {
+        // Every change logged before the scan starts is reflected by the scan
+        final long changeId = urlChangeRepository.findMaxId();
+
+        long loaded = redirectStore.rebuild(sink -> {
+            for (int shard = 0; shard < shards.count(); shard++) {
+                shards.onShard(shard, () -> {
+                    scan(sink);
+                    return null;
+                });
+            }
+        });
+        redirectStore.markChangesApplied(changeId);
+        return loaded;
+    }
+
+    private void scan(Consumer<RedirectEntry> sink) {
+        UUID afterId = KEYSET_START;
+        List<RedirectEntry> batch;
+        do {
+            batch = shortUrlRepository.findRedirectEntriesAfter(afterId, PageRequest.of(0, batchSize));
+            batch.forEach(sink);
+            if (!batch.isEmpty()) {
+                afterId = batch.getLast().id();
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfNeeded() {
+        if (redirectStore.isEnabled() && redirectStore.needsRebuild()) {
+            rebuildInBackground();
+        }
+    }
+
+    public void rebuildInBackground() {
+        // Redirects fall back to the database until the rebuild is done
+        Thread.ofPlatform().name("redirect-store-rebuild").daemon().start(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException ex) {
+                log.error("Failed to rebuild the redirect store: {}", ex.getMessage(), ex);
+            }
+        });
+    }
+}
@@ -0,0 +1,264 @@
+package com.nelani.url_shortner.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Hierarchical timing wheel: four levels of 64 slots, each level covering 64
+ * times the span of the one below. Scheduling is O(1) and lock-free for the
+ * caller (timers are queued and placed by the ticking thread); every tick only
+ * looks at one slot, plus the slot of the next level when a level wraps.
+ *
+ * Deadlines are rounded down to the tick, so a task runs at most one tick
+ * early and otherwise as soon as the ticking thread gets to it. Tasks run on
+ * the ticking thread and must be short. A cancelled timer drops its task at
+ * once and is unlinked from its slot on the next tick, so cancelled timers do
+ * not pile up until their deadline.
+ */
+public class TimingWheel implements AutoCloseable {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    private final LongSupplier clock;
+    private final Timer[][] wheels = new Timer[LEVELS][SLOTS];
+    private final ConcurrentLinkedQueue<Timer> pending = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Timer> cancelled = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService ticker;
+
+    private long currentTick;
+    private int scheduled;
+
+    /**
+     * Handle of a scheduled task.
+     */
+    public interface Timeout {
+
+        /**
+         * Keeps the task from running. Safe to call from any thread, more than once.
+         */
+        void cancel();
+    }
+
+    private final class Timer implements Timeout {
+        private final long deadlineTick;
+        private volatile Runnable task;
+        private volatile boolean isCancelled;
+        // Slot the timer is linked into, level -1 when it is in none; only touched by the ticking thread
+        private int level = -1;
+        private int slot;
+        private Timer prev;
+        private Timer next;
+
+        private Timer(long deadlineTick, Runnable task) {
+            this.deadlineTick = deadlineTick;
+            this.task = task;
+        }
+
+        @Override
+        public void cancel() {
+            if (isCancelled) {
+                return;
+            }
+            isCancelled = true;
+            task = null;
+            cancelled.add(this);
+        }
+    }
+
+    /**
+     * Creates a wheel driven by its own daemon thread ticking every
+     * {@code tickMillis}.
+     */
+    public TimingWheel(long tickMillis, String threadName) {
+        this(tickMillis, System::currentTimeMillis, threadName);
+    }
+
+    /**
+     * Creates a wheel that only moves when {@link #advanceTo(long)} is called.
+     */
+    TimingWheel(long tickMillis, LongSupplier clock) {
+        this(tickMillis, clock, null);
+    }
+
+    private TimingWheel(long tickMillis, LongSupplier clock, String threadName) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.clock = clock;
+        this.currentTick = clock.getAsLong() / tickMillis;
+
+        if (threadName == null) {
+            this.ticker = null;
+        } else {
+            this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.ticker.scheduleAtFixedRate(() -> advanceTo(clock.getAsLong()),
+                    tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Runs {@code task} once the clock reaches {@code deadlineMillis}. Safe to
+     * call from any thread.
+     */
+    public Timeout schedule(long deadlineMillis, Runnable task) {
+        final Timer timer = new Timer(Math.floorDiv(deadlineMillis, tickMillis), task);
+        pending.add(timer);
+        return timer;
+    }
+
+    /**
+     * Moves the wheel forward to {@code nowMillis}, running every task that
+     * became due on the way.
+     */
+    public synchronized void advanceTo(long nowMillis) {
+        final long targetTick = nowMillis / tickMillis;
+        final List<Timer> due = new ArrayList<>();
+
+        drainPending(due);
+        drainCancelled();
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade(currentTick, due);
+
+            Timer timer = detachSlot(0, (int) (currentTick & SLOT_MASK));
+            while (timer != null) {
+                final Timer next = timer.next;
+                timer.next = null;
+                due.add(timer);
+                timer = next;
+            }
+        }
+
+        scheduled -= due.size();
+        for (Timer timer : due) {
+            final Runnable task = timer.task;
+            if (task == null) {
+                continue;
+            }
+            try {
+                task.run();
+            } catch (RuntimeException ignored) {
+                // One failing task must not stop the wheel
+            }
+        }
+    }
+
+    /**
+     * @return timers waiting for their deadline, including those not placed yet
+     */
+    public synchronized int size() {
+        return scheduled + pending.size();
+    }
+
+    @Override
+    public void close() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    private void drainPending(List<Timer> due) {
+        Timer timer;
+        while ((timer = pending.poll()) != null) {
+            if (timer.isCancelled) {
+                continue;
+            }
+            scheduled++;
+            place(timer, due);
+        }
+    }
+
+    // Timers cancelled before they were placed were skipped by drainPending, those already run are in no slot
+    private void drainCancelled() {
+        Timer timer;
+        while ((timer = cancelled.poll()) != null) {
+            if (timer.level < 0) {
+                continue;
+            }
+            if (timer.prev == null) {
+                wheels[timer.level][timer.slot] = timer.next;
+            } else {
+                timer.prev.next = timer.next;
+            }
+            if (timer.next != null) {
+                timer.next.prev = timer.prev;
+            }
+            timer.prev = null;
+            timer.next = null;
+            timer.level = -1;
+            scheduled--;
+        }
+    }
+
+    // Unlinks a whole slot, the returned timers are still chained through next
+    private Timer detachSlot(int level, int slot) {
+        final Timer head = wheels[level][slot];
+        wheels[level][slot] = null;
+        for (Timer timer = head; timer != null; timer = timer.next) {
+            timer.level = -1;
+            timer.prev = null;
+        }
+        return head;
+    }
+
+    // When a level wraps, the matching slot of the level above is spread over the levels below
+    private void cascade(long tick, List<Timer> due) {
+        for (int level = 1; level < LEVELS; level++) {
+            if ((tick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                return;
+            }
+            Timer timer = detachSlot(level, (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK));
+            while (timer != null) {
+                final Timer next = timer.next;
+                timer.next = null;
+                place(timer, due);
+                timer = next;
+            }
+        }
+    }
+
+    private void place(Timer timer, List<Timer> due) {
+        final long delta = timer.deadlineTick - currentTick;
+        if (delta <= 0) {
+            due.add(timer);
+            return;
+        }
+
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < 1L << (SLOT_BITS * (level + 1))) {
+                insert(level, (int) ((timer.deadlineTick >>> (SLOT_BITS * level)) & SLOT_MASK), timer);
+                return;
+            }
+        }
+
+        // Beyond the top level: park in the last slot before it wraps and place again from there
+        final int top = LEVELS - 1;
+        insert(top, (int) (((currentTick >>> (SLOT_BITS * top)) - 1) & SLOT_MASK), timer);
+    }
+
+    private void insert(int level, int slot, Timer timer) {
+        final Timer head = wheels[level][slot];
+        timer.level = level;
+        timer.slot = slot;
+        timer.prev = null;
+        timer.next = head;
+        if (head != null) {
+            head.prev = timer;
+        }
+        wheels[level][slot] = timer;
+    }
+}
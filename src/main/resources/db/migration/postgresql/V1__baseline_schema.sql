@@ -0,0 +1,59 @@
+-- Schema as mapped by the entities, validated at startup by hibernate.ddl-auto=validate
+
+CREATE TABLE short_url (
+    id             UUID          NOT NULL,
+    short_code     VARCHAR(12)   NOT NULL,
+    original_url   VARCHAR(2048) NOT NULL,
+    created_at     TIMESTAMP(6)  NOT NULL,
+    updated_at     TIMESTAMP(6),
+    expires_at     TIMESTAMP(6),
+    access_limit   BIGINT,
+    redirect_type  VARCHAR(20),
+    CONSTRAINT pk_short_url PRIMARY KEY (id),
+    CONSTRAINT uk_short_url_short_code UNIQUE (short_code)
+);
+
+CREATE INDEX idx_shortcode ON short_url (short_code);
+-- Only ever compared for equality, and a 2048 character value can exceed the B-tree entry limit
+CREATE INDEX idx_originalurl ON short_url USING HASH (original_url);
+CREATE INDEX idx_expiresat ON short_url (expires_at);
+
+CREATE TABLE request_data (
+    id            UUID          NOT NULL,
+    short_url_id  UUID          NOT NULL,
+    device_hash   VARCHAR(64)   NOT NULL,
+    country       VARCHAR(100),
+    city          VARCHAR(100),
+    referrer      VARCHAR(2048),
+    user_agent    VARCHAR(512),
+    timestamp     TIMESTAMP(6)  NOT NULL,
+    CONSTRAINT pk_request_data PRIMARY KEY (id),
+    CONSTRAINT fk_request_data_short_url FOREIGN KEY (short_url_id) REFERENCES short_url (id)
+);
+
+CREATE INDEX idx_shorturl_id ON request_data (short_url_id);
+CREATE INDEX idx_device_hash ON request_data (device_hash);
+CREATE INDEX idx_shorturl_devicehash ON request_data (short_url_id, device_hash);
+CREATE INDEX idx_country ON request_data (country);
+CREATE INDEX idx_city ON request_data (city);
+CREATE INDEX idx_referrer ON request_data USING HASH (referrer);
+CREATE INDEX idx_user_agent ON request_data (user_agent);
+CREATE INDEX idx_timestamp ON request_data (timestamp);
+
+CREATE TABLE url_change_log (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    short_code   VARCHAR(12)  NOT NULL,
+    change_type  VARCHAR(10)  NOT NULL,
+    changed_at   TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_url_change_log PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_url_change_changedat ON url_change_log (changed_at);
+
+CREATE TABLE job_lease (
+    name          VARCHAR(100) NOT NULL,
+    owner         VARCHAR(200) NOT NULL,
+    leased_until  TIMESTAMP(6) NOT NULL,
+    heartbeat_at  TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_job_lease PRIMARY KEY (name)
+);
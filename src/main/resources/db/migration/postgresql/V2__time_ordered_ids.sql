@@ -0,0 +1,55 @@
+-- Rewrites the random (version 4) ids of existing short_url and request_data rows as
+-- UUIDv7 built from each row's creation time, so old rows sort the same way new ones do.
+--
+-- Ids are also kept outside the database: stop every node, let the click log load
+-- (analytics.click-log.path) until it is empty and delete the redirect store files
+-- (redirect.store.path) before this runs. The store is rebuilt from short_url on startup.
+-- The click archive (analytics.archive.path) must hold no .pending file: a pending file is
+-- settled by probing one of its click ids, which this rewrites. Published archive files keep
+-- the old short URL ids, stats resolve them through short_url_id_remap.
+
+-- Version 7 layout: 48-bit Unix milliseconds, version and variant bits set on a random UUID.
+-- The stored local time is read as UTC, off by at most the zone offset, which only matters for ordering.
+CREATE FUNCTION pg_temp.uuid_v7_at(created TIMESTAMP) RETURNS UUID AS $$
+    SELECT encode(
+        set_bit(set_bit(
+            overlay(uuid_send(gen_random_uuid())
+                    PLACING substring(int8send((extract(EPOCH FROM created) * 1000)::BIGINT) FROM 3)
+                    FROM 1 FOR 6),
+            52, 1), 53, 1),
+        'hex')::UUID
+$$ LANGUAGE sql VOLATILE;
+
+CREATE TABLE short_url_id_remap (
+    old_id  UUID NOT NULL,
+    new_id  UUID NOT NULL,
+    CONSTRAINT pk_short_url_id_remap PRIMARY KEY (old_id)
+);
+
+INSERT INTO short_url_id_remap (old_id, new_id)
+SELECT id, pg_temp.uuid_v7_at(created_at)
+FROM short_url;
+
+ALTER TABLE request_data DROP CONSTRAINT fk_request_data_short_url;
+
+UPDATE short_url su
+SET id = m.new_id
+FROM short_url_id_remap m
+WHERE su.id = m.old_id;
+
+UPDATE request_data rd
+SET short_url_id = m.new_id
+FROM short_url_id_remap m
+WHERE rd.short_url_id = m.old_id;
+
+UPDATE request_data
+SET id = pg_temp.uuid_v7_at(timestamp);
+
+ALTER TABLE request_data
+    ADD CONSTRAINT fk_request_data_short_url FOREIGN KEY (short_url_id) REFERENCES short_url (id);
+
+-- Every row was rewritten: rebuild the indexes in id order and write the rows in that order too
+CLUSTER short_url USING pk_short_url;
+CLUSTER request_data USING pk_request_data;
+ANALYZE short_url;
+ANALYZE request_data;
@@ -0,0 +1,12 @@
+-- Keyset pages of the URL listing seek on (sort key, id) and read the index in
+-- order, so a deep page costs the same as the first one. idx_expiresat is the
+-- leading column of idx_expiresat_id, which now serves the expiry purge.
+--
+-- CONCURRENTLY keeps URL writes running while indexes are built, so this
+-- migration runs outside a transaction and every statement can be re-run.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_createdat_id ON short_url (created_at, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_expiresat_id ON short_url (expires_at, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_accesslimit_id ON short_url (access_limit, id);
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_expiresat;
@@ -0,0 +1,96 @@
+package com.nelani.url_shortner.analytics;
+
+import com.nelani.url_shortner.dto.GeoInfo;
+import com.nelani.url_shortner.repository.RequestDataRepository;
+import com.nelani.url_shortner.service.GeoLookupService;
+import com.nelani.url_shortner.shard.Shards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+public class GeoBackfillTest {
+
+    @Mock
+    private GeoLookupService geoLookupService;
+
+    @Mock
+    private RequestDataRepository requestDataRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private GeoBackfill geoBackfill;
+
+    @BeforeEach
+    public void init() {
+        geoBackfill = new GeoBackfill(geoLookupService, requestDataRepository, Shards.single(), meterRegistry,
+                10, 100, 3_600_000);
+    }
+
+    @Test
+    public void GeoBackfillTest_Backfill_UpdatesStoredClicks() {
+        // Arrange
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        geoBackfill.register(first, "abc123", "203.0.113.1");
+        geoBackfill.register(second, "abc123", "203.0.113.1");
+
+        // Stub
+        when(geoLookupService.lookupAll(any()))
+                .thenReturn(Map.of("203.0.113.1", new GeoInfo("South Africa", "Johannesburg")));
+        when(requestDataRepository.updateGeo(any(), any(), any())).thenReturn(1);
+
+        // Act
+        geoBackfill.backfill();
+
+        // Assert
+        verify(geoLookupService, times(1)).lookupAll(any());
+        verify(requestDataRepository).updateGeo(first, "South Africa", "Johannesburg");
+        verify(requestDataRepository).updateGeo(second, "South Africa", "Johannesburg");
+        Assertions.assertThat(geoBackfill.pending()).isZero();
+        Assertions.assertThat(meterRegistry.get("analytics.geo.backfilled").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    public void GeoBackfillTest_Backfill_RetriesClicksNotResolvedOrNotLoadedYet() {
+        // Arrange
+        geoBackfill.register(UUID.randomUUID(), "abc123", "203.0.113.1");
+        geoBackfill.register(UUID.randomUUID(), "abc123", "203.0.113.2");
+
+        // Stub
+        when(geoLookupService.lookupAll(any()))
+                .thenReturn(Map.of("203.0.113.1", new GeoInfo("South Africa", "Johannesburg")));
+        when(requestDataRepository.updateGeo(any(), any(), any())).thenReturn(0);
+
+        // Act
+        geoBackfill.backfill();
+
+        // Assert
+        Assertions.assertThat(geoBackfill.pending()).isEqualTo(2);
+    }
+
+    @Test
+    public void GeoBackfillTest_Register_DropsClicksOverTheLimit() {
+        // Act
+        for (int i = 0; i < 15; i++) {
+            geoBackfill.register(UUID.randomUUID(), "abc123", "203.0.113.1");
+        }
+
+        // Assert
+        Assertions.assertThat(geoBackfill.pending()).isEqualTo(10);
+        Assertions.assertThat(meterRegistry.get("analytics.geo.backfill.abandoned").counter().count())
+                .isEqualTo(5.0);
+    }
+}
@@ -0,0 +1,118 @@
+package com.nelani.url_shortner.analytics;
+
+import com.nelani.url_shortner.dto.GeoInfo;
+import com.nelani.url_shortner.metrics.ShortenerMetrics;
+import com.nelani.url_shortner.model.RequestData;
+import com.nelani.url_shortner.service.GeoLookupService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+public class GeoEnricherTest {
+
+    @Mock
+    private GeoLookupService geoLookupService;
+
+    @Mock
+    private ClickWriter clickWriter;
+
+    @Mock
+    private GeoBackfill geoBackfill;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private GeoEnricher geoEnricher;
+
+    @BeforeEach
+    public void init() {
+        // Every click stored under a fresh id
+        lenient().when(clickWriter.write(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0))
+                .stream().map(click -> UUID.randomUUID()).toList());
+    }
+
+    @AfterEach
+    public void shutdown() throws InterruptedException {
+        geoEnricher.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void GeoEnricherTest_Submit_LooksUpEachIpOncePerBatch() {
+        // Arrange
+        geoEnricher = batching(1000);
+
+        // Stub
+        when(geoLookupService.lookupAll(any())).thenReturn(Map.of(
+                "203.0.113.1", new GeoInfo("South Africa", "Johannesburg"),
+                "203.0.113.2", new GeoInfo("South Africa", "Cape Town")));
+
+        // Act
+        geoEnricher.submit(click("203.0.113.1"));
+        geoEnricher.submit(click("203.0.113.2"));
+        geoEnricher.submit(click("203.0.113.1"));
+
+        // Assert
+        ArgumentCaptor<List<PendingClick>> written = ArgumentCaptor.captor();
+        verify(clickWriter, timeout(5000)).write(written.capture());
+        ArgumentCaptor<Collection<String>> ips = ArgumentCaptor.captor();
+        verify(geoLookupService, times(1)).lookupAll(ips.capture());
+
+        Assertions.assertThat(ips.getValue()).containsExactly("203.0.113.1", "203.0.113.2");
+        Assertions.assertThat(written.getValue()).hasSize(3);
+        Assertions.assertThat(written.getValue())
+                .extracting(click -> click.data().getCity())
+                .containsExactly("Johannesburg", "Cape Town", "Johannesburg");
+        verify(geoBackfill, never()).register(any(), anyString(), anyString());
+    }
+
+    @Test
+    public void GeoEnricherTest_Submit_StoresWithoutGeoAndBackfillsWhenTheLookupTimesOut() {
+        // Arrange
+        geoEnricher = batching(100);
+
+        // Stub
+        when(geoLookupService.lookupAll(any())).thenAnswer(invocation -> {
+            Thread.sleep(10_000);
+            return Map.of();
+        });
+
+        // Act
+        geoEnricher.submit(click("203.0.113.1"));
+
+        // Assert
+        ArgumentCaptor<List<PendingClick>> written = ArgumentCaptor.captor();
+        verify(clickWriter, timeout(5000)).write(written.capture());
+        Assertions.assertThat(written.getValue().getFirst().data().getCountry()).isNull();
+        verify(geoBackfill, timeout(5000)).register(any(UUID.class), eq("abc123"), eq("203.0.113.1"));
+        Assertions.assertThat(meterRegistry.get("analytics.geo.timeouts").counter().count()).isEqualTo(1.0);
+    }
+
+    private GeoEnricher batching(long timeoutMs) {
+        return new GeoEnricher(geoLookupService, clickWriter, geoBackfill, new ShortenerMetrics(meterRegistry),
+                meterRegistry, true, 100, 200, timeoutMs, 1000);
+    }
+
+    private static PendingClick click(String ip) {
+        return new PendingClick(RequestData.builder().deviceHash("device").build(), "abc123", ip);
+    }
+}
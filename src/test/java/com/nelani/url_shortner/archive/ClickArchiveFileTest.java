@@ -0,0 +1,63 @@
+package com.nelani.url_shortner.archive;
+
+import com.nelani.url_shortner.archive.ClickArchiveFile.Column;
+import com.nelani.url_shortner.clicklog.ClickRecord;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+public class ClickArchiveFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void ClickArchiveFileTest_WriteAndOpen_ReadsColumnsBack() throws Exception {
+        // Arrange
+        UUID url = UUID.randomUUID();
+        UUID otherUrl = UUID.randomUUID();
+        List<ClickRecord> clicks = List.of(
+                new ClickRecord(UUID.randomUUID(), url, 1_000L, "device1", "South Africa", "Durban", null, "agent"),
+                new ClickRecord(UUID.randomUUID(), otherUrl, 1_500L, "device2", null, null, "https://é.com", "agent"),
+                new ClickRecord(UUID.randomUUID(), url, 1_500L, "device1", "South Africa", "Cape Town", null, null));
+        Path path = directory.resolve("clicks.col");
+
+        // Act
+        ClickArchiveFile.write(path, clicks.getFirst().id(), clicks);
+        ClickArchiveFile file = ClickArchiveFile.open(path);
+
+        // Assert
+        Assertions.assertThat(file.rows()).isEqualTo(3);
+        Assertions.assertThat(file.probeId()).isEqualTo(clicks.getFirst().id());
+        Assertions.assertThat(file.firstTimestamp()).isEqualTo(1_000L);
+        Assertions.assertThat(file.lastTimestamp()).isEqualTo(1_500L);
+        Assertions.assertThat(file.timestamps()).containsExactly(1_000L, 1_500L, 1_500L);
+
+        Assertions.assertThat(file.shortUrlIds()).containsExactly(null, url, otherUrl);
+        Assertions.assertThat(file.column(Column.SHORT_URL)).containsExactly(1, 2, 1);
+        Assertions.assertThat(file.dictionary(Column.COUNTRY)).containsExactly(null, "South Africa");
+        Assertions.assertThat(file.column(Column.COUNTRY)).containsExactly(1, 0, 1);
+        Assertions.assertThat(file.dictionary(Column.CITY)).containsExactly(null, "Durban", "Cape Town");
+        Assertions.assertThat(file.column(Column.CITY)).containsExactly(1, 0, 2);
+        Assertions.assertThat(file.dictionary(Column.REFERRER)).containsExactly(null, "https://é.com");
+        Assertions.assertThat(file.column(Column.DEVICE)).containsExactly(1, 2, 1);
+        Assertions.assertThat(file.column(Column.USER_AGENT)).containsExactly(1, 1, 0);
+    }
+
+    @Test
+    public void ClickArchiveFileTest_Write_RejectsUnorderedClicks() {
+        // Arrange
+        List<ClickRecord> clicks = List.of(
+                new ClickRecord(UUID.randomUUID(), UUID.randomUUID(), 2_000L, "device", null, null, null, null),
+                new ClickRecord(UUID.randomUUID(), UUID.randomUUID(), 1_000L, "device", null, null, null, null));
+
+        // Act & Assert
+        Assertions.assertThatThrownBy(() -> ClickArchiveFile.write(directory.resolve("clicks.col"),
+                clicks.getFirst().id(), clicks))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,105 @@
+package com.nelani.url_shortner.archive;
+
+import com.nelani.url_shortner.clicklog.ClickRecord;
+import com.nelani.url_shortner.dto.UrlAccessStats;
+import com.nelani.url_shortner.model.StatsGroupBy;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class ClickArchiveTest {
+
+    @TempDir
+    Path directory;
+
+    private ClickArchive clickArchive;
+    private final UUID url = UUID.randomUUID();
+    private final UUID deletedUrl = UUID.randomUUID();
+
+    @BeforeEach
+    public void setUp() {
+        clickArchive = new ClickArchive(true, directory);
+    }
+
+    private ClickRecord click(UUID shortUrlId, long timestamp, String device, String country) {
+        return new ClickRecord(UUID.randomUUID(), shortUrlId, timestamp, device, country, null, null, null);
+    }
+
+    @Test
+    public void ClickArchiveTest_Scan_MergesWithLiveDataAndSkipsDeletedUrls() throws Exception {
+        // Arrange
+        clickArchive.publish(clickArchive.write(List.of(
+                click(url, 1_000L, "device1", "South Africa"),
+                click(url, 2_000L, "device2", "South Africa"),
+                click(deletedUrl, 3_000L, "device3", "South Africa"))));
+        clickArchive.publish(clickArchive.write(List.of(
+                click(url, 90_000_000L, "device1", "Kenya"))));
+
+        // Act
+        StatsAccumulator byCountry = new StatsAccumulator();
+        clickArchive.scan(StatsGroupBy.COUNTRY, Map.of(url, "abc123"), byCountry);
+        byCountry.add("South Africa", "device1", 2);
+
+        StatsAccumulator byUrl = new StatsAccumulator();
+        clickArchive.scan(StatsGroupBy.URL, Map.of(url, "abc123"), byUrl);
+
+        // Assert
+        Assertions.assertThat(clickArchive.files()).hasSize(2);
+        Assertions.assertThat(clickArchive.shortUrlIds()).containsExactlyInAnyOrder(url, deletedUrl);
+
+        Assertions.assertThat(byCountry.toStats())
+                .extracting(UrlAccessStats::getValue, UrlAccessStats::getAccessCount, UrlAccessStats::getDeviceCount)
+                .containsExactlyInAnyOrder(
+                        Assertions.tuple("South Africa", 4L, 2L),
+                        Assertions.tuple("Kenya", 1L, 1L));
+        Assertions.assertThat(byUrl.toStats())
+                .extracting(UrlAccessStats::getValue, UrlAccessStats::getAccessCount, UrlAccessStats::getDeviceCount)
+                .containsExactly(Assertions.tuple("abc123", 3L, 2L));
+    }
+
+    @Test
+    public void ClickArchiveTest_RecoverPending_KeepsOnlyCommittedFiles() throws Exception {
+        // Arrange
+        ClickRecord committed = click(url, 1_000L, "device1", null);
+        ClickRecord rolledBack = click(url, 2_000L, "device1", null);
+        clickArchive.write(List.of(committed));
+        clickArchive.write(List.of(rolledBack));
+
+        // Act
+        clickArchive.recoverPending(id -> id.equals(rolledBack.id()));
+
+        // Assert
+        Assertions.assertThat(clickArchive.files()).hasSize(1);
+        Assertions.assertThat(ClickArchiveFile.open(clickArchive.files().getFirst()).probeId())
+                .isEqualTo(committed.id());
+        Assertions.assertThat(directory.toFile().list()).containsExactlyInAnyOrder(
+                String.format("%020d-%s.col", 1_000L, committed.id()),
+                String.format("%020d-%s.sum", 1_000L, committed.id()));
+    }
+
+    @Test
+    public void ClickArchiveTest_Scan_SummarizesFilesWrittenWithoutSummary() throws Exception {
+        // Arrange
+        ClickRecord first = click(url, 1_000L, "device1", "South Africa");
+        clickArchive.publish(clickArchive.write(List.of(first, click(url, 2_000L, "device2", "South Africa"))));
+        Path summary = directory.resolve(String.format("%020d-%s.sum", 1_000L, first.id()));
+        Files.delete(summary);
+
+        // Act
+        StatsAccumulator byCountry = new StatsAccumulator();
+        clickArchive.scan(StatsGroupBy.COUNTRY, Map.of(url, "abc123"), byCountry);
+
+        // Assert
+        Assertions.assertThat(summary).exists();
+        Assertions.assertThat(byCountry.toStats())
+                .extracting(UrlAccessStats::getValue, UrlAccessStats::getAccessCount, UrlAccessStats::getDeviceCount)
+                .containsExactly(Assertions.tuple("South Africa", 2L, 2L));
+    }
+}
@@ -0,0 +1,61 @@
+package com.nelani.url_shortner.archive;
+
+import com.nelani.url_shortner.hash.StableHash;
+import org.assertj.core.api.Assertions;
+import org.assertj.core.data.Percentage;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+public class DeviceSketchTest {
+
+    private static DeviceSketch devices(int from, int to) {
+        DeviceSketch sketch = new DeviceSketch();
+        for (int device = from; device < to; device++) {
+            sketch.add(StableHash.of("device" + device));
+        }
+        return sketch;
+    }
+
+    @Test
+    public void DeviceSketchTest_Count_IsExactUpToTheLimit() {
+        // Arrange
+        DeviceSketch sketch = devices(0, DeviceSketch.EXACT_LIMIT);
+        sketch.addAll(devices(0, 10));
+
+        // Act & Assert
+        Assertions.assertThat(sketch.count()).isEqualTo(DeviceSketch.EXACT_LIMIT);
+    }
+
+    @Test
+    public void DeviceSketchTest_AddAll_EstimatesOverlappingDevicesOnce() {
+        // Arrange
+        DeviceSketch first = devices(0, 60_000);
+        DeviceSketch second = devices(40_000, 100_000);
+
+        // Act
+        first.addAll(second);
+        first.addAll(devices(99_900, 100_100));
+
+        // Assert
+        Assertions.assertThat(first.count()).isCloseTo(100_100L, Percentage.withPercentage(5));
+    }
+
+    @Test
+    public void DeviceSketchTest_Read_RestoresWhatWasWritten() throws Exception {
+        for (DeviceSketch sketch : new DeviceSketch[] { devices(0, 100), devices(0, 5_000) }) {
+            // Arrange
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            sketch.write(new DataOutputStream(bytes));
+
+            // Act
+            DeviceSketch read = DeviceSketch.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+            // Assert
+            Assertions.assertThat(read.count()).isEqualTo(sketch.count());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.nelani.url_shortner.clicklog;
+
+import com.nelani.url_shortner.repository.RequestDataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ActiveProfiles("test")
+@ExtendWith(MockitoExtension.class)
+public class ClickLogLoaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private RequestDataRepository requestDataRepository;
+
+    private MappedClickLog clickLog;
+    private SimpleMeterRegistry meterRegistry;
+    private ClickLogLoader clickLogLoader;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        clickLog = new MappedClickLog(directory, 3);
+        meterRegistry = new SimpleMeterRegistry();
+        clickLogLoader = new ClickLogLoader(clickLog, requestDataRepository, meterRegistry, 2, 0);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        clickLog.close();
+    }
+
+    private void appendClicks(int count) {
+        for (int i = 0; i < count; i++) {
+            clickLog.append(new ClickRecord(UUID.randomUUID(), UUID.randomUUID(), System.currentTimeMillis(),
+                    "deviceHash", null, null, null, null));
+        }
+    }
+
+    @Test
+    public void ClickLogLoaderTest_LoadPending_InsertsInBatchesAndDeletesSegments() {
+        // Arrange
+        appendClicks(4);
+
+        // Stub
+        when(requestDataRepository.insertClicks(anyList())).thenAnswer(invocation -> invocation
+                .getArgument(0, List.class).size());
+
+        // Act
+        clickLogLoader.loadPending();
+
+        // Assert
+        verify(requestDataRepository, times(3)).insertClicks(anyList());
+        Assertions.assertThat(clickLog.sealedSegments()).isEmpty();
+        Assertions.assertThat(meterRegistry.get("analytics.clicklog.loaded").counter().count()).isEqualTo(4);
+    }
+
+    @Test
+    public void ClickLogLoaderTest_LoadPending_KeepsSegmentsWhenInsertFails() {
+        // Arrange
+        appendClicks(4);
+
+        // Stub
+        when(requestDataRepository.insertClicks(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("Database is down"));
+
+        // Act
+        clickLogLoader.loadPending();
+
+        // Assert
+        verify(requestDataRepository, times(1)).insertClicks(anyList());
+        Assertions.assertThat(clickLog.sealedSegments()).hasSize(2);
+        Assertions.assertThat(meterRegistry.get("analytics.clicklog.pending.segments").gauge().value())
+                .isEqualTo(2);
+    }
+}
@@ -0,0 +1,115 @@
+package com.nelani.url_shortner.clicklog;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public class MappedClickLogTest {
+
+    @TempDir
+    Path directory;
+
+    private static ClickRecord click(String referrer) {
+        return new ClickRecord(UUID.randomUUID(), UUID.randomUUID(), 1_700_000_000_000L,
+                "a".repeat(64), "South Africa", "Johannesburg", referrer, "Mozilla/5.0");
+    }
+
+    private static List<ClickRecord> readAll(Path segment) throws Exception {
+        List<ClickRecord> records = new ArrayList<>();
+        MappedClickLog.read(segment, records::add);
+        return records;
+    }
+
+    @Test
+    public void MappedClickLogTest_Append_SealsFullSegmentsAndReadsBack() throws Exception {
+        // Arrange
+        ClickRecord first = click("https://google.com");
+        ClickRecord nulls = new ClickRecord(UUID.randomUUID(), UUID.randomUUID(), 0L, "hash", null, null, null, null);
+        ClickRecord third = click("https://example.com/é");
+
+        try (MappedClickLog clickLog = new MappedClickLog(directory, 2)) {
+            // Act
+            clickLog.append(first);
+            clickLog.append(nulls);
+            clickLog.append(third);
+
+            // Assert
+            List<Path> sealed = clickLog.sealedSegments();
+            Assertions.assertThat(sealed).hasSize(1);
+            Assertions.assertThat(readAll(sealed.get(0))).containsExactly(first, nulls);
+            Assertions.assertThat(clickLog.appended()).isEqualTo(3);
+        }
+
+        List<Path> sealed = MappedClickLog.segments(directory);
+        Assertions.assertThat(sealed).hasSize(2);
+        Assertions.assertThat(readAll(sealed.get(1))).containsExactly(third);
+        Assertions.assertThat(Files.size(sealed.get(1))).isEqualTo(ClickRecordFormat.RECORD_BYTES);
+    }
+
+    @Test
+    public void MappedClickLogTest_Append_TruncatesLongReferrer() throws Exception {
+        try (MappedClickLog clickLog = new MappedClickLog(directory, 4)) {
+            // Act
+            clickLog.append(click("https://example.com/" + "é".repeat(2000)));
+        }
+
+        // Assert
+        ClickRecord read = readAll(MappedClickLog.segments(directory).get(0)).get(0);
+        Assertions.assertThat(read.referrer()).startsWith("https://example.com/é");
+        Assertions.assertThat(read.referrer()).doesNotContain("�");
+        Assertions.assertThat(read.userAgent()).isEqualTo("Mozilla/5.0");
+    }
+
+    @Test
+    public void MappedClickLogTest_Constructor_RecoversUnsealedSegment() throws Exception {
+        // Arrange
+        ClickRecord record = click("https://google.com");
+        MappedClickLog crashed = new MappedClickLog(directory, 16);
+        crashed.append(record);
+
+        // Act
+        MappedClickLog restarted = new MappedClickLog(directory, 16);
+
+        // Assert
+        List<Path> sealed = restarted.sealedSegments();
+        Assertions.assertThat(sealed).hasSize(1);
+        Assertions.assertThat(Files.size(sealed.get(0))).isEqualTo(ClickRecordFormat.RECORD_BYTES);
+        Assertions.assertThat(readAll(sealed.get(0))).containsExactly(record);
+
+        restarted.append(record);
+        restarted.close();
+        Assertions.assertThat(restarted.sealedSegments()).hasSize(2);
+    }
+
+    @Test
+    public void MappedClickLogTest_Read_SkipsCorruptRecords() throws Exception {
+        // Arrange
+        ClickRecord first = click("https://first.com");
+        ClickRecord second = click("https://second.com");
+        try (MappedClickLog clickLog = new MappedClickLog(directory, 4)) {
+            clickLog.append(first);
+            clickLog.append(second);
+        }
+        Path segment = MappedClickLog.segments(directory).get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] { 'x' }), 200);
+        }
+
+        // Act
+        List<ClickRecord> records = new ArrayList<>();
+        long corrupt = MappedClickLog.read(segment, records::add);
+
+        // Assert
+        Assertions.assertThat(corrupt).isEqualTo(1);
+        Assertions.assertThat(records).containsExactly(second);
+    }
+}
@@ -0,0 +1,162 @@
+package com.nelani.url_shortner.config;
+
+import com.nelani.url_shortner.model.ShortUrl;
+import com.nelani.url_shortner.repository.ShortUrlRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and a read replica.
+ * Hibernate creates the schema on the primary, it is copied to the replica,
+ * and rows reach the replica only when a test replicates them.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReadReplicaRoutingTest.PRIMARY_URL,
+        "datasource.replicas.urls=" + ReadReplicaRoutingTest.REPLICA_URL
+})
+@ActiveProfiles("test")
+public class ReadReplicaRoutingTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private ShortUrlRepository shortUrlRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+    private String shortCode;
+
+    @BeforeEach
+    public void init() throws Exception {
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+        shortCode = UUID.randomUUID().toString().substring(0, 8);
+
+        // Same schema on the replica, no rows
+        try (Connection primary = DriverManager.getConnection(PRIMARY_URL, "sa", "");
+                Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+                Statement replicaStatement = replica.createStatement()) {
+            replicaStatement.execute("DROP ALL OBJECTS");
+            final List<String> ddl = new ArrayList<>();
+            try (Statement statement = primary.createStatement();
+                    ResultSet rs = statement.executeQuery("SCRIPT NODATA")) {
+                while (rs.next()) {
+                    ddl.add(rs.getString(1));
+                }
+            }
+            for (String sql : ddl) {
+                if (!sql.startsWith("--") && !sql.startsWith("CREATE USER")) {
+                    replicaStatement.execute(sql);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void ReadReplicaRoutingTest_ReadOnlyTransaction_ReadsTheReplica() throws Exception {
+        // Arrange
+        saveOnPrimary();
+
+        // Act
+        boolean beforeReplication = readOnly.execute(status -> shortUrlRepository.existsByShortCode(shortCode));
+        replicate();
+        boolean afterReplication = readOnly.execute(status -> shortUrlRepository.existsByShortCode(shortCode));
+
+        // Assert
+        Assertions.assertThat(beforeReplication).isFalse();
+        Assertions.assertThat(afterReplication).isTrue();
+    }
+
+    @Test
+    public void ReadReplicaRoutingTest_ReadWriteTransaction_ReadsThePrimary() {
+        // Arrange
+        saveOnPrimary();
+
+        // Act
+        boolean found = readWrite.execute(status -> shortUrlRepository.existsByShortCode(shortCode));
+
+        // Assert
+        Assertions.assertThat(found).isTrue();
+    }
+
+    @Test
+    public void ReadReplicaRoutingTest_FindForRedirect_FallsBackToThePrimaryBeforeReplication() throws Exception {
+        // Arrange
+        ShortUrl saved = saveOnPrimary();
+
+        // Act
+        var beforeReplication = shortUrlRepository.findForRedirect(shortCode);
+        replicate();
+        var afterReplication = shortUrlRepository.findForRedirect(shortCode);
+
+        // Assert
+        Assertions.assertThat(beforeReplication)
+                .hasValueSatisfying(url -> Assertions.assertThat(url.getId()).isEqualTo(saved.getId()));
+        Assertions.assertThat(afterReplication)
+                .hasValueSatisfying(url -> Assertions.assertThat(url.getId()).isEqualTo(saved.getId()));
+        Assertions.assertThat(shortUrlRepository.findForRedirect("missing")).isEmpty();
+    }
+
+    @Test
+    public void ReadReplicaRoutingTest_Metrics_ExportReplicaRouting() {
+        // Act
+        readOnly.execute(status -> shortUrlRepository.findByShortCode(shortCode));
+
+        // Assert
+        Assertions.assertThat(meterRegistry.get("datasource.replicas.up").gauge().value()).isEqualTo(1.0);
+        Assertions.assertThat(meterRegistry.get("datasource.replicas.primary.fallbacks").functionCounter().count())
+                .isZero();
+    }
+
+    private ShortUrl saveOnPrimary() {
+        return readWrite.execute(status -> shortUrlRepository.save(ShortUrl.builder()
+                .shortCode(shortCode)
+                .originalUrl("https://example.com/" + shortCode)
+                .build()));
+    }
+
+    // Copies the row, as replication would
+    private void replicate() throws Exception {
+        try (Connection primary = DriverManager.getConnection(PRIMARY_URL, "sa", "");
+                Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+                PreparedStatement select = primary.prepareStatement("SELECT * FROM short_url WHERE short_code = ?")) {
+            select.setString(1, shortCode);
+            try (ResultSet rs = select.executeQuery()) {
+                rs.next();
+                final int columns = rs.getMetaData().getColumnCount();
+                final StringBuilder sql = new StringBuilder("INSERT INTO short_url VALUES (?");
+                sql.append(", ?".repeat(columns - 1)).append(')');
+                try (PreparedStatement insert = replica.prepareStatement(sql.toString())) {
+                    for (int i = 1; i <= columns; i++) {
+                        insert.setObject(i, rs.getObject(i));
+                    }
+                    insert.executeUpdate();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.nelani.url_shortner.config;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+public class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource replicaA;
+
+    @Mock
+    private DataSource replicaB;
+
+    @Mock
+    private DataSource primary;
+
+    private final Connection connectionA = mock(Connection.class);
+    private final Connection connectionB = mock(Connection.class);
+    private final Connection primaryConnection = mock(Connection.class);
+
+    private ReplicaRoutingDataSource router;
+
+    @BeforeEach
+    public void init() {
+        router = new ReplicaRoutingDataSource(List.of(replicaA, replicaB), primary, Duration.ofHours(1));
+    }
+
+    @Test
+    public void ReplicaRoutingDataSourceTest_GetConnection_TakesReplicasInTurn() throws Exception {
+        // Stub
+        when(replicaA.getConnection()).thenReturn(connectionA);
+        when(replicaB.getConnection()).thenReturn(connectionB);
+
+        // Act & Assert
+        Assertions.assertThat(router.getConnection()).isSameAs(connectionA);
+        Assertions.assertThat(router.getConnection()).isSameAs(connectionB);
+        Assertions.assertThat(router.getConnection()).isSameAs(connectionA);
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    public void ReplicaRoutingDataSourceTest_GetConnection_SkipsAFailedReplica() throws Exception {
+        // Stub
+        when(replicaA.getConnection()).thenThrow(new SQLTransientConnectionException("Connection refused"));
+        when(replicaB.getConnection()).thenReturn(connectionB);
+
+        // Act
+        Connection first = router.getConnection();
+        Connection second = router.getConnection();
+        Connection third = router.getConnection();
+
+        // Assert
+        Assertions.assertThat(List.of(first, second, third)).containsOnly(connectionB);
+        verify(replicaA, times(1)).getConnection();
+        Assertions.assertThat(router.replicasUp()).isEqualTo(1);
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    public void ReplicaRoutingDataSourceTest_GetConnection_FallsBackToPrimaryWhenNoReplicaIsUp() throws Exception {
+        // Stub
+        when(replicaA.getConnection()).thenThrow(new SQLTransientConnectionException("Connection refused"));
+        when(replicaB.getConnection()).thenThrow(new SQLTransientConnectionException("Connection refused"));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        // Act
+        Connection first = router.getConnection();
+        Connection second = router.getConnection();
+
+        // Assert
+        Assertions.assertThat(first).isSameAs(primaryConnection);
+        Assertions.assertThat(second).isSameAs(primaryConnection);
+        Assertions.assertThat(router.replicasUp()).isZero();
+        Assertions.assertThat(router.primaryFallbacks()).isEqualTo(2);
+        // Both are skipped until the retry interval has passed
+        verify(replicaA, times(1)).getConnection();
+        verify(replicaB, times(1)).getConnection();
+    }
+
+    @Test
+    public void ReplicaRoutingDataSourceTest_GetConnection_RetriesAReplicaAfterTheInterval() throws Exception {
+        // Arrange
+        router = new ReplicaRoutingDataSource(List.of(replicaA), primary, Duration.ofMillis(20));
+
+        // Stub
+        when(replicaA.getConnection())
+                .thenThrow(new SQLTransientConnectionException("Connection refused"))
+                .thenReturn(connectionA);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        // Act
+        Connection duringOutage = router.getConnection();
+        Thread.sleep(40);
+        Connection afterRecovery = router.getConnection();
+
+        // Assert
+        Assertions.assertThat(duringOutage).isSameAs(primaryConnection);
+        Assertions.assertThat(afterRecovery).isSameAs(connectionA);
+        Assertions.assertThat(router.replicasUp()).isEqualTo(1);
+    }
+}
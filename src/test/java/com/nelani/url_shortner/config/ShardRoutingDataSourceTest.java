@@ -0,0 +1,58 @@
+package com.nelani.url_shortner.config;
+
+import com.nelani.url_shortner.shard.ShardContext;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+public class ShardRoutingDataSourceTest {
+
+    @Mock
+    private DataSource home;
+
+    @Mock
+    private DataSource other;
+
+    @Test
+    public void ShardRoutingDataSourceTest_GetConnection_LimitsEachShardOnItsOwn() throws Exception {
+        // Arrange
+        ShardRoutingDataSource router = new ShardRoutingDataSource(List.of(home, other),
+                pool -> new ConnectionLimitingDataSource(pool, 1, 0));
+
+        // Stub
+        when(home.getConnection()).thenReturn(mock(Connection.class));
+        when(other.getConnection()).thenReturn(mock(Connection.class));
+
+        // Act
+        Connection held = router.getConnection();
+        Connection onOtherShard = ShardContext.call(1, () -> connection(router));
+
+        // Assert
+        Assertions.assertThat(onOtherShard).isNotNull();
+        Assertions.assertThatThrownBy(router::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+        held.close();
+        Assertions.assertThat(router.getConnection()).isNotNull();
+        verify(home, times(2)).getConnection();
+    }
+
+    private static Connection connection(DataSource dataSource) {
+        try {
+            return dataSource.getConnection();
+        } catch (SQLException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.nelani.url_shortner.controller;
 
+import com.nelani.url_shortner.model.RedirectType;
 import com.nelani.url_shortner.service.RedirectionService;
+import com.nelani.url_shortner.store.RedirectEntry;
 import jakarta.servlet.http.HttpServletRequest;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,6 +15,9 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.matchesPattern;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
@@ -40,12 +45,52 @@ public class RedirectionControllerTest {
 
         // Stub
         when(redirectionService.redirect(anyString(), any(HttpServletRequest.class)))
-                .thenReturn(longUrl);
+                .thenReturn(new RedirectEntry(UUID.randomUUID(), shortCode, longUrl, null, null));
 
         // Act & Assert
         mockMvc.perform(get("/r/{shortCode}", shortCode)
                 .accept(MediaType.ALL))
                 .andExpect(status().isFound())
-                .andExpect(header().string("Location", longUrl));
+                .andExpect(header().string("Location", longUrl))
+                .andExpect(header().string("Cache-Control", "no-store"));
+    }
+
+    @Test
+    public void RedirectionController_Redirect_PermanentRedirectCachedUntilExpiry() throws Exception {
+        // Arrange
+        String shortCode = "abc12345";
+        String longUrl = "https://original-url.com/path";
+        long expiresAt = System.currentTimeMillis() + 3_600_000;
+
+        // Stub
+        when(redirectionService.redirect(anyString(), any(HttpServletRequest.class)))
+                .thenReturn(new RedirectEntry(UUID.randomUUID(), shortCode, longUrl, expiresAt, null,
+                        RedirectType.PERMANENT_REDIRECT));
+
+        // Act & Assert
+        mockMvc.perform(get("/r/{shortCode}", shortCode)
+                .accept(MediaType.ALL))
+                .andExpect(status().isPermanentRedirect())
+                .andExpect(header().string("Location", longUrl))
+                .andExpect(header().string("Cache-Control", matchesPattern("max-age=(3599|3600), public")))
+                .andExpect(header().exists("Expires"));
+    }
+
+    @Test
+    public void RedirectionController_Redirect_PermanentRedirectCappedWithoutExpiry() throws Exception {
+        // Arrange
+        String shortCode = "abc12345";
+        String longUrl = "https://original-url.com/path";
+
+        // Stub
+        when(redirectionService.redirect(anyString(), any(HttpServletRequest.class)))
+                .thenReturn(new RedirectEntry(UUID.randomUUID(), shortCode, longUrl, null, null,
+                        RedirectType.MOVED_PERMANENTLY));
+
+        // Act & Assert
+        mockMvc.perform(get("/r/{shortCode}", shortCode)
+                .accept(MediaType.ALL))
+                .andExpect(status().isMovedPermanently())
+                .andExpect(header().string("Cache-Control", "max-age=86400, public"));
     }
 }
@@ -2,9 +2,11 @@ package com.nelani.url_shortner.controller;
 
 import com.nelani.url_shortner.dto.UrlAccessStats;
 import com.nelani.url_shortner.dto.UrlAccessStatsDTO;
+import com.nelani.url_shortner.model.ExportFormat;
 import com.nelani.url_shortner.model.SortDirection;
 import com.nelani.url_shortner.model.StatsGroupBy;
 import com.nelani.url_shortner.service.RequestDataService;
+import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -14,18 +16,28 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = RequestDataController.class)
@@ -74,4 +86,64 @@ public class RequestDataControllerTest {
                                 .andExpect(jsonPath("$.content[1].accessCount").value(3))
                                 .andExpect(jsonPath("$.content[1].deviceCount").value(2));
         }
+
+        @Test
+        public void RequestDataController_Stats_AnswersNotModifiedForAMatchingETag() throws Exception {
+                // Arrange
+                Page<UrlAccessStats> page = new PageImpl<>(
+                                List.of(new UrlAccessStatsDTO("value1", 10L, 5L)),
+                                PageRequest.of(0, 10),
+                                1);
+
+                // Stub
+                when(requestDataService.getTopStats(
+                                any(StatsGroupBy.class),
+                                anyInt(),
+                                anyInt(),
+                                any(SortDirection.class))).thenReturn(page);
+
+                // Act
+                String etag = mockMvc.perform(get("/api/request-data/stats"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().exists(HttpHeaders.ETAG))
+                                .andReturn()
+                                .getResponse()
+                                .getHeader(HttpHeaders.ETAG);
+
+                // Assert
+                MvcResult result = mockMvc.perform(get("/api/request-data/stats")
+                                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                                .andExpect(status().isNotModified())
+                                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                                .andReturn();
+                Assertions.assertThat(result.getResponse().getContentLength()).isZero();
+        }
+
+        @Test
+        public void RequestDataController_Export_GzipsWhenAccepted() throws Exception {
+                // Stub
+                StreamingResponseBody body = out -> out.write("shortUrl\n".getBytes(StandardCharsets.UTF_8));
+                when(requestDataService.exportClicks(eq("abc123"), any(), any(), eq(ExportFormat.CSV)))
+                                .thenReturn(body);
+
+                // Act
+                MvcResult started = mockMvc.perform(get("/api/request-data/export")
+                                .param("shortCode", "abc123")
+                                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                                .andExpect(request().asyncStarted())
+                                .andReturn();
+                MvcResult result = mockMvc.perform(asyncDispatch(started))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                                                "attachment; filename=\"abc123-clicks.csv\""))
+                                .andReturn();
+
+                // Assert
+                try (GZIPInputStream gzip = new GZIPInputStream(
+                                new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+                        Assertions.assertThat(new String(gzip.readAllBytes(), StandardCharsets.UTF_8))
+                                        .isEqualTo("shortUrl\n");
+                }
+        }
 }
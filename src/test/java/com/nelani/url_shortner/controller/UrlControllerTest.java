@@ -5,6 +5,7 @@ import com.nelani.url_shortner.dto.CreateUrlDTO;
 import com.nelani.url_shortner.dto.UpdateUrlDTO;
 import com.nelani.url_shortner.model.ShortUrlSortField;
 import com.nelani.url_shortner.model.SortDirection;
+import com.nelani.url_shortner.response.CursorPage;
 import com.nelani.url_shortner.response.UrlResponse;
 import com.nelani.url_shortner.service.UrlService;
 import org.junit.jupiter.api.Test;
@@ -185,4 +186,34 @@ public class UrlControllerTest {
                                 .content("\"" + urlToDelete + "\""))
                                 .andExpect(status().isNoContent());
         }
+
+        @Test
+        public void UrlController_ScrollUrls_ReturnsCursorPageJson() throws Exception {
+                // Arrange
+                UrlResponse url1 = new UrlResponse(
+                                "https://original1.com",
+                                "http://localhost:8080/r/abc12345",
+                                LocalDateTime.now(),
+                                null,
+                                null,
+                                5L,
+                                null);
+
+                // Stub
+                when(urlService.scrollUrls(
+                                isNull(),
+                                anyInt(),
+                                any(ShortUrlSortField.class),
+                                any(SortDirection.class))).thenReturn(new CursorPage<>(List.of(url1), "next", true));
+
+                // Act & Assert
+                mockMvc.perform(get("/api/urls/scroll")
+                                .param("size", "1")
+                                .param("sortBy", "CREATED_AT")
+                                .param("direction", "DESC"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.content.length()").value(1))
+                                .andExpect(jsonPath("$.nextCursor").value("next"))
+                                .andExpect(jsonPath("$.hasNext").value(true));
+        }
 }
@@ -0,0 +1,127 @@
+package com.nelani.url_shortner.export;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.nelani.url_shortner.clicklog.ClickRecord;
+import com.nelani.url_shortner.model.ExportFormat;
+import com.nelani.url_shortner.repository.RequestDataRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+public class ClickExporterTest {
+
+    @Mock
+    private RequestDataRepository requestDataRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ObjectMapper objectMapper;
+    private ClickExporter clickExporter;
+
+    private final UUID shortUrlId = UUID.randomUUID();
+
+    @BeforeEach
+    public void init() {
+        objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        clickExporter = new ClickExporter(requestDataRepository, transactionManager, objectMapper, 100, 1);
+    }
+
+    @Test
+    public void ClickExporterTest_Export_WritesQuotedCsv() throws Exception {
+        // Stub
+        stubClicks(
+                new ClickRecord(UUID.randomUUID(), shortUrlId, 1_000L, "device1", "Kenya", null,
+                        "=HYPERLINK(\"x\")", "Mozilla/5.0 (X11, Linux)"),
+                new ClickRecord(UUID.randomUUID(), shortUrlId, 2_000L, "device2", null, null, null, null));
+
+        // Act
+        String csv = run(clickExporter.export(shortUrlId, "http://localhost/abc123", null, null, ExportFormat.CSV));
+
+        // Assert
+        String[] lines = csv.split("\n");
+        Assertions.assertThat(lines).hasSize(3);
+        Assertions.assertThat(lines[0]).isEqualTo(ClickExporter.CSV_HEADER);
+        Assertions.assertThat(lines[1]).startsWith(
+                "http://localhost/abc123,device1,Kenya,,\"'=HYPERLINK(\"\"x\"\")\",\"Mozilla/5.0 (X11, Linux)\",");
+        Assertions.assertThat(lines[2]).startsWith("http://localhost/abc123,device2,,,,,");
+    }
+
+    @Test
+    public void ClickExporterTest_Export_WritesOneJsonObjectPerLine() throws Exception {
+        // Stub
+        stubClicks(
+                new ClickRecord(UUID.randomUUID(), shortUrlId, 1_000L, "device1", "Kenya", "Nairobi", null, null),
+                new ClickRecord(UUID.randomUUID(), shortUrlId, 2_000L, "device2", "Ghana", "Accra", null, null));
+
+        // Act
+        String ndjson = run(clickExporter.export(shortUrlId, "http://localhost/abc123", null, null,
+                ExportFormat.NDJSON));
+
+        // Assert
+        String[] lines = ndjson.split("\n");
+        Assertions.assertThat(lines).hasSize(2);
+        JsonNode second = objectMapper.readTree(lines[1]);
+        Assertions.assertThat(second.get("hashedDevice").asText()).isEqualTo("device2");
+        Assertions.assertThat(second.get("city").asText()).isEqualTo("Accra");
+        Assertions.assertThat(second.has("referrer")).isFalse();
+    }
+
+    @Test
+    public void ClickExporterTest_Export_RejectsExportsOverTheLimit() throws Exception {
+        // Arrange
+        StreamingResponseBody first = clickExporter.export(shortUrlId, "http://localhost/abc123", null, null,
+                ExportFormat.CSV);
+
+        // Act & Assert
+        Assertions.assertThatThrownBy(() -> clickExporter.export(shortUrlId, "http://localhost/abc123", null, null,
+                ExportFormat.CSV))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting(ex -> ((ResponseStatusException) ex).getStatusCode())
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+
+        // The slot is freed once the first export is written
+        run(first);
+        Assertions.assertThat(clickExporter.export(shortUrlId, "http://localhost/abc123", null, null,
+                ExportFormat.CSV)).isNotNull();
+    }
+
+    private void stubClicks(ClickRecord... clicks) {
+        doAnswer(invocation -> {
+            Consumer<ClickRecord> consumer = invocation.getArgument(4);
+            for (ClickRecord click : clicks) {
+                consumer.accept(click);
+            }
+            return null;
+        }).when(requestDataRepository).forEachClick(eq(shortUrlId), any(), any(), anyInt(), any());
+    }
+
+    private static String run(StreamingResponseBody body) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,132 @@
+package com.nelani.url_shortner.id;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Insert throughput and index size of a table shaped like request_data, once
+ * with random (version 4) ids and once with {@link UuidV7} ids. Rows go in JDBC
+ * batches of 1000, one transaction per batch, as the click log loader writes them.
+ *
+ * Runs on in-memory H2 with one million rows by default, where index sizes are
+ * not available. For the numbers that matter, use a scratch PostgreSQL database:
+ *
+ * mvn test -Pperformance -Dtest=PrimaryKeyOrderBenchmarkTest -Dbenchmark.rows=10000000
+ *     -Dbenchmark.jdbc-url=jdbc:postgresql://localhost:5432/bench -Dbenchmark.username=... -Dbenchmark.password=...
+ */
+@Tag("benchmark")
+public class PrimaryKeyOrderBenchmarkTest {
+
+    private static final int BATCH = 1_000;
+    private static final int SHORT_URLS = 10_000;
+
+    private final String url = System.getProperty("benchmark.jdbc-url", "jdbc:h2:mem:pk-order;DB_CLOSE_DELAY=-1");
+    private final String username = System.getProperty("benchmark.username", "sa");
+    private final String password = System.getProperty("benchmark.password", "");
+    private final long rows = Long.getLong("benchmark.rows", 1_000_000L);
+
+    @Test
+    public void PrimaryKeyOrderBenchmarkTest_RandomAndTimeOrderedIds() throws Exception {
+        try (Connection connection = DriverManager.getConnection(url, username, password)) {
+            connection.setAutoCommit(false);
+            final boolean postgres = connection.getMetaData().getDatabaseProductName().equals("PostgreSQL");
+
+            // Short URL ids the clicks point to, created up front like the rows they reference
+            final UUID[] shortUrlIds = new UUID[SHORT_URLS];
+            final UUID[] shortUrlIdsV7 = new UUID[SHORT_URLS];
+            for (int i = 0; i < SHORT_URLS; i++) {
+                shortUrlIds[i] = UUID.randomUUID();
+                shortUrlIdsV7[i] = UuidV7.generate();
+            }
+
+            // Act
+            Result random = run(connection, postgres, "pk_bench_v4", UUID::randomUUID, shortUrlIds);
+            Result ordered = run(connection, postgres, "pk_bench_v7", UuidV7::generate, shortUrlIdsV7);
+
+            // Report
+            System.out.printf("%,d rows on %s%n", rows, connection.getMetaData().getDatabaseProductName());
+            System.out.println("ids        rows/s      last 10% rows/s   pk MB   fk MB");
+            System.out.println(random.format("v4"));
+            System.out.println(ordered.format("v7"));
+
+            // Assert
+            Assertions.assertThat(random.rowCount()).isEqualTo(rows);
+            Assertions.assertThat(ordered.rowCount()).isEqualTo(rows);
+        }
+    }
+
+    private Result run(Connection connection, boolean postgres, String table, Supplier<UUID> ids,
+            UUID[] shortUrlIds) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + table);
+            statement.execute("CREATE TABLE " + table + " (id UUID NOT NULL, short_url_id UUID NOT NULL, "
+                    + "device_hash VARCHAR(64) NOT NULL, country VARCHAR(100), timestamp TIMESTAMP NOT NULL, "
+                    + "CONSTRAINT " + table + "_pk PRIMARY KEY (id))");
+            statement.execute("CREATE INDEX " + table + "_fk ON " + table + " (short_url_id)");
+        }
+        connection.commit();
+
+        final long tail = rows - rows / 10;
+        long tailStart = 0;
+        final long start = System.nanoTime();
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + table
+                + " (id, short_url_id, device_hash, country, timestamp) VALUES (?, ?, ?, ?, ?)")) {
+            for (long i = 0; i < rows; i++) {
+                if (i == tail) {
+                    tailStart = System.nanoTime();
+                }
+                insert.setObject(1, ids.get());
+                insert.setObject(2, shortUrlIds[(int) (i % SHORT_URLS)]);
+                insert.setString(3, Long.toHexString(i));
+                insert.setString(4, "Kenya");
+                insert.setTimestamp(5, new Timestamp(System.currentTimeMillis()));
+                insert.addBatch();
+                if ((i + 1) % BATCH == 0 || i == rows - 1) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+        }
+        final long end = System.nanoTime();
+
+        long rowCount;
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            rowCount = rs.getLong(1);
+        }
+
+        return new Result(rowCount,
+                rows / ((end - start) / 1e9),
+                (rows - tail) / ((end - tailStart) / 1e9),
+                postgres ? relationSizeMb(connection, table + "_pk") : Double.NaN,
+                postgres ? relationSizeMb(connection, table + "_fk") : Double.NaN);
+    }
+
+    private static double relationSizeMb(Connection connection, String relation) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_relation_size(?::regclass)")) {
+            statement.setString(1, relation);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getLong(1) / (1024.0 * 1024.0);
+            }
+        }
+    }
+
+    private record Result(long rowCount, double rowsPerSecond, double tailRowsPerSecond, double pkMb, double fkMb) {
+
+        String format(String ids) {
+            return String.format("%-6s %,12.0f %,18.0f %7.1f %7.1f", ids, rowsPerSecond, tailRowsPerSecond, pkMb, fkMb);
+        }
+    }
+}
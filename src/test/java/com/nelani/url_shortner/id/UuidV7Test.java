@@ -0,0 +1,71 @@
+package com.nelani.url_shortner.id;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@ActiveProfiles("test")
+public class UuidV7Test {
+
+    @Test
+    public void UuidV7Test_Generate_SetsVersionVariantAndTime() {
+        // Arrange
+        long before = System.currentTimeMillis();
+
+        // Act
+        UUID uuid = UuidV7.generate();
+
+        // Assert
+        Assertions.assertThat(uuid.version()).isEqualTo(7);
+        Assertions.assertThat(uuid.variant()).isEqualTo(2);
+        Assertions.assertThat(UuidV7.epochMillis(uuid)).isBetween(before, System.currentTimeMillis() + 1);
+    }
+
+    @Test
+    public void UuidV7Test_Generate_IsStrictlyIncreasingAsUnsignedBytes() {
+        // Act
+        UUID previous = UuidV7.generate();
+        for (int i = 0; i < 100_000; i++) {
+            UUID next = UuidV7.generate();
+
+            // Assert: databases compare UUIDs as unsigned bytes, the high half decides here
+            Assertions.assertThat(Long.compareUnsigned(next.getMostSignificantBits(),
+                    previous.getMostSignificantBits())).isPositive();
+            previous = next;
+        }
+    }
+
+    @Test
+    public void UuidV7Test_Generate_IsUniqueAcrossThreads() throws Exception {
+        // Arrange
+        ConcurrentHashMap<UUID, Boolean> seen = new ConcurrentHashMap<>();
+        int threads = 8;
+        int perThread = 50_000;
+
+        // Act
+        try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        seen.put(UuidV7.generate(), Boolean.TRUE);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        // Assert
+        Assertions.assertThat(seen).hasSize(threads * perThread);
+    }
+}
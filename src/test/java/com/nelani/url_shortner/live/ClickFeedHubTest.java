@@ -0,0 +1,87 @@
+package com.nelani.url_shortner.live;
+
+import com.nelani.url_shortner.model.LiveFeedMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+public class ClickFeedHubTest {
+
+    // Never runs the drain tasks, so buffers only fill up
+    @Mock
+    private ExecutorService senders;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ClickFeedHub clickFeedHub;
+
+    @BeforeEach
+    public void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        clickFeedHub = new ClickFeedHub(meterRegistry, 2, 4, 60_000, 15, senders, null);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        clickFeedHub.shutdown();
+    }
+
+    @Test
+    public void ClickFeedHubTest_Subscribe_RejectsSubscribersOverTheLimit() {
+        // Arrange
+        clickFeedHub.subscribe("abc123", LiveFeedMode.EVENTS);
+        clickFeedHub.subscribe(null, LiveFeedMode.COUNTS);
+
+        // Act & Assert
+        Assertions.assertThatThrownBy(() -> clickFeedHub.subscribe("abc123", LiveFeedMode.EVENTS))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting(ex -> ((ResponseStatusException) ex).getStatusCode())
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        Assertions.assertThat(clickFeedHub.subscriberCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void ClickFeedHubTest_Publish_DropsSubscriberThatFallsBehind() {
+        // Arrange
+        clickFeedHub.subscribe("abc123", LiveFeedMode.EVENTS);
+        clickFeedHub.subscribe("other", LiveFeedMode.EVENTS);
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            clickFeedHub.publish(new ClickEvent("abc123", i, "Kenya", "Nairobi"));
+        }
+
+        // Assert
+        Assertions.assertThat(clickFeedHub.subscriberCount()).isEqualTo(1);
+        Assertions.assertThat(meterRegistry.get("analytics.live.dropped").counter().count()).isEqualTo(1.0);
+        verify(senders, times(1)).execute(any(Runnable.class));
+    }
+
+    @Test
+    public void ClickFeedHubTest_Tick_SendsCountsToCountSubscribers() {
+        // Arrange
+        clickFeedHub.subscribe("abc123", LiveFeedMode.COUNTS);
+        clickFeedHub.publish(new ClickEvent("abc123", 1_000L, null, null));
+
+        // Act
+        clickFeedHub.tick();
+
+        // Assert
+        verify(senders, times(1)).execute(any(Runnable.class));
+        Assertions.assertThat(clickFeedHub.subscriberCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,319 @@
+package com.nelani.url_shortner.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nelani.url_shortner.UrlShortenerApplication;
+import com.nelani.url_shortner.dto.GeoInfo;
+import com.nelani.url_shortner.service.GeoLookupService;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load test: boots the application on H2 with geo lookups served
+ * by a local stub, seeds short URLs, then has many concurrent clients send a
+ * mix of redirects, creates and stats queries. Redirects pick short codes from
+ * a Zipf distribution, so a few hot codes take most of the traffic. Reports
+ * throughput and HdrHistogram latency percentiles per operation.
+ *
+ * Clients run closed-loop by default. With {@code loadtest.target-rate} set,
+ * they send on a fixed schedule instead and latency is measured from when each
+ * request was due, so a stall is not hidden by the requests it delayed.
+ *
+ * Run with: mvn test -Pperformance -Dtest=MixedTrafficLoadTest
+ * and tune with -Dloadtest.urls, clients, duration-seconds, warmup-seconds,
+ * target-rate, zipf-exponent, geo-latency-ms, create-percent, stats-percent.
+ */
+@Tag("load")
+public class MixedTrafficLoadTest {
+
+    private static final int URLS = Integer.getInteger("loadtest.urls", 10_000);
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 200);
+    private static final int DURATION_SECONDS = Integer.getInteger("loadtest.duration-seconds", 60);
+    private static final int WARMUP_SECONDS = Integer.getInteger("loadtest.warmup-seconds", 15);
+    private static final int TARGET_RATE = Integer.getInteger("loadtest.target-rate", 0);
+    private static final double ZIPF_EXPONENT = Double.parseDouble(System.getProperty("loadtest.zipf-exponent", "1.0"));
+    private static final long GEO_LATENCY_MS = Long.getLong("loadtest.geo-latency-ms", 20);
+    private static final int CREATE_PERCENT = Integer.getInteger("loadtest.create-percent", 5);
+    private static final int STATS_PERCENT = Integer.getInteger("loadtest.stats-percent", 2);
+
+    private static final int SEED_BATCH = 500;
+
+    enum Operation {
+        REDIRECT, CREATE, STATS
+    }
+
+    @Test
+    public void MixedTrafficLoadTest_ZipfianRedirectsWithCreatesAndStats() throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                UrlShortenerApplication.class, StubGeoConfig.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:mixed-load;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "loadtest.geo-latency-ms=" + GEO_LATENCY_MS,
+                        "rate-limit.redirect.permits-per-second=1000000",
+                        "rate-limit.redirect.burst=1000000",
+                        "rate-limit.redirect.global-permits-per-second=0",
+                        "rate-limit.shorten.permits-per-second=1000000",
+                        "rate-limit.shorten.burst=1000000",
+                        "rate-limit.shorten.global-permits-per-second=0",
+                        "logging.level.com.nelani=WARN",
+                        "logging.level.org.springframework=WARN")
+                .run()) {
+
+            final String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            final ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+            final HttpClient client = HttpClient.newBuilder()
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+
+            // Arrange
+            long seedStart = System.nanoTime();
+            List<String> codes = seed(client, objectMapper, baseUrl);
+            System.out.printf("seeded %d urls in %.1f s%n", codes.size(), (System.nanoTime() - seedStart) / 1e9);
+            // Popularity must not follow creation order
+            Collections.shuffle(codes, new Random(7));
+
+            // Act
+            Traffic traffic = new Traffic(baseUrl, client, codes);
+            traffic.run();
+
+            // Report
+            traffic.report();
+
+            // Assert
+            Assertions.assertThat(traffic.count(Operation.REDIRECT)).isPositive();
+            Assertions.assertThat(traffic.errorRate()).isLessThan(0.01);
+        }
+    }
+
+    private List<String> seed(HttpClient client, ObjectMapper objectMapper, String baseUrl) throws Exception {
+        List<String> codes = new ArrayList<>(URLS);
+        for (int from = 0; from < URLS; from += SEED_BATCH) {
+            List<String> body = new ArrayList<>();
+            for (int i = from; i < Math.min(URLS, from + SEED_BATCH); i++) {
+                body.add("{\"url\":\"https://example.com/seed/" + i + "\"}");
+            }
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/urls/add"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("[" + String.join(",", body) + "]"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+
+            for (JsonNode result : objectMapper.readTree(response.body())) {
+                String shortUrl = result.path("response").path("shortUrl").asText(null);
+                if (shortUrl != null) {
+                    codes.add(shortUrl.substring(shortUrl.lastIndexOf('/') + 1));
+                }
+            }
+        }
+        return codes;
+    }
+
+    private static final class Traffic {
+
+        private final String baseUrl;
+        private final HttpClient client;
+        private final List<String> codes;
+        private final ZipfGenerator zipf;
+
+        private final Recorder[] latencies = new Recorder[Operation.values().length];
+        private final LongAdder[] counts = new LongAdder[Operation.values().length];
+        private final LongAdder[] errors = new LongAdder[Operation.values().length];
+        private final AtomicLong created = new AtomicLong();
+        private volatile long measuredNanos;
+
+        private Traffic(String baseUrl, HttpClient client, List<String> codes) {
+            this.baseUrl = baseUrl;
+            this.client = client;
+            this.codes = codes;
+            this.zipf = new ZipfGenerator(codes.size(), ZIPF_EXPONENT);
+            for (Operation operation : Operation.values()) {
+                latencies[operation.ordinal()] = new Recorder(3);
+                counts[operation.ordinal()] = new LongAdder();
+                errors[operation.ordinal()] = new LongAdder();
+            }
+        }
+
+        private void run() throws Exception {
+            final long start = System.nanoTime();
+            final long measureFrom = start + TimeUnit.SECONDS.toNanos(WARMUP_SECONDS);
+            final long end = measureFrom + TimeUnit.SECONDS.toNanos(DURATION_SECONDS);
+            // Per client, in nanoseconds between requests, 0 for closed-loop
+            final long interval = TARGET_RATE > 0 ? TimeUnit.SECONDS.toNanos(CLIENTS) / TARGET_RATE : 0;
+
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int c = 0; c < CLIENTS; c++) {
+                    final int clientId = c;
+                    futures.add(clients.submit(() -> {
+                        final SplittableRandom random = new SplittableRandom(clientId);
+                        // Spread the first requests of paced clients over one interval
+                        long due = start + (interval == 0 ? 0 : random.nextLong(interval));
+                        while (System.nanoTime() < end) {
+                            if (interval > 0) {
+                                LockSupport.parkNanos(due - System.nanoTime());
+                            } else {
+                                due = System.nanoTime();
+                            }
+                            send(random, clientId, due);
+                            due += interval;
+                        }
+                        return null;
+                    }));
+                }
+
+                LockSupport.parkNanos(measureFrom - System.nanoTime());
+                // Drop what was recorded during the warm-up
+                for (Operation operation : Operation.values()) {
+                    latencies[operation.ordinal()].reset();
+                    counts[operation.ordinal()].reset();
+                    errors[operation.ordinal()].reset();
+                }
+
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                measuredNanos = System.nanoTime() - measureFrom;
+            }
+        }
+
+        private void send(SplittableRandom random, int clientId, long due) {
+            final int roll = random.nextInt(100);
+            final Operation operation = roll < CREATE_PERCENT ? Operation.CREATE
+                    : roll < CREATE_PERCENT + STATS_PERCENT ? Operation.STATS
+                    : Operation.REDIRECT;
+
+            final HttpRequest request = switch (operation) {
+                case REDIRECT -> HttpRequest.newBuilder(URI.create(baseUrl + "/r/" + codes.get(zipf.next(random))))
+                        // Many devices per client, so access counting sees distinct visitors
+                        .header("X-Forwarded-For", "10." + clientId % 256 + "." + random.nextInt(256) + "."
+                                + random.nextInt(256))
+                        .GET()
+                        .build();
+                case CREATE -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/urls/add"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "[{\"url\":\"https://example.com/load/" + created.incrementAndGet() + "\"}]"))
+                        .build();
+                case STATS -> HttpRequest.newBuilder(URI.create(baseUrl
+                                + "/api/request-data/stats?groupBy=" + (random.nextBoolean() ? "URL" : "COUNTRY")))
+                        .GET()
+                        .build();
+            };
+
+            boolean ok;
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                ok = switch (operation) {
+                    case REDIRECT -> response.statusCode() == 302;
+                    // The bulk endpoint answers 200 and reports failures per URL
+                    case CREATE -> response.statusCode() == 200 && !response.body().contains("\"response\":null");
+                    case STATS -> response.statusCode() == 200;
+                };
+            } catch (Exception ex) {
+                ok = false;
+            }
+
+            final long latencyMicros = Math.max(0, System.nanoTime() - due) / 1_000;
+            latencies[operation.ordinal()].recordValue(latencyMicros);
+            counts[operation.ordinal()].increment();
+            if (!ok) {
+                errors[operation.ordinal()].increment();
+            }
+        }
+
+        private long count(Operation operation) {
+            return counts[operation.ordinal()].sum();
+        }
+
+        private double errorRate() {
+            long total = 0;
+            long failed = 0;
+            for (Operation operation : Operation.values()) {
+                total += counts[operation.ordinal()].sum();
+                failed += errors[operation.ordinal()].sum();
+            }
+            return total == 0 ? 0 : failed / (double) total;
+        }
+
+        private void report() {
+            final double seconds = measuredNanos / 1e9;
+            System.out.printf("%d clients, %d urls, zipf %.2f, geo stub %d ms, %s, %.0f s measured%n",
+                    CLIENTS, codes.size(), ZIPF_EXPONENT, GEO_LATENCY_MS,
+                    TARGET_RATE > 0 ? "target " + TARGET_RATE + " req/s" : "closed-loop", seconds);
+            System.out.println("operation  requests  errors  throughput/s   p50 ms   p90 ms   p99 ms p99.9 ms   max ms");
+
+            final Histogram total = new Histogram(3);
+            long totalCount = 0;
+            long totalErrors = 0;
+            for (Operation operation : Operation.values()) {
+                final Histogram histogram = latencies[operation.ordinal()].getIntervalHistogram();
+                total.add(histogram);
+                totalCount += count(operation);
+                totalErrors += errors[operation.ordinal()].sum();
+                System.out.println(format(operation.name().toLowerCase(), count(operation),
+                        errors[operation.ordinal()].sum(), seconds, histogram));
+            }
+            System.out.println(format("all", totalCount, totalErrors, seconds, total));
+        }
+
+        private static String format(String name, long requests, long errors, double seconds, Histogram histogram) {
+            return String.format("%-9s %9d %7d %13.0f %8.2f %8.2f %8.2f %8.2f %8.2f",
+                    name, requests, errors, requests / seconds,
+                    histogram.getValueAtPercentile(50) / 1e3,
+                    histogram.getValueAtPercentile(90) / 1e3,
+                    histogram.getValueAtPercentile(99) / 1e3,
+                    histogram.getValueAtPercentile(99.9) / 1e3,
+                    histogram.getMaxValue() / 1e3);
+        }
+    }
+
+    @TestConfiguration
+    static class StubGeoConfig {
+
+        // Stands in for ip-api.com, which would rate limit and make the run depend on the network
+        @Bean
+        @Primary
+        GeoLookupService stubGeoLookupService(@Value("${loadtest.geo-latency-ms:20}") long latencyMs) {
+            final String[] countries = { "South Africa", "Kenya", "Nigeria", "Ghana", "Egypt" };
+            return ipAddress -> {
+                if (latencyMs > 0) {
+                    try {
+                        Thread.sleep(latencyMs);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                String country = countries[Math.floorMod(ipAddress == null ? 0 : ipAddress.hashCode(), countries.length)];
+                return new GeoInfo(country, country + " City");
+            };
+        }
+    }
+}
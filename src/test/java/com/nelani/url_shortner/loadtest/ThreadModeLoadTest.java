@@ -0,0 +1,176 @@
+package com.nelani.url_shortner.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nelani.url_shortner.UrlShortenerApplication;
+import com.nelani.url_shortner.dto.GeoInfo;
+import com.nelani.url_shortner.service.GeoLookupService;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares redirect throughput and latency between platform-thread and
+ * virtual-thread mode. Geo lookups are stubbed with a fixed delay so the
+ * analytics path blocks the way the real HTTP call does.
+ *
+ * Run with: mvn test -Pperformance -Dtest=ThreadModeLoadTest
+ */
+@Tag("load")
+public class ThreadModeLoadTest {
+
+    private static final int URLS = 50;
+    private static final int CLIENTS = 200;
+    private static final int REQUESTS_PER_CLIENT = 50;
+    private static final long GEO_LATENCY_MS = 50;
+
+    @Test
+    public void ThreadModeLoadTest_CompareVirtualAndPlatformThreads() throws Exception {
+        // Act
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        // Report
+        System.out.println("mode      requests  errors  throughput/s   p50 ms   p99 ms   max ms");
+        System.out.println(platform.format("platform"));
+        System.out.println(virtual.format("virtual"));
+
+        // Assert
+        Assertions.assertThat(platform.requests()).isEqualTo((long) CLIENTS * REQUESTS_PER_CLIENT);
+        Assertions.assertThat(virtual.requests()).isEqualTo((long) CLIENTS * REQUESTS_PER_CLIENT);
+        Assertions.assertThat(virtual.errors()).isZero();
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                UrlShortenerApplication.class, SlowGeoConfig.class)
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "spring.datasource.url=jdbc:h2:mem:load-" + virtualThreads + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "server.tomcat.threads.max=50",
+                        "rate-limit.redirect.permits-per-second=1000000",
+                        "rate-limit.redirect.global-permits-per-second=0",
+                        "logging.level.com.nelani=WARN",
+                        "logging.level.org.springframework=WARN")
+                .run()) {
+
+            final String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            final ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+            final HttpClient client = HttpClient.newBuilder()
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+
+            List<String> codes = seed(client, objectMapper, baseUrl);
+            return drive(client, baseUrl, codes);
+        }
+    }
+
+    private List<String> seed(HttpClient client, ObjectMapper objectMapper, String baseUrl) throws Exception {
+        List<String> body = new ArrayList<>();
+        for (int i = 0; i < URLS; i++) {
+            body.add("{\"url\":\"https://example.com/page/" + i + "\"}");
+        }
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/urls/add"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("[" + String.join(",", body) + "]"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        List<String> codes = new ArrayList<>();
+        for (JsonNode result : objectMapper.readTree(response.body())) {
+            String shortUrl = result.path("response").path("shortUrl").asText();
+            codes.add(shortUrl.substring(shortUrl.lastIndexOf('/') + 1));
+        }
+        return codes;
+    }
+
+    private Result drive(HttpClient client, String baseUrl, List<String> codes) throws Exception {
+        final AtomicLong errors = new AtomicLong();
+        final long[][] latencies = new long[CLIENTS][REQUESTS_PER_CLIENT];
+        final long start = System.nanoTime();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                final int clientId = c;
+                futures.add(clients.submit(() -> {
+                    for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+                        String code = codes.get((clientId + r) % codes.size());
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/r/" + code))
+                                .header("X-Forwarded-For", "203.0.113." + (clientId % 250))
+                                .GET()
+                                .build();
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 302) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception ex) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[clientId][r] = System.nanoTime() - sent;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        final long elapsed = System.nanoTime() - start;
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Result(all.length, errors.get(), all.length / (elapsed / 1e9),
+                percentile(all, 0.50), percentile(all, 0.99), all[all.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    record Result(long requests, long errors, double throughput, double p50, double p99, double max) {
+        String format(String mode) {
+            return String.format("%-9s %8d %7d %13.0f %8.2f %8.2f %8.2f",
+                    mode, requests, errors, throughput, p50, p99, max);
+        }
+    }
+
+    @TestConfiguration
+    static class SlowGeoConfig {
+
+        @Bean
+        @Primary
+        GeoLookupService slowGeoLookupService() {
+            return ipAddress -> {
+                try {
+                    Thread.sleep(GEO_LATENCY_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new GeoInfo("Stubland", "Stub City");
+            };
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.nelani.url_shortner.loadtest;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Samples ranks {@code 0..n-1} with a probability proportional to
+ * {@code 1 / (rank + 1)^exponent}, so a few short codes get most of the
+ * traffic, like real links do. Uses the inverse of a precomputed CDF, one
+ * binary search per sample.
+ */
+final class ZipfGenerator {
+
+    private final double[] cdf;
+
+    ZipfGenerator(int n, double exponent) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be positive");
+        }
+        cdf = new double[n];
+        double sum = 0;
+        for (int rank = 0; rank < n; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, exponent);
+            cdf[rank] = sum;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cdf[rank] /= sum;
+        }
+        // Rounding must not leave a gap below 1.0
+        cdf[n - 1] = 1.0;
+    }
+
+    int next(RandomGenerator random) {
+        final int index = Arrays.binarySearch(cdf, random.nextDouble());
+        return index >= 0 ? index : -index - 1;
+    }
+}
@@ -0,0 +1,29 @@
+package com.nelani.url_shortner.loadtest;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+public class ZipfGeneratorTest {
+
+    @Test
+    public void ZipfGeneratorTest_Next_FollowsZipfDistribution() {
+        // Arrange
+        ZipfGenerator zipf = new ZipfGenerator(1000, 1.0);
+        SplittableRandom random = new SplittableRandom(42);
+        int[] hits = new int[1000];
+        final int samples = 1_000_000;
+
+        // Act
+        for (int i = 0; i < samples; i++) {
+            hits[zipf.next(random)]++;
+        }
+
+        // Assert
+        // With exponent 1 rank 0 gets 1 / H(1000) of the traffic, about 13.4%, twice as much as rank 1
+        Assertions.assertThat(hits[0] / (double) samples).isBetween(0.128, 0.140);
+        Assertions.assertThat(hits[0] / (double) hits[1]).isBetween(1.9, 2.1);
+        Assertions.assertThat(hits[999]).isPositive();
+    }
+}
@@ -0,0 +1,176 @@
+package com.nelani.url_shortner.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import com.nelani.url_shortner.archive.ClickArchive;
+import com.nelani.url_shortner.dto.UrlAccessStats;
+import com.nelani.url_shortner.dto.UrlAccessStatsDTO;
+import com.nelani.url_shortner.export.ClickExporter;
+import com.nelani.url_shortner.live.ClickFeedHub;
+import com.nelani.url_shortner.metrics.ShortenerMetrics;
+import com.nelani.url_shortner.model.ShortUrl;
+import com.nelani.url_shortner.model.SortDirection;
+import com.nelani.url_shortner.model.StatsGroupBy;
+import com.nelani.url_shortner.repository.RequestDataRepository;
+import com.nelani.url_shortner.repository.ShortUrlIdRemapRepository;
+import com.nelani.url_shortner.repository.ShortUrlRepository;
+import com.nelani.url_shortner.service.RedirectionService;
+import com.nelani.url_shortner.service.RequestDataService;
+import com.nelani.url_shortner.service.impl.AnalyticsService;
+import com.nelani.url_shortner.service.impl.RedirectionServiceImpl;
+import com.nelani.url_shortner.service.impl.RequestDataServiceImpl;
+import com.nelani.url_shortner.shard.Shards;
+import com.nelani.url_shortner.stats.StatsCache;
+import com.nelani.url_shortner.store.RedirectCache;
+import com.nelani.url_shortner.store.RedirectEntry;
+import com.nelani.url_shortner.store.RedirectStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Runs cached redirects and stats pages with the application loggers at INFO
+ * and checks that not a single log event is created, so no message is
+ * formatted or queued on either path. Also reports the cost per redirect and
+ * per stats row.
+ *
+ * Run with: mvn test -Pperformance -Dtest=HotPathLoggingBenchmarkTest
+ */
+@Tag("benchmark")
+public class HotPathLoggingBenchmarkTest {
+
+    private static final int OPERATIONS = 2_000_000;
+    private static final int PAGE_SIZE = 100;
+    private static final String SHORT_CODE = "abc12345";
+
+    @Test
+    public void HotPathLoggingBenchmarkTest_RedirectAndStats_CreateNoLogEventsAtInfo() {
+        // Arrange
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        Logger application = context.getLogger("com.nelani");
+        Level rootLevel = root.getLevel();
+        Level applicationLevel = application.getLevel();
+        root.setLevel(Level.INFO);
+        application.setLevel(Level.INFO);
+
+        CapturingAppender appender = new CapturingAppender();
+        appender.setContext(context);
+        appender.start();
+        root.addAppender(appender);
+
+        try {
+            RedirectionService redirectionService = redirectionService();
+            RequestDataService requestDataService = requestDataService();
+            HttpServletRequest request = stubOnly(HttpServletRequest.class);
+
+            // Warm-up
+            redirects(redirectionService, request, OPERATIONS);
+            statsPages(requestDataService, OPERATIONS / PAGE_SIZE);
+            appender.events.clear();
+
+            // Act
+            long start = System.nanoTime();
+            redirects(redirectionService, request, OPERATIONS);
+            double redirectNs = (System.nanoTime() - start) / (double) OPERATIONS;
+
+            start = System.nanoTime();
+            statsPages(requestDataService, OPERATIONS / PAGE_SIZE);
+            double statsRowNs = (System.nanoTime() - start) / (double) OPERATIONS;
+
+            // Report
+            System.out.printf("cached redirect: %.1f ns, stats row: %.1f ns, application log events: %d%n",
+                    redirectNs, statsRowNs, appender.events.size());
+
+            // Assert
+            Assertions.assertThat(appender.events).isEmpty();
+        } finally {
+            root.detachAppender(appender);
+            root.setLevel(rootLevel);
+            application.setLevel(applicationLevel);
+        }
+    }
+
+    private static void redirects(RedirectionService redirectionService, HttpServletRequest request, int count) {
+        for (int i = 0; i < count; i++) {
+            redirectionService.redirect(SHORT_CODE, request);
+        }
+    }
+
+    private static void statsPages(RequestDataService requestDataService, int count) {
+        for (int i = 0; i < count; i++) {
+            requestDataService.getTopStats(StatsGroupBy.URL, 0, PAGE_SIZE, SortDirection.DESC);
+        }
+    }
+
+    // A redirect served from the on-heap cache, the common case
+    private static RedirectionService redirectionService() {
+        ShortUrl shortUrl = ShortUrl.builder()
+                .id(UUID.randomUUID())
+                .shortCode(SHORT_CODE)
+                .originalUrl("https://example.com/some/page")
+                .build();
+
+        ShortUrlRepository urlRepository = stubOnly(ShortUrlRepository.class);
+        when(urlRepository.getReferenceById(any())).thenReturn(shortUrl);
+        RedirectCache redirectCache = stubOnly(RedirectCache.class);
+        when(redirectCache.get(SHORT_CODE)).thenReturn(Optional.of(RedirectEntry.of(shortUrl)));
+
+        return new RedirectionServiceImpl(urlRepository, stubOnly(AnalyticsService.class),
+                stubOnly(RequestDataRepository.class), stubOnly(RedirectStore.class), redirectCache,
+                new ShortenerMetrics(new SimpleMeterRegistry()), Shards.single());
+    }
+
+    // Top URLs, every row is turned into a full short URL
+    private static RequestDataService requestDataService() {
+        List<UrlAccessStats> rows = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            rows.add(new UrlAccessStatsDTO("code" + i, PAGE_SIZE - i, 1L));
+        }
+
+        RequestDataRepository requestDataRepository = stubOnly(RequestDataRepository.class);
+        when(requestDataRepository.mostAccessedUrls(any()))
+                .thenReturn(new PageImpl<>(rows, PageRequest.of(0, PAGE_SIZE), PAGE_SIZE));
+
+        return new RequestDataServiceImpl(requestDataRepository, stubOnly(ShortUrlRepository.class),
+                stubOnly(ShortUrlIdRemapRepository.class), stubOnly(ClickArchive.class), stubOnly(ClickFeedHub.class), stubOnly(ClickExporter.class),
+                StatsCache.disabled(), Shards.single());
+    }
+
+    // Stub-only mocks do not record invocations, which would grow with every operation
+    private static <T> T stubOnly(Class<T> type) {
+        return mock(type, withSettings().stubOnly());
+    }
+
+    private static class CapturingAppender extends AppenderBase<ILoggingEvent> {
+
+        private final Queue<String> events = new ConcurrentLinkedQueue<>();
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            if (event.getLoggerName().startsWith("com.nelani")) {
+                events.add(event.getLoggerName() + ": " + event.getFormattedMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.nelani.url_shortner.logging;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+
+@ActiveProfiles("test")
+public class LogSamplerTest {
+
+    @Test
+    public void LogSamplerTest_ShouldLog_LetsOneThroughPerIntervalAndCountsTheRest() {
+        // Arrange
+        LogSampler sampler = new LogSampler(Duration.ofHours(1));
+
+        // Act
+        boolean first = sampler.shouldLog();
+        int logged = 0;
+        for (int i = 0; i < 100; i++) {
+            if (sampler.shouldLog()) {
+                logged++;
+            }
+        }
+
+        // Assert
+        Assertions.assertThat(first).isTrue();
+        Assertions.assertThat(logged).isZero();
+        Assertions.assertThat(sampler.takeSuppressed()).isEqualTo(100);
+        Assertions.assertThat(sampler.takeSuppressed()).isZero();
+    }
+
+    @Test
+    public void LogSamplerTest_ShouldLog_LetsTheNextOneThroughAfterTheInterval() throws InterruptedException {
+        // Arrange
+        LogSampler sampler = new LogSampler(Duration.ofMillis(20));
+        sampler.shouldLog();
+        sampler.shouldLog();
+
+        // Act
+        Thread.sleep(40);
+
+        // Assert
+        Assertions.assertThat(sampler.shouldLog()).isTrue();
+        Assertions.assertThat(sampler.takeSuppressed()).isEqualTo(1);
+    }
+}
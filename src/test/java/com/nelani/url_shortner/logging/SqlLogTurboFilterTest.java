@@ -0,0 +1,52 @@
+package com.nelani.url_shortner.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+public class SqlLogTurboFilterTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final SqlLogTurboFilter filter = new SqlLogTurboFilter();
+
+    @AfterEach
+    public void clearMdc() {
+        MDC.remove(SqlLogTurboFilter.MDC_KEY);
+    }
+
+    @Test
+    public void SqlLogTurboFilterTest_Decide_AcceptsSqlLoggersOnlyWhenRequested() {
+        // Act
+        FilterReply withoutOptIn = decide("org.hibernate.SQL");
+        MDC.put(SqlLogTurboFilter.MDC_KEY, "true");
+        FilterReply withOptIn = decide("org.hibernate.SQL");
+        FilterReply jdbcTemplate = decide("org.springframework.jdbc.core.JdbcTemplate");
+
+        // Assert
+        Assertions.assertThat(withoutOptIn).isEqualTo(FilterReply.NEUTRAL);
+        Assertions.assertThat(withOptIn).isEqualTo(FilterReply.ACCEPT);
+        Assertions.assertThat(jdbcTemplate).isEqualTo(FilterReply.ACCEPT);
+    }
+
+    @Test
+    public void SqlLogTurboFilterTest_Decide_LeavesOtherLoggersAlone() {
+        // Arrange
+        MDC.put(SqlLogTurboFilter.MDC_KEY, "true");
+
+        // Act & Assert
+        Assertions.assertThat(decide("org.hibernate.engine.internal.StatisticalLoggingSessionEventListener"))
+                .isEqualTo(FilterReply.NEUTRAL);
+        Assertions.assertThat(decide("com.nelani.url_shortner.service.impl.AnalyticsService"))
+                .isEqualTo(FilterReply.NEUTRAL);
+    }
+
+    private FilterReply decide(String loggerName) {
+        return filter.decide(null, context.getLogger(loggerName), Level.DEBUG, null, null, null);
+    }
+}
@@ -0,0 +1,81 @@
+package com.nelani.url_shortner.metrics;
+
+import com.nelani.url_shortner.metrics.ShortenerMetrics.LookupSource;
+import com.nelani.url_shortner.metrics.ShortenerMetrics.Stage;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures what the instrumentation adds to a cached redirect: two stage
+ * timers with percentile histograms, the lookup counter and the outcome
+ * counter, recorded into the Prometheus registry used in production.
+ *
+ * Run with: mvn test -Pperformance -Dtest=ShortenerMetricsBenchmarkTest
+ */
+@Tag("benchmark")
+public class ShortenerMetricsBenchmarkTest {
+
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+    private static final int OPERATIONS = 5_000_000;
+
+    @Test
+    public void ShortenerMetricsBenchmarkTest_OverheadPerRedirect() throws Exception {
+        // Arrange
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        ShortenerMetrics metrics = new ShortenerMetrics(registry);
+
+        // Warm-up
+        instrumentedRedirects(metrics, OPERATIONS);
+
+        // Act
+        long start = System.nanoTime();
+        instrumentedRedirects(metrics, OPERATIONS);
+        double singleThreadNs = (System.nanoTime() - start) / (double) OPERATIONS;
+
+        start = System.nanoTime();
+        try (ExecutorService pool = Executors.newFixedThreadPool(THREADS)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> instrumentedRedirects(metrics, OPERATIONS / THREADS)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        double contendedNs = (System.nanoTime() - start) / (double) OPERATIONS;
+
+        // Report
+        System.out.printf("single thread: %.1f ns/redirect, %d threads: %.1f ns/redirect (wall)%n",
+                singleThreadNs, THREADS, contendedNs);
+        System.out.println(registry.scrape().lines()
+                .filter(line -> line.startsWith("shortener_stage_seconds_count"))
+                .toList());
+
+        // Assert
+        Assertions.assertThat(singleThreadNs).isLessThan(5_000);
+        Assertions.assertThat(registry.get("shortener.redirects").tag("status", "302").counter().count())
+                .isEqualTo(2.0 * OPERATIONS + (OPERATIONS / THREADS) * THREADS);
+    }
+
+    // What RedirectionServiceImpl records for a redirect served from the cache
+    private static void instrumentedRedirects(ShortenerMetrics metrics, int count) {
+        for (int i = 0; i < count; i++) {
+            long lookupStart = System.nanoTime();
+            metrics.lookedUp(LookupSource.CACHE);
+            metrics.record(Stage.LOOKUP, lookupStart);
+
+            long enqueueStart = System.nanoTime();
+            metrics.record(Stage.ANALYTICS_ENQUEUE, enqueueStart);
+            metrics.redirected(302);
+        }
+    }
+}
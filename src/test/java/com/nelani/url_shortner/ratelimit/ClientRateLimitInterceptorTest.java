@@ -0,0 +1,31 @@
+package com.nelani.url_shortner.ratelimit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class ClientRateLimitInterceptorTest {
+
+    @Test
+    public void ClientRateLimitInterceptorTest_PreHandle_WritesTooManyRequestsWithoutThrowing() throws Exception {
+        // Arrange
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 1, 0, 0, 100, 4, () -> 0L);
+        ClientRateLimitInterceptor interceptor = new ClientRateLimitInterceptor("test", limiter, null);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.0.1");
+
+        // Act
+        boolean first = interceptor.preHandle(request, new MockHttpServletResponse(), null);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean second = interceptor.preHandle(request, response, null);
+
+        // Assert
+        Assertions.assertThat(first).isTrue();
+        Assertions.assertThat(second).isFalse();
+        Assertions.assertThat(response.getStatus()).isEqualTo(429);
+        Assertions.assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        Assertions.assertThat(response.getContentAsString()).contains("Too many requests, please slow down.");
+    }
+}
@@ -0,0 +1,109 @@
+package com.nelani.url_shortner.ratelimit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the per-request cost of the limiter and the heap used to track a
+ * million distinct clients.
+ *
+ * Run with: mvn test -Pperformance -Dtest=ClientRateLimiterBenchmarkTest
+ */
+@Tag("benchmark")
+public class ClientRateLimiterBenchmarkTest {
+
+    private static final int CLIENTS = 1_000_000;
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+    @Test
+    public void ClientRateLimiterBenchmarkTest_OverheadPerRequest() throws Exception {
+        // Arrange
+        ClientRateLimiter limiter = new ClientRateLimiter(1_000_000, 1_000_000, 0, 0, CLIENTS, 64);
+        String[] keys = clientKeys(10_000);
+        final int operations = 5_000_000;
+
+        // Warm-up
+        for (int i = 0; i < operations; i++) {
+            limiter.tryAcquire(keys[i % keys.length]);
+        }
+
+        // Act
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            limiter.tryAcquire(keys[i % keys.length]);
+        }
+        double singleThreadNs = (System.nanoTime() - start) / (double) operations;
+
+        start = System.nanoTime();
+        try (ExecutorService pool = Executors.newFixedThreadPool(THREADS)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int offset = t;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < operations / THREADS; i++) {
+                        limiter.tryAcquire(keys[(i + offset) % keys.length]);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        double contendedNs = (System.nanoTime() - start) / (double) operations;
+
+        // Report
+        System.out.printf("single thread: %.1f ns/request, %d threads: %.1f ns/request (wall)%n",
+                singleThreadNs, THREADS, contendedNs);
+
+        // Assert
+        Assertions.assertThat(singleThreadNs).isLessThan(10_000);
+    }
+
+    @Test
+    public void ClientRateLimiterBenchmarkTest_MemoryForMillionClients() {
+        // Arrange
+        String[] keys = clientKeys(CLIENTS);
+        long before = usedHeap();
+
+        // Act
+        ClientRateLimiter limiter = new ClientRateLimiter(20, 50, 0, 0, CLIENTS, 64);
+        long start = System.nanoTime();
+        for (String key : keys) {
+            limiter.tryAcquire(key);
+        }
+        double insertNs = (System.nanoTime() - start) / (double) CLIENTS;
+        long after = usedHeap();
+
+        // Report
+        System.out.printf("%d clients tracked, %.1f MB heap (%.0f bytes/client excluding keys), %.1f ns/first request%n",
+                limiter.trackedClients(), (after - before) / 1e6,
+                (after - before) / (double) limiter.trackedClients(), insertNs);
+
+        // Assert
+        Assertions.assertThat(limiter.trackedClients()).isLessThanOrEqualTo(CLIENTS);
+        Assertions.assertThat(keys).hasSize(CLIENTS);
+    }
+
+    private static String[] clientKeys(int count) {
+        String[] keys = new String[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = "10." + ((i >>> 16) & 0xff) + "." + ((i >>> 8) & 0xff) + "." + (i & 0xff);
+        }
+        return keys;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
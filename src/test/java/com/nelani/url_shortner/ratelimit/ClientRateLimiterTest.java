@@ -0,0 +1,105 @@
+package com.nelani.url_shortner.ratelimit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ClientRateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(0);
+
+    @Test
+    public void ClientRateLimiterTest_TryAcquire_AllowsBurstThenRefills() {
+        // Arrange
+        ClientRateLimiter limiter = new ClientRateLimiter(10, 5, 0, 0, 100, 4, clock::get);
+
+        // Act + Assert
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertThat(limiter.tryAcquire("10.0.0.1")).isTrue();
+        }
+        Assertions.assertThat(limiter.tryAcquire("10.0.0.1")).isFalse();
+
+        clock.addAndGet(SECOND / 10);
+        Assertions.assertThat(limiter.tryAcquire("10.0.0.1")).isTrue();
+        Assertions.assertThat(limiter.tryAcquire("10.0.0.1")).isFalse();
+    }
+
+    @Test
+    public void ClientRateLimiterTest_TryAcquire_ClientsAreIndependent() {
+        // Arrange
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 2, 0, 0, 100, 4, clock::get);
+
+        // Act
+        limiter.tryAcquire("10.0.0.1");
+        limiter.tryAcquire("10.0.0.1");
+
+        // Assert
+        Assertions.assertThat(limiter.tryAcquire("10.0.0.1")).isFalse();
+        Assertions.assertThat(limiter.tryAcquire("10.0.0.2")).isTrue();
+    }
+
+    @Test
+    public void ClientRateLimiterTest_TryAcquire_GlobalCeilingAppliesAcrossClients() {
+        // Arrange
+        ClientRateLimiter limiter = new ClientRateLimiter(100, 100, 1, 3, 100, 4, clock::get);
+
+        // Act + Assert
+        Assertions.assertThat(limiter.tryAcquire("10.0.0.1")).isTrue();
+        Assertions.assertThat(limiter.tryAcquire("10.0.0.2")).isTrue();
+        Assertions.assertThat(limiter.tryAcquire("10.0.0.3")).isTrue();
+        Assertions.assertThat(limiter.tryAcquire("10.0.0.4")).isFalse();
+    }
+
+    @Test
+    public void ClientRateLimiterTest_TryAcquire_GlobalRejectionKeepsTheClientsPermit() {
+        // Arrange
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 1, 1, 1, 100, 4, clock::get);
+
+        // Act
+        boolean first = limiter.tryAcquire("10.0.0.1");
+        boolean rejectedByCeiling = limiter.tryAcquire("10.0.0.2");
+        limiter.evictIdle();
+
+        // Assert: the second client's bucket is still full, so it is idle and dropped
+        Assertions.assertThat(first).isTrue();
+        Assertions.assertThat(rejectedByCeiling).isFalse();
+        Assertions.assertThat(limiter.trackedClients()).isEqualTo(1);
+        clock.addAndGet(SECOND);
+        Assertions.assertThat(limiter.tryAcquire("10.0.0.2")).isTrue();
+    }
+
+    @Test
+    public void ClientRateLimiterTest_TryAcquire_StaysBoundedAndEvictsIdleClients() {
+        // Arrange
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 1, 0, 0, 64, 4, clock::get);
+
+        // Act
+        for (int i = 0; i < 10_000; i++) {
+            limiter.tryAcquire("client-" + i);
+        }
+
+        // Assert
+        Assertions.assertThat(limiter.trackedClients()).isLessThanOrEqualTo(64);
+
+        clock.addAndGet(SECOND);
+        limiter.evictIdle();
+        Assertions.assertThat(limiter.trackedClients()).isZero();
+    }
+
+    @Test
+    public void ClientRateLimiterTest_TryAcquire_RejectsNewClientsUntilTheSweepFreesRoom() {
+        // Arrange
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 1, 0, 0, 1, 1, clock::get);
+        limiter.tryAcquire("10.0.0.1");
+
+        // Act + Assert
+        Assertions.assertThat(limiter.tryAcquire("10.0.0.2")).isFalse();
+
+        clock.addAndGet(SECOND);
+        limiter.evictIdle();
+        Assertions.assertThat(limiter.tryAcquire("10.0.0.2")).isTrue();
+    }
+}
@@ -0,0 +1,154 @@
+package com.nelani.url_shortner.repository;
+
+import com.nelani.url_shortner.UrlShortenerApplication;
+import com.nelani.url_shortner.clicklog.ClickRecord;
+import com.nelani.url_shortner.dto.CreateUrlDTO;
+import com.nelani.url_shortner.model.RequestData;
+import com.nelani.url_shortner.model.ShortUrl;
+import com.nelani.url_shortner.response.UrlResponse;
+import com.nelani.url_shortner.service.UrlService;
+import com.nelani.url_shortner.service.impl.UrlShortenerAlgorithm;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Insert throughput of the two write paths: creating short URLs one at a time,
+ * as the bulk endpoint does, and storing clicks. Clicks are inserted one per
+ * transaction (the database sink), through JPA with 1000 per transaction with
+ * JDBC batching off and on, and through the JDBC batch of the click log loader.
+ *
+ * Runs on in-memory H2 by default. To measure PostgreSQL, point the prod
+ * profile at a scratch database (rows are left behind):
+ *
+ * mvn test -Pperformance -Dtest=PersistenceBatchingBenchmarkTest -Dspring.profiles.active=prod
+ *     -DJDBC_DATABASE_URL=jdbc:postgresql://localhost:5432/bench -DDATABASE_USERNAME=... -DDATABASE_PASSWORD=...
+ */
+@Tag("benchmark")
+public class PersistenceBatchingBenchmarkTest {
+
+    private static final int URLS = 2_000;
+    private static final int SINGLE_CLICKS = 5_000;
+    private static final int BATCHED_CLICKS = 50_000;
+    private static final int CLICKS_PER_TRANSACTION = 1_000;
+
+    @Test
+    public void PersistenceBatchingBenchmarkTest_BulkCreateAndClickInserts() {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(UrlShortenerApplication.class)
+                .properties(
+                        "server.port=0",
+                        "redirect.cache.warmup.enabled=false",
+                        "logging.level.com.nelani=WARN",
+                        "logging.level.org.springframework=WARN")
+                .run()) {
+
+            final UrlService urlService = context.getBean(UrlService.class);
+            final ShortUrlRepository shortUrlRepository = context.getBean(ShortUrlRepository.class);
+            final RequestDataRepository requestDataRepository = context.getBean(RequestDataRepository.class);
+            final TransactionTemplate transactionTemplate = new TransactionTemplate(
+                    context.getBean(PlatformTransactionManager.class));
+            final EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(
+                    context.getBean(EntityManagerFactory.class));
+            final String run = UUID.randomUUID().toString().substring(0, 8);
+
+            // Act: short URLs, each in its own transaction
+            long start = System.nanoTime();
+            UrlResponse first = null;
+            for (int i = 0; i < URLS; i++) {
+                UrlResponse created = urlService.createShortUrl(
+                        new CreateUrlDTO("https://example.com/" + run + "/" + i, null, null));
+                if (first == null) {
+                    first = created;
+                }
+            }
+            final double createPerSecond = URLS / seconds(start);
+
+            final ShortUrl shortUrl = shortUrlRepository
+                    .findByShortCode(UrlShortenerAlgorithm.decode(first.shortUrl()))
+                    .orElseThrow();
+
+            // Act: one click per transaction
+            start = System.nanoTime();
+            for (int i = 0; i < SINGLE_CLICKS; i++) {
+                requestDataRepository.save(click(shortUrl, i));
+            }
+            final double singlePerSecond = SINGLE_CLICKS / seconds(start);
+
+            // Act: JPA, JDBC batching off and on
+            final double unbatchedPerSecond = jpaClicks(transactionTemplate, entityManager, requestDataRepository,
+                    shortUrl, 1);
+            final double batchedPerSecond = jpaClicks(transactionTemplate, entityManager, requestDataRepository,
+                    shortUrl, null);
+
+            // Act: JDBC batch, as loaded from the click log
+            start = System.nanoTime();
+            for (int done = 0; done < BATCHED_CLICKS; done += CLICKS_PER_TRANSACTION) {
+                final List<ClickRecord> batch = new ArrayList<>(CLICKS_PER_TRANSACTION);
+                for (int i = 0; i < CLICKS_PER_TRANSACTION; i++) {
+                    batch.add(new ClickRecord(UUID.randomUUID(), shortUrl.getId(), System.currentTimeMillis(),
+                            "device" + (done + i), "Kenya", "Nairobi", null, "Mozilla/5.0"));
+                }
+                transactionTemplate.executeWithoutResult(status -> requestDataRepository.insertClicks(batch));
+            }
+            final double jdbcPerSecond = BATCHED_CLICKS / seconds(start);
+
+            // Report
+            System.out.printf("database: %s%n", context.getEnvironment().getProperty("spring.datasource.url"));
+            System.out.printf("create short URL:             %,10.0f /s%n", createPerSecond);
+            System.out.printf("click, one per transaction:   %,10.0f /s%n", singlePerSecond);
+            System.out.printf("clicks, JPA without batching: %,10.0f /s%n", unbatchedPerSecond);
+            System.out.printf("clicks, JPA with batching:    %,10.0f /s%n", batchedPerSecond);
+            System.out.printf("clicks, JDBC batch:           %,10.0f /s%n", jdbcPerSecond);
+
+            // Assert
+            Assertions.assertThat(requestDataRepository.countByShortUrl(shortUrl))
+                    .isEqualTo(SINGLE_CLICKS + 3L * BATCHED_CLICKS);
+        }
+    }
+
+    /**
+     * @param batchSize JDBC batch size for the session, null for the configured one
+     */
+    private static double jpaClicks(TransactionTemplate transactionTemplate, EntityManager entityManager,
+            RequestDataRepository requestDataRepository, ShortUrl shortUrl, Integer batchSize) {
+        final long start = System.nanoTime();
+        for (int done = 0; done < BATCHED_CLICKS; done += CLICKS_PER_TRANSACTION) {
+            final int offset = done;
+            transactionTemplate.executeWithoutResult(status -> {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+                final List<RequestData> batch = new ArrayList<>(CLICKS_PER_TRANSACTION);
+                for (int i = 0; i < CLICKS_PER_TRANSACTION; i++) {
+                    batch.add(click(shortUrl, offset + i));
+                }
+                requestDataRepository.saveAll(batch);
+            });
+        }
+        return BATCHED_CLICKS / seconds(start);
+    }
+
+    private static RequestData click(ShortUrl shortUrl, int i) {
+        return RequestData.builder()
+                .shortUrl(shortUrl)
+                .deviceHash("device" + i)
+                .country("Kenya")
+                .city("Nairobi")
+                .userAgent("Mozilla/5.0")
+                .build();
+    }
+
+    private static double seconds(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1e9;
+    }
+}
@@ -0,0 +1,218 @@
+package com.nelani.url_shortner.repository;
+
+import com.nelani.url_shortner.id.UuidV7;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Click insert rate and stats query latency of request_data with the original
+ * index set (eight single-column indexes) and with the audited one. The
+ * queries are the ones RequestDataRepository runs.
+ *
+ * Runs on in-memory H2 with 200,000 clicks by default. PostgreSQL (which the
+ * covering indexes are designed for, through index-only scans) with:
+ *
+ * mvn test -Pperformance -Dtest=RequestDataIndexBenchmarkTest -Dbenchmark.rows=5000000
+ *     -Dbenchmark.jdbc-url=jdbc:postgresql://localhost:5432/bench -Dbenchmark.username=... -Dbenchmark.password=...
+ */
+@Tag("benchmark")
+public class RequestDataIndexBenchmarkTest {
+
+    private static final int BATCH = 1_000;
+    private static final int SHORT_URLS = 1_000;
+    private static final int QUERY_RUNS = 7;
+
+    private static final List<String> ORIGINAL_INDEXES = List.of(
+            "CREATE INDEX ix_bench_shorturl_id ON ix_request_data (short_url_id)",
+            "CREATE INDEX ix_bench_device_hash ON ix_request_data (device_hash)",
+            "CREATE INDEX ix_bench_shorturl_devicehash ON ix_request_data (short_url_id, device_hash)",
+            "CREATE INDEX ix_bench_country ON ix_request_data (country)",
+            "CREATE INDEX ix_bench_city ON ix_request_data (city)",
+            "CREATE INDEX ix_bench_referrer ON ix_request_data (referrer)",
+            "CREATE INDEX ix_bench_user_agent ON ix_request_data (user_agent)",
+            "CREATE INDEX ix_bench_timestamp ON ix_request_data (timestamp)");
+
+    private static final List<String> AUDITED_INDEXES = List.of(
+            "CREATE INDEX ix_bench_shorturl_devicehash ON ix_request_data (short_url_id, device_hash)",
+            "CREATE INDEX ix_bench_country_devicehash ON ix_request_data (country, device_hash)",
+            "CREATE INDEX ix_bench_city_devicehash ON ix_request_data (city, device_hash)",
+            "CREATE INDEX ix_bench_timestamp ON ix_request_data (timestamp)");
+
+    // Name, then SQL with at most one parameter: the id of the busiest short URL
+    private static final String[][] QUERIES = {
+            { "clicks of a URL", "SELECT COUNT(*) FROM ix_request_data WHERE short_url_id = ?" },
+            { "distinct devices of a URL",
+                    "SELECT COUNT(DISTINCT device_hash) FROM ix_request_data WHERE short_url_id = ?" },
+            { "top URLs", """
+                    SELECT su.short_code, COUNT(rd.device_hash) AS c, COUNT(DISTINCT rd.device_hash)
+                    FROM ix_request_data rd JOIN ix_short_url su ON su.id = rd.short_url_id
+                    GROUP BY su.short_code ORDER BY c DESC LIMIT 20""" },
+            { "top countries", """
+                    SELECT country, COUNT(device_hash) AS c, COUNT(DISTINCT device_hash) FROM ix_request_data
+                    WHERE country IS NOT NULL GROUP BY country ORDER BY c DESC LIMIT 20""" },
+            { "top cities", """
+                    SELECT city, COUNT(device_hash) AS c, COUNT(DISTINCT device_hash) FROM ix_request_data
+                    WHERE city IS NOT NULL GROUP BY city ORDER BY c DESC LIMIT 20""" },
+            { "top user agents", """
+                    SELECT user_agent, COUNT(device_hash) AS c, COUNT(DISTINCT device_hash) FROM ix_request_data
+                    WHERE user_agent IS NOT NULL GROUP BY user_agent ORDER BY c DESC LIMIT 20""" },
+            { "archivable range", """
+                    SELECT id, short_url_id, timestamp FROM ix_request_data
+                    WHERE timestamp >= TIMESTAMP '2000-01-01 00:00:00' AND timestamp < TIMESTAMP '2000-01-01 01:00:00'
+                    ORDER BY timestamp LIMIT 1000""" },
+            { "export of a URL", "SELECT * FROM ix_request_data WHERE short_url_id = ? ORDER BY timestamp" },
+    };
+
+    private final String url = System.getProperty("benchmark.jdbc-url", "jdbc:h2:mem:index-audit;DB_CLOSE_DELAY=-1");
+    private final String username = System.getProperty("benchmark.username", "sa");
+    private final String password = System.getProperty("benchmark.password", "");
+    private final long rows = Long.getLong("benchmark.rows", 200_000L);
+
+    @Test
+    public void RequestDataIndexBenchmarkTest_OriginalVersusAuditedIndexes() throws Exception {
+        try (Connection connection = DriverManager.getConnection(url, username, password)) {
+            final boolean postgres = connection.getMetaData().getDatabaseProductName().equals("PostgreSQL");
+
+            // Act
+            Result original = run(connection, postgres, ORIGINAL_INDEXES);
+            Result audited = run(connection, postgres, AUDITED_INDEXES);
+
+            // Report
+            System.out.printf("%,d clicks on %s%n", rows, connection.getMetaData().getDatabaseProductName());
+            System.out.printf("%-28s %14s %14s%n", "", "original (8)", "audited (4)");
+            System.out.printf("%-28s %14.0f %14.0f%n", "inserts/s", original.insertsPerSecond(),
+                    audited.insertsPerSecond());
+            if (postgres) {
+                System.out.printf("%-28s %14.1f %14.1f%n", "index MB", original.indexMb(), audited.indexMb());
+            }
+            for (int q = 0; q < QUERIES.length; q++) {
+                System.out.printf("%-28s %11.2f ms %11.2f ms%n", QUERIES[q][0],
+                        original.queryMs()[q], audited.queryMs()[q]);
+            }
+
+            // Assert
+            Assertions.assertThat(original.rowCount()).isEqualTo(rows);
+            Assertions.assertThat(audited.rowCount()).isEqualTo(rows);
+        }
+    }
+
+    private Result run(Connection connection, boolean postgres, List<String> indexes) throws Exception {
+        connection.setAutoCommit(true);
+        final UUID[] shortUrlIds = new UUID[SHORT_URLS];
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS ix_request_data");
+            statement.execute("DROP TABLE IF EXISTS ix_short_url");
+            statement.execute("CREATE TABLE ix_short_url (id UUID PRIMARY KEY, short_code VARCHAR(12) NOT NULL)");
+            statement.execute("""
+                    CREATE TABLE ix_request_data (id UUID PRIMARY KEY, short_url_id UUID NOT NULL,
+                        device_hash VARCHAR(64) NOT NULL, country VARCHAR(100), city VARCHAR(100),
+                        referrer VARCHAR(2048), user_agent VARCHAR(512), timestamp TIMESTAMP NOT NULL)""");
+            for (String index : indexes) {
+                statement.execute(index);
+            }
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO ix_short_url (id, short_code) VALUES (?, ?)")) {
+            for (int i = 0; i < SHORT_URLS; i++) {
+                shortUrlIds[i] = UuidV7.generate();
+                insert.setObject(1, shortUrlIds[i]);
+                insert.setString(2, "code" + i);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+
+        // Same clicks for both index sets: a few URLs, countries and user agents take most of the traffic
+        final Random random = new Random(42);
+        connection.setAutoCommit(false);
+        final long start = System.nanoTime();
+        try (PreparedStatement insert = connection.prepareStatement("""
+                INSERT INTO ix_request_data (id, short_url_id, device_hash, country, city, referrer, user_agent, timestamp)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?)""")) {
+            final long firstClick = Timestamp.valueOf("2000-01-01 00:00:00").getTime();
+            for (long i = 0; i < rows; i++) {
+                insert.setObject(1, UuidV7.generate());
+                insert.setObject(2, shortUrlIds[skewed(random, SHORT_URLS)]);
+                insert.setString(3, String.format("%064x", random.nextLong(rows / 3 + 1)));
+                insert.setString(4, "Country " + skewed(random, 200));
+                insert.setString(5, "City " + skewed(random, 5_000));
+                insert.setString(6, "https://referrer" + skewed(random, 10_000) + ".example.com/some/path?q=" + i);
+                insert.setString(7, "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/"
+                        + skewed(random, 500) + ".0.0.0 Safari/537.36");
+                insert.setTimestamp(8, new Timestamp(firstClick + i * 100));
+                insert.addBatch();
+                if ((i + 1) % BATCH == 0 || i == rows - 1) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+        }
+        final double insertsPerSecond = rows / ((System.nanoTime() - start) / 1e9);
+        connection.setAutoCommit(true);
+
+        double indexMb = Double.NaN;
+        if (postgres) {
+            try (Statement statement = connection.createStatement()) {
+                // Sets the visibility map, without it PostgreSQL cannot answer from the index alone
+                statement.execute("VACUUM ANALYZE ix_request_data");
+                try (ResultSet rs = statement.executeQuery("SELECT pg_indexes_size('ix_request_data')")) {
+                    rs.next();
+                    indexMb = rs.getLong(1) / (1024.0 * 1024.0);
+                }
+            }
+        }
+
+        final double[] queryMs = new double[QUERIES.length];
+        for (int q = 0; q < QUERIES.length; q++) {
+            queryMs[q] = medianMs(connection, QUERIES[q][1], shortUrlIds[0]);
+        }
+
+        long rowCount;
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM ix_request_data")) {
+            rs.next();
+            rowCount = rs.getLong(1);
+        }
+        return new Result(rowCount, insertsPerSecond, indexMb, queryMs);
+    }
+
+    private static double medianMs(Connection connection, String sql, UUID busiestShortUrl) throws Exception {
+        final double[] runs = new double[QUERY_RUNS];
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            if (sql.contains("?")) {
+                statement.setObject(1, busiestShortUrl);
+            }
+            for (int r = 0; r < QUERY_RUNS; r++) {
+                final long start = System.nanoTime();
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        rs.getObject(1);
+                    }
+                }
+                runs[r] = (System.nanoTime() - start) / 1e6;
+            }
+        }
+        Arrays.sort(runs);
+        return runs[QUERY_RUNS / 2];
+    }
+
+    // Index 0 is the most likely, roughly a Zipf distribution
+    private static int skewed(Random random, int n) {
+        return (int) Math.min(n - 1, Math.floor(Math.pow(n + 1, random.nextDouble()) - 1));
+    }
+
+    private record Result(long rowCount, double insertsPerSecond, double indexMb, double[] queryMs) {
+    }
+}
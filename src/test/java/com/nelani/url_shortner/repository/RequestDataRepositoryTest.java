@@ -1,8 +1,11 @@
 package com.nelani.url_shortner.repository;
 
+import com.nelani.url_shortner.clicklog.ClickRecord;
 import com.nelani.url_shortner.dto.UrlAccessStats;
 import com.nelani.url_shortner.model.RequestData;
 import com.nelani.url_shortner.model.ShortUrl;
+import com.nelani.url_shortner.model.SortDirection;
+import com.nelani.url_shortner.model.StatsGroupBy;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,7 +18,11 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2, replace = AutoConfigureTestDatabase.Replace.ANY)
@@ -128,6 +135,29 @@ public class RequestDataRepositoryTest {
         Assertions.assertThat(results).extracting(UrlAccessStats::getDeviceCount).contains(1L, 1L);
     }
 
+    @Test
+    public void RequestDataRepositoryTest_FindMostAccessedUrls_ReturnsTheTopCodesWithinTheTimeout() {
+        // Arrange
+        RequestData requestData2 = RequestData.builder()
+                .deviceHash("deviceHash2")
+                .userAgent("userAgent2")
+                .referrer("referrer2")
+                .shortUrl(shortUrl)
+                .city("city2")
+                .country("country2")
+                .build();
+
+        // Act
+        requestDataRepository.save(requestData);
+        requestDataRepository.save(requestData2);
+
+        // Assert
+        List<UrlAccessStats> results = requestDataRepository.findMostAccessedUrls(1, Duration.ofMillis(200));
+        Assertions.assertThat(results).extracting(UrlAccessStats::getValue).containsExactly(shortUrl.getShortCode());
+        Assertions.assertThat(results).extracting(UrlAccessStats::getAccessCount).containsExactly(2L);
+        Assertions.assertThat(results).extracting(UrlAccessStats::getDeviceCount).containsExactly(2L);
+    }
+
     @Test
     public void RequestDataRepositoryTest_MostAccessedCountries_ReturnsLong() {
         // Arrange
@@ -219,4 +249,111 @@ public class RequestDataRepositoryTest {
         Assertions.assertThat(result).isEqualTo(1);
     }
 
+    @Test
+    public void RequestDataRepositoryTest_FindStatsPageAfter_SeeksPastCursor() {
+        // Arrange
+        RequestData requestData2 = RequestData.builder()
+                .deviceHash("deviceHash")
+                .userAgent("userAgent2")
+                .referrer("referrer2")
+                .shortUrl(shortUrl)
+                .city("city2")
+                .country("country2")
+                .build();
+
+        // Act
+        requestDataRepository.save(requestData);
+        requestDataRepository.save(requestData2);
+
+        // Assert
+        List<UrlAccessStats> firstPage = requestDataRepository.findStatsPageAfter(
+                StatsGroupBy.COUNTRY, SortDirection.DESC, null, null, 1);
+        Assertions.assertThat(firstPage).extracting(UrlAccessStats::getValue).containsExactly("country2");
+        Assertions.assertThat(firstPage).extracting(UrlAccessStats::getAccessCount).containsExactly(2L);
+
+        List<UrlAccessStats> secondPage = requestDataRepository.findStatsPageAfter(
+                StatsGroupBy.COUNTRY, SortDirection.DESC, 2L, "country2", 1);
+        Assertions.assertThat(secondPage).extracting(UrlAccessStats::getValue).containsExactly("country");
+
+        List<UrlAccessStats> lastPage = requestDataRepository.findStatsPageAfter(
+                StatsGroupBy.COUNTRY, SortDirection.DESC, 1L, "country", 1);
+        Assertions.assertThat(lastPage).isEmpty();
+    }
+
+    @Test
+    public void RequestDataRepositoryTest_InsertClicks_SkipsLoadedAndOrphanedClicks() {
+        // Arrange
+        ClickRecord click = new ClickRecord(UUID.randomUUID(), shortUrl.getId(), System.currentTimeMillis(),
+                "deviceHash", "country", "city", "referrer", "userAgent");
+        ClickRecord orphan = new ClickRecord(UUID.randomUUID(), UUID.randomUUID(), System.currentTimeMillis(),
+                "deviceHash", null, null, null, null);
+        long before = requestDataRepository.count();
+        shortUrlRepository.flush();
+
+        // Act
+        int first = requestDataRepository.insertClicks(List.of(click, orphan));
+        int again = requestDataRepository.insertClicks(List.of(click));
+
+        // Assert
+        Assertions.assertThat(first).isEqualTo(1);
+        Assertions.assertThat(again).isZero();
+        Assertions.assertThat(requestDataRepository.count()).isEqualTo(before + 1);
+        Assertions.assertThat(requestDataRepository.findById(click.id())).hasValueSatisfying(saved -> {
+            Assertions.assertThat(saved.getShortUrl().getId()).isEqualTo(shortUrl.getId());
+            Assertions.assertThat(saved.getReferrer()).isEqualTo("referrer");
+        });
+    }
+
+    @Test
+    public void RequestDataRepositoryTest_FindArchivable_SkipsUrlsWithAccessLimit() {
+        // Arrange
+        ShortUrl unlimited = shortUrlRepository.save(ShortUrl.builder()
+                .shortCode("unlimited")
+                .originalUrl("https://unlimited.com")
+                .build());
+        LocalDateTime clickedAt = LocalDateTime.of(2025, 1, 1, 12, 0);
+        RequestData old = requestDataRepository.save(RequestData.builder()
+                .deviceHash("deviceHash")
+                .shortUrl(unlimited)
+                .country("country")
+                .timestamp(clickedAt)
+                .build());
+        requestDataRepository.flush();
+        LocalDateTime before = LocalDateTime.now().plusDays(1);
+
+        // Act
+        LocalDateTime oldest = requestDataRepository.findOldestArchivableBefore(before);
+        List<ClickRecord> archivable = requestDataRepository.findArchivable(oldest, before, 10);
+        int deleted = requestDataRepository.deleteAllByIds(List.of(old.getId()));
+
+        // Assert
+        Assertions.assertThat(oldest).isEqualTo(clickedAt);
+        Assertions.assertThat(archivable).extracting(ClickRecord::id).containsExactly(old.getId());
+        Assertions.assertThat(archivable.getFirst().country()).isEqualTo("country");
+        Assertions.assertThat(deleted).isEqualTo(1);
+        Assertions.assertThat(requestDataRepository.findOldestArchivableBefore(before)).isNull();
+    }
+
+    @Test
+    public void RequestDataRepositoryTest_ForEachClick_StreamsRangeInTimestampOrder() {
+        // Arrange
+        LocalDateTime start = LocalDateTime.of(2025, 3, 1, 0, 0);
+        for (int hour = 3; hour >= 0; hour--) {
+            requestDataRepository.save(RequestData.builder()
+                    .deviceHash("device" + hour)
+                    .shortUrl(shortUrl)
+                    .timestamp(start.plusHours(hour))
+                    .build());
+        }
+        requestDataRepository.flush();
+        List<ClickRecord> clicks = new ArrayList<>();
+
+        // Act
+        requestDataRepository.forEachClick(shortUrl.getId(), start.plusHours(1), start.plusHours(3), 1, clicks::add);
+
+        // Assert
+        Assertions.assertThat(clicks).extracting(ClickRecord::deviceHash).containsExactly("device1", "device2");
+        Assertions.assertThat(clicks).extracting(ClickRecord::shortUrlId).containsOnly(shortUrl.getId());
+    }
+
 }
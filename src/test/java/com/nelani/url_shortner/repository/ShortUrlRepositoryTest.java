@@ -1,7 +1,11 @@
 package com.nelani.url_shortner.repository;
 
 import com.nelani.url_shortner.model.ShortUrl;
+import com.nelani.url_shortner.model.ShortUrlSortField;
+import com.nelani.url_shortner.model.SortDirection;
+import com.nelani.url_shortner.store.RedirectEntry;
 import org.assertj.core.api.Assertions;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,12 +14,15 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.UUID;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.nelani.url_shortner.repository.ShortUrlRepositoryTest$LastSelect")
 @AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2, replace = AutoConfigureTestDatabase.Replace.ANY)
 @ActiveProfiles("test")
 public class ShortUrlRepositoryTest {
@@ -23,6 +30,22 @@ public class ShortUrlRepositoryTest {
     @Autowired
     private ShortUrlRepository shortUrlRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Keeps the SQL of the last short_url query, to explain it
+    public static class LastSelect implements StatementInspector {
+        static volatile String sql;
+
+        @Override
+        public String inspect(String statement) {
+            if (statement.startsWith("select") && statement.contains("short_url")) {
+                sql = statement;
+            }
+            return statement;
+        }
+    }
+
     private ShortUrl shortUrl;
 
     @BeforeEach
@@ -126,4 +149,133 @@ public class ShortUrlRepositoryTest {
         Assertions.assertThat(url.getAccessLimit()).isEqualTo(shortUrl.getAccessLimit());
     }
 
+    @Test
+    public void ShortUrlRepositoryTest_FindExpiredIdsAfter_ReturnsOrderedIds() {
+        // Arrange
+        LocalDateTime cutOffDate = LocalDateTime.now().plusDays(30);
+        ShortUrl shortUrl2 = ShortUrl.builder()
+                .shortCode("shortCode2")
+                .originalUrl("https://originalUrl2.com")
+                .expiresAt(LocalDateTime.now().plusDays(1))
+                .build();
+
+        // Act
+        shortUrlRepository.save(shortUrl);
+        shortUrlRepository.save(shortUrl2);
+
+        // Assert
+        List<UUID> firstChunk = shortUrlRepository.findExpiredIdsAfter(
+                cutOffDate, new UUID(0L, 0L), PageRequest.of(0, 1));
+        Assertions.assertThat(firstChunk).hasSize(1);
+
+        List<UUID> secondChunk = shortUrlRepository.findExpiredIdsAfter(
+                cutOffDate, firstChunk.getFirst(), PageRequest.of(0, 1));
+        Assertions.assertThat(secondChunk).hasSize(1);
+        Assertions.assertThat(secondChunk).doesNotContainAnyElementsOf(firstChunk);
+
+        List<UUID> lastChunk = shortUrlRepository.findExpiredIdsAfter(
+                cutOffDate, secondChunk.getFirst(), PageRequest.of(0, 1));
+        Assertions.assertThat(lastChunk).isEmpty();
+    }
+
+    @Test
+    public void ShortUrlRepositoryTest_FindExpiredIdsWithPrefixAfter_OnlyReturnsCodesWithThePrefixes() {
+        // Arrange
+        LocalDateTime cutOffDate = LocalDateTime.now().plusDays(30);
+        ShortUrl other = ShortUrl.builder()
+                .shortCode("AnotherCode")
+                .originalUrl("https://originalUrl2.com")
+                .expiresAt(LocalDateTime.now().plusDays(1))
+                .build();
+
+        // Act
+        shortUrlRepository.save(shortUrl);
+        shortUrlRepository.save(other);
+
+        // Assert
+        List<UUID> ids = shortUrlRepository.findExpiredIdsWithPrefixAfter(
+                cutOffDate, new UUID(0L, 0L), List.of("A", "B"), PageRequest.of(0, 10));
+        Assertions.assertThat(ids).containsExactly(other.getId());
+    }
+
+    @Test
+    public void ShortUrlRepositoryTest_FindPageAfter_SeeksThroughTheSortKeyIndex() {
+        // Arrange
+        shortUrlRepository.save(shortUrl);
+        ShortUrl last = shortUrlRepository.findPageAfter(
+                ShortUrlSortField.CREATED_AT, SortDirection.ASC, null, null, 1).getLast();
+
+        // Act
+        shortUrlRepository.findPageAfter(
+                ShortUrlSortField.CREATED_AT, SortDirection.ASC, last.getCreatedAt(), last.getId(), 10);
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + LastSelect.sql, String.class,
+                last.getCreatedAt(), last.getId(), 10);
+
+        // Assert: a range scan from the cursor, read in index order without a sort
+        Assertions.assertThat(plan).containsIgnoringCase("idx_createdat_id: created_at >=");
+        Assertions.assertThat(plan).contains("index sorted");
+    }
+
+    @Test
+    public void ShortUrlRepositoryTest_FindPageAfter_SeeksPastCursorWithNullsLast() {
+        // Arrange
+        ShortUrl noLimit = ShortUrl.builder()
+                .shortCode("noLimit")
+                .originalUrl("https://noLimit.com")
+                .build();
+        ShortUrl smallLimit = ShortUrl.builder()
+                .shortCode("small")
+                .originalUrl("https://small.com")
+                .accessLimit(1L)
+                .build();
+
+        // Act
+        shortUrlRepository.save(shortUrl);
+        shortUrlRepository.save(noLimit);
+        shortUrlRepository.save(smallLimit);
+
+        // Assert
+        List<ShortUrl> firstPage = shortUrlRepository.findPageAfter(
+                ShortUrlSortField.ACCESS_LIMIT, SortDirection.DESC, null, null, 2);
+        Assertions.assertThat(firstPage).extracting(ShortUrl::getShortCode)
+                .containsExactly(shortUrl.getShortCode(), "small");
+
+        ShortUrl last = firstPage.getLast();
+        List<ShortUrl> secondPage = shortUrlRepository.findPageAfter(
+                ShortUrlSortField.ACCESS_LIMIT, SortDirection.DESC, last.getAccessLimit(), last.getId(), 2);
+        Assertions.assertThat(secondPage).extracting(ShortUrl::getShortCode)
+                .containsExactly("noLimit");
+    }
+
+    @Test
+    public void ShortUrlRepositoryTest_FindRedirectEntriesAfter_ProjectsInIdOrder() {
+        // Arrange
+        ShortUrl other = ShortUrl.builder()
+                .shortCode("other")
+                .originalUrl("https://other.com")
+                .build();
+
+        // Act
+        shortUrlRepository.save(shortUrl);
+        shortUrlRepository.save(other);
+
+        // Assert
+        List<RedirectEntry> firstBatch = shortUrlRepository.findRedirectEntriesAfter(
+                new UUID(0L, 0L), PageRequest.of(0, 1));
+        Assertions.assertThat(firstBatch).hasSize(1);
+
+        List<RedirectEntry> secondBatch = shortUrlRepository.findRedirectEntriesAfter(
+                firstBatch.getFirst().id(), PageRequest.of(0, 1));
+        Assertions.assertThat(secondBatch).hasSize(1);
+        Assertions.assertThat(List.of(firstBatch.getFirst().shortCode(), secondBatch.getFirst().shortCode()))
+                .containsExactlyInAnyOrder(shortUrl.getShortCode(), "other");
+
+        RedirectEntry entry = firstBatch.getFirst().shortCode().equals("other")
+                ? secondBatch.getFirst()
+                : firstBatch.getFirst();
+        Assertions.assertThat(entry.originalUrl()).isEqualTo(shortUrl.getOriginalUrl());
+        Assertions.assertThat(entry.accessLimit()).isEqualTo(5L);
+        Assertions.assertThat(entry.expires()).isTrue();
+    }
+
 }
@@ -0,0 +1,83 @@
+package com.nelani.url_shortner.repository;
+
+import com.nelani.url_shortner.model.ShortUrl;
+import com.nelani.url_shortner.model.UrlChange;
+import com.nelani.url_shortner.model.UrlChangeType;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2, replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+public class UrlChangeRepositoryTest {
+
+    @Autowired
+    private UrlChangeRepository urlChangeRepository;
+
+    @Autowired
+    private ShortUrlRepository shortUrlRepository;
+
+    @Test
+    public void UrlChangeRepositoryTest_FindChangesAfter_ReturnsChangesInIdOrder() {
+        // Arrange
+        UrlChange first = urlChangeRepository.save(UrlChange.builder()
+                .shortCode("first").changeType(UrlChangeType.CREATED).changedAt(LocalDateTime.now()).build());
+        UrlChange second = urlChangeRepository.save(UrlChange.builder()
+                .shortCode("second").changeType(UrlChangeType.DELETED).changedAt(LocalDateTime.now()).build());
+
+        // Act
+        List<UrlChange> changes = urlChangeRepository.findChangesAfter(first.getId(), PageRequest.of(0, 10));
+
+        // Assert
+        Assertions.assertThat(changes).extracting(UrlChange::getId).containsExactly(second.getId());
+        Assertions.assertThat(urlChangeRepository.findMaxId()).isEqualTo(second.getId());
+        Assertions.assertThat(urlChangeRepository.findMinId()).isEqualTo(first.getId());
+    }
+
+    @Test
+    public void UrlChangeRepositoryTest_RecordDeletions_LogsShortCodesOfIds() {
+        // Arrange
+        ShortUrl shortUrl = shortUrlRepository.save(ShortUrl.builder()
+                .shortCode("expired")
+                .originalUrl("https://expired.com")
+                .build());
+
+        // Act
+        int recorded = urlChangeRepository.recordDeletions(List.of(shortUrl.getId()), LocalDateTime.now());
+
+        // Assert
+        Assertions.assertThat(recorded).isEqualTo(1);
+        Assertions.assertThat(urlChangeRepository.findAll())
+                .singleElement()
+                .satisfies(change -> {
+                    Assertions.assertThat(change.getShortCode()).isEqualTo("expired");
+                    Assertions.assertThat(change.getChangeType()).isEqualTo(UrlChangeType.DELETED);
+                });
+    }
+
+    @Test
+    public void UrlChangeRepositoryTest_DeleteOlderThan_KeepsRecentChanges() {
+        // Arrange
+        urlChangeRepository.save(UrlChange.builder()
+                .shortCode("old").changeType(UrlChangeType.UPDATED).changedAt(LocalDateTime.now().minusDays(2)).build());
+        urlChangeRepository.save(UrlChange.builder()
+                .shortCode("recent").changeType(UrlChangeType.UPDATED).changedAt(LocalDateTime.now()).build());
+
+        // Act
+        int deleted = urlChangeRepository.deleteOlderThan(LocalDateTime.now().minusDays(1));
+
+        // Assert
+        Assertions.assertThat(deleted).isEqualTo(1);
+        Assertions.assertThat(urlChangeRepository.findAll()).extracting(UrlChange::getShortCode)
+                .containsExactly("recent");
+    }
+}
@@ -0,0 +1,93 @@
+package com.nelani.url_shortner.schedule;
+
+import com.nelani.url_shortner.archive.ClickArchive;
+import com.nelani.url_shortner.clicklog.ClickRecord;
+import com.nelani.url_shortner.repository.RequestDataRepository;
+import com.nelani.url_shortner.shard.Shards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+public class ClickArchiverTest {
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private RequestDataRepository requestDataRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ClusterJobRunner clusterJobRunner;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ClickArchive clickArchive;
+    private ClickArchiver clickArchiver;
+
+    private final LocalDateTime cutoff = LocalDateTime.of(2026, 1, 10, 0, 0);
+    private final LocalDateTime oldest = LocalDateTime.of(2026, 1, 1, 8, 30);
+    private final List<ClickRecord> clicks = List.of(
+            new ClickRecord(UUID.randomUUID(), UUID.randomUUID(), 1_000L, "device", null, null, null, null),
+            new ClickRecord(UUID.randomUUID(), UUID.randomUUID(), 2_000L, "device", null, null, null, null));
+
+    @BeforeEach
+    public void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        clickArchive = new ClickArchive(true, directory);
+        clickArchiver = new ClickArchiver(clickArchive, requestDataRepository, transactionManager,
+                clusterJobRunner, Shards.single(), meterRegistry, 90, 1000);
+    }
+
+    @Test
+    public void ClickArchiverTest_ArchiveBefore_WritesFileAndDeletesRows() {
+        // Stub
+        when(requestDataRepository.findOldestArchivableBefore(cutoff)).thenReturn(oldest, (LocalDateTime) null);
+        when(requestDataRepository.findArchivable(oldest, LocalDateTime.of(2026, 1, 2, 0, 0), 1000))
+                .thenReturn(clicks);
+        when(requestDataRepository.deleteAllByIds(List.of(clicks.get(0).id(), clicks.get(1).id()))).thenReturn(2);
+
+        // Act
+        long archived = clickArchiver.archiveBefore(cutoff, () -> true);
+
+        // Assert
+        Assertions.assertThat(archived).isEqualTo(2);
+        Assertions.assertThat(clickArchive.files()).hasSize(1);
+        verify(transactionManager, times(1)).commit(any());
+        Assertions.assertThat(meterRegistry.get("analytics.archive.archived").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    public void ClickArchiverTest_ArchiveBefore_DiscardsFileWhenRowsChanged() {
+        // Stub
+        when(requestDataRepository.findOldestArchivableBefore(cutoff)).thenReturn(oldest);
+        when(requestDataRepository.findArchivable(eq(oldest), any(LocalDateTime.class), eq(1000))).thenReturn(clicks);
+        when(requestDataRepository.deleteAllByIds(any())).thenReturn(1);
+
+        // Act & Assert
+        Assertions.assertThatThrownBy(() -> clickArchiver.archiveBefore(cutoff, () -> true))
+                .isInstanceOf(IllegalStateException.class);
+        verify(transactionManager, times(1)).rollback(any());
+        Assertions.assertThat(clickArchive.files()).isEmpty();
+        Assertions.assertThat(directory.toFile().list()).isEmpty();
+    }
+}
@@ -0,0 +1,165 @@
+package com.nelani.url_shortner.schedule;
+
+import com.nelani.url_shortner.model.UrlChange;
+import com.nelani.url_shortner.model.UrlChangeType;
+import com.nelani.url_shortner.repository.ShortUrlRepository;
+import com.nelani.url_shortner.repository.UrlChangeRepository;
+import com.nelani.url_shortner.store.RedirectCache;
+import com.nelani.url_shortner.store.RedirectEntry;
+import com.nelani.url_shortner.store.RedirectStore;
+import com.nelani.url_shortner.store.RedirectStoreLoader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+public class UrlChangePollerTest {
+
+    @Mock
+    private UrlChangeRepository urlChangeRepository;
+
+    @Mock
+    private ShortUrlRepository shortUrlRepository;
+
+    @Mock
+    private RedirectStore redirectStore;
+
+    @Mock
+    private RedirectStoreLoader redirectStoreLoader;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RedirectCache redirectCache;
+    private UrlChangePoller poller;
+
+    @BeforeEach
+    public void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        redirectCache = new RedirectCache(100, 300, 10);
+        poller = new UrlChangePoller(urlChangeRepository, shortUrlRepository, redirectCache, redirectStore,
+                redirectStoreLoader, meterRegistry, 10, 60_000, 30_000, 24, 1000, null);
+    }
+
+    private static UrlChange change(long id, String shortCode, UrlChangeType changeType) {
+        return new UrlChange(id, shortCode, changeType, LocalDateTime.now());
+    }
+
+    private static RedirectEntry entry(String shortCode) {
+        return new RedirectEntry(UUID.randomUUID(), shortCode, "https://" + shortCode + ".com", null, null);
+    }
+
+    @Test
+    public void UrlChangePollerTest_Poll_EvictsChangedCodesFromCache() {
+        // Arrange
+        redirectCache.put(entry("changed"));
+        redirectCache.put(entry("untouched"));
+
+        // Stub
+        when(urlChangeRepository.findMaxId()).thenReturn(0L);
+        when(urlChangeRepository.findChangesAfter(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(change(1, "changed", UrlChangeType.UPDATED)));
+
+        // Act
+        poller.poll();
+
+        // Assert
+        Assertions.assertThat(redirectCache.get("changed")).isEmpty();
+        Assertions.assertThat(redirectCache.get("untouched")).isPresent();
+        verify(redirectStore, times(1)).markChangesApplied(1L);
+        Assertions.assertThat(meterRegistry.get("redirect.changes.lag").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void UrlChangePollerTest_Poll_RefreshesEnabledStore() {
+        // Arrange
+        RedirectEntry updated = entry("updated");
+
+        // Stub
+        when(redirectStore.isEnabled()).thenReturn(true);
+        when(urlChangeRepository.findMaxId()).thenReturn(0L);
+        when(urlChangeRepository.findChangesAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(
+                change(1, "updated", UrlChangeType.UPDATED),
+                change(2, "deleted", UrlChangeType.DELETED)));
+        when(shortUrlRepository.findRedirectEntriesByShortCodes(Set.of("updated", "deleted")))
+                .thenReturn(List.of(updated));
+
+        // Act
+        poller.poll();
+
+        // Assert
+        verify(redirectStore, times(1)).put(updated);
+        verify(redirectStore, times(1)).evict("deleted");
+    }
+
+    @Test
+    public void UrlChangePollerTest_PollOnce_PicksUpLateCommitsBehindCursor() {
+        // Stub
+        when(urlChangeRepository.findMaxId()).thenReturn(0L);
+        when(urlChangeRepository.findChangesAfter(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(change(1, "first", UrlChangeType.CREATED),
+                        change(3, "third", UrlChangeType.CREATED)));
+        when(urlChangeRepository.findChangesAfter(eq(3L), any(Pageable.class))).thenReturn(List.of());
+        when(urlChangeRepository.findAllById(Set.of(2L)))
+                .thenReturn(List.of(change(2, "second", UrlChangeType.UPDATED)));
+
+        // Act
+        poller.poll();
+        redirectCache.put(entry("second"));
+        poller.poll();
+
+        // Assert
+        Assertions.assertThat(redirectCache.get("second")).isEmpty();
+        verify(redirectStore, times(1)).markChangesApplied(1L);
+        verify(redirectStore, times(1)).markChangesApplied(3L);
+    }
+
+    @Test
+    public void UrlChangePollerTest_Poll_RebuildsStoreThatMissedPurgedChanges() {
+        // Stub
+        when(redirectStore.isEnabled()).thenReturn(true);
+        when(redirectStore.appliedChangeId()).thenReturn(5L);
+        when(urlChangeRepository.findMaxId()).thenReturn(100L);
+        when(urlChangeRepository.findMinId()).thenReturn(50L);
+        when(urlChangeRepository.findChangesAfter(anyLong(), any(Pageable.class))).thenReturn(List.of());
+
+        // Act
+        poller.poll();
+
+        // Assert
+        verify(redirectStoreLoader, times(1)).rebuildInBackground();
+        verify(urlChangeRepository, times(1)).findChangesAfter(eq(100L), any(Pageable.class));
+    }
+
+    @Test
+    public void UrlChangePollerTest_CheckStaleness_ClearsCacheWhileNoPollSucceeds() {
+        // Arrange
+        UrlChangePoller stalePoller = new UrlChangePoller(urlChangeRepository, shortUrlRepository, redirectCache,
+                redirectStore, redirectStoreLoader, meterRegistry, 10, 60_000, 0, 24, 1000, null);
+        redirectCache.put(entry("cached"));
+
+        // Act
+        poller.checkStaleness();
+
+        // Assert
+        Assertions.assertThat(redirectCache.get("cached")).isPresent();
+        stalePoller.checkStaleness();
+        Assertions.assertThat(redirectCache.size()).isZero();
+        verifyNoInteractions(urlChangeRepository);
+    }
+}
@@ -0,0 +1,142 @@
+package com.nelani.url_shortner.schedule;
+
+import com.nelani.url_shortner.repository.RequestDataRepository;
+import com.nelani.url_shortner.repository.ShortUrlRepository;
+import com.nelani.url_shortner.repository.UrlChangeRepository;
+import com.nelani.url_shortner.shard.Shards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+public class UrlExpirationSchedulerTest {
+
+    @Mock
+    private ShortUrlRepository shortUrlRepository;
+
+    @Mock
+    private RequestDataRepository requestDataRepository;
+
+    @Mock
+    private UrlChangeRepository urlChangeRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ClusterJobRunner clusterJobRunner;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UrlExpirationScheduler scheduler;
+
+    @BeforeEach
+    public void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = new UrlExpirationScheduler(shortUrlRepository, requestDataRepository, urlChangeRepository,
+                transactionManager, clusterJobRunner, Shards.single(), meterRegistry, 30, 2, 0, 1);
+    }
+
+    @Test
+    public void UrlExpirationSchedulerTest_PurgeExpiredBefore_DeletesInKeysetChunks() {
+        // Arrange
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(30);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+
+        // Stub
+        when(shortUrlRepository.findExpiredIdsAfter(eq(cutoff), eq(new UUID(0L, 0L)), any(Pageable.class)))
+                .thenReturn(List.of(first, second));
+        when(shortUrlRepository.findExpiredIdsAfter(eq(cutoff), eq(second), any(Pageable.class)))
+                .thenReturn(List.of(third));
+        when(requestDataRepository.deleteByShortUrlIds(List.of(first, second))).thenReturn(4);
+        when(requestDataRepository.deleteByShortUrlIds(List.of(third))).thenReturn(1);
+
+        // Act
+        long deleted = scheduler.purgeExpiredBefore(cutoff);
+
+        // Assert
+        Assertions.assertThat(deleted).isEqualTo(3);
+        verify(shortUrlRepository, times(1)).deleteAllByIdInBatch(List.of(first, second));
+        verify(shortUrlRepository, times(1)).deleteAllByIdInBatch(List.of(third));
+        verify(urlChangeRepository, times(1)).recordDeletions(eq(List.of(first, second)), any(LocalDateTime.class));
+        verify(transactionManager, times(2)).commit(any());
+
+        Assertions.assertThat(meterRegistry.get("url.purge.deleted").tag("table", "short_url").counter().count())
+                .isEqualTo(3.0);
+        Assertions.assertThat(meterRegistry.get("url.purge.deleted").tag("table", "request_data").counter().count())
+                .isEqualTo(5.0);
+        Assertions.assertThat(meterRegistry.get("url.purge.chunks").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    public void UrlExpirationSchedulerTest_PurgeExpiredBefore_NothingExpired() {
+        // Arrange
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(30);
+
+        // Stub
+        when(shortUrlRepository.findExpiredIdsAfter(eq(cutoff), any(UUID.class), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        // Act
+        long deleted = scheduler.purgeExpiredBefore(cutoff);
+
+        // Assert
+        Assertions.assertThat(deleted).isZero();
+        verify(requestDataRepository, never()).deleteByShortUrlIds(any());
+        verify(shortUrlRepository, never()).deleteAllByIdInBatch(any());
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    public void UrlExpirationSchedulerTest_PurgeExpiredBefore_OnlyReadsOwnPartition() {
+        // Arrange
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(30);
+        UUID owned = UUID.randomUUID();
+
+        // Stub
+        when(shortUrlRepository.findExpiredIdsWithPrefixAfter(eq(cutoff), any(UUID.class), anyCollection(),
+                any(Pageable.class)))
+                .thenReturn(List.of(owned));
+
+        // Act
+        long deleted = scheduler.purgeExpiredBefore(cutoff, 1, 2, () -> true);
+
+        // Assert
+        Assertions.assertThat(deleted).isEqualTo(1);
+        verify(shortUrlRepository).findExpiredIdsWithPrefixAfter(eq(cutoff), any(UUID.class),
+                argThat(prefixes -> prefixes.size() == 32 && prefixes.contains("1") && !prefixes.contains("0")
+                        && prefixes.contains("_")),
+                any(Pageable.class));
+        verify(shortUrlRepository, never()).findExpiredIdsAfter(any(), any(), any());
+        verify(shortUrlRepository, times(1)).deleteAllByIdInBatch(List.of(owned));
+    }
+
+    @Test
+    public void UrlExpirationSchedulerTest_PurgeExpiredBefore_StopsWhenLeaseLost() {
+        // Act
+        long deleted = scheduler.purgeExpiredBefore(LocalDateTime.now(), 0, 1, () -> false);
+
+        // Assert
+        Assertions.assertThat(deleted).isZero();
+        verifyNoInteractions(shortUrlRepository, requestDataRepository);
+    }
+}
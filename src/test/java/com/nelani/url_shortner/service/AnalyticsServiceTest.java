@@ -1,38 +1,67 @@
 package com.nelani.url_shortner.service;
 
+import com.nelani.url_shortner.analytics.ClickWriter;
+import com.nelani.url_shortner.analytics.GeoBackfill;
+import com.nelani.url_shortner.analytics.GeoEnricher;
+import com.nelani.url_shortner.clicklog.ClickLog;
+import com.nelani.url_shortner.clicklog.ClickRecord;
 import com.nelani.url_shortner.dto.GeoInfo;
+import com.nelani.url_shortner.live.ClickEvent;
+import com.nelani.url_shortner.live.ClickFeedHub;
+import com.nelani.url_shortner.metrics.ShortenerMetrics;
 import com.nelani.url_shortner.model.RequestData;
 import com.nelani.url_shortner.model.ShortUrl;
 import com.nelani.url_shortner.repository.RequestDataRepository;
 import com.nelani.url_shortner.service.impl.AnalyticsService;
+import com.nelani.url_shortner.shard.Shards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 @ActiveProfiles("test")
 public class AnalyticsServiceTest {
 
-    @Mock
+    // lookupAll is the interface's default, one lookup per IP
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
     private GeoLookupService geoLookupService;
 
     @Mock
     private RequestDataRepository requestDataRepository;
 
-    @InjectMocks
+    @Mock
+    private ClickLog clickLog;
+
+    @Mock
+    private ClickFeedHub clickFeedHub;
+
+    @Mock
+    private GeoBackfill geoBackfill;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private ShortenerMetrics metrics = new ShortenerMetrics(meterRegistry);
+
+    @Spy
+    private Shards shards = Shards.single();
+
     private AnalyticsService analyticsService;
 
     private ShortUrl shortUrl;
@@ -49,6 +78,11 @@ public class AnalyticsServiceTest {
                 .build();
 
         httpServletRequest = mock(HttpServletRequest.class);
+
+        // Batching off, so each click is looked up and written on the calling thread
+        ClickWriter clickWriter = new ClickWriter(requestDataRepository, clickLog, clickFeedHub, metrics, shards);
+        analyticsService = new AnalyticsService(new GeoEnricher(geoLookupService, clickWriter, geoBackfill, metrics,
+                meterRegistry, false, 100, 200, 2000, 10000));
     }
 
     @Test
@@ -65,16 +99,21 @@ public class AnalyticsServiceTest {
         when(httpServletRequest.getHeader("User-Agent")).thenReturn(userAgent);
         when(httpServletRequest.getHeader("Referer")).thenReturn(referrer);
         when(geoLookupService.lookup(ipAddress)).thenReturn(geoInfo);
-        when(requestDataRepository.save(any(RequestData.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(requestDataRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
-        analyticsService.logRequestAsync(shortUrl, httpServletRequest);
+        analyticsService.logRequestAsync(shortUrl, shortUrl.getShortCode(), httpServletRequest);
 
         // Assert
-        ArgumentCaptor<RequestData> requestDataCaptor = ArgumentCaptor.forClass(RequestData.class);
-        verify(requestDataRepository, times(1)).save(requestDataCaptor.capture());
+        ArgumentCaptor<List<RequestData>> requestDataCaptor = ArgumentCaptor.captor();
+        verify(requestDataRepository, times(1)).saveAll(requestDataCaptor.capture());
 
-        RequestData savedData = requestDataCaptor.getValue();
+        ArgumentCaptor<ClickEvent> clickEventCaptor = ArgumentCaptor.forClass(ClickEvent.class);
+        verify(clickFeedHub, times(1)).publish(clickEventCaptor.capture());
+        Assertions.assertThat(clickEventCaptor.getValue().shortCode()).isEqualTo(shortUrl.getShortCode());
+        Assertions.assertThat(clickEventCaptor.getValue().country()).isEqualTo(geoInfo.country());
+
+        RequestData savedData = requestDataCaptor.getValue().getFirst();
         Assertions.assertThat(savedData.getShortUrl()).isEqualTo(shortUrl);
         Assertions.assertThat(savedData.getCountry()).isEqualTo(geoInfo.country());
         Assertions.assertThat(savedData.getCity()).isEqualTo(geoInfo.city());
@@ -84,6 +123,35 @@ public class AnalyticsServiceTest {
         Assertions.assertThat(savedData.getDeviceHash()).hasSize(64); // SHA-256 hex string length
     }
 
+    @Test
+    public void AnalyticsServiceTest_LogRequestAsync_AppendsToClickLogWhenEnabled() {
+        // Arrange
+        String ipAddress = "192.168.1.1";
+        GeoInfo geoInfo = new GeoInfo("South Africa", "Johannesburg");
+
+        // Stub
+        when(clickLog.isEnabled()).thenReturn(true);
+        when(httpServletRequest.getHeader("X-Forwarded-For")).thenReturn(null);
+        when(httpServletRequest.getRemoteAddr()).thenReturn(ipAddress);
+        when(httpServletRequest.getHeader("User-Agent")).thenReturn("Mozilla/5.0");
+        when(httpServletRequest.getHeader("Referer")).thenReturn(null);
+        when(geoLookupService.lookup(ipAddress)).thenReturn(geoInfo);
+
+        // Act
+        analyticsService.logRequestAsync(shortUrl, shortUrl.getShortCode(), httpServletRequest);
+
+        // Assert
+        ArgumentCaptor<ClickRecord> clickCaptor = ArgumentCaptor.forClass(ClickRecord.class);
+        verify(clickLog, times(1)).append(clickCaptor.capture());
+        verify(requestDataRepository, never()).saveAll(anyList());
+
+        ClickRecord click = clickCaptor.getValue();
+        Assertions.assertThat(click.shortUrlId()).isEqualTo(shortUrl.getId());
+        Assertions.assertThat(click.country()).isEqualTo(geoInfo.country());
+        Assertions.assertThat(click.deviceHash()).hasSize(64);
+        Assertions.assertThat(click.id()).isNotNull();
+    }
+
     @Test
     public void AnalyticsServiceTest_LogRequestAsync_SavesRequestDataWithoutGeoInfo() {
         // Arrange
@@ -97,16 +165,16 @@ public class AnalyticsServiceTest {
         when(httpServletRequest.getHeader("User-Agent")).thenReturn(userAgent);
         when(httpServletRequest.getHeader("Referer")).thenReturn(referrer);
         when(geoLookupService.lookup(ipAddress)).thenReturn(null);
-        when(requestDataRepository.save(any(RequestData.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(requestDataRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
-        analyticsService.logRequestAsync(shortUrl, httpServletRequest);
+        analyticsService.logRequestAsync(shortUrl, shortUrl.getShortCode(), httpServletRequest);
 
         // Assert
-        ArgumentCaptor<RequestData> requestDataCaptor = ArgumentCaptor.forClass(RequestData.class);
-        verify(requestDataRepository, times(1)).save(requestDataCaptor.capture());
+        ArgumentCaptor<List<RequestData>> requestDataCaptor = ArgumentCaptor.captor();
+        verify(requestDataRepository, times(1)).saveAll(requestDataCaptor.capture());
 
-        RequestData savedData = requestDataCaptor.getValue();
+        RequestData savedData = requestDataCaptor.getValue().getFirst();
         Assertions.assertThat(savedData.getShortUrl()).isEqualTo(shortUrl);
         Assertions.assertThat(savedData.getCountry()).isNull();
         Assertions.assertThat(savedData.getCity()).isNull();
@@ -127,17 +195,17 @@ public class AnalyticsServiceTest {
         when(httpServletRequest.getHeader("User-Agent")).thenReturn(userAgent);
         when(httpServletRequest.getHeader("Referer")).thenReturn(referrer);
         when(geoLookupService.lookup(ipAddress)).thenThrow(new RuntimeException("Geo lookup failed"));
-        when(requestDataRepository.save(any(RequestData.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(requestDataRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
-        analyticsService.logRequestAsync(shortUrl, httpServletRequest);
+        analyticsService.logRequestAsync(shortUrl, shortUrl.getShortCode(), httpServletRequest);
 
         // Assert
-        ArgumentCaptor<RequestData> requestDataCaptor = ArgumentCaptor.forClass(RequestData.class);
-        verify(requestDataRepository, times(1)).save(requestDataCaptor.capture());
+        ArgumentCaptor<List<RequestData>> requestDataCaptor = ArgumentCaptor.captor();
+        verify(requestDataRepository, times(1)).saveAll(requestDataCaptor.capture());
         verify(geoLookupService, times(1)).lookup(ipAddress);
 
-        RequestData savedData = requestDataCaptor.getValue();
+        RequestData savedData = requestDataCaptor.getValue().getFirst();
         Assertions.assertThat(savedData.getShortUrl()).isEqualTo(shortUrl);
         Assertions.assertThat(savedData.getCountry()).isNull();
         Assertions.assertThat(savedData.getCity()).isNull();
@@ -157,13 +225,13 @@ public class AnalyticsServiceTest {
         when(httpServletRequest.getHeader("User-Agent")).thenReturn(userAgent);
         when(httpServletRequest.getHeader("Referer")).thenReturn(referrer);
         when(geoLookupService.lookup(ipAddress)).thenReturn(geoInfo);
-        when(requestDataRepository.save(any(RequestData.class))).thenThrow(new RuntimeException("Database error"));
+        when(requestDataRepository.saveAll(anyList())).thenThrow(new RuntimeException("Database error"));
 
         // Act
-        analyticsService.logRequestAsync(shortUrl, httpServletRequest);
+        analyticsService.logRequestAsync(shortUrl, shortUrl.getShortCode(), httpServletRequest);
 
         // Assert
-        verify(requestDataRepository, times(1)).save(any(RequestData.class));
+        verify(requestDataRepository, times(1)).saveAll(anyList());
         verify(geoLookupService, times(1)).lookup(ipAddress);
         // Should not throw exception, failure is logged but not rethrown
     }
@@ -181,12 +249,12 @@ public class AnalyticsServiceTest {
         when(httpServletRequest.getHeader("X-Forwarded-For")).thenReturn(forwardedIp);
 
         // Act
-        analyticsService.logRequestAsync(shortUrl, httpServletRequest); // runs synchronously if executor overridden
+        analyticsService.logRequestAsync(shortUrl, shortUrl.getShortCode(), httpServletRequest); // runs synchronously if executor overridden
 
         // Assert
         verify(geoLookupService, times(1)).lookup(forwardedIp);
         verify(geoLookupService, never()).lookup(remoteAddr);
-        verify(requestDataRepository, times(1)).save(any(RequestData.class));
+        verify(requestDataRepository, times(1)).saveAll(anyList());
     }
 
     @Test
@@ -203,10 +271,10 @@ public class AnalyticsServiceTest {
         when(httpServletRequest.getHeader("User-Agent")).thenReturn(userAgent);
         when(httpServletRequest.getHeader("Referer")).thenReturn(referrer);
         when(geoLookupService.lookup(expectedIp)).thenReturn(geoInfo);
-        when(requestDataRepository.save(any(RequestData.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(requestDataRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
-        analyticsService.logRequestAsync(shortUrl, httpServletRequest);
+        analyticsService.logRequestAsync(shortUrl, shortUrl.getShortCode(), httpServletRequest);
 
         // Assert
         verify(geoLookupService, times(1)).lookup(expectedIp);
@@ -223,16 +291,16 @@ public class AnalyticsServiceTest {
         when(httpServletRequest.getHeader("User-Agent")).thenReturn(null);
         when(httpServletRequest.getHeader("Referer")).thenReturn(null);
         when(geoLookupService.lookup(ipAddress)).thenReturn(null);
-        when(requestDataRepository.save(any(RequestData.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(requestDataRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
-        analyticsService.logRequestAsync(shortUrl, httpServletRequest);
+        analyticsService.logRequestAsync(shortUrl, shortUrl.getShortCode(), httpServletRequest);
 
         // Assert
-        ArgumentCaptor<RequestData> requestDataCaptor = ArgumentCaptor.forClass(RequestData.class);
-        verify(requestDataRepository, times(1)).save(requestDataCaptor.capture());
+        ArgumentCaptor<List<RequestData>> requestDataCaptor = ArgumentCaptor.captor();
+        verify(requestDataRepository, times(1)).saveAll(requestDataCaptor.capture());
 
-        RequestData savedData = requestDataCaptor.getValue();
+        RequestData savedData = requestDataCaptor.getValue().getFirst();
         Assertions.assertThat(savedData.getUserAgent()).isNull();
         Assertions.assertThat(savedData.getReferrer()).isNull();
         Assertions.assertThat(savedData.getDeviceHash()).isNotNull();
@@ -250,16 +318,16 @@ public class AnalyticsServiceTest {
         when(httpServletRequest.getHeader("User-Agent")).thenReturn(userAgent);
         when(httpServletRequest.getHeader("Referer")).thenReturn(null);
         when(geoLookupService.lookup(ipAddress)).thenReturn(null);
-        when(requestDataRepository.save(any(RequestData.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(requestDataRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
-        analyticsService.logRequestAsync(shortUrl, httpServletRequest);
+        analyticsService.logRequestAsync(shortUrl, shortUrl.getShortCode(), httpServletRequest);
 
         // Assert
-        ArgumentCaptor<RequestData> requestDataCaptor = ArgumentCaptor.forClass(RequestData.class);
-        verify(requestDataRepository, times(1)).save(requestDataCaptor.capture());
+        ArgumentCaptor<List<RequestData>> requestDataCaptor = ArgumentCaptor.captor();
+        verify(requestDataRepository, times(1)).saveAll(requestDataCaptor.capture());
 
-        RequestData savedData = requestDataCaptor.getValue();
+        RequestData savedData = requestDataCaptor.getValue().getFirst();
         String deviceHash = savedData.getDeviceHash();
 
         Assertions.assertThat(deviceHash).isNotNull();
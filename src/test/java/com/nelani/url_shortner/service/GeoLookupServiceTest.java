@@ -1,75 +1,234 @@
 package com.nelani.url_shortner.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nelani.url_shortner.dto.GeoInfo;
+import com.nelani.url_shortner.metrics.ShortenerMetrics;
 import com.nelani.url_shortner.service.impl.GeoLookupServiceImpl;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.context.ActiveProfiles;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.when;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 
-@ExtendWith(MockitoExtension.class)
+/**
+ * Runs the lookups against a local HTTP server standing in for ip-api.com.
+ */
 @ActiveProfiles("test")
 public class GeoLookupServiceTest {
 
-    @Mock
-    private RestTemplate restTemplate;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
 
-    @InjectMocks
-    private GeoLookupServiceImpl geoLookupService;
+    private final ShortenerMetrics metrics = new ShortenerMetrics(meterRegistry);
+
+    // Opens after 4 lookups when half of them failed
+    private final CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+            .slidingWindowSize(4)
+            .minimumNumberOfCalls(4)
+            .failureRateThreshold(50)
+            .waitDurationInOpenState(Duration.ofMinutes(1))
+            .build());
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile int status = 200;
+    private volatile String body = "{}";
+    private volatile long delayMs;
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private HttpClient httpClient;
 
     String ipAddress = "8.8.8.8";
 
+    @BeforeEach
+    public void init() throws IOException {
+        serverThreads = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::answer);
+        server.setExecutor(serverThreads);
+        server.start();
+        httpClient = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    public void shutdown() {
+        release.countDown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+        httpClient.close();
+    }
+
     @Test
     void GeoLookupServiceTest_Lookup_ReturnsCountryAndCity() {
-        // Arrange
-        Map<String, Object> apiResponse = Map.of(
-                "status", "success",
-                "country", "South Africa",
-                "city", "Johannesburg");
-
         // Stub
-        when(restTemplate.getForObject(anyString(), eq(Map.class)))
-                .thenReturn(apiResponse);
+        body = "{\"status\":\"success\",\"country\":\"South Africa\",\"city\":\"Johannesburg\"}";
 
         // Act
-        GeoInfo result = geoLookupService.lookup(ipAddress);
+        GeoInfo result = service(8).lookup(ipAddress);
 
         // Assert
         assertEquals("South Africa", result.country());
         assertEquals("Johannesburg", result.city());
+        assertEquals(1.0, lookups("success"));
     }
 
     @Test
     void GeoLookupServiceTest_Lookup_ReturnsUnknownError_ServiceDown() {
         // Stub
-        when(restTemplate.getForObject(anyString(), eq(Map.class)))
-                .thenThrow(new RuntimeException("API down"));
+        status = 500;
 
         // Act
-        GeoInfo result = geoLookupService.lookup(ipAddress);
+        GeoInfo result = service(8).lookup(ipAddress);
 
         // Assert
         assertEquals("Unknown", result.country());
         assertEquals("Unknown", result.city());
+        assertEquals(1.0, lookups("failure"));
     }
 
     @Test
     void GeoLookupServiceTest_Lookup_ReturnsUnknownError() {
+        // Stub: slower than the request timeout
+        delayMs = 5_000;
+
         // Act
-        GeoInfo result = geoLookupService.lookup(ipAddress);
+        GeoInfo result = service(8).lookup(ipAddress);
 
         // Assert
         assertEquals("Unknown", result.country());
         assertEquals("Unknown", result.city());
+        assertEquals(1.0, lookups("failure"));
+    }
+
+    @Test
+    void GeoLookupServiceTest_Lookup_SkipsLocalIpsWithoutARequest() {
+        // Act
+        GeoInfo result = service(8).lookup("127.0.0.1");
+
+        // Assert
+        assertEquals("Unknown", result.country());
+        assertEquals(0, requests.get());
+        assertEquals(1.0, lookups("skipped"));
+    }
+
+    @Test
+    void GeoLookupServiceTest_Lookup_ShortCircuitsWhileTheProviderIsFailing() {
+        // Arrange
+        GeoLookupServiceImpl geoLookupService = service(8);
+
+        // Stub
+        status = 500;
+
+        // Act
+        for (int i = 0; i < 6; i++) {
+            geoLookupService.lookup(ipAddress);
+        }
+
+        // Assert
+        assertEquals(4, requests.get());
+        assertEquals(4.0, lookups("failure"));
+        assertEquals(2.0, lookups("short_circuited"));
+    }
+
+    @Test
+    void GeoLookupServiceTest_LookupAsync_RejectsLookupsOverTheConcurrencyLimit() {
+        // Arrange
+        GeoLookupServiceImpl geoLookupService = service(1);
+
+        // Stub: the first lookup stays in flight
+        delayMs = -1;
+        body = "{\"status\":\"success\",\"country\":\"South Africa\",\"city\":\"Johannesburg\"}";
+
+        // Act
+        CompletableFuture<GeoInfo> first = geoLookupService.lookupAsync(ipAddress);
+        GeoInfo second = geoLookupService.lookup("1.1.1.1");
+        release.countDown();
+
+        // Assert
+        assertEquals("Unknown", second.country());
+        assertEquals(1.0, lookups("rejected"));
+        assertEquals("Johannesburg", first.join().city());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void GeoLookupServiceTest_LookupAll_ResolvesABatchInOneRequest() {
+        // Stub
+        body = "[{\"status\":\"success\",\"country\":\"South Africa\",\"city\":\"Johannesburg\",\"query\":\"8.8.8.8\"},"
+                + "{\"status\":\"success\",\"country\":\"South Africa\",\"city\":\"Cape Town\",\"query\":\"1.1.1.1\"}]";
+
+        // Act
+        Map<String, GeoInfo> result = service(8).lookupAll(List.of("8.8.8.8", "1.1.1.1", "127.0.0.1"));
+
+        // Assert
+        assertEquals("Johannesburg", result.get("8.8.8.8").city());
+        assertEquals("Cape Town", result.get("1.1.1.1").city());
+        assertEquals("Unknown", result.get("127.0.0.1").country());
+        assertEquals(1, requests.get());
+        assertEquals(2.0, lookups("success"));
+    }
+
+    @Test
+    void GeoLookupServiceTest_LookupAll_LeavesOutIpsOfAFailedRequest() {
+        // Stub
+        status = 500;
+
+        // Act
+        Map<String, GeoInfo> result = service(8).lookupAll(List.of("8.8.8.8"));
+
+        // Assert
+        assertFalse(result.containsKey("8.8.8.8"));
+    }
+
+    private GeoLookupServiceImpl service(int maxConcurrent) {
+        return new GeoLookupServiceImpl(httpClient, new ObjectMapper(), circuitBreakerRegistry, metrics,
+                "http://127.0.0.1:" + server.getAddress().getPort(), 300, maxConcurrent);
+    }
+
+    private double lookups(String outcome) {
+        return meterRegistry.get("shortener.geo.lookups").tag("outcome", outcome).counter().count();
+    }
+
+    // delayMs < 0 holds the answer until the test releases it
+    private void answer(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            if (delayMs < 0) {
+                release.await(5, TimeUnit.SECONDS);
+            } else if (delayMs > 0) {
+                release.await(delayMs, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
     }
 }
@@ -0,0 +1,87 @@
+package com.nelani.url_shortner.service;
+
+import com.nelani.url_shortner.repository.JobLeaseRepository;
+import com.nelani.url_shortner.service.impl.JobLockServiceImpl;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.UUID;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2, replace = AutoConfigureTestDatabase.Replace.ANY)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ActiveProfiles("test")
+public class JobLockServiceTest {
+
+    @Autowired
+    private JobLeaseRepository jobLeaseRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JobLockService nodeA;
+    private JobLockService nodeB;
+    private String lockName;
+
+    @BeforeEach
+    public void init() {
+        nodeA = new JobLockServiceImpl(jobLeaseRepository, transactionManager, "node-a");
+        nodeB = new JobLockServiceImpl(jobLeaseRepository, transactionManager, "node-b");
+        lockName = "job-" + UUID.randomUUID();
+    }
+
+    @Test
+    public void JobLockServiceTest_TryAcquire_OnlyOneNodeWins() {
+        // Act
+        boolean acquiredByA = nodeA.tryAcquire(lockName, Duration.ofMinutes(5));
+        boolean acquiredByB = nodeB.tryAcquire(lockName, Duration.ofMinutes(5));
+
+        // Assert
+        Assertions.assertThat(acquiredByA).isTrue();
+        Assertions.assertThat(acquiredByB).isFalse();
+        Assertions.assertThat(jobLeaseRepository.findById(lockName))
+                .hasValueSatisfying(lease -> Assertions.assertThat(lease.getOwner()).isEqualTo("node-a"));
+    }
+
+    @Test
+    public void JobLockServiceTest_Release_AllowsOtherNode() {
+        // Act
+        nodeA.tryAcquire(lockName, Duration.ofMinutes(5));
+        nodeA.release(lockName);
+
+        // Assert
+        Assertions.assertThat(nodeB.tryAcquire(lockName, Duration.ofMinutes(5))).isTrue();
+        Assertions.assertThat(nodeA.renew(lockName, Duration.ofMinutes(5))).isFalse();
+    }
+
+    @Test
+    public void JobLockServiceTest_TryAcquire_TakesOverExpiredLease() throws InterruptedException {
+        // Act
+        nodeA.tryAcquire(lockName, Duration.ofMillis(1));
+        Thread.sleep(20);
+
+        // Assert
+        Assertions.assertThat(nodeB.tryAcquire(lockName, Duration.ofMinutes(5))).isTrue();
+        Assertions.assertThat(nodeA.renew(lockName, Duration.ofMinutes(5))).isFalse();
+    }
+
+    @Test
+    public void JobLockServiceTest_Renew_ExtendsHeldLease() {
+        // Act
+        nodeA.tryAcquire(lockName, Duration.ofMinutes(5));
+
+        // Assert
+        Assertions.assertThat(nodeA.renew(lockName, Duration.ofMinutes(5))).isTrue();
+        Assertions.assertThat(nodeB.renew(lockName, Duration.ofMinutes(5))).isFalse();
+    }
+}
@@ -1,10 +1,16 @@
 package com.nelani.url_shortner.service;
 
+import com.nelani.url_shortner.metrics.ShortenerMetrics;
 import com.nelani.url_shortner.model.ShortUrl;
 import com.nelani.url_shortner.repository.RequestDataRepository;
 import com.nelani.url_shortner.repository.ShortUrlRepository;
 import com.nelani.url_shortner.service.impl.AnalyticsService;
 import com.nelani.url_shortner.service.impl.RedirectionServiceImpl;
+import com.nelani.url_shortner.shard.Shards;
+import com.nelani.url_shortner.store.RedirectCache;
+import com.nelani.url_shortner.store.RedirectEntry;
+import com.nelani.url_shortner.store.RedirectStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,6 +18,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.web.server.ResponseStatusException;
@@ -37,6 +44,20 @@ public class RedirectionServiceTest {
         @Mock
         private AnalyticsService analyticsService;
 
+        @Mock
+        private RedirectStore redirectStore;
+
+        @Mock
+        private RedirectCache redirectCache;
+
+        private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        @Spy
+        private ShortenerMetrics metrics = new ShortenerMetrics(meterRegistry);
+
+        @Spy
+        private Shards shards = Shards.single();
+
         @InjectMocks
         private RedirectionServiceImpl redirectionService;
 
@@ -59,12 +80,12 @@ public class RedirectionServiceTest {
                 HttpServletRequest request = mock(HttpServletRequest.class);
 
                 // Stub
-                when(shortUrlRepository.findByShortCode(any(String.class))).thenReturn(Optional.of(shortUrl));
+                when(shortUrlRepository.findForRedirect(any(String.class))).thenReturn(Optional.of(shortUrl));
                 when(requestDataRepository.countDistinctDeviceHashes(any(UUID.class))).thenReturn(0L);
-                doNothing().when(analyticsService).logRequestAsync(any(ShortUrl.class), any(HttpServletRequest.class));
+                doNothing().when(analyticsService).logRequestAsync(any(ShortUrl.class), any(String.class), any(HttpServletRequest.class));
 
                 // Assert
-                String result = redirectionService.redirect(shortUrl.getShortCode(), request);
+                String result = redirectionService.redirect(shortUrl.getShortCode(), request).originalUrl();
                 Assertions.assertThat(result).isEqualTo(shortUrl.getOriginalUrl());
         }
 
@@ -87,7 +108,7 @@ public class RedirectionServiceTest {
                 shortUrl.setExpiresAt(LocalDateTime.now().minusDays(30));
 
                 // Stub
-                when(shortUrlRepository.findByShortCode(any(String.class))).thenReturn(Optional.of(shortUrl));
+                when(shortUrlRepository.findForRedirect(any(String.class))).thenReturn(Optional.of(shortUrl));
 
                 // Assert
                 assertThatThrownBy(() -> redirectionService.redirect(shortUrl.getShortCode(), request))
@@ -101,7 +122,7 @@ public class RedirectionServiceTest {
                 HttpServletRequest request = mock(HttpServletRequest.class);
 
                 // Stub
-                when(shortUrlRepository.findByShortCode(any(String.class))).thenReturn(Optional.of(shortUrl));
+                when(shortUrlRepository.findForRedirect(any(String.class))).thenReturn(Optional.of(shortUrl));
                 when(requestDataRepository.countDistinctDeviceHashes(any(UUID.class))).thenReturn(1L);
 
                 // Assert
@@ -109,6 +130,81 @@ public class RedirectionServiceTest {
                                 .isInstanceOf(ResponseStatusException.class)
                                 .hasMessageContaining(
                                                 "This short URL has reached its maximum number of allowed accesses.");
+                Assertions.assertThat(meterRegistry.get("shortener.redirects").tag("status", "403").counter().count())
+                                .isEqualTo(1.0);
+        }
+
+        @Test
+        public void RedirectionServiceTest_Redirect_ResolvesFromRedirectStore() {
+                // Arrange
+                HttpServletRequest request = mock(HttpServletRequest.class);
+                shortUrl.setAccessLimit(null);
+
+                // Stub
+                when(redirectStore.find(shortUrl.getShortCode())).thenReturn(Optional.of(RedirectEntry.of(shortUrl)));
+                when(shortUrlRepository.getReferenceById(shortUrl.getId())).thenReturn(shortUrl);
+
+                // Act
+                String result = redirectionService.redirect(shortUrl.getShortCode(), request).originalUrl();
+
+                // Assert
+                Assertions.assertThat(result).isEqualTo(shortUrl.getOriginalUrl());
+                verify(shortUrlRepository, never()).findByShortCode(any(String.class));
+                verify(requestDataRepository, never()).countDistinctDeviceHashes(any(UUID.class));
+                verify(analyticsService, times(1)).logRequestAsync(shortUrl, shortUrl.getShortCode(), request);
+                Assertions.assertThat(meterRegistry.get("shortener.redirects").tag("status", "302").counter().count())
+                                .isEqualTo(1.0);
+                Assertions.assertThat(meterRegistry.get("shortener.redirect.lookups").tag("source", "store").counter()
+                                .count()).isEqualTo(1.0);
+        }
+
+        @Test
+        public void RedirectionServiceTest_Redirect_NeverExpiringUrl() {
+                // Arrange
+                HttpServletRequest request = mock(HttpServletRequest.class);
+                shortUrl.setExpiresAt(null);
+                shortUrl.setAccessLimit(null);
+
+                // Stub
+                when(shortUrlRepository.findForRedirect(any(String.class))).thenReturn(Optional.of(shortUrl));
+
+                // Assert
+                String result = redirectionService.redirect(shortUrl.getShortCode(), request).originalUrl();
+                Assertions.assertThat(result).isEqualTo(shortUrl.getOriginalUrl());
+        }
+
+        @Test
+        public void RedirectionServiceTest_Redirect_ResolvesFromCacheWithoutStore() {
+                // Arrange
+                HttpServletRequest request = mock(HttpServletRequest.class);
+                shortUrl.setAccessLimit(null);
+
+                // Stub
+                when(redirectCache.get(shortUrl.getShortCode())).thenReturn(Optional.of(RedirectEntry.of(shortUrl)));
+
+                // Act
+                String result = redirectionService.redirect(shortUrl.getShortCode(), request).originalUrl();
+
+                // Assert
+                Assertions.assertThat(result).isEqualTo(shortUrl.getOriginalUrl());
+                verifyNoInteractions(redirectStore);
+                verify(shortUrlRepository, never()).findByShortCode(any(String.class));
+                verify(redirectCache, never()).put(any(RedirectEntry.class));
+        }
+
+        @Test
+        public void RedirectionServiceTest_Redirect_ExpiredInCacheWithoutDatabase() {
+                // Arrange
+                HttpServletRequest request = mock(HttpServletRequest.class);
+
+                // Stub
+                when(redirectCache.isExpired(shortUrl.getShortCode())).thenReturn(true);
+
+                // Assert
+                assertThatThrownBy(() -> redirectionService.redirect(shortUrl.getShortCode(), request))
+                                .isInstanceOf(ResponseStatusException.class)
+                                .hasMessageContaining("Short URL has expired.");
+                verifyNoInteractions(redirectStore, shortUrlRepository);
         }
 
 }
@@ -1,30 +1,57 @@
 package com.nelani.url_shortner.service;
 
+import com.nelani.url_shortner.archive.ClickArchive;
+import com.nelani.url_shortner.archive.DeviceSketch;
+import com.nelani.url_shortner.archive.StatsAccumulator;
 import com.nelani.url_shortner.dto.UrlAccessStats;
 import com.nelani.url_shortner.dto.UrlAccessStatsDTO;
+import com.nelani.url_shortner.export.ClickExporter;
+import com.nelani.url_shortner.hash.StableHash;
+import com.nelani.url_shortner.live.ClickFeedHub;
+import com.nelani.url_shortner.model.ShortUrlIdRemap;
+import com.nelani.url_shortner.model.LiveFeedMode;
 import com.nelani.url_shortner.model.SortDirection;
 import com.nelani.url_shortner.model.StatsGroupBy;
 import com.nelani.url_shortner.repository.RequestDataRepository;
+import com.nelani.url_shortner.repository.RequestDataRepositoryCustom;
+import com.nelani.url_shortner.repository.ShortUrlIdRemapRepository;
+import com.nelani.url_shortner.repository.ShortUrlRepository;
 import com.nelani.url_shortner.service.impl.RequestDataServiceImpl;
 import com.nelani.url_shortner.service.impl.UrlShortenerAlgorithm;
+import com.nelani.url_shortner.shard.Shards;
+import com.nelani.url_shortner.stats.StatsCache;
+import com.nelani.url_shortner.store.RedirectEntry;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +61,27 @@ public class RequestDataServiceTest {
         @Mock
         private RequestDataRepository requestDataRepository;
 
+        @Mock
+        private ShortUrlRepository shortUrlRepository;
+
+        @Mock
+        private ShortUrlIdRemapRepository shortUrlIdRemapRepository;
+
+        @Mock
+        private ClickArchive clickArchive;
+
+        @Mock
+        private ClickFeedHub clickFeedHub;
+
+        @Mock
+        private ClickExporter clickExporter;
+
+        @Spy
+        private StatsCache statsCache = StatsCache.disabled();
+
+        @Spy
+        private Shards shards = Shards.single();
+
         @InjectMocks
         private RequestDataServiceImpl requestDataService;
 
@@ -137,4 +185,124 @@ public class RequestDataServiceTest {
                 Assertions.assertThat(result).extracting(UrlAccessStats::getDeviceCount).contains(1L, 1L);
         }
 
+        @Test
+        public void RequestDataServiceTest_GetTopStats_MergesArchivedAndLiveStats() throws Exception {
+                // Arrange
+                UUID shortUrlId = UUID.randomUUID();
+
+                // Stub
+                when(clickArchive.hasFiles()).thenReturn(true);
+                when(clickArchive.shortUrlIds()).thenReturn(Set.of(shortUrlId));
+                when(shortUrlRepository.findRedirectEntriesByIds(List.of(shortUrlId))).thenReturn(List.of(
+                                new RedirectEntry(shortUrlId, "abc123", "https://example.com", null, null)));
+                doAnswer(invocation -> {
+                        Assertions.assertThat(invocation.<Map<UUID, String>>getArgument(1))
+                                        .containsEntry(shortUrlId, "abc123");
+                        StatsAccumulator accumulator = invocation.getArgument(2);
+                        accumulator.add("Kenya", 2, devices("device1", "device2"));
+                        accumulator.add("Ghana", 1, devices("device2"));
+                        return null;
+                }).when(clickArchive).scan(eq(StatsGroupBy.COUNTRY), anyMap(), any(StatsAccumulator.class));
+                doAnswer(invocation -> {
+                        RequestDataRepositoryCustom.DeviceCountConsumer consumer = invocation.getArgument(1);
+                        consumer.accept("Kenya", "device1", 3);
+                        consumer.accept("Nigeria", "device3", 1);
+                        return null;
+                }).when(requestDataRepository).forEachDeviceCount(eq(StatsGroupBy.COUNTRY), any());
+
+                // Act
+                var result = requestDataService.getTopStats(StatsGroupBy.COUNTRY, 0, 2, SortDirection.DESC);
+
+                // Assert
+                Assertions.assertThat(result.getTotalElements()).isEqualTo(3);
+                Assertions.assertThat(result.getContent())
+                                .extracting(UrlAccessStats::getValue, UrlAccessStats::getAccessCount,
+                                                UrlAccessStats::getDeviceCount)
+                                .containsExactly(
+                                                Assertions.tuple("Kenya", 5L, 2L),
+                                                Assertions.tuple("Ghana", 1L, 1L));
+                verify(requestDataRepository, never()).mostAccessedCountries(any(Pageable.class));
+        }
+
+        @Test
+        public void RequestDataServiceTest_GetTopStats_ResolvesArchivedIdsReplacedByTheIdMigration() throws Exception {
+                // Arrange
+                UUID oldId = UUID.randomUUID();
+                UUID newId = UUID.randomUUID();
+
+                // Stub
+                when(clickArchive.hasFiles()).thenReturn(true);
+                when(clickArchive.shortUrlIds()).thenReturn(Set.of(oldId));
+                when(shortUrlRepository.findRedirectEntriesByIds(List.of(oldId))).thenReturn(List.of());
+                when(shortUrlIdRemapRepository.findAllById(List.of(oldId)))
+                                .thenReturn(List.of(new ShortUrlIdRemap(oldId, newId)));
+                when(shortUrlRepository.findRedirectEntriesByIds(List.of(newId))).thenReturn(List.of(
+                                new RedirectEntry(newId, "abc123", "https://example.com", null, null)));
+
+                // Act
+                requestDataService.getTopStats(StatsGroupBy.URL, 0, 10, SortDirection.DESC);
+
+                // Assert
+                verify(clickArchive).scan(eq(StatsGroupBy.URL), eq(Map.of(oldId, "abc123")), any(StatsAccumulator.class));
+        }
+
+        @Test
+        public void RequestDataServiceTest_ScrollTopStats_MergesArchivedAndLiveStats() throws Exception {
+                // Stub
+                when(clickArchive.hasFiles()).thenReturn(true);
+                when(clickArchive.shortUrlIds()).thenReturn(Set.of());
+                doAnswer(invocation -> {
+                        StatsAccumulator accumulator = invocation.getArgument(2);
+                        accumulator.add("Kenya", 2, devices("device1", "device2"));
+                        accumulator.add("Ghana", 1, devices("device2"));
+                        return null;
+                }).when(clickArchive).scan(eq(StatsGroupBy.COUNTRY), anyMap(), any(StatsAccumulator.class));
+                doAnswer(invocation -> {
+                        RequestDataRepositoryCustom.DeviceCountConsumer consumer = invocation.getArgument(1);
+                        consumer.accept("Kenya", "device1", 3);
+                        consumer.accept("Nigeria", "device3", 1);
+                        return null;
+                }).when(requestDataRepository).forEachDeviceCount(eq(StatsGroupBy.COUNTRY), any());
+
+                // Act
+                var first = requestDataService.scrollTopStats(StatsGroupBy.COUNTRY, null, 2, SortDirection.DESC);
+                var second = requestDataService.scrollTopStats(StatsGroupBy.COUNTRY, first.nextCursor(), 2,
+                                SortDirection.DESC);
+
+                // Assert
+                Assertions.assertThat(first.content())
+                                .extracting(UrlAccessStats::getValue, UrlAccessStats::getAccessCount,
+                                                UrlAccessStats::getDeviceCount)
+                                .containsExactly(
+                                                Assertions.tuple("Kenya", 5L, 2L),
+                                                Assertions.tuple("Ghana", 1L, 1L));
+                Assertions.assertThat(first.hasNext()).isTrue();
+                Assertions.assertThat(second.content()).extracting(UrlAccessStats::getValue)
+                                .containsExactly("Nigeria");
+                Assertions.assertThat(second.hasNext()).isFalse();
+                verify(requestDataRepository, never()).findStatsPageAfter(any(), any(), any(), any(), anyInt());
+                verify(statsCache, times(2)).getAll(eq(StatsGroupBy.COUNTRY), eq(SortDirection.DESC), any());
+        }
+
+        @Test
+        public void RequestDataServiceTest_SubscribeToClicks_ThrowsNotFoundForUnknownShortCode() {
+                // Stub
+                when(shortUrlRepository.existsByShortCode("missing")).thenReturn(false);
+
+                // Act & Assert
+                Assertions.assertThatThrownBy(() -> requestDataService.subscribeToClicks("missing", LiveFeedMode.EVENTS))
+                                .isInstanceOf(ResponseStatusException.class)
+                                .extracting(ex -> ((ResponseStatusException) ex).getStatusCode())
+                                .isEqualTo(HttpStatus.NOT_FOUND);
+                verify(clickFeedHub, never()).subscribe(any(), any());
+        }
+
+        private static DeviceSketch devices(String... deviceHashes) {
+                DeviceSketch devices = new DeviceSketch();
+                for (String deviceHash : deviceHashes) {
+                        devices.add(StableHash.of(deviceHash));
+                }
+                return devices;
+        }
+
 }
@@ -1,15 +1,25 @@
 package com.nelani.url_shortner.service;
 
 import com.nelani.url_shortner.dto.CreateUrlDTO;
+import com.nelani.url_shortner.dto.ScrollCursor;
 import com.nelani.url_shortner.dto.UpdateUrlDTO;
 import com.nelani.url_shortner.mapper.UrlResponseMapper;
+import com.nelani.url_shortner.metrics.ShortenerMetrics;
+import com.nelani.url_shortner.model.RedirectType;
 import com.nelani.url_shortner.model.ShortUrl;
 import com.nelani.url_shortner.model.ShortUrlSortField;
 import com.nelani.url_shortner.model.SortDirection;
+import com.nelani.url_shortner.model.UrlChange;
 import com.nelani.url_shortner.repository.RequestDataRepository;
 import com.nelani.url_shortner.repository.ShortUrlRepository;
+import com.nelani.url_shortner.repository.UrlChangeRepository;
 import com.nelani.url_shortner.response.UrlResponse;
 import com.nelani.url_shortner.service.impl.UrlServiceImpl;
+import com.nelani.url_shortner.shard.Shards;
+import com.nelani.url_shortner.store.RedirectCache;
+import com.nelani.url_shortner.store.RedirectEntry;
+import com.nelani.url_shortner.store.RedirectStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,6 +27,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.*;
 import org.springframework.test.context.ActiveProfiles;
@@ -42,6 +53,23 @@ public class UrlServiceTest {
         @Mock
         private RequestDataRepository requestDataRepository;
 
+        @Mock
+        private UrlChangeRepository urlChangeRepository;
+
+        @Mock
+        private RedirectStore redirectStore;
+
+        @Mock
+        private RedirectCache redirectCache;
+
+        private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        @Spy
+        private ShortenerMetrics metrics = new ShortenerMetrics(meterRegistry);
+
+        @Spy
+        private Shards shards = Shards.single();
+
         @InjectMocks
         private UrlServiceImpl urlService;
 
@@ -159,6 +187,7 @@ public class UrlServiceTest {
 
                         // Assert
                         verify(urlRepository, times(1)).save(any(ShortUrl.class));
+                        verify(redirectStore, times(1)).put(any(RedirectEntry.class));
                         Assertions.assertThat(response.shortUrl()).isNotEmpty();
                         Assertions.assertThat(response.originalUrl()).isEqualTo(createUrlDTO.url());
                         Assertions.assertThat(response.createdAt()).isNotNull();
@@ -168,6 +197,23 @@ public class UrlServiceTest {
                 }
         }
 
+        @Test
+        public void UrlServiceTest_CreateShortUrl_RejectsPermanentRedirectWithAccessLimit() {
+                // Arrange
+                CreateUrlDTO createUrlDTO = new CreateUrlDTO(shortUrl.getOriginalUrl(), 7, 5L,
+                                RedirectType.MOVED_PERMANENTLY);
+
+                // Stub
+                when(urlRepository.existsByOriginalUrl(anyString())).thenReturn(false);
+                when(urlRepository.existsByShortCode(anyString())).thenReturn(false);
+
+                // Assert
+                assertThatThrownBy(() -> urlService.createShortUrl(createUrlDTO))
+                                .isInstanceOf(IllegalArgumentException.class)
+                                .hasMessageContaining("Permanent redirects cannot be combined with an access limit.");
+                verify(urlRepository, never()).save(any(ShortUrl.class));
+        }
+
         @Test
         public void UrlServiceTest_CreateShortUrl_ReturnsUrlExistsError() {
                 // Arrange
@@ -306,6 +352,8 @@ public class UrlServiceTest {
                 // Assert
                 verify(requestDataRepository, times(1)).deleteByShortUrl(any(ShortUrl.class));
                 verify(urlRepository, times(1)).delete(any(ShortUrl.class));
+                verify(urlChangeRepository, times(1)).save(any(UrlChange.class));
+                verify(redirectStore, times(1)).evict(anyString());
         }
 
         @Test
@@ -316,4 +364,48 @@ public class UrlServiceTest {
                                 .hasMessageContaining("Short url does not exist.");
         }
 
+        @Test
+        public void UrlServiceTest_ScrollUrls_ReturnsCursorForNextPage() {
+                // Arrange
+                ShortUrl shortUrl2 = ShortUrl.builder()
+                                .id(UUID.randomUUID())
+                                .shortCode("shortCode2")
+                                .originalUrl("https://originalUrl.com2")
+                                .accessLimit(2L)
+                                .build();
+
+                // Stub
+                when(urlRepository.findPageAfter(ShortUrlSortField.ACCESS_LIMIT, SortDirection.DESC, null, null, 2))
+                                .thenReturn(List.of(shortUrl2, shortUrl));
+                when(urlRepository.findPageAfter(ShortUrlSortField.ACCESS_LIMIT, SortDirection.DESC, 2L,
+                                shortUrl2.getId(), 2)).thenReturn(List.of(shortUrl));
+                when(requestDataRepository.countByShortUrl(any(ShortUrl.class))).thenReturn(0L);
+
+                // Act
+                var firstPage = urlService.scrollUrls(null, 1, ShortUrlSortField.ACCESS_LIMIT, SortDirection.DESC);
+                var secondPage = urlService.scrollUrls(firstPage.nextCursor(), 1, ShortUrlSortField.ACCESS_LIMIT,
+                                SortDirection.DESC);
+
+                // Assert
+                Assertions.assertThat(firstPage.hasNext()).isTrue();
+                Assertions.assertThat(firstPage.content()).extracting(UrlResponse::originalUrl)
+                                .containsExactly(shortUrl2.getOriginalUrl());
+                Assertions.assertThat(secondPage.hasNext()).isFalse();
+                Assertions.assertThat(secondPage.nextCursor()).isNull();
+                Assertions.assertThat(secondPage.content()).extracting(UrlResponse::originalUrl)
+                                .containsExactly(shortUrl.getOriginalUrl());
+        }
+
+        @Test
+        public void UrlServiceTest_ScrollUrls_RejectsCursorFromOtherSortOrder() {
+                // Arrange
+                String cursor = new ScrollCursor("urls:CREATED_AT:ASC", "2025-01-01T00:00", UUID.randomUUID().toString())
+                                .encode();
+
+                // Assert
+                assertThatThrownBy(() -> urlService.scrollUrls(cursor, 10, ShortUrlSortField.ACCESS_LIMIT,
+                                SortDirection.DESC))
+                                .isInstanceOf(IllegalArgumentException.class)
+                                .hasMessageContaining("Cursor does not match");
+        }
 }
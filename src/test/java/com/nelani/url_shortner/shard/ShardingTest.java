@@ -0,0 +1,280 @@
+package com.nelani.url_shortner.shard;
+
+import com.nelani.url_shortner.dto.CreateUrlDTO;
+import com.nelani.url_shortner.dto.UrlAccessStats;
+import com.nelani.url_shortner.model.ExportFormat;
+import com.nelani.url_shortner.model.RequestData;
+import com.nelani.url_shortner.model.ShortUrlSortField;
+import com.nelani.url_shortner.model.SortDirection;
+import com.nelani.url_shortner.model.StatsGroupBy;
+import com.nelani.url_shortner.repository.RequestDataRepository;
+import com.nelani.url_shortner.repository.ShortUrlRepository;
+import com.nelani.url_shortner.response.CursorPage;
+import com.nelani.url_shortner.response.UrlResponse;
+import com.nelani.url_shortner.schedule.UrlExpirationScheduler;
+import com.nelani.url_shortner.service.RequestDataService;
+import com.nelani.url_shortner.service.UrlService;
+import com.nelani.url_shortner.service.impl.UrlShortenerAlgorithm;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Three in-memory H2 databases are the shards, two of them active and the
+ * third configured for resharding. The schema of shards 1 and 2 is created by
+ * {@link ShardSchemaInitializer}.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shard-0;DB_CLOSE_DELAY=-1",
+        "sharding.urls=jdbc:h2:mem:shard-1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard-2;DB_CLOSE_DELAY=-1",
+        "sharding.active-shards=2",
+        "sharding.migration.batch-size=7"
+})
+@ActiveProfiles("test")
+public class ShardingTest {
+
+    private static final int URLS = 30;
+
+    @Autowired
+    private UrlService urlService;
+
+    @Autowired
+    private ShortUrlRepository shortUrlRepository;
+
+    @Autowired
+    private RequestDataRepository requestDataRepository;
+
+    @Autowired
+    private Shards shards;
+
+    @Autowired
+    private ShardMigrator shardMigrator;
+
+    @Autowired
+    private RequestDataService requestDataService;
+
+    @Autowired
+    private UrlExpirationScheduler urlExpirationScheduler;
+
+    private List<String> shortCodes;
+
+    @BeforeEach
+    public void init() throws Exception {
+        for (int shard = 0; shard < shards.configured(); shard++) {
+            try (Connection connection = shards.dataSource(shard).getConnection();
+                    Statement statement = connection.createStatement()) {
+                statement.execute("DELETE FROM request_data");
+                statement.execute("DELETE FROM short_url");
+                statement.execute("DELETE FROM url_change_log");
+            }
+        }
+
+        shortCodes = new ArrayList<>();
+        for (int i = 0; i < URLS; i++) {
+            UrlResponse created = urlService.createShortUrl(
+                    new CreateUrlDTO("https://example.com/sharded/" + i, null, null));
+            shortCodes.add(UrlShortenerAlgorithm.decode(created.shortUrl()));
+        }
+    }
+
+    @Test
+    public void ShardingTest_CreateShortUrl_StoresEachUrlOnTheShardOfItsCode() throws Exception {
+        // Assert
+        Assertions.assertThat(shards.count()).isEqualTo(2);
+        Assertions.assertThat(shards.configured()).isEqualTo(3);
+        for (String shortCode : shortCodes) {
+            Assertions.assertThat(shardsHolding(shortCode)).containsExactly(shards.shardOf(shortCode));
+        }
+        Assertions.assertThat(shortCodes.stream().map(shards::shardOf).distinct()).containsExactlyInAnyOrder(0, 1);
+        Assertions.assertThat(shardMigrator.countUrls(2)).isZero();
+    }
+
+    @Test
+    public void ShardingTest_FindForRedirect_FindsUrlsOnEveryShard() {
+        // Act & Assert
+        for (String shortCode : shortCodes) {
+            Assertions.assertThat(shards.onShardOf(shortCode, () -> shortUrlRepository.findForRedirect(shortCode)))
+                    .hasValueSatisfying(url -> Assertions.assertThat(url.getShortCode()).isEqualTo(shortCode));
+        }
+        Assertions.assertThat(shards.onShardOf("zzmissing", () -> shortUrlRepository.findForRedirect("zzmissing")))
+                .isEmpty();
+    }
+
+    @Test
+    public void ShardingTest_ViewAllUrls_MergesEveryShard() {
+        // Act
+        Page<UrlResponse> first = urlService.viewAllUrls(0, 12, ShortUrlSortField.CREATED_AT, SortDirection.DESC);
+        Page<UrlResponse> last = urlService.viewAllUrls(2, 12, ShortUrlSortField.CREATED_AT, SortDirection.DESC);
+
+        // Assert
+        Assertions.assertThat(first.getTotalElements()).isEqualTo(URLS);
+        Assertions.assertThat(first.getContent()).hasSize(12);
+        Assertions.assertThat(last.getContent()).hasSize(URLS - 24);
+        Assertions.assertThat(first.getContent())
+                .extracting(UrlResponse::createdAt)
+                .isSortedAccordingTo((a, b) -> b.compareTo(a));
+    }
+
+    @Test
+    public void ShardingTest_ViewAllUrls_RejectsDeepOffsetPages() {
+        // Act & Assert
+        Assertions.assertThatThrownBy(() -> urlService.viewAllUrls(Integer.MAX_VALUE, 100,
+                        ShortUrlSortField.CREATED_AT, SortDirection.DESC))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("/api/urls/scroll");
+    }
+
+    @Test
+    public void ShardingTest_ScrollUrls_VisitsEveryUrlOnce() {
+        // Arrange
+        Set<String> seen = new HashSet<>();
+        String cursor = null;
+
+        // Act
+        CursorPage<UrlResponse> page;
+        do {
+            page = urlService.scrollUrls(cursor, 7, ShortUrlSortField.CREATED_AT, SortDirection.ASC);
+            page.content().forEach(url -> Assertions.assertThat(seen.add(url.shortUrl())).isTrue());
+            cursor = page.nextCursor();
+        } while (page.hasNext());
+
+        // Assert
+        Assertions.assertThat(seen).hasSize(URLS);
+    }
+
+    @Test
+    public void ShardingTest_CopyAndPurge_MovesUrlsAndClicksToTheirShardInTheNewRing() throws Exception {
+        // Arrange
+        ShortCodeShards two = new ShortCodeShards(2);
+        ShortCodeShards three = new ShortCodeShards(3);
+        addOneClickPerUrl();
+        long moving = shortCodes.stream().filter(code -> three.shardOf(code) == 2).count();
+
+        // Act
+        ShardMigrator.Result copied = shardMigrator.copy(two, three);
+        ShardMigrator.Result copiedAgain = shardMigrator.copy(two, three);
+        ShardMigrator.Result purged = shardMigrator.purge(three);
+
+        // Assert
+        Assertions.assertThat(copied.urls()).isEqualTo(moving);
+        Assertions.assertThat(copied.clicks()).isEqualTo(moving);
+        Assertions.assertThat(copiedAgain).isEqualTo(new ShardMigrator.Result(0, 0));
+        Assertions.assertThat(purged).isEqualTo(copied);
+        for (String shortCode : shortCodes) {
+            Assertions.assertThat(shardsHolding(shortCode)).containsExactly(three.shardOf(shortCode));
+        }
+        Assertions.assertThat(shardMigrator.countUrls(0) + shardMigrator.countUrls(1) + shardMigrator.countUrls(2))
+                .isEqualTo(URLS);
+    }
+
+    @Test
+    public void ShardingTest_GetTopStats_MergesClicksOfEveryShard() {
+        // Arrange
+        addOneClickPerUrl();
+
+        // Act
+        Page<UrlAccessStats> top = requestDataService.getTopStats(StatsGroupBy.URL, 0, 100, SortDirection.DESC);
+        List<UrlAccessStats> scrolled = new ArrayList<>();
+        String cursor = null;
+        CursorPage<UrlAccessStats> page;
+        do {
+            page = requestDataService.scrollTopStats(StatsGroupBy.URL, cursor, 7, SortDirection.DESC);
+            scrolled.addAll(page.content());
+            cursor = page.nextCursor();
+        } while (page.hasNext());
+
+        // Assert
+        Assertions.assertThat(top.getTotalElements()).isEqualTo(URLS);
+        Assertions.assertThat(top.getContent()).extracting(UrlAccessStats::getAccessCount).containsOnly(1L);
+        Assertions.assertThat(scrolled).extracting(UrlAccessStats::getValue)
+                .containsExactlyElementsOf(top.getContent().stream().map(UrlAccessStats::getValue).toList());
+    }
+
+    @Test
+    public void ShardingTest_ExportClicks_ReadsTheShardOfTheCode() throws Exception {
+        // Arrange
+        addOneClickPerUrl();
+        String shortCode = shortCodes.stream().filter(code -> shards.shardOf(code) == 1).findFirst().orElseThrow();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        requestDataService.exportClicks(shortCode, null, null, ExportFormat.NDJSON).writeTo(out);
+
+        // Assert
+        Assertions.assertThat(out.toString(StandardCharsets.UTF_8).lines())
+                .singleElement()
+                .satisfies(line -> Assertions.assertThat(line).contains("device-" + shortCode));
+    }
+
+    @Test
+    public void ShardingTest_PurgeExpiredBefore_PurgesEveryShardAndLogsOnTheHomeShard() throws Exception {
+        // Arrange
+        for (int shard = 0; shard < shards.count(); shard++) {
+            try (Connection connection = shards.dataSource(shard).getConnection();
+                    PreparedStatement statement = connection.prepareStatement("UPDATE short_url SET expires_at = ?")) {
+                statement.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now().minusDays(1)));
+                statement.executeUpdate();
+            }
+        }
+
+        // Act
+        long deleted = urlExpirationScheduler.purgeExpiredBefore(LocalDateTime.now());
+
+        // Assert
+        Assertions.assertThat(deleted).isEqualTo(URLS);
+        for (String shortCode : shortCodes) {
+            Assertions.assertThat(shardsHolding(shortCode)).isEmpty();
+        }
+        try (Connection connection = shards.dataSource(0).getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery(
+                        "SELECT COUNT(*) FROM url_change_log WHERE change_type = 'DELETED'")) {
+            rs.next();
+            Assertions.assertThat(rs.getLong(1)).isEqualTo(URLS);
+        }
+    }
+
+    private void addOneClickPerUrl() {
+        for (String shortCode : shortCodes) {
+            shards.onShardOf(shortCode, () -> requestDataRepository.save(RequestData.builder()
+                    .shortUrl(shortUrlRepository.findByShortCode(shortCode).orElseThrow())
+                    .deviceHash("device-" + shortCode)
+                    .build()));
+        }
+    }
+
+    private List<Integer> shardsHolding(String shortCode) throws Exception {
+        final List<Integer> holding = new ArrayList<>();
+        for (int shard = 0; shard < shards.configured(); shard++) {
+            try (Connection connection = shards.dataSource(shard).getConnection();
+                    PreparedStatement statement = connection.prepareStatement(
+                            "SELECT COUNT(*) FROM short_url WHERE short_code = ?")) {
+                statement.setString(1, shortCode);
+                try (ResultSet rs = statement.executeQuery()) {
+                    rs.next();
+                    if (rs.getLong(1) > 0) {
+                        holding.add(shard);
+                    }
+                }
+            }
+        }
+        return holding;
+    }
+}
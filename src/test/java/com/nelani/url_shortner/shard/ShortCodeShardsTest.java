@@ -0,0 +1,61 @@
+package com.nelani.url_shortner.shard;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+@ActiveProfiles("test")
+public class ShortCodeShardsTest {
+
+    @Test
+    public void ShortCodeShardsTest_BucketOf_ReadsTheFirstTwoCharactersAsBase62() {
+        // Act & Assert
+        Assertions.assertThat(ShortCodeShards.bucketOf("00abc")).isEqualTo(0);
+        Assertions.assertThat(ShortCodeShards.bucketOf("01abc")).isEqualTo(1);
+        Assertions.assertThat(ShortCodeShards.bucketOf("10abc")).isEqualTo(62);
+        Assertions.assertThat(ShortCodeShards.bucketOf("zzabc")).isEqualTo(ShortCodeShards.BUCKETS - 1);
+        Assertions.assertThat(ShortCodeShards.bucketOf("a")).isEqualTo(ShortCodeShards.bucketOf("a0"));
+        Assertions.assertThat(ShortCodeShards.bucketOf("my-link"))
+                .isEqualTo(ShortCodeShards.bucketOf("my-link"))
+                .isBetween(0, ShortCodeShards.BUCKETS - 1);
+    }
+
+    @Test
+    public void ShortCodeShardsTest_ShardOf_DependsOnlyOnThePrefix() {
+        // Arrange
+        ShortCodeShards ring = new ShortCodeShards(4);
+
+        // Act & Assert
+        Assertions.assertThat(ring.shardOf("aB12345")).isEqualTo(ring.shardOf("aBzzzzz"));
+        Assertions.assertThat(new ShortCodeShards(4).shardOf("aB12345")).isEqualTo(ring.shardOf("aB12345"));
+    }
+
+    @Test
+    public void ShortCodeShardsTest_Buckets_SpreadEvenly() {
+        // Arrange
+        ShortCodeShards ring = new ShortCodeShards(4);
+        int fair = ShortCodeShards.BUCKETS / 4;
+
+        // Act & Assert
+        for (int shard = 0; shard < 4; shard++) {
+            Assertions.assertThat(ring.bucketsOf(shard)).isBetween(fair * 3 / 4, fair * 5 / 4);
+        }
+    }
+
+    @Test
+    public void ShortCodeShardsTest_MovesTo_OnlyMovesBucketsToTheAddedShard() {
+        // Arrange
+        ShortCodeShards four = new ShortCodeShards(4);
+        ShortCodeShards five = new ShortCodeShards(5);
+
+        // Act
+        List<ShortCodeShards.Move> moves = four.movesTo(five);
+
+        // Assert
+        Assertions.assertThat(moves).allSatisfy(move -> Assertions.assertThat(move.to()).isEqualTo(4));
+        Assertions.assertThat(moves).hasSize(five.bucketsOf(4));
+        Assertions.assertThat(moves.size()).isBetween(ShortCodeShards.BUCKETS / 8, ShortCodeShards.BUCKETS / 3);
+    }
+}
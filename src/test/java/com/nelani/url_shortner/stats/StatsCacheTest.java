@@ -0,0 +1,147 @@
+package com.nelani.url_shortner.stats;
+
+import com.nelani.url_shortner.dto.UrlAccessStats;
+import com.nelani.url_shortner.dto.UrlAccessStatsDTO;
+import com.nelani.url_shortner.model.SortDirection;
+import com.nelani.url_shortner.model.StatsGroupBy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+public class StatsCacheTest {
+
+    // Start of a 5s bucket
+    private static final long START = 1_000_000L;
+
+    private static final StatsCache.Key KEY = new StatsCache.Key(StatsGroupBy.COUNTRY, 0, 10, SortDirection.DESC);
+
+    private final AtomicLong clock = new AtomicLong(START);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StatsCache cache = new StatsCache(TransactionOperations.withoutTransaction(), meterRegistry,
+            5_000, 60_000, 100, clock::get);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    public void close() {
+        cache.close();
+    }
+
+    @Test
+    public void StatsCacheTest_Get_ServesTheSamePageWithinItsBucket() {
+        // Act
+        Page<UrlAccessStats> first = cache.get(KEY, counting());
+        clock.addAndGet(4_999);
+        Page<UrlAccessStats> second = cache.get(KEY, counting());
+
+        // Assert
+        Assertions.assertThat(second).isSameAs(first);
+        Assertions.assertThat(loads.get()).isEqualTo(1);
+        Assertions.assertThat(meterRegistry.get("stats.cache.requests").tag("result", "hit").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    public void StatsCacheTest_Get_ServesAStalePageWhileOneThreadRecomputesIt() throws Exception {
+        // Arrange
+        Page<UrlAccessStats> first = cache.get(KEY, counting());
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<Page<UrlAccessStats>> slow = () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return counting().get();
+        };
+        clock.addAndGet(5_000);
+
+        // Act
+        List<Page<UrlAccessStats>> stale = List.of(cache.get(KEY, slow), cache.get(KEY, slow), cache.get(KEY, slow));
+        release.countDown();
+
+        // Assert
+        Assertions.assertThat(stale).allSatisfy(page -> Assertions.assertThat(page).isSameAs(first));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cache.get(KEY, slow) == first && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertThat(cache.get(KEY, counting())).isNotSameAs(first);
+        Assertions.assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void StatsCacheTest_Get_RecomputesPagesTooOldToServe() {
+        // Arrange
+        Page<UrlAccessStats> first = cache.get(KEY, counting());
+        clock.addAndGet(60_000);
+
+        // Act
+        Page<UrlAccessStats> second = cache.get(KEY, counting());
+
+        // Assert
+        Assertions.assertThat(second).isNotSameAs(first);
+        Assertions.assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void StatsCacheTest_Get_LoadsAMissOnceForConcurrentCallers() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<Page<UrlAccessStats>> slow = () -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return counting().get();
+        };
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+
+        try {
+            // Act
+            Future<Page<UrlAccessStats>> first = callers.submit(() -> cache.get(KEY, slow));
+            started.await(5, TimeUnit.SECONDS);
+            Future<Page<UrlAccessStats>> second = callers.submit(() -> cache.get(KEY, slow));
+            Thread.sleep(100);
+            release.countDown();
+
+            // Assert
+            Assertions.assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(first.get(5, TimeUnit.SECONDS));
+            Assertions.assertThat(loads.get()).isEqualTo(1);
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void StatsCacheTest_Get_StaysWithinMaxEntries() {
+        // Act
+        for (int page = 0; page < 250; page++) {
+            cache.get(new StatsCache.Key(StatsGroupBy.CITY, page, 10, SortDirection.DESC), counting());
+        }
+
+        // Assert
+        Assertions.assertThat(cache.size()).isLessThanOrEqualTo(100);
+    }
+
+    private Supplier<Page<UrlAccessStats>> counting() {
+        return () -> new PageImpl<>(List.of(new UrlAccessStatsDTO("South Africa", loads.incrementAndGet(), 1L)));
+    }
+}
@@ -0,0 +1,92 @@
+package com.nelani.url_shortner.store;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Disk size, build time and lookup latency of the mapped redirect store. Sizes
+ * default to one million entries; pass more with
+ * {@code -Dredirect.store.benchmark.sizes=1000000,10000000,50000000} (50M needs
+ * about 6 GB of free disk and page cache).
+ *
+ * Run with: mvn test -Pperformance -Dtest=MappedRedirectStoreBenchmarkTest
+ */
+@Tag("benchmark")
+public class MappedRedirectStoreBenchmarkTest {
+
+    private static final int LOOKUPS = 1_000_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void MappedRedirectStoreBenchmarkTest_SizeAndLatency() throws Exception {
+        long[] sizes = Arrays.stream(System.getProperty("redirect.store.benchmark.sizes", "1000000").split(","))
+                .map(String::trim)
+                .mapToLong(Long::parseLong)
+                .toArray();
+
+        System.out.println("entries      disk MB   build s   heap MB   p50 ns   p99 ns   p99.9 ns");
+        for (long size : sizes) {
+            run(size);
+        }
+    }
+
+    private void run(long entries) throws Exception {
+        Path storeDirectory = directory.resolve("store-" + entries);
+        LocalDateTime expiresAt = LocalDateTime.now().plusDays(30);
+
+        try (MappedRedirectStore store = new MappedRedirectStore(storeDirectory, (long) (entries / 0.75) + 1)) {
+            // Build
+            long heapBefore = usedHeap();
+            long start = System.nanoTime();
+            for (long i = 0; i < entries; i++) {
+                store.put(new RedirectEntry(new UUID(0L, i), code(i),
+                        "https://example.com/articles/" + i + "?utm_source=newsletter", expiresAt, null));
+            }
+            double buildSeconds = (System.nanoTime() - start) / 1e9;
+            long heapAfter = usedHeap();
+
+            // Warm-up, then timed random lookups
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < LOOKUPS; i++) {
+                store.find(code(random.nextLong(entries)));
+            }
+            long[] latencies = new long[LOOKUPS];
+            for (int i = 0; i < LOOKUPS; i++) {
+                String code = code(random.nextLong(entries));
+                long sent = System.nanoTime();
+                boolean found = store.find(code).isPresent();
+                latencies[i] = System.nanoTime() - sent;
+                Assertions.assertThat(found).isTrue();
+            }
+            Arrays.sort(latencies);
+
+            System.out.printf("%-10d %10.0f %9.1f %9.1f %8d %8d %10d%n",
+                    entries, store.diskBytes() / 1e6, buildSeconds, (heapAfter - heapBefore) / 1e6,
+                    latencies[LOOKUPS / 2], latencies[(int) (LOOKUPS * 0.99)], latencies[(int) (LOOKUPS * 0.999)]);
+            Assertions.assertThat(store.size()).isEqualTo(entries);
+        }
+    }
+
+    private static String code(long i) {
+        // Multiplying by an odd constant is a bijection, so codes are unique but scattered
+        return Long.toUnsignedString(i * 0x9E3779B97F4A7C15L, 36);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
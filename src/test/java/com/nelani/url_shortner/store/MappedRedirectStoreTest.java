@@ -0,0 +1,171 @@
+package com.nelani.url_shortner.store;
+
+import com.nelani.url_shortner.model.RedirectType;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public class MappedRedirectStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private static RedirectEntry entry(String shortCode, String url) {
+        return new RedirectEntry(UUID.randomUUID(), shortCode, url,
+                LocalDateTime.of(2030, 1, 1, 12, 0), 5L);
+    }
+
+    @Test
+    public void MappedRedirectStoreTest_PutAndFind_ReturnsEntry() throws Exception {
+        try (MappedRedirectStore store = new MappedRedirectStore(directory, 16)) {
+            // Arrange
+            RedirectEntry entry = entry("abc123", "https://example.com/é");
+            RedirectEntry neverExpires = new RedirectEntry(UUID.randomUUID(), "forever", "https://forever.com",
+                    null, null, RedirectType.PERMANENT_REDIRECT);
+
+            // Act
+            store.put(entry);
+            store.put(neverExpires);
+
+            // Assert
+            Assertions.assertThat(store.find("abc123")).contains(entry);
+            Assertions.assertThat(store.find("forever")).contains(neverExpires);
+            Assertions.assertThat(store.find("missing")).isEmpty();
+            Assertions.assertThat(store.size()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void MappedRedirectStoreTest_Put_ReplacesAndEvicts() throws Exception {
+        try (MappedRedirectStore store = new MappedRedirectStore(directory, 16)) {
+            // Act
+            store.put(entry("abc123", "https://old.com"));
+            RedirectEntry updated = entry("abc123", "https://new.com");
+            store.put(updated);
+
+            // Assert
+            Assertions.assertThat(store.find("abc123")).contains(updated);
+            Assertions.assertThat(store.size()).isEqualTo(1);
+
+            store.evict("abc123");
+            Assertions.assertThat(store.find("abc123")).isEmpty();
+            Assertions.assertThat(store.size()).isZero();
+        }
+    }
+
+    @Test
+    public void MappedRedirectStoreTest_Put_GrowsBeyondInitialCapacity() throws Exception {
+        try (MappedRedirectStore store = new MappedRedirectStore(directory, 16)) {
+            // Act
+            for (int i = 0; i < 5_000; i++) {
+                store.put(entry("code" + i, "https://example.com/" + i));
+            }
+            for (int i = 0; i < 5_000; i += 2) {
+                store.evict("code" + i);
+            }
+
+            // Assert
+            Assertions.assertThat(store.size()).isEqualTo(2_500);
+            Assertions.assertThat(store.find("code1")).hasValueSatisfying(
+                    found -> Assertions.assertThat(found.originalUrl()).isEqualTo("https://example.com/1"));
+            Assertions.assertThat(store.find("code4999")).isPresent();
+            Assertions.assertThat(store.find("code4998")).isEmpty();
+        }
+    }
+
+    @Test
+    public void MappedRedirectStoreTest_Reopen_KeepsContentAfterCleanClose() throws Exception {
+        // Arrange
+        RedirectEntry entry = entry("abc123", "https://example.com");
+        try (MappedRedirectStore store = new MappedRedirectStore(directory, 16)) {
+            store.put(entry);
+        }
+
+        // Act
+        try (MappedRedirectStore reopened = new MappedRedirectStore(directory, 16)) {
+            // Assert
+            Assertions.assertThat(reopened.needsRebuild()).isFalse();
+            Assertions.assertThat(reopened.find("abc123")).contains(entry);
+        }
+    }
+
+    @Test
+    public void MappedRedirectStoreTest_Reopen_RebuildsAnOlderFormatVersion() throws Exception {
+        // Arrange
+        try (MappedRedirectStore store = new MappedRedirectStore(directory, 16)) {
+            store.put(entry("abc123", "https://example.com"));
+        }
+        // Version 2 hashed keys with a different finalizer, its slots would not be found
+        try (FileChannel heap = FileChannel.open(directory.resolve(MappedRedirectStore.HEAP_FILE),
+                StandardOpenOption.WRITE)) {
+            heap.write(ByteBuffer.allocate(4).putInt(0, 2), 4);
+        }
+
+        // Act
+        try (MappedRedirectStore reopened = new MappedRedirectStore(directory, 16)) {
+            // Assert
+            Assertions.assertThat(reopened.needsRebuild()).isTrue();
+            Assertions.assertThat(reopened.find("abc123")).isEmpty();
+        }
+    }
+
+    @Test
+    public void MappedRedirectStoreTest_Reopen_DiscardsContentAfterCrash() throws Exception {
+        // Arrange
+        MappedRedirectStore crashed = new MappedRedirectStore(directory, 16);
+        crashed.put(entry("abc123", "https://example.com"));
+        // Simulate a process that never reached close() by copying the dirty files aside
+        Path copy = Files.createDirectories(directory.resolve("crash"));
+        Files.copy(directory.resolve(MappedRedirectStore.HEAP_FILE), copy.resolve(MappedRedirectStore.HEAP_FILE));
+        Files.copy(directory.resolve(MappedRedirectStore.INDEX_FILE), copy.resolve(MappedRedirectStore.INDEX_FILE));
+        crashed.close();
+
+        // Act
+        try (MappedRedirectStore reopened = new MappedRedirectStore(copy, 16)) {
+            // Assert
+            Assertions.assertThat(reopened.needsRebuild()).isTrue();
+            Assertions.assertThat(reopened.find("abc123")).isEmpty();
+        }
+    }
+
+    @Test
+    public void MappedRedirectStoreTest_Rebuild_ReplacesContent() throws Exception {
+        try (MappedRedirectStore store = new MappedRedirectStore(directory.resolve("store"), 16)) {
+            // Arrange
+            store.put(entry("stale", "https://stale.com"));
+            RedirectEntry fresh = entry("fresh", "https://fresh.com");
+
+            // Act
+            long loaded = store.rebuild(sink -> sink.accept(fresh));
+
+            // Assert
+            Assertions.assertThat(loaded).isEqualTo(1);
+            Assertions.assertThat(store.find("fresh")).contains(fresh);
+            Assertions.assertThat(store.find("stale")).isEmpty();
+            Assertions.assertThat(store.needsRebuild()).isFalse();
+        }
+    }
+
+    @Test
+    public void MappedRedirectStoreTest_Rebuild_LeavesOutCodesChangedMeanwhile() throws Exception {
+        try (MappedRedirectStore store = new MappedRedirectStore(directory.resolve("store"), 16)) {
+            // Act
+            store.rebuild(sink -> {
+                sink.accept(entry("changed", "https://before.com"));
+                // A concurrent update lands while the rebuild is still loading
+                store.put(entry("changed", "https://after.com"));
+            });
+
+            // Assert
+            Assertions.assertThat(store.find("changed")).isEmpty();
+        }
+    }
+}
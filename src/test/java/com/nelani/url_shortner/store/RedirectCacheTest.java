@@ -0,0 +1,159 @@
+package com.nelani.url_shortner.store;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RedirectCacheTest {
+
+    private static final long START = 1_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(START);
+    private final TimingWheel wheel = new TimingWheel(10, clock::get);
+
+    private static RedirectEntry entry(String shortCode) {
+        return entry(shortCode, RedirectEntry.NEVER_EXPIRES);
+    }
+
+    private static RedirectEntry entry(String shortCode, long expiresAtMillis) {
+        return new RedirectEntry(UUID.randomUUID(), shortCode, "https://" + shortCode + ".com", expiresAtMillis, null,
+                null);
+    }
+
+    private void advance(long millis) {
+        wheel.advanceTo(clock.addAndGet(millis));
+    }
+
+    @Test
+    public void RedirectCacheTest_Get_ReturnsPutEntryUntilEvicted() {
+        // Arrange
+        RedirectCache cache = new RedirectCache(10, 300, wheel, clock::get);
+        RedirectEntry entry = entry("abc123");
+
+        // Act
+        cache.put(entry);
+
+        // Assert
+        Assertions.assertThat(cache.get("abc123")).contains(entry);
+        cache.evict("abc123");
+        Assertions.assertThat(cache.get("abc123")).isEmpty();
+    }
+
+    @Test
+    public void RedirectCacheTest_Get_ExpiresAfterTtl() {
+        // Arrange
+        RedirectCache cache = new RedirectCache(10, 60, wheel, clock::get);
+
+        // Act
+        cache.put(entry("abc123"));
+        advance(59_000);
+
+        // Assert
+        Assertions.assertThat(cache.get("abc123")).isPresent();
+        advance(1_000);
+        Assertions.assertThat(cache.get("abc123")).isEmpty();
+        Assertions.assertThat(cache.size()).isZero();
+        Assertions.assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    public void RedirectCacheTest_Get_GoneOnceUrlExpires() {
+        // Arrange
+        RedirectCache cache = new RedirectCache(10, 300, wheel, clock::get);
+
+        // Act
+        cache.put(entry("abc123", START + 5_000));
+        advance(4_990);
+
+        // Assert
+        Assertions.assertThat(cache.get("abc123")).isPresent();
+        Assertions.assertThat(cache.isExpired("abc123")).isFalse();
+
+        advance(10);
+        Assertions.assertThat(cache.get("abc123")).isEmpty();
+        Assertions.assertThat(cache.isExpired("abc123")).isTrue();
+
+        // The gone marker is dropped with the time to live
+        advance(300_000);
+        Assertions.assertThat(cache.isExpired("abc123")).isFalse();
+        Assertions.assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void RedirectCacheTest_Put_AlreadyExpiredIsGone() {
+        // Arrange
+        RedirectCache cache = new RedirectCache(10, 300, wheel, clock::get);
+
+        // Act
+        cache.put(entry("abc123", START - 1));
+
+        // Assert
+        Assertions.assertThat(cache.get("abc123")).isEmpty();
+        Assertions.assertThat(cache.isExpired("abc123")).isTrue();
+    }
+
+    @Test
+    public void RedirectCacheTest_Put_OldTimerKeepsNewerEntry() {
+        // Arrange
+        RedirectCache cache = new RedirectCache(10, 60, wheel, clock::get);
+        RedirectEntry entry = entry("abc123");
+
+        // Act
+        cache.put(entry);
+        advance(30_000);
+        cache.evict("abc123");
+        cache.put(entry);
+        advance(30_000);
+
+        // Assert
+        Assertions.assertThat(cache.get("abc123")).contains(entry);
+    }
+
+    @Test
+    public void RedirectCacheTest_Put_CancelsTheTimersOfReplacedAndEvictedEntries() {
+        // Arrange
+        RedirectCache cache = new RedirectCache(10, 300, wheel, clock::get);
+
+        // Act
+        for (int i = 0; i < 1_000; i++) {
+            cache.put(entry("abc123"));
+        }
+        cache.put(entry("def456"));
+        cache.evict("def456");
+        advance(10);
+
+        // Assert
+        Assertions.assertThat(wheel.size()).isEqualTo(1);
+        Assertions.assertThat(cache.get("abc123")).isPresent();
+    }
+
+    @Test
+    public void RedirectCacheTest_Put_StaysWithinMaxSize() {
+        // Arrange
+        RedirectCache cache = new RedirectCache(100, 300, wheel, clock::get);
+
+        // Act
+        for (int i = 0; i < 1_000; i++) {
+            cache.put(entry("code" + i));
+        }
+
+        // Assert
+        Assertions.assertThat(cache.size()).isLessThanOrEqualTo(100);
+        Assertions.assertThat(cache.get("code999")).isPresent();
+    }
+
+    @Test
+    public void RedirectCacheTest_Put_IgnoredWhenDisabled() {
+        // Arrange
+        RedirectCache cache = new RedirectCache(0, 300, wheel, clock::get);
+
+        // Act
+        cache.put(entry("abc123"));
+
+        // Assert
+        Assertions.assertThat(cache.isEnabled()).isFalse();
+        Assertions.assertThat(cache.get("abc123")).isEmpty();
+    }
+}
@@ -0,0 +1,112 @@
+package com.nelani.url_shortner.store;
+
+import com.nelani.url_shortner.dto.UrlAccessStats;
+import com.nelani.url_shortner.repository.RequestDataRepository;
+import com.nelani.url_shortner.repository.ShortUrlRepository;
+import com.nelani.url_shortner.shard.Shards;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+public class RedirectCacheWarmerTest {
+
+    @Mock
+    private ShortUrlRepository shortUrlRepository;
+
+    @Mock
+    private RequestDataRepository requestDataRepository;
+
+    @TempDir
+    Path directory;
+
+    private static RedirectEntry entry(String shortCode) {
+        return new RedirectEntry(UUID.randomUUID(), shortCode, "https://" + shortCode + ".com", null, null);
+    }
+
+    @Test
+    public void RedirectCacheWarmerTest_WarmUp_LoadsMostAccessedCodes() {
+        // Arrange
+        RedirectCache cache = new RedirectCache(100, 300, 10);
+        RedirectCacheWarmer warmer = new RedirectCacheWarmer(cache, shortUrlRepository, requestDataRepository,
+                Shards.single(), true, 10, 10_000, "");
+        UrlAccessStats hot = mock(UrlAccessStats.class);
+
+        // Stub
+        when(hot.getValue()).thenReturn("hot");
+        when(requestDataRepository.findMostAccessedUrls(eq(10), argThat(timeout -> !timeout.isNegative()
+                && timeout.compareTo(Duration.ofSeconds(10)) <= 0))).thenReturn(List.of(hot));
+        when(shortUrlRepository.findRedirectEntriesByShortCodes(List.of("hot"))).thenReturn(List.of(entry("hot")));
+
+        // Assert
+        Assertions.assertThat(warmer.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+
+        // Act
+        int loaded = warmer.warmUp();
+
+        // Assert
+        Assertions.assertThat(loaded).isEqualTo(1);
+        Assertions.assertThat(cache.get("hot")).isPresent();
+        Assertions.assertThat(warmer.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    public void RedirectCacheWarmerTest_WarmUp_PrefersSnapshotFromLastShutdown() throws Exception {
+        // Arrange
+        Path snapshot = directory.resolve("redirect-cache.txt");
+        RedirectCache previous = new RedirectCache(100, 300, 10);
+        previous.put(entry("snap"));
+        new RedirectCacheWarmer(previous, shortUrlRepository, requestDataRepository,
+                Shards.single(), true, 10, 10_000, snapshot.toString()).writeSnapshot();
+
+        RedirectCache cache = new RedirectCache(100, 300, 10);
+        RedirectCacheWarmer warmer = new RedirectCacheWarmer(cache, shortUrlRepository, requestDataRepository,
+                Shards.single(), true, 10, 10_000, snapshot.toString());
+
+        // Stub
+        when(shortUrlRepository.findRedirectEntriesByShortCodes(List.of("snap"))).thenReturn(List.of(entry("snap")));
+
+        // Act
+        warmer.warmUp();
+
+        // Assert
+        Assertions.assertThat(Files.readAllLines(snapshot)).containsExactly("snap");
+        Assertions.assertThat(cache.get("snap")).isPresent();
+        verifyNoInteractions(requestDataRepository);
+    }
+
+    @Test
+    public void RedirectCacheWarmerTest_WarmUp_StopsAtTimeBudget() {
+        // Arrange
+        RedirectCache cache = new RedirectCache(100, 300, 10);
+        RedirectCacheWarmer warmer = new RedirectCacheWarmer(cache, shortUrlRepository, requestDataRepository,
+                Shards.single(), true, 10, 0, "");
+
+        // Act
+        int loaded = warmer.warmUp();
+
+        // Assert
+        Assertions.assertThat(loaded).isZero();
+        verify(requestDataRepository, never()).findMostAccessedUrls(anyInt(), any());
+        verify(shortUrlRepository, never()).findRedirectEntriesByShortCodes(any());
+        Assertions.assertThat(warmer.health().getStatus()).isEqualTo(Status.UP);
+    }
+}
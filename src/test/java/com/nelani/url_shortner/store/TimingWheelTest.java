@@ -0,0 +1,91 @@
+package com.nelani.url_shortner.store;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class TimingWheelTest {
+
+    @Test
+    public void TimingWheelTest_AdvanceTo_RunsTasksAtTheirDeadline() {
+        // Arrange
+        TimingWheel wheel = new TimingWheel(10, () -> 0L);
+        List<String> fired = new ArrayList<>();
+
+        // Act
+        wheel.schedule(50, () -> fired.add("near"));
+        wheel.schedule(5_000, () -> fired.add("far"));
+        wheel.schedule(-10, () -> fired.add("past"));
+
+        // Assert
+        wheel.advanceTo(0);
+        Assertions.assertThat(fired).containsExactly("past");
+        wheel.advanceTo(49);
+        Assertions.assertThat(fired).containsExactly("past");
+        wheel.advanceTo(50);
+        Assertions.assertThat(fired).containsExactly("past", "near");
+        wheel.advanceTo(4_999);
+        Assertions.assertThat(fired).containsExactly("past", "near");
+        wheel.advanceTo(5_000);
+        Assertions.assertThat(fired).containsExactly("past", "near", "far");
+        Assertions.assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    public void TimingWheelTest_AdvanceTo_CascadesAcrossAllLevels() {
+        // Arrange
+        TimingWheel wheel = new TimingWheel(1, () -> 7L);
+        Random random = new Random(42);
+        long[] deadlines = new long[2_000];
+        long[] firedAt = new long[deadlines.length];
+        long[] now = {7L};
+
+        // Spans every level and a few past the top one
+        for (int i = 0; i < deadlines.length; i++) {
+            deadlines[i] = 8 + (long) Math.pow(2, random.nextDouble() * 26);
+            final int timer = i;
+            wheel.schedule(deadlines[i], () -> firedAt[timer] = now[0]);
+        }
+
+        // Act
+        long horizon = 8 + (1L << 26);
+        while (now[0] < horizon) {
+            now[0] = Math.min(horizon, now[0] + 1 + random.nextInt(4_000));
+            wheel.advanceTo(now[0]);
+        }
+
+        // Assert
+        for (int i = 0; i < deadlines.length; i++) {
+            Assertions.assertThat(firedAt[i]).isGreaterThanOrEqualTo(deadlines[i]);
+            Assertions.assertThat(firedAt[i] - deadlines[i]).isLessThan(4_000);
+        }
+        Assertions.assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    public void TimingWheelTest_Cancel_DropsTheTimerWithoutRunningIt() {
+        // Arrange
+        TimingWheel wheel = new TimingWheel(10, () -> 0L);
+        List<String> fired = new ArrayList<>();
+        TimingWheel.Timeout placed = wheel.schedule(50, () -> fired.add("placed"));
+        wheel.schedule(50, () -> fired.add("kept"));
+        TimingWheel.Timeout alsoPlaced = wheel.schedule(50, () -> fired.add("also placed"));
+        wheel.advanceTo(0);
+        TimingWheel.Timeout pending = wheel.schedule(5_000, () -> fired.add("pending"));
+
+        // Act
+        placed.cancel();
+        alsoPlaced.cancel();
+        pending.cancel();
+        wheel.advanceTo(10);
+
+        // Assert
+        Assertions.assertThat(wheel.size()).isEqualTo(1);
+        wheel.advanceTo(5_000);
+        Assertions.assertThat(fired).containsExactly("kept");
+        Assertions.assertThat(wheel.size()).isZero();
+    }
+}